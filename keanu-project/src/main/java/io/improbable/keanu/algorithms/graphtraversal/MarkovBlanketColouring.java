@@ -0,0 +1,110 @@
+package io.improbable.keanu.algorithms.graphtraversal;
+
+import io.improbable.keanu.network.LambdaSection;
+import io.improbable.keanu.vertices.Vertex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class MarkovBlanketColouring {
+
+    private MarkovBlanketColouring() {
+    }
+
+    /**
+     * Colours vertices so that no two vertices of the same colour are in each other's Markov blanket
+     * or change the value of the same non-probabilistic vertex. The vertices of a colour are then
+     * conditionally independent given every other vertex, and can be updated at the same time.
+     * <p>
+     * Colours are given greedily, to the vertices with the most conflicts first, so the number of
+     * colours is small but not necessarily the smallest.
+     *
+     * @param vertices the vertices to colour, typically the latent vertices of a network
+     * @return the vertices of each colour, ordered by id
+     */
+    public static List<List<Vertex>> colour(Collection<? extends Vertex> vertices) {
+
+        Map<Vertex, Set<Vertex>> conflicts = getConflicts(vertices);
+
+        List<Vertex> byConflictCount = new ArrayList<>(vertices);
+        byConflictCount.sort(
+            Comparator.<Vertex>comparingInt(vertex -> conflicts.get(vertex).size()).reversed()
+                .thenComparingLong(Vertex::getId)
+        );
+
+        Map<Vertex, Integer> colours = new HashMap<>();
+        List<List<Vertex>> colourClasses = new ArrayList<>();
+
+        for (Vertex vertex : byConflictCount) {
+            Set<Integer> taken = new HashSet<>();
+            for (Vertex conflict : conflicts.get(vertex)) {
+                Integer colour = colours.get(conflict);
+                if (colour != null) {
+                    taken.add(colour);
+                }
+            }
+
+            int colour = 0;
+            while (taken.contains(colour)) {
+                colour++;
+            }
+            if (colour == colourClasses.size()) {
+                colourClasses.add(new ArrayList<>());
+            }
+
+            colours.put(vertex, colour);
+            colourClasses.get(colour).add(vertex);
+        }
+
+        for (List<Vertex> colourClass : colourClasses) {
+            colourClass.sort(Comparator.comparingLong(Vertex::getId));
+        }
+        return colourClasses;
+    }
+
+    /**
+     * Two vertices conflict if either is in the other's Markov blanket, or if they share a downstream
+     * non-probabilistic vertex that both would recalculate.
+     */
+    private static Map<Vertex, Set<Vertex>> getConflicts(Collection<? extends Vertex> vertices) {
+
+        Map<Vertex, Set<Vertex>> conflicts = new HashMap<>();
+        for (Vertex vertex : vertices) {
+            conflicts.put(vertex, new HashSet<>());
+        }
+
+        Map<Vertex, List<Vertex>> updatedBy = new HashMap<>();
+        for (Vertex<?> vertex : vertices) {
+            for (Vertex blanketVertex : MarkovBlanket.get(vertex)) {
+                if (conflicts.containsKey(blanketVertex)) {
+                    conflicts.get(vertex).add(blanketVertex);
+                    conflicts.get(blanketVertex).add(vertex);
+                }
+            }
+
+            for (Vertex downstream : LambdaSection.getDownstreamLambdaSection(vertex, true).getAllVertices()) {
+                if (downstream != vertex) {
+                    updatedBy.computeIfAbsent(downstream, v -> new ArrayList<>()).add(vertex);
+                }
+            }
+        }
+
+        for (List<Vertex> sharing : updatedBy.values()) {
+            for (Vertex first : sharing) {
+                for (Vertex second : sharing) {
+                    if (first != second) {
+                        conflicts.get(first).add(second);
+                    }
+                }
+            }
+        }
+
+        return conflicts;
+    }
+}
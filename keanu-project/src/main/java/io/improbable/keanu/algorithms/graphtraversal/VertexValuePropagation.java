@@ -1,13 +1,18 @@
 package io.improbable.keanu.algorithms.graphtraversal;
 
+import io.improbable.keanu.vertices.BranchingVertex;
 import io.improbable.keanu.vertices.Vertex;
 
 import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * This class enables efficient propagation of vertex updates.
  * Cascade is forward propagation and eval/lazyEval is backwards
  * propagation of updates.
+ * <p>
+ * Vertices that branch on a predicate or selector (see {@link BranchingVertex}) only
+ * have the parents they select evaluated.
  */
 public class VertexValuePropagation {
 
@@ -23,6 +28,9 @@ public class VertexValuePropagation {
     }
 
     /**
+     * Vertices that only feed branches that may not be selected have their values cleared
+     * rather than recalculated. They are lazily recalculated if they're needed later.
+     *
      * @param cascadeFrom A collection that contains the vertices that have been updated.
      */
     public static void cascadeUpdate(Collection<? extends Vertex> cascadeFrom) {
@@ -31,11 +39,14 @@ public class VertexValuePropagation {
         priorityQueue.addAll(cascadeFrom);
 
         HashSet<Vertex> alreadyQueued = new HashSet<>(cascadeFrom);
+        List<Vertex<?>> toUpdate = new ArrayList<>();
+        boolean hasBranches = false;
 
         while (!priorityQueue.isEmpty()) {
             Vertex<?> visiting = priorityQueue.poll();
 
-            visiting.updateValue();
+            toUpdate.add(visiting);
+            hasBranches |= visiting instanceof BranchingVertex;
 
             for (Vertex<?> child : visiting.getChildren()) {
 
@@ -45,6 +56,53 @@ public class VertexValuePropagation {
                 }
             }
         }
+
+        Set<Vertex<?>> onlyFeedingBranches = hasBranches ?
+            verticesOnlyFeedingBranches(toUpdate, new HashSet<>(cascadeFrom)) :
+            Collections.emptySet();
+
+        for (Vertex<?> vertex : onlyFeedingBranches) {
+            vertex.clearDerivedValue();
+        }
+
+        for (Vertex<?> vertex : toUpdate) {
+            if (!onlyFeedingBranches.contains(vertex)) {
+                vertex.updateValue();
+            }
+        }
+    }
+
+    /**
+     * @param toUpdate    vertices to update in the order of their ids, so children come after their parents
+     * @param cascadeFrom the vertices that have been updated
+     * @return the vertices whose only children are branching vertices that they don't select for, or
+     * other vertices like this
+     */
+    private static Set<Vertex<?>> verticesOnlyFeedingBranches(List<Vertex<?>> toUpdate, Set<Vertex> cascadeFrom) {
+        Set<Vertex<?>> onlyFeedingBranches = new HashSet<>();
+
+        for (int i = toUpdate.size() - 1; i >= 0; i--) {
+            Vertex<?> vertex = toUpdate.get(i);
+
+            if (cascadeFrom.contains(vertex) || vertex.isProbabilistic() || vertex.isObserved() || vertex.getChildren().isEmpty()) {
+                continue;
+            }
+
+            boolean feedsOnlyBranches = true;
+            for (Vertex<?> child : vertex.getChildren()) {
+                boolean isBranchOfChild = child instanceof BranchingVertex && ((BranchingVertex) child).getSelectingParent() != vertex;
+                if (!isBranchOfChild && !onlyFeedingBranches.contains(child)) {
+                    feedsOnlyBranches = false;
+                    break;
+                }
+            }
+
+            if (feedsOnlyBranches) {
+                onlyFeedingBranches.add(vertex);
+            }
+        }
+
+        return onlyFeedingBranches;
     }
 
     public static void eval(Vertex... vertices) {
@@ -59,7 +117,8 @@ public class VertexValuePropagation {
         while (!stack.isEmpty()) {
 
             Vertex<?> head = stack.peek();
-            Set<Vertex<?>> parentsThatAreNotYetCalculated = parentsThatAreNotCalculated(hasCalculated, head.getParents());
+            Set<Vertex> parents = getSelectedParents(head, hasCalculated::contains);
+            Set<Vertex<?>> parentsThatAreNotYetCalculated = parentsThatAreNotCalculated(hasCalculated, parents);
 
             if (head.isProbabilistic() || parentsThatAreNotYetCalculated.isEmpty()) {
 
@@ -98,7 +157,7 @@ public class VertexValuePropagation {
         while (!stack.isEmpty()) {
 
             Vertex<?> head = stack.peek();
-            Set<Vertex<?>> parentsThatAreNotYetCalculated = parentsThatAreNotCalculated(head.getParents());
+            Set<Vertex<?>> parentsThatAreNotYetCalculated = parentsThatAreNotCalculated(getSelectedParents(head, Vertex::hasValue));
 
             if (head.isProbabilistic() || parentsThatAreNotYetCalculated.isEmpty()) {
 
@@ -126,6 +185,30 @@ public class VertexValuePropagation {
         return notCalculatedParents;
     }
 
+    /**
+     * @param vertex the vertex to get the parents of
+     * @return the parents that the vertex's value depends on, which for a branching vertex are
+     * the selected ones. The selecting parent is evaluated if it doesn't have a value.
+     */
+    public static Set<Vertex> getSelectedParents(Vertex<?> vertex) {
+        return getSelectedParents(vertex, selectingParent -> true);
+    }
+
+    private static Set<Vertex> getSelectedParents(Vertex<?> vertex, Predicate<Vertex<?>> isCalculated) {
+        if (!(vertex instanceof BranchingVertex)) {
+            return vertex.getParents();
+        }
+
+        BranchingVertex branching = (BranchingVertex) vertex;
+        Vertex<?> selectingParent = branching.getSelectingParent();
+
+        if (isCalculated.test(selectingParent)) {
+            return branching.getSelectedParents();
+        } else {
+            return Collections.singleton(selectingParent);
+        }
+    }
+
     private static Deque<Vertex> asDeque(Iterable<? extends Vertex> vertices) {
         Deque<Vertex> stack = new ArrayDeque<>();
         for (Vertex<?> v : vertices) {
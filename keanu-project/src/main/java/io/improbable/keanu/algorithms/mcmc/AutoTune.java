@@ -0,0 +1,117 @@
+package io.improbable.keanu.algorithms.mcmc;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Tunes the step size of a Hamiltonian sampler during warmup so that its acceptance probability averages
+ * a target, using the dual averaging scheme of section 3.2 of
+ * The No-U-Turn Sampler: Adaptively Setting Path Lengths in Hamiltonian Monte Carlo
+ * https://arxiv.org/pdf/1111.4246.pdf
+ * <p>
+ * While adapting, the step size explores around the average. Once the adaptCount samples are over it is
+ * frozen to a weighted average of the step sizes it took, which converges faster than the step size itself.
+ */
+class AutoTune {
+
+    private static final double STABILISER = 10;
+    private static final double SHRINKAGE_FACTOR = 0.05;
+    private static final double TEND_TO_ZERO_EXPONENT = 0.75;
+
+    /**
+     * The starting step size search stops at these, so that a log prob that's flat or diverges
+     * everywhere can't keep it doubling or halving forever
+     */
+    private static final double MIN_STARTING_STEP_SIZE = Double.MIN_NORMAL;
+    private static final double MAX_STARTING_STEP_SIZE = 1e10;
+
+    private final double targetAcceptanceProb;
+    private final int adaptCount;
+    private double averageAcceptanceProb;
+    private double logStepSize;
+    private double logStepSizeFrozen;
+    private double shrinkageTarget;
+    private int iteration;
+
+    AutoTune(double stepSize, double targetAcceptanceProb, int adaptCount) {
+        this.targetAcceptanceProb = targetAcceptanceProb;
+        this.adaptCount = adaptCount;
+        restart(stepSize);
+    }
+
+    /**
+     * Starts the dual averaging again from a new step size, as when the metric or trajectory changes
+     *
+     * @param stepSize the step size to start from, which the averaging is shrunk towards ten times of
+     */
+    void restart(double stepSize) {
+        this.averageAcceptanceProb = 0;
+        this.logStepSize = Math.log(stepSize);
+        this.logStepSizeFrozen = Math.log(1);
+        this.shrinkageTarget = Math.log(10 * stepSize);
+        this.iteration = 0;
+    }
+
+    /**
+     * @param acceptanceProb the acceptance probability of the sample just taken
+     * @param sampleNum      the number of the sample just taken, counting from 1
+     * @return the step size for the next sample, which is frozen after the first adaptCount samples
+     */
+    double adaptStepSize(double acceptanceProb, int sampleNum) {
+        if (sampleNum <= adaptCount) {
+            iteration++;
+            double percentageLeftToTune = (1 / (iteration + STABILISER));
+            double acceptanceProbError = targetAcceptanceProb - (Double.isNaN(acceptanceProb) ? 0.0 : acceptanceProb);
+            double proportionalAcceptanceProb = (1 - percentageLeftToTune) * averageAcceptanceProb;
+            averageAcceptanceProb = proportionalAcceptanceProb + (percentageLeftToTune * acceptanceProbError);
+
+            double shrunkSampleCount = Math.sqrt(iteration) / SHRINKAGE_FACTOR;
+            logStepSize = shrinkageTarget - (shrunkSampleCount * averageAcceptanceProb);
+
+            double tendToZero = Math.pow(iteration, -TEND_TO_ZERO_EXPONENT);
+            double reducedStepSize = tendToZero * logStepSize;
+            double increasedStepSizeFrozen = (1 - tendToZero) * logStepSizeFrozen;
+            logStepSizeFrozen = reducedStepSize + increasedStepSizeFrozen;
+
+            return Math.exp(logStepSize);
+        } else {
+            return getFrozenStepSize();
+        }
+    }
+
+    /**
+     * @return the step size that's used once adaptation is over
+     */
+    double getFrozenStepSize() {
+        return Math.exp(logStepSizeFrozen);
+    }
+
+    /**
+     * Algorithm 4: Heuristic for choosing an initial value of epsilon. The step size is doubled or halved
+     * until the acceptance probability of a single leapfrog crosses 0.5. A leapfrog that diverges, which
+     * gives a ratio of NaN, is never accepted.
+     *
+     * @param logAcceptanceRatio the log of the joint probability of positions and momenta after a single
+     *                           leapfrog of the given step size, less the log of it before, always from the
+     *                           same start and momentum
+     * @return a step size to start adapting from
+     */
+    static double findStartingStepSize(DoubleUnaryOperator logAcceptanceRatio) {
+        double stepSize = 1;
+        double logRatio = logAcceptanceRatioAt(logAcceptanceRatio, stepSize);
+        double scalingFactor = logRatio > Math.log(0.5) ? 1 : -1;
+
+        while (scalingFactor * logRatio > -scalingFactor * Math.log(2)
+            && stepSize >= MIN_STARTING_STEP_SIZE && stepSize <= MAX_STARTING_STEP_SIZE) {
+
+            stepSize = stepSize * Math.pow(2, scalingFactor);
+            logRatio = logAcceptanceRatioAt(logAcceptanceRatio, stepSize);
+        }
+
+        return stepSize;
+    }
+
+    private static double logAcceptanceRatioAt(DoubleUnaryOperator logAcceptanceRatio, double stepSize) {
+        double logRatio = logAcceptanceRatio.applyAsDouble(stepSize);
+        return Double.isNaN(logRatio) ? Double.NEGATIVE_INFINITY : logRatio;
+    }
+}
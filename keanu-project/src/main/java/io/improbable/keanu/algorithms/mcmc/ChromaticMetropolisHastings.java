@@ -0,0 +1,186 @@
+package io.improbable.keanu.algorithms.mcmc;
+
+import io.improbable.keanu.algorithms.NetworkSamples;
+import io.improbable.keanu.algorithms.PosteriorSamplingAlgorithm;
+import io.improbable.keanu.algorithms.graphtraversal.MarkovBlanketColouring;
+import io.improbable.keanu.algorithms.mcmc.proposal.ProposalDistribution;
+import io.improbable.keanu.network.BayesianNetwork;
+import io.improbable.keanu.vertices.ValueStore;
+import io.improbable.keanu.vertices.Vertex;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import lombok.Builder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import static io.improbable.keanu.algorithms.mcmc.MetropolisHastings.checkBayesNetInHealthyState;
+import static io.improbable.keanu.algorithms.mcmc.MetropolisHastings.takeSamples;
+
+/**
+ * Metropolis Hastings that updates conditionally independent latent vertices at the same time.
+ * <p>
+ * The latent vertices are coloured so that no two vertices of a colour are in each other's Markov
+ * blanket (see {@link MarkovBlanketColouring}). Each sample is a sweep that updates every latent
+ * vertex once, one colour after another. The vertices of a colour are shared between the threads,
+ * each of which has its own proposal distribution and source of randomness and always gets the same
+ * share, so the samples depend on the seed and the thread count but not on how threads are scheduled.
+ * <p>
+ * While a {@link ValueStore} is in use the same updates are made on the calling thread instead.
+ */
+@Builder
+public class ChromaticMetropolisHastings implements PosteriorSamplingAlgorithm {
+
+    public static ChromaticMetropolisHastings withDefaultConfig() {
+        return withDefaultConfig(KeanuRandom.getDefaultRandom());
+    }
+
+    public static ChromaticMetropolisHastings withDefaultConfig(KeanuRandom random) {
+        return ChromaticMetropolisHastings.builder()
+            .random(random)
+            .build();
+    }
+
+    /**
+     * Makes the proposal distribution of each thread, e.g. bayesNet -&gt; ProposalDistribution.conjugateGibbs(bayesNet)
+     */
+    @Builder.Default
+    private final Function<BayesianNetwork, ProposalDistribution> proposalDistribution = bayesNet -> ProposalDistribution.usePrior();
+
+    @Builder.Default
+    private final int threadCount = Runtime.getRuntime().availableProcessors();
+
+    @Builder.Default
+    private final boolean useCacheOnRejection = true;
+
+    @Builder.Default
+    private final KeanuRandom random = KeanuRandom.getDefaultRandom();
+
+    /**
+     * @param bayesNet             a bayesian network containing latent vertices
+     * @param verticesToSampleFrom the vertices to include in the returned samples
+     * @param sampleCount          number of sweeps over every latent vertex to take a sample after
+     * @return Samples for each vertex ordered by sweep
+     */
+    @Override
+    public NetworkSamples getPosteriorSamples(final BayesianNetwork bayesNet,
+                                              final List<? extends Vertex> verticesToSampleFrom,
+                                              final int sampleCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1 but was " + threadCount);
+        }
+        checkBayesNetInHealthyState(bayesNet);
+
+        List<List<Vertex>> colourClasses = MarkovBlanketColouring.colour(bayesNet.getLatentVertices());
+        List<Worker> workers = createWorkers(bayesNet, colourClasses);
+
+        Map<Long, List<?>> samplesByVertex = new HashMap<>();
+        ExecutorService executor = threadCount > 1 && !ValueStore.isInUse() ? Executors.newFixedThreadPool(threadCount) : null;
+        try {
+            for (int sampleNum = 0; sampleNum < sampleCount; sampleNum++) {
+                for (int colour = 0; colour < colourClasses.size(); colour++) {
+                    updateColour(colour, workers, executor);
+                }
+                takeSamples(samplesByVertex, verticesToSampleFrom);
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        return new NetworkSamples(samplesByVertex, sampleCount);
+    }
+
+    /**
+     * Each thread gets a contiguous share of every colour, and its own proposal distribution and
+     * source of randomness, which are made in thread order before any sampling.
+     */
+    private List<Worker> createWorkers(BayesianNetwork bayesNet, List<List<Vertex>> colourClasses) {
+        List<Worker> workers = new ArrayList<>();
+        for (int worker = 0; worker < threadCount; worker++) {
+
+            List<List<Vertex>> shares = new ArrayList<>();
+            Set<Vertex> updated = new HashSet<>();
+            for (List<Vertex> colourClass : colourClasses) {
+                int from = worker * colourClass.size() / threadCount;
+                int to = (worker + 1) * colourClass.size() / threadCount;
+                List<Vertex> share = colourClass.subList(from, to);
+                shares.add(share);
+                updated.addAll(share);
+            }
+
+            MetropolisHastingsStep step = new MetropolisHastingsStep(
+                new ArrayList<>(updated),
+                proposalDistribution.apply(bayesNet),
+                useCacheOnRejection,
+                random.split()
+            );
+            workers.add(new Worker(step, shares));
+        }
+        return workers;
+    }
+
+    private static void updateColour(int colour, List<Worker> workers, ExecutorService executor) {
+        List<Callable<Void>> updates = new ArrayList<>();
+        for (Worker worker : workers) {
+            if (!worker.shares.get(colour).isEmpty()) {
+                updates.add(() -> {
+                    worker.update(colour);
+                    return null;
+                });
+            }
+        }
+
+        if (executor == null || updates.size() < 2) {
+            for (Worker worker : workers) {
+                worker.update(colour);
+            }
+            return;
+        }
+
+        try {
+            for (Future<Void> update : executor.invokeAll(updates)) {
+                update.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while updating vertices", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Vertex update failed", e.getCause());
+        }
+    }
+
+    private static final class Worker {
+
+        private final MetropolisHastingsStep step;
+        private final List<List<Vertex>> shares;
+
+        Worker(MetropolisHastingsStep step, List<List<Vertex>> shares) {
+            this.step = step;
+            this.shares = shares;
+        }
+
+        /**
+         * Only the change in log probability matters to a step, so each starts from zero
+         */
+        void update(int colour) {
+            for (Vertex vertex : shares.get(colour)) {
+                step.step(Collections.singleton(vertex), 0.0);
+            }
+        }
+    }
+}
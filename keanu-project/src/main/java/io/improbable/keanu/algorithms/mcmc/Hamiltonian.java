@@ -1,7 +1,6 @@
 package io.improbable.keanu.algorithms.mcmc;
 
 import io.improbable.keanu.algorithms.NetworkSamples;
-import io.improbable.keanu.algorithms.graphtraversal.VertexValuePropagation;
 import io.improbable.keanu.network.BayesianNetwork;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
 import io.improbable.keanu.vertices.Vertex;
@@ -9,6 +8,7 @@ import io.improbable.keanu.vertices.dbl.KeanuRandom;
 import io.improbable.keanu.vertices.dbl.nonprobabilistic.diff.LogProbGradient;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,9 +20,19 @@ import java.util.Map;
  * Algorithm 1: "Hamiltonian Monte Carlo".
  * The No-U-Turn Sampler: Adaptively Setting Path Lengths in Hamiltonian Monte Carlo
  * https://arxiv.org/pdf/1111.4246.pdf
+ * <p>
+ * The step size and number of leapfrogs can either be given or be tuned during warmup, see
+ * {@link #getAdaptivePosteriorSamples}.
  */
 public class Hamiltonian {
 
+    /**
+     * For a Gaussian posterior, a trajectory of a quarter of its period, pi / 2 standard deviations,
+     * takes a latent from wherever it starts to a position that's independent of it
+     */
+    private static final double QUARTER_PERIOD_PER_STANDARD_DEVIATION = Math.PI / 2;
+    private static final int MAX_LEAPFROG_COUNT = 1024;
+
     private Hamiltonian() {
     }
 
@@ -42,7 +52,7 @@ public class Hamiltonian {
                                                      final int leapFrogCount,
                                                      final double stepSize) {
 
-        return getPosteriorSamples(bayesNet, fromVertices, sampleCount, leapFrogCount, stepSize, new KeanuRandom());
+        return getPosteriorSamples(bayesNet, fromVertices, sampleCount, leapFrogCount, stepSize, KeanuRandom.getDefaultRandom());
     }
 
     public static NetworkSamples getPosteriorSamples(final BayesianNetwork bayesNet,
@@ -52,47 +62,103 @@ public class Hamiltonian {
                                                      final double stepSize,
                                                      final KeanuRandom random) {
 
+        return getPosteriorSamples(bayesNet, fromVertices, sampleCount, new Trajectory(stepSize, leapFrogCount), random);
+    }
+
+    /**
+     * Sample from the posterior of a Bayesian Network using the Hamiltonian Monte Carlo algorithm, tuning the
+     * step size and the number of leapfrogs during warmup instead of taking them as given.
+     * <p>
+     * For the first adaptCount samples the step size is tuned by dual averaging so that the acceptance
+     * probability averages targetAcceptanceProb. Over the same samples the posterior's variances are
+     * estimated, in the windows that {@link MassMatrixAdapter} uses, and at the end of each window the
+     * trajectory is set to a quarter of the period of the widest latent and the step size is found again.
+     * The number of leapfrogs is the trajectory over the step size. Both are frozen for the rest of the samples.
+     *
+     * @param bayesNet             The bayesian network to sample from
+     * @param fromVertices         the vertices to sample from
+     * @param sampleCount          the number of samples to take, including those taken during warmup
+     * @param adaptCount           the number of samples to tune for, of which a few hundred are needed for
+     *                             the trajectory to be tuned
+     * @param targetAcceptanceProb the target acceptance probability, a suggested value of this is 0.65,
+     *                             Beskos et al., 2010; Neal, 2011
+     * @param random               the source of randomness
+     * @return Samples taken with Hamiltonian Monte Carlo
+     */
+    public static NetworkSamples getAdaptivePosteriorSamples(final BayesianNetwork bayesNet,
+                                                             final List<? extends Vertex> fromVertices,
+                                                             final int sampleCount,
+                                                             final int adaptCount,
+                                                             final double targetAcceptanceProb,
+                                                             final KeanuRandom random) {
+
+        final int dimension = bayesNet.getContinuousLatentVertices().stream()
+            .mapToInt(latent -> (int) latent.getValue().getLength())
+            .sum();
+
+        return getPosteriorSamples(bayesNet, fromVertices, sampleCount, new AdaptiveTrajectory(dimension, adaptCount, targetAcceptanceProb), random);
+    }
+
+    public static NetworkSamples getAdaptivePosteriorSamples(final BayesianNetwork bayesNet,
+                                                             final List<? extends Vertex> fromVertices,
+                                                             final int sampleCount,
+                                                             final int adaptCount,
+                                                             final double targetAcceptanceProb) {
+
+        return getAdaptivePosteriorSamples(bayesNet, fromVertices, sampleCount, adaptCount, targetAcceptanceProb, KeanuRandom.getDefaultRandom());
+    }
+
+    private static NetworkSamples getPosteriorSamples(final BayesianNetwork bayesNet,
+                                                      final List<? extends Vertex> fromVertices,
+                                                      final int sampleCount,
+                                                      final Trajectory trajectory,
+                                                      final KeanuRandom random) {
+
         bayesNet.cascadeObservations();
 
         final List<Vertex<DoubleTensor>> latentVertices = bayesNet.getContinuousLatentVertices();
         final List<Vertex> probabilisticVertices = bayesNet.getLatentAndObservedVertices();
+        final LatentVector latentVector = new LatentVector(latentVertices);
 
         final Map<Long, List<?>> samples = new HashMap<>();
         addSampleFromVertices(samples, fromVertices);
 
-        Map<Long, DoubleTensor> position = new HashMap<>();
-        cachePosition(latentVertices, position);
-        Map<Long, DoubleTensor> positionBeforeLeapfrog = new HashMap<>();
+        double[] position = new double[latentVector.getLength()];
+        latentVector.readPosition(position);
+        double[] positionBeforeLeapfrog = new double[latentVector.getLength()];
 
-        Map<Long, DoubleTensor> gradient = LogProbGradient.getJointLogProbGradientWrtLatents(
-            bayesNet.getLatentAndObservedVertices()
-        );
-        Map<Long, DoubleTensor> gradientBeforeLeapfrog = new HashMap<>();
+        double[] gradient = new double[latentVector.getLength()];
+        latentVector.readGradient(LogProbGradient.getJointLogProbGradientWrtLatents(probabilisticVertices), gradient);
+        double[] gradientBeforeLeapfrog = new double[latentVector.getLength()];
 
-        final Map<Long, DoubleTensor> momentum = new HashMap<>();
-        final Map<Long, DoubleTensor> momentumBeforeLeapfrog = new HashMap<>();
+        final double[] momentum = new double[latentVector.getLength()];
+        final double[] momentumBeforeLeapfrog = new double[latentVector.getLength()];
 
         double logOfMasterPBeforeLeapfrog = bayesNet.getLogOfMasterP();
 
         final Map<Long, ?> sampleBeforeLeapfrog = new HashMap<>();
 
+        if (trajectory.isAdaptive()) {
+            trajectory.restart(findStartingStepSize(latentVector, position, gradient, logOfMasterPBeforeLeapfrog, probabilisticVertices, random));
+        }
+
         for (int sampleNum = 1; sampleNum < sampleCount; sampleNum++) {
 
-            cache(position, positionBeforeLeapfrog);
-            cache(gradient, gradientBeforeLeapfrog);
+            System.arraycopy(position, 0, positionBeforeLeapfrog, 0, position.length);
+            System.arraycopy(gradient, 0, gradientBeforeLeapfrog, 0, gradient.length);
 
-            initializeMomentumForEachVertex(latentVertices, momentum, random);
-            cache(momentum, momentumBeforeLeapfrog);
+            initializeMomentum(momentum, random);
+            System.arraycopy(momentum, 0, momentumBeforeLeapfrog, 0, momentum.length);
 
             takeSample(sampleBeforeLeapfrog, fromVertices);
 
-            for (int leapFrogNum = 0; leapFrogNum < leapFrogCount; leapFrogNum++) {
-                gradient = leapfrog(
-                    latentVertices,
+            for (int leapFrogNum = 0; leapFrogNum < trajectory.leapFrogCount; leapFrogNum++) {
+                leapfrog(
+                    latentVector,
                     position,
                     gradient,
                     momentum,
-                    stepSize,
+                    trajectory.stepSize,
                     probabilisticVertices
                 );
             }
@@ -109,7 +175,7 @@ public class Hamiltonian {
             if (shouldReject(likelihoodOfLeapfrog, random)) {
 
                 //Revert to position and gradient before leapfrog
-                Map<Long, DoubleTensor> tempSwap = position;
+                double[] tempSwap = position;
                 position = positionBeforeLeapfrog;
                 positionBeforeLeapfrog = tempSwap;
 
@@ -117,97 +183,77 @@ public class Hamiltonian {
                 gradient = gradientBeforeLeapfrog;
                 gradientBeforeLeapfrog = tempSwap;
 
+                latentVector.writePosition(position);
+
                 addSampleFromCache(samples, sampleBeforeLeapfrog);
             } else {
                 addSampleFromVertices(samples, fromVertices);
                 logOfMasterPBeforeLeapfrog = logOfMasterPAfterLeapfrog;
             }
-        }
-
-        return new NetworkSamples(samples, sampleCount);
-    }
 
-    private static void cachePosition(List<Vertex<DoubleTensor>> latentVertices, Map<Long, DoubleTensor> position) {
-        for (Vertex<DoubleTensor> vertex : latentVertices) {
-            position.put(vertex.getId(), vertex.getValue());
+            if (trajectory.adapt(sampleNum, likelihoodOfLeapfrog, position)) {
+                trajectory.restart(findStartingStepSize(latentVector, position, gradient, logOfMasterPBeforeLeapfrog, probabilisticVertices, random));
+            }
         }
-    }
 
-    private static void initializeMomentumForEachVertex(List<Vertex<DoubleTensor>> vertexes,
-                                                        Map<Long, DoubleTensor> momentums,
-                                                        KeanuRandom random) {
-        for (Vertex<DoubleTensor> currentVertex : vertexes) {
-            momentums.put(currentVertex.getId(), random.nextGaussian(currentVertex.getShape()));
-        }
+        return new NetworkSamples(samples, sampleCount);
     }
 
-    private static void cache(Map<Long, DoubleTensor> from, Map<Long, DoubleTensor> to) {
-        for (Map.Entry<Long, DoubleTensor> entry : from.entrySet()) {
-            to.put(entry.getKey(), entry.getValue());
+    private static void initializeMomentum(double[] momentum, KeanuRandom random) {
+        for (int i = 0; i < momentum.length; i++) {
+            momentum[i] = random.nextGaussian();
         }
     }
 
     /**
      * function Leapfrog(T, r)
-     * Set `r = r + (eps/2)dTL(T)
-     * Set `T = T + r`
+     * Set `r = r + (eps/2)dTL(T)
+     * Set `T = T + eps`r
      * Set `r = r` + (eps/2)dTL(`T)
      * return `T, r`
+     * <p>
+     * The position, gradient and momentum are updated in place.
      *
-     * @param latentVertices
-     * @param position
-     * @param gradient                 gradient at current position
-     * @param momentums                current vertex momentums
+     * @param latentVector          the layout of the latent vertices in the position
+     * @param position              position of the latent vertices
+     * @param gradient              gradient at current position
+     * @param momentum              current momentum
      * @param stepSize
-     * @param probabilisticVertices    all vertices that impact the joint posterior (masterP)
-     * @return the gradient at the updated position
+     * @param probabilisticVertices all vertices that impact the joint posterior (masterP)
      */
-    private static Map<Long, DoubleTensor> leapfrog(final List<Vertex<DoubleTensor>> latentVertices,
-                                                    final Map<Long, DoubleTensor> position,
-                                                    final Map<Long, DoubleTensor> gradient,
-                                                    final Map<Long, DoubleTensor> momentums,
-                                                    final double stepSize,
-                                                    final List<? extends Vertex> probabilisticVertices) {
+    private static void leapfrog(final LatentVector latentVector,
+                                 final double[] position,
+                                 final double[] gradient,
+                                 final double[] momentum,
+                                 final double stepSize,
+                                 final List<? extends Vertex> probabilisticVertices) {
 
         final double halfTimeStep = stepSize / 2.0;
 
-        Map<Long, DoubleTensor> momentumsAtHalfTimeStep = new HashMap<>();
-
         //Set `r = r + (eps/2)dTL(T)
-        for (Map.Entry<Long, DoubleTensor> vertexMomentum : momentums.entrySet()) {
-            final DoubleTensor updatedMomentum = gradient.get(vertexMomentum.getKey()).times(halfTimeStep).plusInPlace(vertexMomentum.getValue());
-            momentumsAtHalfTimeStep.put(vertexMomentum.getKey(), updatedMomentum);
-        }
-
-        //Set `T = T + `r.
-        for (Vertex<DoubleTensor> latent : latentVertices) {
-            final DoubleTensor nextPosition = momentumsAtHalfTimeStep.get(latent.getId()).times(halfTimeStep).plusInPlace(position.get(latent.getId()));
-            position.put(latent.getId(), nextPosition);
-            latent.setValue(nextPosition);
+        //Set `T = T + eps`r.
+        for (int i = 0; i < position.length; i++) {
+            momentum[i] += gradient[i] * halfTimeStep;
+            position[i] += momentum[i] * stepSize;
         }
 
-        VertexValuePropagation.cascadeUpdate(latentVertices);
+        latentVector.writePosition(position);
 
         //Set `r = `r + (eps/2)dTL(`T)
-        Map<Long, DoubleTensor> newGradient = LogProbGradient.getJointLogProbGradientWrtLatents(
-            probabilisticVertices
-        );
+        latentVector.readGradient(LogProbGradient.getJointLogProbGradientWrtLatents(probabilisticVertices), gradient);
 
-        for (Map.Entry<Long, DoubleTensor> halfTimeStepMomentum : momentumsAtHalfTimeStep.entrySet()) {
-            final DoubleTensor updatedMomentum = newGradient.get(halfTimeStepMomentum.getKey()).times(halfTimeStep).plusInPlace(halfTimeStepMomentum.getValue());
-            momentums.put(halfTimeStepMomentum.getKey(), updatedMomentum);
+        for (int i = 0; i < momentum.length; i++) {
+            momentum[i] += gradient[i] * halfTimeStep;
         }
-
-        return newGradient;
     }
 
     private static double getLikelihoodOfLeapfrog(final double logOfMasterPAfterLeapfrog,
                                                   final double previousLogOfMasterP,
-                                                  final Map<Long, DoubleTensor> leapfroggedMomentum,
-                                                  final Map<Long, DoubleTensor> momentumPreviousTimeStep) {
+                                                  final double[] leapfroggedMomentum,
+                                                  final double[] momentumPreviousTimeStep) {
 
-        final double leapFroggedMomentumDotProduct = (0.5 * dotProduct(leapfroggedMomentum));
-        final double previousMomentumDotProduct = (0.5 * dotProduct(momentumPreviousTimeStep));
+        final double leapFroggedMomentumDotProduct = (0.5 * LatentVector.dotProduct(leapfroggedMomentum));
+        final double previousMomentumDotProduct = (0.5 * LatentVector.dotProduct(momentumPreviousTimeStep));
 
         final double leapFroggedLikelihood = logOfMasterPAfterLeapfrog - leapFroggedMomentumDotProduct;
         final double previousLikelihood = previousLogOfMasterP - previousMomentumDotProduct;
@@ -218,16 +264,140 @@ public class Hamiltonian {
         return Math.min(likelihoodOfLeapfrog, 1.0);
     }
 
+    /**
+     * A leapfrog that diverged has a likelihood of NaN, which is always rejected
+     */
     private static boolean shouldReject(double likelihood, KeanuRandom random) {
-        return likelihood < random.nextDouble();
+        return !(likelihood >= random.nextDouble());
     }
 
-    private static double dotProduct(Map<Long, DoubleTensor> momentums) {
-        double dotProduct = 0.0;
-        for (DoubleTensor momentum : momentums.values()) {
-            dotProduct += momentum.pow(2).sum();
+    /**
+     * Leapfrogs with a newly drawn momentum to find a step size with {@link AutoTune#findStartingStepSize}.
+     * The position and gradient are left as they were, as are the latent vertices.
+     */
+    private static double findStartingStepSize(final LatentVector latentVector,
+                                               final double[] position,
+                                               final double[] gradient,
+                                               final double logOfMasterP,
+                                               final List<? extends Vertex> probabilisticVertices,
+                                               final KeanuRandom random) {
+        final double[] momentum = new double[position.length];
+        initializeMomentum(momentum, random);
+        final double logLikelihoodBeforeLeapfrog = logOfMasterP - 0.5 * LatentVector.dotProduct(momentum);
+
+        final double[] leapfroggedPosition = new double[position.length];
+        final double[] leapfroggedGradient = new double[position.length];
+        final double[] leapfroggedMomentum = new double[position.length];
+
+        final double stepSize = AutoTune.findStartingStepSize(leapfrogStepSize -> {
+            System.arraycopy(position, 0, leapfroggedPosition, 0, position.length);
+            System.arraycopy(gradient, 0, leapfroggedGradient, 0, gradient.length);
+            System.arraycopy(momentum, 0, leapfroggedMomentum, 0, momentum.length);
+            leapfrog(latentVector, leapfroggedPosition, leapfroggedGradient, leapfroggedMomentum, leapfrogStepSize, probabilisticVertices);
+
+            return getLogProb(probabilisticVertices) - 0.5 * LatentVector.dotProduct(leapfroggedMomentum) - logLikelihoodBeforeLeapfrog;
+        });
+
+        latentVector.writePosition(position);
+        return stepSize;
+    }
+
+    private static double getLogProb(List<? extends Vertex> probabilisticVertices) {
+        double sum = 0.0;
+        for (Vertex<?> vertex : probabilisticVertices) {
+            sum += vertex.logProbAtValue();
+        }
+        return sum;
+    }
+
+    /**
+     * The step size and number of leapfrogs of each sample, which are fixed unless it's adaptive
+     */
+    private static class Trajectory {
+
+        double stepSize;
+        int leapFrogCount;
+
+        Trajectory(double stepSize, int leapFrogCount) {
+            this.stepSize = stepSize;
+            this.leapFrogCount = leapFrogCount;
+        }
+
+        boolean isAdaptive() {
+            return false;
+        }
+
+        /**
+         * @param stepSize a step size found from the current position
+         */
+        void restart(double stepSize) {
+        }
+
+        /**
+         * @param sampleNum      the number of the sample just taken, counting from 1
+         * @param acceptanceProb the probability with which it was accepted
+         * @param position       the position it left the latents at
+         * @return true if the step size needs to be found again from the current position
+         */
+        boolean adapt(int sampleNum, double acceptanceProb, double[] position) {
+            return false;
+        }
+    }
+
+    private static class AdaptiveTrajectory extends Trajectory {
+
+        private final int adaptCount;
+        private final double targetAcceptanceProb;
+        private final MassMatrixAdapter varianceAdapter;
+        private AutoTune autoTune;
+        private double trajectoryLength = QUARTER_PERIOD_PER_STANDARD_DEVIATION;
+
+        AdaptiveTrajectory(int dimension, int adaptCount, double targetAcceptanceProb) {
+            super(1.0, 1);
+            this.adaptCount = adaptCount;
+            this.targetAcceptanceProb = targetAcceptanceProb;
+            this.varianceAdapter = new MassMatrixAdapter(MassMatrixAdaptation.DIAGONAL, dimension, adaptCount);
+        }
+
+        @Override
+        boolean isAdaptive() {
+            return true;
+        }
+
+        @Override
+        void restart(double stepSize) {
+            if (autoTune == null) {
+                autoTune = new AutoTune(stepSize, targetAcceptanceProb, adaptCount);
+            } else {
+                autoTune.restart(stepSize);
+            }
+            setStepSize(stepSize);
+        }
+
+        @Override
+        boolean adapt(int sampleNum, double acceptanceProb, double[] position) {
+            if (sampleNum > adaptCount) {
+                return false;
+            }
+
+            setStepSize(autoTune.adaptStepSize(acceptanceProb, sampleNum));
+
+            if (varianceAdapter.adapt(sampleNum - 1, position)) {
+                double maxVariance = Arrays.stream(varianceAdapter.getMassMatrix().getInverseDiagonal()).max().orElse(1.0);
+                trajectoryLength = QUARTER_PERIOD_PER_STANDARD_DEVIATION * Math.sqrt(maxVariance);
+                return true;
+            }
+
+            if (sampleNum == adaptCount) {
+                setStepSize(autoTune.getFrozenStepSize());
+            }
+            return false;
+        }
+
+        private void setStepSize(double stepSize) {
+            this.stepSize = stepSize;
+            this.leapFrogCount = (int) Math.max(1, Math.min(MAX_LEAPFROG_COUNT, Math.ceil(trajectoryLength / stepSize)));
         }
-        return dotProduct;
     }
 
     /**
@@ -0,0 +1,102 @@
+package io.improbable.keanu.algorithms.mcmc;
+
+import io.improbable.keanu.algorithms.graphtraversal.VertexValuePropagation;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.Vertex;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lays the values of continuous latent vertices end to end in one double[], in the order the
+ * vertices are given. This lets samplers that move every latent at once, like {@link Hamiltonian}
+ * and {@link NUTS}, keep their position, momentum and gradient in flat arrays that they update in
+ * place, and only go through the vertices to set a position or to read a gradient.
+ */
+class LatentVector {
+
+    private final List<Vertex<DoubleTensor>> latentVertices;
+    private final int[] offsets;
+    private final int length;
+
+    LatentVector(List<Vertex<DoubleTensor>> latentVertices) {
+        this.latentVertices = latentVertices;
+        this.offsets = new int[latentVertices.size()];
+
+        int offset = 0;
+        for (int i = 0; i < latentVertices.size(); i++) {
+            offsets[i] = offset;
+            offset += (int) latentVertices.get(i).getValue().getLength();
+        }
+        this.length = offset;
+    }
+
+    /**
+     * @return the total number of values across the latent vertices
+     */
+    int getLength() {
+        return length;
+    }
+
+    /**
+     * @param position where to write the current values of the latent vertices
+     */
+    void readPosition(double[] position) {
+        for (int i = 0; i < latentVertices.size(); i++) {
+            double[] values = latentVertices.get(i).getValue().asFlatDoubleArray();
+            System.arraycopy(values, 0, position, offsets[i], values.length);
+        }
+    }
+
+    /**
+     * Sets the latent vertices to a position and cascades the change to the vertices downstream of them
+     *
+     * @param position the values to give the latent vertices
+     */
+    void writePosition(double[] position) {
+        for (int i = 0; i < latentVertices.size(); i++) {
+            Vertex<DoubleTensor> latent = latentVertices.get(i);
+            double[] values = Arrays.copyOfRange(position, offsets[i], offsets[i] + lengthOf(i));
+            latent.setValue(DoubleTensor.create(values, latent.getShape()));
+        }
+        VertexValuePropagation.cascadeUpdate(latentVertices);
+    }
+
+    /**
+     * @param gradientById a gradient keyed by vertex id, such as one from LogProbGradient. Latent
+     *                     vertices missing from it have a gradient of zero.
+     * @param gradient     where to write the gradient with respect to the latent vertices
+     */
+    void readGradient(Map<Long, DoubleTensor> gradientById, double[] gradient) {
+        for (int i = 0; i < latentVertices.size(); i++) {
+            Vertex<DoubleTensor> latent = latentVertices.get(i);
+            DoubleTensor partial = gradientById.get(latent.getId());
+
+            if (partial == null) {
+                Arrays.fill(gradient, offsets[i], offsets[i] + lengthOf(i), 0.0);
+            } else {
+                double[] values = partial.asFlatDoubleArray();
+                if (values.length != lengthOf(i)) {
+                    throw new IllegalArgumentException(
+                        "Gradient of length " + values.length + " does not match latent " + latent.getId() + " of length " + lengthOf(i)
+                    );
+                }
+                System.arraycopy(values, 0, gradient, offsets[i], values.length);
+            }
+        }
+    }
+
+    private int lengthOf(int latentIndex) {
+        int end = latentIndex + 1 < offsets.length ? offsets[latentIndex + 1] : length;
+        return end - offsets[latentIndex];
+    }
+
+    static double dotProduct(double[] vector) {
+        double dotProduct = 0.0;
+        for (double element : vector) {
+            dotProduct += element * element;
+        }
+        return dotProduct;
+    }
+}
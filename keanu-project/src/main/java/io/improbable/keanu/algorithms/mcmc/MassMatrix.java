@@ -0,0 +1,158 @@
+package io.improbable.keanu.algorithms.mcmc;
+
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+
+import java.util.Arrays;
+
+/**
+ * The metric of a Hamiltonian sampler over a {@link LatentVector}. Momentum is drawn from N(0, M) and
+ * its kinetic energy is r' M^-1 r / 2, so the velocity of the position is M^-1 r. Only the inverse
+ * M^-1 is held, either as its diagonal or as a dense matrix.
+ */
+abstract class MassMatrix {
+
+    static MassMatrix identity(int dimension) {
+        double[] ones = new double[dimension];
+        Arrays.fill(ones, 1.0);
+        return new Diagonal(ones);
+    }
+
+    /**
+     * @param inverseDiagonal the diagonal of M^-1, which must be positive
+     */
+    static MassMatrix diagonal(double[] inverseDiagonal) {
+        return new Diagonal(inverseDiagonal);
+    }
+
+    /**
+     * @param inverse M^-1 in row major order, which must be symmetric positive definite
+     */
+    static MassMatrix dense(double[] inverse) {
+        return new Dense(inverse);
+    }
+
+    /**
+     * @param momentum where to write a momentum drawn from N(0, M)
+     * @param random   the source of randomness
+     */
+    abstract void sampleMomentum(double[] momentum, KeanuRandom random);
+
+    /**
+     * @param momentum a momentum r
+     * @param velocity where to write M^-1 r
+     */
+    abstract void velocity(double[] momentum, double[] velocity);
+
+    /**
+     * @return the diagonal of M^-1, which for a learnt mass matrix is the posterior's variances
+     */
+    abstract double[] getInverseDiagonal();
+
+    private static final class Diagonal extends MassMatrix {
+
+        private final double[] inverseDiagonal;
+        private final double[] standardDeviations;
+
+        Diagonal(double[] inverseDiagonal) {
+            this.inverseDiagonal = inverseDiagonal;
+            this.standardDeviations = new double[inverseDiagonal.length];
+            for (int i = 0; i < inverseDiagonal.length; i++) {
+                standardDeviations[i] = 1.0 / Math.sqrt(inverseDiagonal[i]);
+            }
+        }
+
+        @Override
+        void sampleMomentum(double[] momentum, KeanuRandom random) {
+            for (int i = 0; i < momentum.length; i++) {
+                momentum[i] = random.nextGaussian() * standardDeviations[i];
+            }
+        }
+
+        @Override
+        void velocity(double[] momentum, double[] velocity) {
+            for (int i = 0; i < momentum.length; i++) {
+                velocity[i] = inverseDiagonal[i] * momentum[i];
+            }
+        }
+
+        @Override
+        double[] getInverseDiagonal() {
+            return inverseDiagonal.clone();
+        }
+    }
+
+    private static final class Dense extends MassMatrix {
+
+        private final double[] inverse;
+        private final double[] choleskyOfInverse;
+        private final int dimension;
+
+        Dense(double[] inverse) {
+            this.dimension = (int) Math.round(Math.sqrt(inverse.length));
+            if (dimension * dimension != inverse.length) {
+                throw new IllegalArgumentException("Mass matrix of " + inverse.length + " elements is not square");
+            }
+            this.inverse = inverse;
+            this.choleskyOfInverse = cholesky(inverse, dimension);
+        }
+
+        /**
+         * With M^-1 = L L', r = L'^-1 z for standard normal z has covariance (L L')^-1 = M, so r is
+         * found by back substitution rather than by inverting anything.
+         */
+        @Override
+        void sampleMomentum(double[] momentum, KeanuRandom random) {
+            for (int i = 0; i < dimension; i++) {
+                momentum[i] = random.nextGaussian();
+            }
+            for (int i = dimension - 1; i >= 0; i--) {
+                double sum = momentum[i];
+                for (int k = i + 1; k < dimension; k++) {
+                    sum -= choleskyOfInverse[k * dimension + i] * momentum[k];
+                }
+                momentum[i] = sum / choleskyOfInverse[i * dimension + i];
+            }
+        }
+
+        @Override
+        void velocity(double[] momentum, double[] velocity) {
+            for (int i = 0; i < dimension; i++) {
+                double sum = 0.0;
+                for (int j = 0; j < dimension; j++) {
+                    sum += inverse[i * dimension + j] * momentum[j];
+                }
+                velocity[i] = sum;
+            }
+        }
+
+        @Override
+        double[] getInverseDiagonal() {
+            double[] diagonal = new double[dimension];
+            for (int i = 0; i < dimension; i++) {
+                diagonal[i] = inverse[i * dimension + i];
+            }
+            return diagonal;
+        }
+
+        private static double[] cholesky(double[] matrix, int n) {
+            double[] lower = new double[n * n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j <= i; j++) {
+                    double sum = matrix[i * n + j];
+                    for (int k = 0; k < j; k++) {
+                        sum -= lower[i * n + k] * lower[j * n + k];
+                    }
+                    if (i == j) {
+                        if (sum <= 0.0) {
+                            throw new IllegalArgumentException("Mass matrix is not positive definite");
+                        }
+                        lower[i * n + i] = Math.sqrt(sum);
+                    } else {
+                        lower[i * n + j] = sum / lower[j * n + j];
+                    }
+                }
+            }
+            return lower;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package io.improbable.keanu.algorithms.mcmc;
+
+/**
+ * How {@link NUTS} learns its mass matrix during warmup. The inverse of the mass matrix is an estimate
+ * of the posterior's covariance, which lets every latent move the same number of its own standard
+ * deviations each leapfrog, however differently they are scaled.
+ */
+public enum MassMatrixAdaptation {
+
+    /**
+     * Keep the identity, which suits posteriors whose latents are all of similar scale
+     */
+    NONE,
+
+    /**
+     * Learn the posterior's variances, which corrects for latents of different scales at a cost that's
+     * linear in the number of latents
+     */
+    DIAGONAL,
+
+    /**
+     * Learn the posterior's full covariance, which also corrects for correlations between latents but
+     * costs a matrix-vector product each leapfrog and needs many warmup samples when there are many latents
+     */
+    DENSE
+}
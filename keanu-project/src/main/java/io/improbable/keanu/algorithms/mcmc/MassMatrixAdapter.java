@@ -0,0 +1,159 @@
+package io.improbable.keanu.algorithms.mcmc;
+
+import java.util.Arrays;
+
+/**
+ * Learns the mass matrix of {@link NUTS} during warmup, using the windows that Stan uses. Warmup starts
+ * with a fast interval in which only the step size adapts while the sampler finds the typical set. Then
+ * comes a series of slow windows, each twice as long as the last, over which the posterior's covariance
+ * is estimated from the samples. The mass matrix is replaced at the end of each slow window, after
+ * which the step size has to be found again. Warmup ends with another fast interval in which the step
+ * size settles for the final mass matrix.
+ */
+class MassMatrixAdapter {
+
+    private static final int INITIAL_BUFFER = 75;
+    private static final int TERMINAL_BUFFER = 50;
+    private static final int BASE_WINDOW = 25;
+
+    /**
+     * Warmups shorter than this are too short to estimate anything, so the mass matrix is left as the identity
+     */
+    private static final int MIN_ADAPT_COUNT = 20;
+
+    /**
+     * Estimates are shrunk towards a small multiple of the identity, weighted as if that many samples had
+     * been taken from it, which keeps them well conditioned when the windows are short
+     */
+    private static final double SHRINKAGE_SAMPLES = 5.0;
+    private static final double SHRINKAGE_TARGET = 1e-3;
+
+    private final MassMatrixAdaptation adaptation;
+    private final int dimension;
+    private final int slowEnd;
+    private final int slowStart;
+    private int windowSize;
+    private int windowEnd;
+
+    private MassMatrix massMatrix;
+
+    private int samplesInWindow;
+    private final double[] mean;
+    private final double[] sumOfSquares;
+
+    MassMatrixAdapter(MassMatrixAdaptation adaptation, int dimension, int adaptCount) {
+        this.adaptation = adaptation;
+        this.dimension = dimension;
+        this.massMatrix = MassMatrix.identity(dimension);
+
+        if (adaptation == MassMatrixAdaptation.NONE || adaptCount < MIN_ADAPT_COUNT) {
+            this.slowStart = 0;
+            this.slowEnd = 0;
+        } else if (INITIAL_BUFFER + BASE_WINDOW + TERMINAL_BUFFER > adaptCount) {
+            this.slowStart = (int) (0.15 * adaptCount);
+            this.slowEnd = adaptCount - (int) (0.1 * adaptCount);
+        } else {
+            this.slowStart = INITIAL_BUFFER;
+            this.slowEnd = adaptCount - TERMINAL_BUFFER;
+        }
+
+        this.windowSize = Math.min(BASE_WINDOW, slowEnd - slowStart);
+        this.windowEnd = slowStart + windowSize;
+        stretchWindowIfNextWouldNotFit();
+
+        this.mean = new double[dimension];
+        this.sumOfSquares = new double[adaptation == MassMatrixAdaptation.DENSE ? dimension * dimension : dimension];
+    }
+
+    MassMatrix getMassMatrix() {
+        return massMatrix;
+    }
+
+    /**
+     * @param warmupIteration the number of warmup samples taken before this one
+     * @param position        the position of this sample
+     * @return true if this sample ended a slow window, so that the mass matrix has just changed
+     */
+    boolean adapt(int warmupIteration, double[] position) {
+        if (warmupIteration < slowStart || warmupIteration >= slowEnd) {
+            return false;
+        }
+
+        record(position);
+
+        if (warmupIteration + 1 < windowEnd) {
+            return false;
+        }
+
+        massMatrix = estimate();
+        samplesInWindow = 0;
+        Arrays.fill(mean, 0.0);
+        Arrays.fill(sumOfSquares, 0.0);
+
+        windowSize *= 2;
+        windowEnd = warmupIteration + 1 + windowSize;
+        stretchWindowIfNextWouldNotFit();
+        return true;
+    }
+
+    /**
+     * A window that would leave too little room for one twice its size is stretched to the end of the
+     * slow windows
+     */
+    private void stretchWindowIfNextWouldNotFit() {
+        if (windowEnd + 2 * windowSize > slowEnd) {
+            windowEnd = slowEnd;
+        }
+    }
+
+    /**
+     * Welford's running mean and sum of squared deviations
+     */
+    private void record(double[] position) {
+        samplesInWindow++;
+        double[] delta = new double[dimension];
+        for (int i = 0; i < dimension; i++) {
+            delta[i] = position[i] - mean[i];
+            mean[i] += delta[i] / samplesInWindow;
+        }
+
+        if (adaptation == MassMatrixAdaptation.DENSE) {
+            for (int i = 0; i < dimension; i++) {
+                for (int j = 0; j < dimension; j++) {
+                    sumOfSquares[i * dimension + j] += delta[i] * (position[j] - mean[j]);
+                }
+            }
+        } else {
+            for (int i = 0; i < dimension; i++) {
+                sumOfSquares[i] += delta[i] * (position[i] - mean[i]);
+            }
+        }
+    }
+
+    private MassMatrix estimate() {
+        if (samplesInWindow < 2) {
+            return massMatrix;
+        }
+
+        double n = samplesInWindow;
+        double weight = n / (n + SHRINKAGE_SAMPLES);
+        double shrinkage = SHRINKAGE_TARGET * SHRINKAGE_SAMPLES / (n + SHRINKAGE_SAMPLES);
+
+        double[] covariance = new double[sumOfSquares.length];
+        for (int i = 0; i < covariance.length; i++) {
+            covariance[i] = weight * sumOfSquares[i] / (n - 1);
+        }
+
+        if (adaptation == MassMatrixAdaptation.DENSE) {
+            for (int i = 0; i < dimension; i++) {
+                covariance[i * dimension + i] += shrinkage;
+            }
+            return MassMatrix.dense(covariance);
+        } else {
+            for (int i = 0; i < dimension; i++) {
+                covariance[i] += shrinkage;
+            }
+            return MassMatrix.diagonal(covariance);
+        }
+    }
+}
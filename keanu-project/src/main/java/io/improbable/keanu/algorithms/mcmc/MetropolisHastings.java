@@ -10,6 +10,7 @@ import io.improbable.keanu.vertices.dbl.KeanuRandom;
 import lombok.Builder;
 
 import java.util.*;
+import java.util.function.Predicate;
 
 import static io.improbable.keanu.algorithms.mcmc.proposal.MHStepVariableSelector.SINGLE_VARIABLE_SELECTOR;
 
@@ -32,6 +33,19 @@ public class MetropolisHastings implements PosteriorSamplingAlgorithm {
             .build();
     }
 
+    /**
+     * @param random Source of randomness
+     * @return Metropolis Hastings that slice samples every latent with double or integer values and proposes
+     * for the others from their priors
+     */
+    public static MetropolisHastings withSliceSampling(KeanuRandom random) {
+        return MetropolisHastings.builder()
+            .proposalDistribution(ProposalDistribution.usePrior())
+            .sliceSampled(SliceSamplingStep::canSliceSample)
+            .random(random)
+            .build();
+    }
+
     private final KeanuRandom random;
     private final ProposalDistribution proposalDistribution;
 
@@ -41,6 +55,16 @@ public class MetropolisHastings implements PosteriorSamplingAlgorithm {
     @Builder.Default
     private final boolean useCacheOnRejection = true;
 
+    /**
+     * Which latent vertices take a slice sampling step rather than a proposal when chosen. These must
+     * have double or integer values.
+     */
+    @Builder.Default
+    private final Predicate<Vertex> sliceSampled = vertex -> false;
+
+    @Builder.Default
+    private final double sliceWidth = SliceSamplingStep.DEFAULT_WIDTH;
+
     /**
      * @param bayesianNetwork      a bayesian network containing latent vertices
      * @param verticesToSampleFrom the vertices to include in the returned samples
@@ -59,6 +83,8 @@ public class MetropolisHastings implements PosteriorSamplingAlgorithm {
         MetropolisHastingsStep mhStep = new MetropolisHastingsStep(
             latentVertices,
             proposalDistribution,
+            sliceSampled,
+            sliceWidth,
             useCacheOnRejection,
             random
         );
@@ -79,7 +105,7 @@ public class MetropolisHastings implements PosteriorSamplingAlgorithm {
         return new NetworkSamples(samplesByVertex, sampleCount);
     }
 
-    private static void takeSamples(Map<Long, List<?>> samples, List<? extends Vertex> fromVertices) {
+    static void takeSamples(Map<Long, List<?>> samples, List<? extends Vertex> fromVertices) {
         fromVertices.forEach(vertex -> addSampleForVertex((Vertex<?>) vertex, samples));
     }
 
@@ -88,7 +114,7 @@ public class MetropolisHastings implements PosteriorSamplingAlgorithm {
         samplesForVertex.add(vertex.getValue());
     }
 
-    private static void checkBayesNetInHealthyState(BayesianNetwork bayesNet) {
+    static void checkBayesNetInHealthyState(BayesianNetwork bayesNet) {
         bayesNet.cascadeObservations();
         if (bayesNet.getLatentAndObservedVertices().isEmpty()) {
             throw new IllegalArgumentException("Cannot sample from a completely deterministic BayesNet");
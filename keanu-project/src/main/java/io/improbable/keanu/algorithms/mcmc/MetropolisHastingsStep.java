@@ -13,8 +13,14 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+/**
+ * A step of Metropolis Hastings for the chosen vertices. Chosen vertices that are slice sampled take a
+ * {@link SliceSamplingStep} instead, one at a time, which shares this step's cache of affected vertices,
+ * so slice sampling and Metropolis Hastings can be mixed in the same sweep.
+ */
 class MetropolisHastingsStep {
 
     private static final double LOG_ZERO_PROBABILITY = Double.NEGATIVE_INFINITY;
@@ -25,6 +31,8 @@ class MetropolisHastingsStep {
     private final ProposalDistribution proposalDistribution;
     private final boolean useCacheOnRejection;
     private final Map<Vertex, LambdaSection> affectedVerticesCache;
+    private final Set<Vertex> sliceSampledVertices;
+    private final SliceSamplingStep sliceSamplingStep;
     private final KeanuRandom random;
 
     /**
@@ -38,6 +46,25 @@ class MetropolisHastingsStep {
                            ProposalDistribution proposalDistribution,
                            boolean useCacheOnRejection,
                            KeanuRandom random) {
+        this(latentVertices, proposalDistribution, vertex -> false, SliceSamplingStep.DEFAULT_WIDTH, useCacheOnRejection, random);
+    }
+
+    /**
+     * @param latentVertices       Vertices that are unknown/hidden variables
+     * @param proposalDistribution The proposal distribution
+     * @param sliceSampled         Which of the latent vertices to slice sample rather than propose for.
+     *                             These must have double or integer values.
+     * @param sliceWidth           The initial width of the slice around each value of a slice sampled vertex
+     * @param useCacheOnRejection  True if caching values of the network such that recalculation isn't required
+     *                             on step rejection
+     * @param random               Source of randomness
+     */
+    MetropolisHastingsStep(List<? extends Vertex> latentVertices,
+                           ProposalDistribution proposalDistribution,
+                           Predicate<Vertex> sliceSampled,
+                           double sliceWidth,
+                           boolean useCacheOnRejection,
+                           KeanuRandom random) {
 
         this.proposalDistribution = proposalDistribution;
         this.useCacheOnRejection = useCacheOnRejection;
@@ -46,6 +73,16 @@ class MetropolisHastingsStep {
             latentVertices,
             useCacheOnRejection
         );
+        this.sliceSampledVertices = new HashSet<>();
+        for (Vertex vertex : latentVertices) {
+            if (sliceSampled.test(vertex)) {
+                if (!SliceSamplingStep.canSliceSample(vertex)) {
+                    throw new IllegalArgumentException("Only vertices with double or integer values can be slice sampled but " + vertex + " was chosen");
+                }
+                sliceSampledVertices.add(vertex);
+            }
+        }
+        this.sliceSamplingStep = new SliceSamplingStep(affectedVerticesCache, sliceWidth, random);
     }
 
     public StepResult step(final Set<Vertex> chosenVertices,
@@ -64,6 +101,30 @@ class MetropolisHastingsStep {
                            final double logProbabilityBeforeStep,
                            final double temperature) {
 
+        if (sliceSampledVertices.isEmpty()) {
+            return proposalStep(chosenVertices, logProbabilityBeforeStep, temperature);
+        }
+
+        double logProbability = logProbabilityBeforeStep;
+        Set<Vertex> proposedVertices = new HashSet<>();
+        for (Vertex vertex : chosenVertices) {
+            if (sliceSampledVertices.contains(vertex)) {
+                logProbability = sliceSamplingStep.step(vertex, logProbability, temperature);
+            } else {
+                proposedVertices.add(vertex);
+            }
+        }
+
+        if (proposedVertices.isEmpty()) {
+            return new StepResult(true, logProbability);
+        }
+        return proposalStep(proposedVertices, logProbability, temperature);
+    }
+
+    private StepResult proposalStep(final Set<Vertex> chosenVertices,
+                                    final double logProbabilityBeforeStep,
+                                    final double temperature) {
+
         final double affectedVerticesLogProbOld = sumLogProbabilityOfAffected(chosenVertices, affectedVerticesCache);
 
         NetworkSnapshot preProposalSnapshot = null;
@@ -91,10 +152,13 @@ class MetropolisHastingsStep {
             final double r = Math.exp(logR);
 
             final boolean shouldAccept = r >= random.nextDouble();
+            proposalDistribution.adapt(proposal, shouldAccept, Math.min(1.0, r));
 
             if (shouldAccept) {
                 return new StepResult(true, logProbabilityAfterStep);
             }
+        } else {
+            proposalDistribution.adapt(proposal, false, 0.0);
         }
 
         proposal.reject();
@@ -0,0 +1,259 @@
+package io.improbable.keanu.algorithms.mcmc;
+
+import io.improbable.keanu.algorithms.NetworkSamples;
+import io.improbable.keanu.algorithms.graphtraversal.DiscoverGraph;
+import io.improbable.keanu.network.BayesianNetwork;
+import io.improbable.keanu.vertices.ValueStore;
+import io.improbable.keanu.vertices.Vertex;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import lombok.Builder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Runs several independent MCMC chains on the same model at once, each on its own thread.
+ * <p>
+ * Every chain needs its own state. Either each chain runs on the same network in its own
+ * {@link ValueStore}, or the first chain runs on the network that's passed in and the others run on
+ * copies made by building the model again, e.g. by calling the same method that built the original.
+ * The vertices of a copy are matched to the original's by the order they were created in, so all
+ * the samples are reported against the original's vertices.
+ */
+@Builder
+public class MultiChain {
+
+    /**
+     * Runs a single chain, e.g.
+     * (net, vertices, count, random) -&gt; MetropolisHastings.withDefaultConfig(random).getPosteriorSamples(net, vertices, count)
+     */
+    @FunctionalInterface
+    public interface ChainSampler {
+
+        /**
+         * @param bayesNet             the chain's own network
+         * @param verticesToSampleFrom vertices in the chain's network to include in the samples
+         * @param sampleCount          the number of samples to take
+         * @param random               the chain's own source of randomness
+         * @return the chain's samples
+         */
+        NetworkSamples getPosteriorSamples(BayesianNetwork bayesNet,
+                                           List<? extends Vertex> verticesToSampleFrom,
+                                           int sampleCount,
+                                           KeanuRandom random);
+    }
+
+    private final ChainSampler sampler;
+
+    @Builder.Default
+    private final int chainCount = Runtime.getRuntime().availableProcessors();
+
+    @Builder.Default
+    private final KeanuRandom random = KeanuRandom.getDefaultRandom();
+
+    /**
+     * Runs every chain on the same network, each in its own value store, so the network's own values
+     * are left as they were.
+     *
+     * @param bayesNet             the network to sample from
+     * @param verticesToSampleFrom the vertices to include in the samples
+     * @param sampleCount          the number of samples to take in each chain
+     * @return the samples of every chain
+     */
+    public MultiChainSamples getPosteriorSamples(final BayesianNetwork bayesNet,
+                                                 final List<? extends Vertex> verticesToSampleFrom,
+                                                 final int sampleCount) {
+        checkChainCount();
+
+        List<KeanuRandom> randoms = splitRandoms();
+        List<Callable<NetworkSamples>> chains = new ArrayList<>();
+        for (int chain = 0; chain < chainCount; chain++) {
+            KeanuRandom chainRandom = randoms.get(chain);
+            ValueStore store = new ValueStore();
+            chains.add(() -> store.evaluate(
+                () -> sampler.getPosteriorSamples(bayesNet, verticesToSampleFrom, sampleCount, chainRandom)
+            ));
+        }
+
+        return new MultiChainSamples(runChains(chains), idsOf(verticesToSampleFrom));
+    }
+
+    /**
+     * @param bayesNet             the network the first chain runs on
+     * @param copyOfNetwork        builds a new network the same way bayesNet was built, which shares no
+     *                             vertices with it. It's called once for each of the other chains.
+     * @param verticesToSampleFrom vertices in bayesNet to include in the samples
+     * @param sampleCount          the number of samples to take in each chain
+     * @return the samples of every chain, keyed by the vertices of bayesNet
+     */
+    public MultiChainSamples getPosteriorSamples(final BayesianNetwork bayesNet,
+                                                 final Supplier<BayesianNetwork> copyOfNetwork,
+                                                 final List<? extends Vertex> verticesToSampleFrom,
+                                                 final int sampleCount) {
+        checkChainCount();
+
+        List<Vertex> originalVertices = verticesInCreationOrder(bayesNet);
+        Set<Vertex> originalGraph = new HashSet<>(originalVertices);
+
+        List<BayesianNetwork> networks = new ArrayList<>();
+        List<List<Vertex>> chainVerticesToSampleFrom = new ArrayList<>();
+        networks.add(bayesNet);
+        chainVerticesToSampleFrom.add(new ArrayList<>(verticesToSampleFrom));
+
+        for (int chain = 1; chain < chainCount; chain++) {
+            BayesianNetwork copy = copyOfNetwork.get();
+            Map<Vertex, Vertex> originalToCopy = matchVertices(originalVertices, originalGraph, verticesInCreationOrder(copy));
+
+            List<Vertex> copiedVerticesToSampleFrom = new ArrayList<>();
+            for (Vertex vertex : verticesToSampleFrom) {
+                copiedVerticesToSampleFrom.add(originalToCopy.getOrDefault(vertex, vertex));
+            }
+
+            networks.add(copy);
+            chainVerticesToSampleFrom.add(copiedVerticesToSampleFrom);
+        }
+
+        List<KeanuRandom> randoms = splitRandoms();
+        List<Callable<NetworkSamples>> chains = new ArrayList<>();
+        for (int chain = 0; chain < chainCount; chain++) {
+            BayesianNetwork network = networks.get(chain);
+            List<Vertex> chainVertices = chainVerticesToSampleFrom.get(chain);
+            KeanuRandom chainRandom = randoms.get(chain);
+            chains.add(() -> sampler.getPosteriorSamples(network, chainVertices, sampleCount, chainRandom));
+        }
+
+        List<NetworkSamples> chainSamples = runChains(chains);
+
+        List<NetworkSamples> samplesByOriginalVertex = new ArrayList<>();
+        for (int chain = 0; chain < chainCount; chain++) {
+            samplesByOriginalVertex.add(rekey(chainSamples.get(chain), chainVerticesToSampleFrom.get(chain), verticesToSampleFrom));
+        }
+
+        return new MultiChainSamples(samplesByOriginalVertex, idsOf(verticesToSampleFrom));
+    }
+
+    private void checkChainCount() {
+        if (chainCount < 1) {
+            throw new IllegalArgumentException("Chain count must be at least 1 but was " + chainCount);
+        }
+    }
+
+    /**
+     * The randoms are split in chain order before any chain starts, so the results don't depend on
+     * how the chains' threads are scheduled.
+     */
+    private List<KeanuRandom> splitRandoms() {
+        List<KeanuRandom> randoms = new ArrayList<>();
+        for (int chain = 0; chain < chainCount; chain++) {
+            randoms.add(random.split());
+        }
+        return randoms;
+    }
+
+    private static List<Long> idsOf(List<? extends Vertex> vertices) {
+        List<Long> ids = new ArrayList<>();
+        for (Vertex vertex : vertices) {
+            ids.add(vertex.getId());
+        }
+        return ids;
+    }
+
+    private static List<NetworkSamples> runChains(List<Callable<NetworkSamples>> chains) {
+
+        ExecutorService executor = Executors.newFixedThreadPool(chains.size());
+        try {
+            List<Future<NetworkSamples>> futures = new ArrayList<>();
+            for (Callable<NetworkSamples> chain : chains) {
+                futures.add(executor.submit(chain));
+            }
+
+            List<NetworkSamples> chainSamples = new ArrayList<>();
+            for (Future<NetworkSamples> future : futures) {
+                chainSamples.add(future.get());
+            }
+            return chainSamples;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for chains", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Chain failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Vertices are given ids in the order they're created, so building a model the same way twice
+     * gives two lists that match position by position. Shared constants are the same vertex in
+     * every network and are left out.
+     */
+    private static List<Vertex> verticesInCreationOrder(BayesianNetwork bayesNet) {
+        Set<Vertex> graph = new HashSet<>();
+        for (Vertex<?> vertex : bayesNet.getLatentAndObservedVertices()) {
+            if (!graph.contains(vertex)) {
+                graph.addAll(DiscoverGraph.getEntireGraph(vertex));
+            }
+        }
+
+        List<Vertex> ordered = new ArrayList<>();
+        for (Vertex vertex : graph) {
+            if (!vertex.isShared()) {
+                ordered.add(vertex);
+            }
+        }
+        ordered.sort(Comparator.comparingLong(Vertex::getId));
+        return ordered;
+    }
+
+    private static Map<Vertex, Vertex> matchVertices(List<Vertex> original, Set<Vertex> originalGraph, List<Vertex> copy) {
+        if (original.size() != copy.size()) {
+            throw new IllegalArgumentException(
+                "Copy of network has " + copy.size() + " vertices but the network has " + original.size()
+            );
+        }
+
+        Map<Vertex, Vertex> originalToCopy = new HashMap<>();
+        for (int i = 0; i < original.size(); i++) {
+            Vertex originalVertex = original.get(i);
+            Vertex copiedVertex = copy.get(i);
+
+            if (originalGraph.contains(copiedVertex)) {
+                throw new IllegalArgumentException("Copy of network shares vertex " + copiedVertex.getId() + " with the network");
+            }
+            if (originalVertex.getClass() != copiedVertex.getClass()) {
+                throw new IllegalArgumentException(
+                    "Copy of network wasn't built the same way: expected " + originalVertex.getClass().getSimpleName() +
+                        " but found " + copiedVertex.getClass().getSimpleName()
+                );
+            }
+            originalToCopy.put(originalVertex, copiedVertex);
+        }
+        return originalToCopy;
+    }
+
+    private static NetworkSamples rekey(NetworkSamples samples,
+                                        List<? extends Vertex> chainVertices,
+                                        List<? extends Vertex> originalVertices) {
+
+        Map<Long, List<?>> samplesByVertex = new HashMap<>();
+        for (int i = 0; i < originalVertices.size(); i++) {
+            samplesByVertex.put(originalVertices.get(i).getId(), samples.get(chainVertices.get(i)).asList());
+        }
+        return new NetworkSamples(samplesByVertex, samples.size());
+    }
+}
@@ -0,0 +1,148 @@
+package io.improbable.keanu.algorithms.mcmc;
+
+import io.improbable.keanu.algorithms.NetworkSamples;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.Vertex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The samples of several independent chains, each keyed by the same vertices.
+ */
+public class MultiChainSamples {
+
+    private final List<NetworkSamples> chains;
+    private final List<Long> vertexIds;
+
+    /**
+     * @param chains    the samples of each chain
+     * @param vertexIds the vertices that every chain has samples of
+     */
+    public MultiChainSamples(List<NetworkSamples> chains, List<Long> vertexIds) {
+        if (chains.isEmpty()) {
+            throw new IllegalArgumentException("There must be at least one chain");
+        }
+        this.chains = Collections.unmodifiableList(new ArrayList<>(chains));
+        this.vertexIds = Collections.unmodifiableList(new ArrayList<>(vertexIds));
+    }
+
+    public int getChainCount() {
+        return chains.size();
+    }
+
+    public NetworkSamples getChain(int chain) {
+        return chains.get(chain);
+    }
+
+    public List<NetworkSamples> getChains() {
+        return chains;
+    }
+
+    /**
+     * @return the samples of every chain one after the other, as if they were one long chain
+     */
+    public NetworkSamples merged() {
+        Map<Long, List<?>> samplesByVertex = new HashMap<>();
+        int size = 0;
+
+        for (NetworkSamples chain : chains) {
+            for (Long id : vertexIds) {
+                List<Object> merged = (List<Object>) samplesByVertex.computeIfAbsent(id, k -> new ArrayList<>());
+                merged.addAll(chain.get(id).asList());
+            }
+            size += chain.size();
+        }
+
+        return new NetworkSamples(samplesByVertex, size);
+    }
+
+    /**
+     * @param dropCount the number of samples to drop from the start of each chain, e.g. its burn in
+     * @return the samples with the start of every chain dropped
+     */
+    public MultiChainSamples drop(int dropCount) {
+        List<NetworkSamples> dropped = new ArrayList<>();
+        for (NetworkSamples chain : chains) {
+            dropped.add(chain.drop(dropCount));
+        }
+        return new MultiChainSamples(dropped, vertexIds);
+    }
+
+    public MultiChainSamples downSample(int downSampleInterval) {
+        List<NetworkSamples> downSampled = new ArrayList<>();
+        for (NetworkSamples chain : chains) {
+            downSampled.add(chain.downSample(downSampleInterval));
+        }
+        return new MultiChainSamples(downSampled, vertexIds);
+    }
+
+    /**
+     * The Gelman-Rubin potential scale reduction of each element of a vertex. Values close to 1
+     * suggest the chains have mixed, while values much above 1 suggest they haven't converged to
+     * the same distribution.
+     *
+     * @param vertex a vertex whose samples are double tensors
+     * @return the potential scale reduction, with the shape of the vertex
+     */
+    public DoubleTensor getPotentialScaleReduction(Vertex<DoubleTensor> vertex) {
+        int m = chains.size();
+        if (m < 2) {
+            throw new IllegalArgumentException("Potential scale reduction needs at least 2 chains");
+        }
+
+        int n = chains.get(0).size();
+        for (NetworkSamples chain : chains) {
+            if (chain.size() != n || n < 2) {
+                throw new IllegalArgumentException("Every chain must have the same number of samples, and at least 2");
+            }
+        }
+
+        int[] shape = chains.get(0).getDoubleTensorSamples(vertex).asList().get(0).getShape();
+        int length = chains.get(0).getDoubleTensorSamples(vertex).asList().get(0).asFlatDoubleArray().length;
+
+        double[][] means = new double[m][length];
+        double[] withinVariance = new double[length];
+
+        for (int c = 0; c < m; c++) {
+            List<DoubleTensor> samples = chains.get(c).getDoubleTensorSamples(vertex).asList();
+            double[] sum = new double[length];
+            double[] sumOfSquares = new double[length];
+
+            for (DoubleTensor sample : samples) {
+                double[] values = sample.asFlatDoubleArray();
+                for (int i = 0; i < length; i++) {
+                    sum[i] += values[i];
+                    sumOfSquares[i] += values[i] * values[i];
+                }
+            }
+
+            for (int i = 0; i < length; i++) {
+                means[c][i] = sum[i] / n;
+                withinVariance[i] += (sumOfSquares[i] - n * means[c][i] * means[c][i]) / (n - 1) / m;
+            }
+        }
+
+        double[] reduction = new double[length];
+        for (int i = 0; i < length; i++) {
+            double grandMean = 0.0;
+            for (int c = 0; c < m; c++) {
+                grandMean += means[c][i] / m;
+            }
+
+            double varianceOfMeans = 0.0;
+            for (int c = 0; c < m; c++) {
+                double deviation = means[c][i] - grandMean;
+                varianceOfMeans += deviation * deviation / (m - 1);
+            }
+
+            double pooledVariance = (n - 1.0) / n * withinVariance[i] + varianceOfMeans;
+            reduction[i] = Math.sqrt(pooledVariance / withinVariance[i]);
+        }
+
+        return DoubleTensor.create(reduction, shape);
+    }
+}
@@ -1,7 +1,6 @@
 package io.improbable.keanu.algorithms.mcmc;
 
 import io.improbable.keanu.algorithms.NetworkSamples;
-import io.improbable.keanu.algorithms.graphtraversal.VertexValuePropagation;
 import io.improbable.keanu.network.BayesianNetwork;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
 import io.improbable.keanu.vertices.Vertex;
@@ -10,6 +9,7 @@ import io.improbable.keanu.vertices.dbl.KeanuRandom;
 import io.improbable.keanu.vertices.dbl.nonprobabilistic.diff.LogProbGradient;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,13 +18,14 @@ import java.util.Map;
  * Algorithm 6: "No-U-Turn Sampler with Dual Averaging".
  * The No-U-Turn Sampler: Adaptively Setting Path Lengths in Hamiltonian Monte Carlo
  * https://arxiv.org/pdf/1111.4246.pdf
+ * <p>
+ * The mass matrix can also be learnt during warmup, see {@link MassMatrixAdaptation} and
+ * {@link MassMatrixAdapter}. Momentum, kinetic energy and the U-turn criterion all use it.
  */
 public class NUTS {
 
     private static final double DELTA_MAX = 1000.0;
-    private static final double STABILISER = 10;
-    private static final double SHRINKAGE_FACTOR = 0.05;
-    private static final double TEND_TO_ZERO_EXPONENT = 0.75;
+    private static final int MAX_TREE_HEIGHT = 10;
 
     private NUTS() {
     }
@@ -71,254 +72,212 @@ public class NUTS {
                                                      final double targetAcceptanceProb,
                                                      final KeanuRandom random) {
 
+        return getPosteriorSamples(bayesNet, sampleFromVertices, sampleCount, adaptCount, targetAcceptanceProb, MassMatrixAdaptation.NONE, random);
+    }
+
+    /**
+     * Sample from the posterior of a Bayesian Network using the No-U-Turn-Sampling algorithm, learning the
+     * mass matrix as well as the step size during the first adaptCount samples
+     *
+     * @param bayesNet             the bayesian network to sample from
+     * @param sampleFromVertices   the vertices inside the bayesNet to sample from
+     * @param sampleCount          the number of samples to take
+     * @param adaptCount           the number of samples for which the stepsize and mass matrix will be tuned. The
+     *                             mass matrix is learnt in windows of this warmup, so a few hundred samples are
+     *                             needed for it to have much effect
+     * @param targetAcceptanceProb the target acceptance probability, a suggested value of this is 0.65,
+     *                             Beskos et al., 2010; Neal, 2011
+     * @param massMatrixAdaptation whether to learn a diagonal or a dense mass matrix, or to keep the identity
+     * @param random               the source of randomness
+     * @return Samples taken with NUTS
+     */
+    public static NetworkSamples getPosteriorSamples(final BayesianNetwork bayesNet,
+                                                     final List<? extends Vertex> sampleFromVertices,
+                                                     final int sampleCount,
+                                                     final int adaptCount,
+                                                     final double targetAcceptanceProb,
+                                                     final MassMatrixAdaptation massMatrixAdaptation,
+                                                     final KeanuRandom random) {
+
         bayesNet.cascadeObservations();
 
         final List<Vertex<DoubleTensor>> latentVertices = bayesNet.getContinuousLatentVertices();
         final List<Vertex> probabilisticVertices = bayesNet.getLatentAndObservedVertices();
+        final LatentVector latentVector = new LatentVector(latentVertices);
 
         final Map<Long, List<?>> samples = new HashMap<>();
         addSampleFromCache(samples, takeSample(sampleFromVertices));
 
-        Map<Long, DoubleTensor> position = new HashMap<>();
-        cachePosition(latentVertices, position);
-
-        Map<Long, DoubleTensor> gradient = LogProbGradient.getJointLogProbGradientWrtLatents(probabilisticVertices);
+        final MassMatrixAdapter massMatrixAdapter = new MassMatrixAdapter(massMatrixAdaptation, latentVector.getLength(), adaptCount);
+        final Trajectory trajectory = new Trajectory(latentVector.getLength(), massMatrixAdapter.getMassMatrix());
 
-        Map<Long, DoubleTensor> momentum = new HashMap<>();
+        final Proposal initial = trajectory.accepted;
+        latentVector.readPosition(initial.position);
+        latentVector.readGradient(LogProbGradient.getJointLogProbGradientWrtLatents(probabilisticVertices), initial.gradient);
+        initial.logOfMasterP = getLogProb(probabilisticVertices);
+        initial.sample = takeSample(sampleFromVertices);
 
-        double initialLogOfMasterP = getLogProb(probabilisticVertices);
-
-        double stepSize = findStartingStepSize(position,
-            gradient,
-            latentVertices,
+        double stepSize = findStartingStepSize(
+            latentVector,
+            trajectory.massMatrix,
+            initial,
             probabilisticVertices,
             random
         );
 
         AutoTune autoTune = new AutoTune(stepSize,
             targetAcceptanceProb,
-            Math.log(stepSize),
             adaptCount
         );
 
-        BuiltTree tree = new BuiltTree(
-            position,
-            gradient,
-            momentum,
-            position,
-            gradient,
-            momentum,
-            position,
-            gradient,
-            initialLogOfMasterP,
-            takeSample(sampleFromVertices),
-            1,
-            true,
-            0,
-            1
-        );
-
         for (int sampleNum = 1; sampleNum < sampleCount; sampleNum++) {
 
-            initializeMomentumForEachVertex(latentVertices, tree.momentumForward, random);
-            cache(tree.momentumForward, tree.momentumBackward);
+            trajectory.forward.moveTo(trajectory.accepted);
+            trajectory.massMatrix.sampleMomentum(trajectory.forward.momentum, random);
+            trajectory.massMatrix.velocity(trajectory.forward.momentum, trajectory.forward.velocity);
+            trajectory.backward.moveTo(trajectory.forward);
 
-            double u = random.nextDouble() * Math.exp(tree.logOfMasterPAtAcceptedPosition - 0.5 * dotProduct(tree.momentumForward));
+            final double logOfMasterPMinusMomentumAtStart = trajectory.accepted.logOfMasterP - trajectory.forward.kineticEnergy();
+            final double u = random.nextDouble() * Math.exp(logOfMasterPMinusMomentumAtStart);
 
             int treeHeight = 0;
-            tree.shouldContinueFlag = true;
-            tree.acceptedLeapfrogCount = 1;
+            boolean shouldContinueFlag = true;
+            int acceptedLeapfrogCount = 1;
+            double deltaLikelihoodOfLeapfrog = 0;
+            double treeSize = 1;
 
-            while (tree.shouldContinueFlag) {
+            while (shouldContinueFlag && treeHeight < MAX_TREE_HEIGHT) {
 
                 //build tree direction -1 = backwards OR 1 = forwards
                 int buildDirection = random.nextBoolean() ? 1 : -1;
 
-                BuiltTree otherHalfTree = buildOtherHalfOfTree(
-                    tree,
-                    latentVertices,
+                BuiltTree otherHalfTree = buildTree(
+                    latentVector,
                     probabilisticVertices,
                     sampleFromVertices,
+                    trajectory,
+                    buildDirection == 1 ? trajectory.forward : trajectory.backward,
                     u,
                     buildDirection,
                     treeHeight,
                     stepSize,
+                    logOfMasterPMinusMomentumAtStart,
                     random
                 );
 
                 if (otherHalfTree.shouldContinueFlag) {
-                    final double acceptanceProb = (double) otherHalfTree.acceptedLeapfrogCount / tree.acceptedLeapfrogCount;
+                    final double acceptanceProb = (double) otherHalfTree.acceptedLeapfrogCount / acceptedLeapfrogCount;
 
-                    acceptOtherPositionWithProbability(
-                        acceptanceProb,
-                        tree, otherHalfTree,
-                        random
-                    );
+                    if (withProbability(acceptanceProb, random)) {
+                        trajectory.acceptProposalOfHeight(treeHeight);
+                    }
                 }
 
-                tree.acceptedLeapfrogCount += otherHalfTree.acceptedLeapfrogCount;
+                acceptedLeapfrogCount += otherHalfTree.acceptedLeapfrogCount;
 
-                tree.deltaLikelihoodOfLeapfrog = otherHalfTree.deltaLikelihoodOfLeapfrog;
-                tree.treeSize = otherHalfTree.treeSize;
+                deltaLikelihoodOfLeapfrog = otherHalfTree.deltaLikelihoodOfLeapfrog;
+                treeSize = otherHalfTree.treeSize;
 
-                tree.shouldContinueFlag = otherHalfTree.shouldContinueFlag && isNotUTurning(
-                    tree.positionForward,
-                    tree.positionBackward,
-                    tree.momentumForward,
-                    tree.momentumBackward
+                shouldContinueFlag = otherHalfTree.shouldContinueFlag && isNotUTurning(
+                    trajectory.forward,
+                    trajectory.backward
                 );
 
                 treeHeight++;
             }
 
-            stepSize = adaptStepSize(autoTune, tree, sampleNum);
+            stepSize = autoTune.adaptStepSize(deltaLikelihoodOfLeapfrog / treeSize, sampleNum);
 
-            tree.positionForward = tree.acceptedPosition;
-            tree.gradientForward = tree.gradientAtAcceptedPosition;
-            tree.positionBackward = tree.acceptedPosition;
-            tree.gradientBackward = tree.gradientAtAcceptedPosition;
+            if (sampleNum <= adaptCount && massMatrixAdapter.adapt(sampleNum - 1, trajectory.accepted.position)) {
+                trajectory.massMatrix = massMatrixAdapter.getMassMatrix();
+                stepSize = findStartingStepSize(latentVector, trajectory.massMatrix, trajectory.accepted, probabilisticVertices, random);
+                autoTune.restart(stepSize);
+            }
 
-            addSampleFromCache(samples, tree.sampleAtAcceptedPosition);
+            addSampleFromCache(samples, trajectory.accepted.sample);
         }
 
         return new NetworkSamples(samples, sampleCount);
     }
 
-    private static BuiltTree buildOtherHalfOfTree(BuiltTree currentTree,
-                                                  List<Vertex<DoubleTensor>> latentVertices,
-                                                  List<Vertex> probabilisticVertices,
-                                                  final List<? extends Vertex> sampleFromVertices,
-                                                  double u,
-                                                  int buildDirection,
-                                                  int treeHeight,
-                                                  double epsilon,
-                                                  KeanuRandom random) {
-
-        BuiltTree otherHalfTree;
-
-        final double logOfMasterPBeforeLeapfrog = getLogProb(probabilisticVertices);
-        final double logOfMasterPMinusMomentumBeforeLeapfrog = logOfMasterPBeforeLeapfrog - 0.5 * dotProduct(currentTree.momentumBackward);
-
-        if (buildDirection == -1) {
-
-            otherHalfTree = buildTree(
-                latentVertices,
-                probabilisticVertices,
-                sampleFromVertices,
-                currentTree.positionBackward,
-                currentTree.gradientBackward,
-                currentTree.momentumBackward,
-                u,
-                buildDirection,
-                treeHeight,
-                epsilon,
-                logOfMasterPMinusMomentumBeforeLeapfrog,
-                random
-            );
-
-            currentTree.positionBackward = otherHalfTree.positionBackward;
-            currentTree.momentumBackward = otherHalfTree.momentumBackward;
-            currentTree.gradientBackward = otherHalfTree.gradientBackward;
-
-        } else {
-
-            otherHalfTree = buildTree(
-                latentVertices,
-                probabilisticVertices,
-                sampleFromVertices,
-                currentTree.positionForward,
-                currentTree.gradientForward,
-                currentTree.momentumForward,
-                u,
-                buildDirection,
-                treeHeight,
-                epsilon,
-                logOfMasterPMinusMomentumBeforeLeapfrog,
-                random
-            );
-
-            currentTree.positionForward = otherHalfTree.positionForward;
-            currentTree.momentumForward = otherHalfTree.momentumForward;
-            currentTree.gradientForward = otherHalfTree.gradientForward;
-        }
-
-        return otherHalfTree;
-    }
-
-    private static BuiltTree buildTree(List<Vertex<DoubleTensor>> latentVertices,
+    /**
+     * Builds a subtree of the given height by leapfrogging the end of the trajectory in the build direction.
+     * The subtree's proposal is left in the trajectory's proposal for that height and its innermost point
+     * in the trajectory's inner end for that height.
+     */
+    private static BuiltTree buildTree(LatentVector latentVector,
                                        List<Vertex> probabilisticVertices,
                                        final List<? extends Vertex> sampleFromVertices,
-                                       Map<Long, DoubleTensor> position,
-                                       Map<Long, DoubleTensor> gradient,
-                                       Map<Long, DoubleTensor> momentum,
+                                       Trajectory trajectory,
+                                       Point end,
                                        double u,
                                        int buildDirection,
                                        int treeHeight,
                                        double epsilon,
-                                       double logOfMasterPMinusMomentumBeforeLeapfrog,
+                                       double logOfMasterPMinusMomentumAtStart,
                                        KeanuRandom random) {
         if (treeHeight == 0) {
 
             //Base case-take one leapfrog step in the build direction
 
-            return builtTreeBaseCase(latentVertices,
+            return builtTreeBaseCase(latentVector,
                 probabilisticVertices,
                 sampleFromVertices,
-                position,
-                gradient,
-                momentum,
+                trajectory,
+                end,
                 u,
                 buildDirection,
                 epsilon,
-                logOfMasterPMinusMomentumBeforeLeapfrog
+                logOfMasterPMinusMomentumAtStart
             );
 
         } else {
             //Recursion-implicitly build the left and right subtrees.
 
             BuiltTree tree = buildTree(
-                latentVertices,
+                latentVector,
                 probabilisticVertices,
                 sampleFromVertices,
-                position,
-                gradient,
-                momentum,
+                trajectory,
+                end,
                 u,
                 buildDirection,
                 treeHeight - 1,
                 epsilon,
-                logOfMasterPMinusMomentumBeforeLeapfrog,
+                logOfMasterPMinusMomentumAtStart,
                 random
             );
 
+            //The first half's proposal and inner end are this tree's until the other half is built
+            trajectory.promote(treeHeight - 1);
+
             //Should continue building other half if first half's shouldContinueFlag is true
             if (tree.shouldContinueFlag) {
 
-                BuiltTree otherHalfTree = buildOtherHalfOfTree(
-                    tree,
-                    latentVertices,
+                BuiltTree otherHalfTree = buildTree(
+                    latentVector,
                     probabilisticVertices,
                     sampleFromVertices,
+                    trajectory,
+                    end,
                     u,
                     buildDirection,
                     treeHeight - 1,
                     epsilon,
+                    logOfMasterPMinusMomentumAtStart,
                     random
                 );
 
                 double acceptOtherTreePositionProbability = (double) otherHalfTree.acceptedLeapfrogCount / (tree.acceptedLeapfrogCount + otherHalfTree.acceptedLeapfrogCount);
 
-                acceptOtherPositionWithProbability(
-                    acceptOtherTreePositionProbability,
-                    tree, otherHalfTree,
-                    random
-                );
+                if (withProbability(acceptOtherTreePositionProbability, random)) {
+                    trajectory.swapProposals(treeHeight - 1, treeHeight);
+                }
 
+                final Point innerEnd = trajectory.innerEndOfHeight(treeHeight);
                 tree.shouldContinueFlag = otherHalfTree.shouldContinueFlag && isNotUTurning(
-                    tree.positionForward,
-                    tree.positionBackward,
-                    tree.momentumForward,
-                    tree.momentumBackward
+                    buildDirection == 1 ? end : innerEnd,
+                    buildDirection == 1 ? innerEnd : end
                 );
 
                 tree.acceptedLeapfrogCount += otherHalfTree.acceptedLeapfrogCount;
@@ -331,48 +290,36 @@ public class NUTS {
 
     }
 
-    private static BuiltTree builtTreeBaseCase(List<Vertex<DoubleTensor>> latentVertices,
+    private static BuiltTree builtTreeBaseCase(LatentVector latentVector,
                                                List<Vertex> probabilisticVertices,
                                                final List<? extends Vertex> sampleFromVertices,
-                                               Map<Long, DoubleTensor> position,
-                                               Map<Long, DoubleTensor> gradient,
-                                               Map<Long, DoubleTensor> momentum,
+                                               Trajectory trajectory,
+                                               Point end,
                                                double u,
                                                int buildDirection,
                                                double epsilon,
-                                               double logOfMasterPMinusMomentumBeforeLeapfrog) {
+                                               double logOfMasterPMinusMomentumAtStart) {
 
-        LeapFrogged leapfrog = leapfrog(
-            latentVertices,
-            probabilisticVertices,
-            position,
-            gradient,
-            momentum,
-            epsilon * buildDirection
-        );
+        leapfrog(latentVector, trajectory.massMatrix, probabilisticVertices, end, epsilon * buildDirection);
 
         final double logOfMasterPAfterLeapfrog = getLogProb(probabilisticVertices);
 
-        final double logOfMasterPMinusMomentum = logOfMasterPAfterLeapfrog - 0.5 * dotProduct(leapfrog.momentum);
+        final double logOfMasterPMinusMomentum = logOfMasterPAfterLeapfrog - end.kineticEnergy();
         final int acceptedLeapfrogCount = u <= Math.exp(logOfMasterPMinusMomentum) ? 1 : 0;
         final boolean shouldContinueFlag = u < Math.exp(DELTA_MAX + logOfMasterPMinusMomentum);
 
-        final Map<Long, ?> sampleAtAcceptedPosition = takeSample(sampleFromVertices);
+        final Proposal proposal = trajectory.proposalOfHeight(0);
+        System.arraycopy(end.position, 0, proposal.position, 0, end.position.length);
+        System.arraycopy(end.gradient, 0, proposal.gradient, 0, end.gradient.length);
+        proposal.logOfMasterP = logOfMasterPAfterLeapfrog;
+        proposal.sample = takeSample(sampleFromVertices);
+
+        trajectory.innerEndOfHeight(0).moveTo(end);
 
-        double deltaLikelihoodOfLeapfrog = Math.exp(logOfMasterPMinusMomentum - logOfMasterPMinusMomentumBeforeLeapfrog);
+        double deltaLikelihoodOfLeapfrog = Math.exp(logOfMasterPMinusMomentum - logOfMasterPMinusMomentumAtStart);
         deltaLikelihoodOfLeapfrog = deltaLikelihoodOfLeapfrog < 1 ? deltaLikelihoodOfLeapfrog : 1;
 
         return new BuiltTree(
-            leapfrog.position,
-            leapfrog.gradient,
-            leapfrog.momentum,
-            leapfrog.position,
-            leapfrog.gradient,
-            leapfrog.momentum,
-            leapfrog.position,
-            leapfrog.gradient,
-            logOfMasterPAfterLeapfrog,
-            sampleAtAcceptedPosition,
             acceptedLeapfrogCount,
             shouldContinueFlag,
             deltaLikelihoodOfLeapfrog,
@@ -388,112 +335,56 @@ public class NUTS {
         return sum;
     }
 
-    private static void acceptOtherPositionWithProbability(double probability,
-                                                           BuiltTree tree,
-                                                           BuiltTree otherTree,
-                                                           KeanuRandom random) {
-        if (withProbability(probability, random)) {
-            tree.acceptedPosition = otherTree.acceptedPosition;
-            tree.gradientAtAcceptedPosition = otherTree.gradientAtAcceptedPosition;
-            tree.logOfMasterPAtAcceptedPosition = otherTree.logOfMasterPAtAcceptedPosition;
-            tree.sampleAtAcceptedPosition = otherTree.sampleAtAcceptedPosition;
-        }
-    }
-
     private static boolean withProbability(double probability, KeanuRandom random) {
         return random.nextDouble() < probability;
     }
 
-    private static boolean isNotUTurning(Map<Long, DoubleTensor> positionForward,
-                                         Map<Long, DoubleTensor> positionBackward,
-                                         Map<Long, DoubleTensor> momentumForward,
-                                         Map<Long, DoubleTensor> momentumBackward) {
+    /**
+     * The criterion is taken in the metric of the mass matrix, so the momentum at each end is
+     * replaced by its velocity
+     */
+    private static boolean isNotUTurning(Point forwardEnd, Point backwardEnd) {
         double forward = 0.0;
         double backward = 0.0;
 
-        for (Map.Entry<Long, DoubleTensor> forwardPositionForLatent : positionForward.entrySet()) {
-
-            final long latentId = forwardPositionForLatent.getKey();
-            final DoubleTensor forwardMinusBackward = forwardPositionForLatent.getValue().minus(
-                positionBackward.get(latentId)
-            );
+        for (int i = 0; i < forwardEnd.position.length; i++) {
+            final double forwardMinusBackward = forwardEnd.position[i] - backwardEnd.position[i];
 
-            forward += forwardMinusBackward.times(momentumForward.get(latentId)).sum();
-            backward += forwardMinusBackward.timesInPlace(momentumBackward.get(latentId)).sum();
+            forward += forwardMinusBackward * forwardEnd.velocity[i];
+            backward += forwardMinusBackward * backwardEnd.velocity[i];
         }
 
         return (forward >= 0.0) && (backward >= 0.0);
     }
 
-    private static void cachePosition(List<Vertex<DoubleTensor>> latentVertices, Map<Long, DoubleTensor> position) {
-        for (Vertex<DoubleTensor> vertex : latentVertices) {
-            position.put(vertex.getId(), vertex.getValue());
-        }
-    }
-
-    private static void initializeMomentumForEachVertex(List<Vertex<DoubleTensor>> vertices,
-                                                        Map<Long, DoubleTensor> momentums,
-                                                        KeanuRandom random) {
-        for (Vertex<DoubleTensor> vertex : vertices) {
-            momentums.put(vertex.getId(), random.nextGaussian(vertex.getShape()));
-        }
-    }
-
-    private static void cache(Map<Long, DoubleTensor> from, Map<Long, DoubleTensor> to) {
-        for (Map.Entry<Long, DoubleTensor> entry : from.entrySet()) {
-            to.put(entry.getKey(), entry.getValue());
-        }
-    }
-
-    private static LeapFrogged leapfrog(final List<Vertex<DoubleTensor>> latentVertices,
-                                        final List<Vertex> probabilisticVertices,
-                                        final Map<Long, DoubleTensor> position,
-                                        final Map<Long, DoubleTensor> gradient,
-                                        final Map<Long, DoubleTensor> momentum,
-                                        final double epsilon) {
+    /**
+     * Leapfrogs a point of the trajectory in place, leaving the latent vertices at its new position
+     */
+    private static void leapfrog(final LatentVector latentVector,
+                                 final MassMatrix massMatrix,
+                                 final List<Vertex> probabilisticVertices,
+                                 final Point point,
+                                 final double epsilon) {
 
         final double halfTimeStep = epsilon / 2.0;
 
-        Map<Long, DoubleTensor> nextMomentum = new HashMap<>();
-        Map<Long, DoubleTensor> nextPosition = new HashMap<>();
-
-        for (Map.Entry<Long, DoubleTensor> rEntry : momentum.entrySet()) {
-            final DoubleTensor updatedMomentum = (gradient.get(rEntry.getKey()).times(halfTimeStep)).plusInPlace(rEntry.getValue());
-            nextMomentum.put(rEntry.getKey(), updatedMomentum);
+        for (int i = 0; i < point.momentum.length; i++) {
+            point.momentum[i] += point.gradient[i] * halfTimeStep;
         }
 
-        for (Vertex<DoubleTensor> latent : latentVertices) {
-            final DoubleTensor nextPositionForLatent = nextMomentum.get(latent.getId()).
-                times(halfTimeStep).
-                plusInPlace(
-                    position.get(latent.getId())
-                );
-            nextPosition.put(latent.getId(), nextPositionForLatent);
-            latent.setValue(nextPositionForLatent);
+        massMatrix.velocity(point.momentum, point.velocity);
+        for (int i = 0; i < point.position.length; i++) {
+            point.position[i] += point.velocity[i] * epsilon;
         }
 
-        VertexValuePropagation.cascadeUpdate(latentVertices);
+        latentVector.writePosition(point.position);
 
-        Map<Long, DoubleTensor> nextPositionGradient = LogProbGradient.getJointLogProbGradientWrtLatents(probabilisticVertices);
+        latentVector.readGradient(LogProbGradient.getJointLogProbGradientWrtLatents(probabilisticVertices), point.gradient);
 
-        for (Map.Entry<Long, DoubleTensor> nextMomentumForLatent : nextMomentum.entrySet()) {
-            final DoubleTensor nextNextMomentumForLatent = nextPositionGradient.get(nextMomentumForLatent.getKey()).
-                times(halfTimeStep).
-                plusInPlace(
-                    nextMomentumForLatent.getValue()
-                );
-            nextMomentum.put(nextMomentumForLatent.getKey(), nextNextMomentumForLatent);
+        for (int i = 0; i < point.momentum.length; i++) {
+            point.momentum[i] += point.gradient[i] * halfTimeStep;
         }
-
-        return new LeapFrogged(nextPosition, nextMomentum, nextPositionGradient);
-    }
-
-    private static double dotProduct(Map<Long, DoubleTensor> momentums) {
-        double dotProduct = 0.0;
-        for (DoubleTensor momentum : momentums.values()) {
-            dotProduct += momentum.pow(2).sum();
-        }
-        return dotProduct;
+        massMatrix.velocity(point.momentum, point.velocity);
     }
 
     /**
@@ -530,62 +421,128 @@ public class NUTS {
         samplesForVertex.add(value);
     }
 
-    private static class LeapFrogged {
-        final Map<Long, DoubleTensor> position;
-        final Map<Long, DoubleTensor> momentum;
-        final Map<Long, DoubleTensor> gradient;
-
-        LeapFrogged(Map<Long, DoubleTensor> position,
-                    Map<Long, DoubleTensor> momentum,
-                    Map<Long, DoubleTensor> gradient) {
-            this.position = position;
-            this.momentum = momentum;
-            this.gradient = gradient;
+    /**
+     * A point in phase space with the gradient at its position and the velocity, M^-1 r, of its momentum
+     */
+    private static class Point {
+        final double[] position;
+        final double[] momentum;
+        final double[] velocity;
+        final double[] gradient;
+
+        Point(int length) {
+            this.position = new double[length];
+            this.momentum = new double[length];
+            this.velocity = new double[length];
+            this.gradient = new double[length];
+        }
+
+        void moveTo(Point other) {
+            System.arraycopy(other.position, 0, position, 0, position.length);
+            System.arraycopy(other.momentum, 0, momentum, 0, momentum.length);
+            System.arraycopy(other.velocity, 0, velocity, 0, velocity.length);
+            System.arraycopy(other.gradient, 0, gradient, 0, gradient.length);
+        }
+
+        double kineticEnergy() {
+            double dotProduct = 0.0;
+            for (int i = 0; i < momentum.length; i++) {
+                dotProduct += momentum[i] * velocity[i];
+            }
+            return 0.5 * dotProduct;
+        }
+
+        void moveTo(Proposal proposal) {
+            System.arraycopy(proposal.position, 0, position, 0, position.length);
+            System.arraycopy(proposal.gradient, 0, gradient, 0, gradient.length);
+        }
+    }
+
+    /**
+     * A position that may be chosen as the next sample
+     */
+    private static class Proposal {
+        final double[] position;
+        final double[] gradient;
+        double logOfMasterP;
+        Map<Long, ?> sample;
+
+        Proposal(int length) {
+            this.position = new double[length];
+            this.gradient = new double[length];
+        }
+    }
+
+    /**
+     * The buffers for building a trajectory, which are reused from one sample to the next. The
+     * forward and backward ends are leapfrogged in place. A subtree of each height keeps its proposal
+     * and the innermost point it has reached in buffers for that height, and these are handed between
+     * heights by swapping rather than by copying.
+     */
+    private static class Trajectory {
+        final int length;
+        final Point forward;
+        final Point backward;
+        MassMatrix massMatrix;
+        Proposal accepted;
+        final List<Proposal> proposalByHeight = new ArrayList<>();
+        final List<Point> innerEndByHeight = new ArrayList<>();
+
+        Trajectory(int length, MassMatrix massMatrix) {
+            this.length = length;
+            this.massMatrix = massMatrix;
+            this.forward = new Point(length);
+            this.backward = new Point(length);
+            this.accepted = new Proposal(length);
+        }
+
+        Proposal proposalOfHeight(int height) {
+            while (proposalByHeight.size() <= height) {
+                proposalByHeight.add(new Proposal(length));
+            }
+            return proposalByHeight.get(height);
+        }
+
+        Point innerEndOfHeight(int height) {
+            while (innerEndByHeight.size() <= height) {
+                innerEndByHeight.add(new Point(length));
+            }
+            return innerEndByHeight.get(height);
+        }
+
+        /**
+         * Makes the proposal and inner end of a finished subtree those of the subtree one higher that it starts
+         */
+        void promote(int height) {
+            swapProposals(height, height + 1);
+            innerEndOfHeight(height + 1);
+            Collections.swap(innerEndByHeight, height, height + 1);
+        }
+
+        void swapProposals(int height, int otherHeight) {
+            proposalOfHeight(Math.max(height, otherHeight));
+            Collections.swap(proposalByHeight, height, otherHeight);
+        }
+
+        void acceptProposalOfHeight(int height) {
+            Proposal previouslyAccepted = accepted;
+            accepted = proposalOfHeight(height);
+            proposalByHeight.set(height, previouslyAccepted);
         }
     }
 
     private static class BuiltTree {
 
-        Map<Long, DoubleTensor> positionBackward;
-        Map<Long, DoubleTensor> gradientBackward;
-        Map<Long, DoubleTensor> momentumBackward;
-        Map<Long, DoubleTensor> positionForward;
-        Map<Long, DoubleTensor> gradientForward;
-        Map<Long, DoubleTensor> momentumForward;
-        Map<Long, DoubleTensor> acceptedPosition;
-        Map<Long, DoubleTensor> gradientAtAcceptedPosition;
-        double logOfMasterPAtAcceptedPosition;
-        Map<Long, ?> sampleAtAcceptedPosition;
         int acceptedLeapfrogCount;
         boolean shouldContinueFlag;
         double deltaLikelihoodOfLeapfrog;
         double treeSize;
 
-        BuiltTree(Map<Long, DoubleTensor> positionBackward,
-                  Map<Long, DoubleTensor> gradientBackward,
-                  Map<Long, DoubleTensor> momentumBackward,
-                  Map<Long, DoubleTensor> positionForward,
-                  Map<Long, DoubleTensor> gradientForward,
-                  Map<Long, DoubleTensor> momentumForward,
-                  Map<Long, DoubleTensor> acceptedPosition,
-                  Map<Long, DoubleTensor> gradientAtAcceptedPosition,
-                  double logOfMasterPAtAcceptedPosition,
-                  Map<Long, ?> sampleAtAcceptedPosition,
-                  int acceptedLeapfrogCount,
+        BuiltTree(int acceptedLeapfrogCount,
                   boolean shouldContinueFlag,
                   double deltaLikelihoodOfLeapfrog,
                   double treeSize) {
 
-            this.positionBackward = positionBackward;
-            this.gradientBackward = gradientBackward;
-            this.momentumBackward = momentumBackward;
-            this.positionForward = positionForward;
-            this.gradientForward = gradientForward;
-            this.momentumForward = momentumForward;
-            this.acceptedPosition = acceptedPosition;
-            this.gradientAtAcceptedPosition = gradientAtAcceptedPosition;
-            this.logOfMasterPAtAcceptedPosition = logOfMasterPAtAcceptedPosition;
-            this.sampleAtAcceptedPosition = sampleAtAcceptedPosition;
             this.acceptedLeapfrogCount = acceptedLeapfrogCount;
             this.shouldContinueFlag = shouldContinueFlag;
             this.deltaLikelihoodOfLeapfrog = deltaLikelihoodOfLeapfrog;
@@ -593,70 +550,31 @@ public class NUTS {
         }
     }
 
-    private static class AutoTune {
-
-        double stepSize;
-        double averageAcceptanceProb;
-        double targetAcceptanceProb;
-        double logStepSize;
-        double logStepSizeFrozen;
-        double adaptCount;
-        double shrinkageTarget;
-
-        AutoTune(double stepSize, double targetAcceptanceProb, double logStepSize, int adaptCount) {
-            this.stepSize = stepSize;
-            this.averageAcceptanceProb = 0;
-            this.targetAcceptanceProb = targetAcceptanceProb;
-            this.logStepSize = logStepSize;
-            this.logStepSizeFrozen = Math.log(1);
-            this.adaptCount = adaptCount;
-            this.shrinkageTarget = Math.log(10 * stepSize);
-        }
-    }
-
-    private static double findStartingStepSize(Map<Long, DoubleTensor> position,
-                                               Map<Long, DoubleTensor> gradient,
-                                               List<Vertex<DoubleTensor>> vertices,
+    /**
+     * Leapfrogs with a momentum drawn from the mass matrix to find a step size with {@link AutoTune#findStartingStepSize}.
+     * The latent vertices are put back at the start.
+     */
+    private static double findStartingStepSize(LatentVector latentVector,
+                                               MassMatrix massMatrix,
+                                               Proposal start,
                                                List<Vertex> probabilisticVertices,
                                                KeanuRandom random) {
-        double stepsize = 1;
-        double probBeforeLeapfrog = getLogProb(probabilisticVertices);
-        Map<Long, DoubleTensor> momentums = new HashMap<>();
-        initializeMomentumForEachVertex(vertices, momentums, random);
-        leapfrog(vertices, probabilisticVertices, position, gradient, momentums, stepsize);
-        double probAfterLeapfrog = getLogProb(probabilisticVertices);
-        double likelihoodRatio = probAfterLeapfrog - probBeforeLeapfrog;
-        double scalingFactor = likelihoodRatio > Math.log(0.5) ? 1 : -1;
-
-        while (scalingFactor * (likelihoodRatio) > -scalingFactor * Math.log(2)) {
-            stepsize = stepsize * Math.pow(2, scalingFactor);
-            leapfrog(vertices, probabilisticVertices, position, gradient, momentums, stepsize);
-            likelihoodRatio = getLogProb(probabilisticVertices) - probBeforeLeapfrog;
-        }
 
-        return stepsize;
-    }
-
-    private static double adaptStepSize(AutoTune autoTune, BuiltTree tree, int sampleNum) {
-        if (sampleNum <= autoTune.adaptCount) {
-            double percentageLeftToTune = (1 / (sampleNum + STABILISER));
-            double acceptanceProb = (autoTune.targetAcceptanceProb - (tree.deltaLikelihoodOfLeapfrog / tree.treeSize));
-            double proportionalAcceptanceProb = (1 - percentageLeftToTune) * autoTune.averageAcceptanceProb;
-            autoTune.averageAcceptanceProb = proportionalAcceptanceProb + (percentageLeftToTune * acceptanceProb);
-
-            double shrunkSampleCount = Math.sqrt(sampleNum) / SHRINKAGE_FACTOR;
-            autoTune.logStepSize = autoTune.shrinkageTarget - (shrunkSampleCount * autoTune.averageAcceptanceProb);
-
-            double tendToZero = Math.pow(sampleNum, -TEND_TO_ZERO_EXPONENT);
-            double reducedStepSize = tendToZero * autoTune.logStepSize;
-            double increasedStepSizeFrozen = (1 - tendToZero) * autoTune.logStepSizeFrozen;
-            autoTune.logStepSizeFrozen = reducedStepSize + increasedStepSizeFrozen;
-
-            return Math.exp(autoTune.logStepSize);
-        } else {
-            return Math.exp(autoTune.logStepSizeFrozen);
-        }
+        Point initial = new Point(latentVector.getLength());
+        initial.moveTo(start);
+        massMatrix.sampleMomentum(initial.momentum, random);
+        massMatrix.velocity(initial.momentum, initial.velocity);
+        double probBeforeLeapfrog = start.logOfMasterP - initial.kineticEnergy();
+
+        Point leapfrogged = new Point(latentVector.getLength());
+        double stepSize = AutoTune.findStartingStepSize(leapfrogStepSize -> {
+            leapfrogged.moveTo(initial);
+            leapfrog(latentVector, massMatrix, probabilisticVertices, leapfrogged, leapfrogStepSize);
+            return getLogProb(probabilisticVertices) - leapfrogged.kineticEnergy() - probBeforeLeapfrog;
+        });
+
+        latentVector.writePosition(start.position);
+        return stepSize;
     }
 
 }
-
@@ -0,0 +1,250 @@
+package io.improbable.keanu.algorithms.mcmc;
+
+import io.improbable.keanu.algorithms.PosteriorSamplingAlgorithm;
+import io.improbable.keanu.algorithms.mcmc.proposal.MHStepVariableSelector;
+import io.improbable.keanu.algorithms.mcmc.proposal.ProposalDistribution;
+import io.improbable.keanu.network.BayesianNetwork;
+import io.improbable.keanu.vertices.ValueStore;
+import io.improbable.keanu.vertices.Vertex;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import lombok.Builder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import static io.improbable.keanu.algorithms.mcmc.MetropolisHastings.checkBayesNetInHealthyState;
+import static io.improbable.keanu.algorithms.mcmc.MetropolisHastings.takeSamples;
+import static io.improbable.keanu.algorithms.mcmc.proposal.MHStepVariableSelector.SINGLE_VARIABLE_SELECTOR;
+
+/**
+ * Parallel tempering, or replica exchange, runs a Metropolis Hastings chain at each temperature of a
+ * ladder. The chain at temperature T samples the network's probability to the power 1 / T, so hot
+ * chains move freely between modes that the T = 1 chain would rarely leave. Every few steps
+ * neighbouring chains propose to swap states, which passes states found by hot chains down to T = 1.
+ * <p>
+ * The chains run on their own threads and share one network, with each state held in its own
+ * {@link ValueStore}, so the network's own values are left as they were. Swapping states only swaps
+ * stores. Only the T = 1 chain is sampled. Swaps alternate between the even and the odd pairs of
+ * neighbouring temperatures.
+ */
+@Builder
+public class ParallelTempering implements PosteriorSamplingAlgorithm {
+
+    public static ParallelTempering withDefaultConfig() {
+        return withDefaultConfig(KeanuRandom.getDefaultRandom());
+    }
+
+    public static ParallelTempering withDefaultConfig(KeanuRandom random) {
+        return ParallelTempering.builder()
+            .random(random)
+            .build();
+    }
+
+    /**
+     * @param chainCount     the number of temperatures
+     * @param maxTemperature the hottest temperature
+     * @return temperatures from 1 to maxTemperature with a constant ratio between neighbours
+     */
+    public static List<Double> geometricLadder(int chainCount, double maxTemperature) {
+        if (chainCount < 1 || maxTemperature < 1.0) {
+            throw new IllegalArgumentException(
+                "Ladder needs at least 1 chain and a max temperature of at least 1 but was " + chainCount + " and " + maxTemperature
+            );
+        }
+
+        List<Double> ladder = new ArrayList<>();
+        for (int rung = 0; rung < chainCount; rung++) {
+            ladder.add(chainCount == 1 ? 1.0 : Math.pow(maxTemperature, (double) rung / (chainCount - 1)));
+        }
+        return ladder;
+    }
+
+    /**
+     * Temperatures in increasing order, the first of which must be 1
+     */
+    @Builder.Default
+    private final List<Double> temperatures = geometricLadder(4, 10.0);
+
+    @Builder.Default
+    private final int stepsBetweenSwaps = 10;
+
+    /**
+     * Makes the proposal distribution of each chain, so that adaptive proposals tune to their chain's temperature
+     */
+    @Builder.Default
+    private final Function<BayesianNetwork, ProposalDistribution> proposalDistribution = bayesNet -> ProposalDistribution.usePrior();
+
+    @Builder.Default
+    private final MHStepVariableSelector variableSelector = SINGLE_VARIABLE_SELECTOR;
+
+    @Builder.Default
+    private final boolean useCacheOnRejection = true;
+
+    @Builder.Default
+    private final KeanuRandom random = KeanuRandom.getDefaultRandom();
+
+    /**
+     * @param bayesNet             a bayesian network containing latent vertices
+     * @param verticesToSampleFrom the vertices to include in the returned samples
+     * @param sampleCount          number of steps of the T = 1 chain to take a sample after
+     * @return Samples of the T = 1 chain and the rates of swaps between temperatures
+     */
+    @Override
+    public ParallelTemperingSamples getPosteriorSamples(final BayesianNetwork bayesNet,
+                                                       final List<? extends Vertex> verticesToSampleFrom,
+                                                       final int sampleCount) {
+        checkTemperatures();
+        if (stepsBetweenSwaps < 1) {
+            throw new IllegalArgumentException("Steps between swaps must be at least 1 but was " + stepsBetweenSwaps);
+        }
+        checkBayesNetInHealthyState(bayesNet);
+
+        List<Vertex> latentVertices = bayesNet.getLatentVertices();
+        int chainCount = temperatures.size();
+
+        List<Chain> chains = new ArrayList<>();
+        List<State> stateAtRung = new ArrayList<>();
+        for (int rung = 0; rung < chainCount; rung++) {
+            chains.add(new Chain(
+                new MetropolisHastingsStep(latentVertices, proposalDistribution.apply(bayesNet), useCacheOnRejection, random.split()),
+                temperatures.get(rung)
+            ));
+            ValueStore store = new ValueStore();
+            stateAtRung.add(new State(store, store.evaluate(bayesNet::getLogOfMasterP)));
+        }
+
+        Map<Long, List<?>> samplesByVertex = new HashMap<>();
+        long[] swapsProposed = new long[Math.max(0, chainCount - 1)];
+        long[] swapsAccepted = new long[swapsProposed.length];
+
+        ExecutorService executor = Executors.newFixedThreadPool(chainCount);
+        try {
+            int swapRound = 0;
+            for (int sampleNum = 0; sampleNum < sampleCount; sampleNum += stepsBetweenSwaps) {
+                int stepCount = Math.min(stepsBetweenSwaps, sampleCount - sampleNum);
+
+                List<Callable<Void>> runs = new ArrayList<>();
+                for (int rung = 0; rung < chainCount; rung++) {
+                    Chain chain = chains.get(rung);
+                    State state = stateAtRung.get(rung);
+                    boolean sampled = rung == 0;
+                    runs.add(() -> {
+                        chain.run(state, latentVertices, stepCount, sampled ? samplesByVertex : null, verticesToSampleFrom);
+                        return null;
+                    });
+                }
+                runAll(executor, runs);
+
+                proposeSwaps(stateAtRung, swapRound++ % 2, swapsProposed, swapsAccepted);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new ParallelTemperingSamples(samplesByVertex, sampleCount, temperatures, swapsProposed, swapsAccepted);
+    }
+
+    private void checkTemperatures() {
+        if (temperatures.isEmpty() || temperatures.get(0) != 1.0) {
+            throw new IllegalArgumentException("Temperature ladder must start at 1 but was " + temperatures);
+        }
+        for (int rung = 1; rung < temperatures.size(); rung++) {
+            if (temperatures.get(rung) <= temperatures.get(rung - 1)) {
+                throw new IllegalArgumentException("Temperature ladder must be increasing but was " + temperatures);
+            }
+        }
+    }
+
+    /**
+     * A swap between states x at temperature Ti and y at Tj is accepted with probability
+     * min(1, (p(y) / p(x)) ^ (1 / Ti - 1 / Tj)), which keeps every chain at its own target.
+     */
+    private void proposeSwaps(List<State> stateAtRung, int firstRung, long[] swapsProposed, long[] swapsAccepted) {
+        for (int rung = firstRung; rung + 1 < stateAtRung.size(); rung += 2) {
+            State colder = stateAtRung.get(rung);
+            State hotter = stateAtRung.get(rung + 1);
+
+            double inverseTemperatureDifference = 1.0 / temperatures.get(rung) - 1.0 / temperatures.get(rung + 1);
+            double logR = inverseTemperatureDifference * (hotter.logProbability - colder.logProbability);
+
+            swapsProposed[rung]++;
+            if (Math.exp(logR) >= random.nextDouble()) {
+                swapsAccepted[rung]++;
+                stateAtRung.set(rung, hotter);
+                stateAtRung.set(rung + 1, colder);
+            }
+        }
+    }
+
+    private static void runAll(ExecutorService executor, List<Callable<Void>> runs) {
+        try {
+            for (Future<Void> run : executor.invokeAll(runs)) {
+                run.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for chains", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Chain failed", e.getCause());
+        }
+    }
+
+    /**
+     * A state of the network, which moves between temperatures when swaps are accepted
+     */
+    private static final class State {
+
+        private final ValueStore store;
+        private double logProbability;
+
+        State(ValueStore store, double logProbability) {
+            this.store = store;
+            this.logProbability = logProbability;
+        }
+    }
+
+    /**
+     * The step at one temperature, which keeps its proposal distribution whichever state it's moving
+     */
+    private final class Chain {
+
+        private final MetropolisHastingsStep step;
+        private final double temperature;
+        private int stepsTaken;
+
+        Chain(MetropolisHastingsStep step, double temperature) {
+            this.step = step;
+            this.temperature = temperature;
+        }
+
+        void run(State state,
+                 List<Vertex> latentVertices,
+                 int stepCount,
+                 Map<Long, List<?>> samplesByVertex,
+                 List<? extends Vertex> verticesToSampleFrom) {
+
+            state.store.run(() -> {
+                for (int i = 0; i < stepCount; i++) {
+                    Set<Vertex> chosenVertices = variableSelector.select(latentVertices, stepsTaken++);
+                    state.logProbability = step.step(chosenVertices, state.logProbability, temperature).getLogProbabilityAfterStep();
+
+                    if (samplesByVertex != null) {
+                        takeSamples(samplesByVertex, verticesToSampleFrom);
+                    }
+                }
+            });
+        }
+    }
+}
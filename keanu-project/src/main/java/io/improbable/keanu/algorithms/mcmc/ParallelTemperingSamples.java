@@ -0,0 +1,56 @@
+package io.improbable.keanu.algorithms.mcmc;
+
+import io.improbable.keanu.algorithms.NetworkSamples;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The samples of the T = 1 chain of a {@link ParallelTempering} run, with how often each pair of
+ * neighbouring temperatures swapped states.
+ */
+public class ParallelTemperingSamples extends NetworkSamples {
+
+    private final List<Double> temperatures;
+    private final long[] swapsProposed;
+    private final long[] swapsAccepted;
+
+    public ParallelTemperingSamples(Map<Long, ? extends List> samplesByVertex,
+                                    int size,
+                                    List<Double> temperatures,
+                                    long[] swapsProposed,
+                                    long[] swapsAccepted) {
+        super(samplesByVertex, size);
+        this.temperatures = Collections.unmodifiableList(temperatures);
+        this.swapsProposed = swapsProposed.clone();
+        this.swapsAccepted = swapsAccepted.clone();
+    }
+
+    /**
+     * @return the temperature ladder, starting at 1
+     */
+    public List<Double> getTemperatures() {
+        return temperatures;
+    }
+
+    /**
+     * @param rung the position on the ladder of the colder of the two temperatures
+     * @return the number of swaps proposed between the temperatures at rung and rung + 1
+     */
+    public long getSwapsProposed(int rung) {
+        return swapsProposed[rung];
+    }
+
+    /**
+     * A rate near zero means the neighbouring temperatures are too far apart for states to pass
+     * between them, and a rate near one that they're closer together than they need to be.
+     *
+     * @param rung the position on the ladder of the colder of the two temperatures
+     * @return the fraction of swaps accepted between the temperatures at rung and rung + 1, or NaN
+     * if none were proposed
+     */
+    public double getSwapAcceptanceRate(int rung) {
+        return swapsProposed[rung] == 0 ? Double.NaN : (double) swapsAccepted[rung] / swapsProposed[rung];
+    }
+}
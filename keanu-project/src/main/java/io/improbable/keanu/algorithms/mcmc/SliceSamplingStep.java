@@ -0,0 +1,259 @@
+package io.improbable.keanu.algorithms.mcmc;
+
+import io.improbable.keanu.algorithms.graphtraversal.VertexValuePropagation;
+import io.improbable.keanu.network.LambdaSection;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.tensor.intgr.IntegerTensor;
+import io.improbable.keanu.vertices.Vertex;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+
+import java.util.Map;
+
+/**
+ * Univariate slice sampling with stepping out and shrinkage, taken one element of a vertex at a time.
+ * Every step is accepted and the only scale it needs, the width, is stepped out of or shrunk from,
+ * so unlike a proposal it needs no tuning. It only needs log probabilities, so it works for latents
+ * that affect the network through non-differentiable vertices.
+ * <p>
+ * Integer elements are slice sampled along a continuous coordinate whose integer part is the value, so
+ * log probabilities are only ever taken on the integer lattice. A vertex's own log probability is
+ * negative infinity outside of its bounds, so the slice never steps out or shrinks to a value beyond them.
+ * <p>
+ * Slice Sampling, Neal, 2003
+ * https://projecteuclid.org/euclid.aos/1056562461
+ */
+class SliceSamplingStep {
+
+    static final double DEFAULT_WIDTH = 1.0;
+
+    /**
+     * Limits how far the slice is stepped out, in widths, so that a flat log probability can't step forever
+     */
+    private static final int MAX_STEPPING_OUT_COUNT = 100;
+
+    private final Map<Vertex, LambdaSection> affectedVertices;
+    private final double width;
+    private final KeanuRandom random;
+
+    /**
+     * @param affectedVertices the vertices whose log probability changes with each latent, by latent
+     * @param width            the initial width of the slice around each value
+     * @param random           Source of randomness
+     */
+    SliceSamplingStep(Map<Vertex, LambdaSection> affectedVertices, double width, KeanuRandom random) {
+        if (!(width > 0.0)) {
+            throw new IllegalArgumentException("Slice width must be positive but was " + width);
+        }
+        this.affectedVertices = affectedVertices;
+        this.width = width;
+        this.random = random;
+    }
+
+    /**
+     * @param vertex a latent vertex
+     * @return true if the vertex has double or integer values, which are the ones that can be slice sampled
+     */
+    static boolean canSliceSample(Vertex<?> vertex) {
+        Object value = vertex.getValue();
+        return value instanceof DoubleTensor || value instanceof IntegerTensor;
+    }
+
+    /**
+     * @param vertex                   the vertex to take a slice sampling step for each element of
+     * @param logProbabilityBeforeStep The log of the previous state's probability
+     * @param temperature              Temperature for simulated annealing
+     * @return the log probability of the network after the step
+     */
+    double step(final Vertex<?> vertex,
+                final double logProbabilityBeforeStep,
+                final double temperature) {
+
+        final Coordinates coordinates = coordinatesOf(vertex);
+        final double logProbOfAffectedBeforeStep = sumLogProbabilityOfAffected(vertex);
+
+        double logProbOfAffected = logProbOfAffectedBeforeStep;
+        for (int i = 0; i < coordinates.getLength(); i++) {
+            logProbOfAffected = stepElement(vertex, coordinates, i, logProbOfAffected, temperature);
+        }
+
+        return logProbabilityBeforeStep + logProbOfAffected - logProbOfAffectedBeforeStep;
+    }
+
+    /**
+     * Leaves the vertex at the sampled value, which is the last one that's evaluated
+     *
+     * @return the log probability of the affected vertices at the sampled value
+     */
+    private double stepElement(Vertex<?> vertex,
+                               Coordinates coordinates,
+                               int index,
+                               double logProbOfAffected,
+                               double temperature) {
+
+        final double x0 = coordinates.startingCoordinate(index, random);
+        final double logSliceHeight = logProbOfAffected / temperature + Math.log(random.nextDouble());
+
+        double left = x0 - width * random.nextDouble();
+        double right = left + width;
+
+        int leftSteps = (int) (MAX_STEPPING_OUT_COUNT * random.nextDouble());
+        int rightSteps = MAX_STEPPING_OUT_COUNT - 1 - leftSteps;
+
+        while (leftSteps > 0 && logProbAt(vertex, coordinates, index, left) / temperature > logSliceHeight) {
+            left -= width;
+            leftSteps--;
+        }
+
+        while (rightSteps > 0 && logProbAt(vertex, coordinates, index, right) / temperature > logSliceHeight) {
+            right += width;
+            rightSteps--;
+        }
+
+        while (true) {
+            final double x1 = left + (right - left) * random.nextDouble();
+            final double logProbAtX1 = logProbAt(vertex, coordinates, index, x1);
+
+            //x0 is always in the slice, so if shrinking has reached its value the step stays where it was
+            if (logProbAtX1 / temperature > logSliceHeight || coordinates.haveSameValue(x0, x1)) {
+                coordinates.keep(index, x1);
+                return logProbAtX1;
+            }
+
+            if (x1 < x0) {
+                left = x1;
+            } else {
+                right = x1;
+            }
+        }
+    }
+
+    private double logProbAt(Vertex<?> vertex, Coordinates coordinates, int index, double coordinate) {
+        coordinates.setValueAt(vertex, index, coordinate);
+        VertexValuePropagation.cascadeUpdate(vertex);
+        return sumLogProbabilityOfAffected(vertex);
+    }
+
+    private double sumLogProbabilityOfAffected(Vertex<?> vertex) {
+        double sumLogProb = 0.0;
+        for (Vertex v : affectedVertices.get(vertex).getLatentAndObservedVertices()) {
+            sumLogProb += v.logProbAtValue();
+        }
+        return sumLogProb;
+    }
+
+    private static Coordinates coordinatesOf(Vertex<?> vertex) {
+        Object value = vertex.getValue();
+        if (value instanceof DoubleTensor) {
+            return new DoubleCoordinates(((DoubleTensor) value).asFlatDoubleArray());
+        } else if (value instanceof IntegerTensor) {
+            return new IntegerCoordinates(((IntegerTensor) value).asFlatIntegerArray());
+        }
+        throw new IllegalArgumentException("Only vertices with double or integer values can be slice sampled but " + vertex + " was");
+    }
+
+    /**
+     * The coordinate that each element of a vertex is slice sampled along
+     */
+    private interface Coordinates {
+
+        int getLength();
+
+        double startingCoordinate(int index, KeanuRandom random);
+
+        /**
+         * Sets the vertex to its current values with one element changed to the value at a coordinate
+         */
+        void setValueAt(Vertex<?> vertex, int index, double coordinate);
+
+        boolean haveSameValue(double coordinate, double otherCoordinate);
+
+        /**
+         * Makes the value at a coordinate the element's current value
+         */
+        void keep(int index, double coordinate);
+    }
+
+    private static final class DoubleCoordinates implements Coordinates {
+
+        private final double[] values;
+
+        DoubleCoordinates(double[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public int getLength() {
+            return values.length;
+        }
+
+        @Override
+        public double startingCoordinate(int index, KeanuRandom random) {
+            return values[index];
+        }
+
+        @Override
+        public void setValueAt(Vertex<?> vertex, int index, double coordinate) {
+            final double[] valuesAt = values.clone();
+            valuesAt[index] = coordinate;
+            ((Vertex<DoubleTensor>) vertex).setValue(DoubleTensor.create(valuesAt, vertex.getShape()));
+        }
+
+        @Override
+        public boolean haveSameValue(double coordinate, double otherCoordinate) {
+            return coordinate == otherCoordinate;
+        }
+
+        @Override
+        public void keep(int index, double coordinate) {
+            values[index] = coordinate;
+        }
+    }
+
+    /**
+     * The value at a coordinate is its integer part, so each integer has a unit of coordinate and the
+     * slice along the coordinate is the slice over the integers. The starting coordinate is uniform
+     * over the unit of the current value.
+     */
+    private static final class IntegerCoordinates implements Coordinates {
+
+        private final int[] values;
+
+        IntegerCoordinates(int[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public int getLength() {
+            return values.length;
+        }
+
+        @Override
+        public double startingCoordinate(int index, KeanuRandom random) {
+            return values[index] + random.nextDouble();
+        }
+
+        @Override
+        public void setValueAt(Vertex<?> vertex, int index, double coordinate) {
+            final int[] valuesAt = values.clone();
+            valuesAt[index] = valueAt(coordinate);
+            ((Vertex<IntegerTensor>) vertex).setValue(IntegerTensor.create(valuesAt, vertex.getShape()));
+        }
+
+        @Override
+        public boolean haveSameValue(double coordinate, double otherCoordinate) {
+            return valueAt(coordinate) == valueAt(otherCoordinate);
+        }
+
+        @Override
+        public void keep(int index, double coordinate) {
+            values[index] = valueAt(coordinate);
+        }
+
+        /**
+         * Coordinates beyond the int range saturate, and the log probability there is that of the extreme int
+         */
+        private static int valueAt(double coordinate) {
+            return (int) Math.floor(coordinate);
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package io.improbable.keanu.algorithms.mcmc.conjugacy;
+
+import io.improbable.keanu.distributions.ContinuousDistribution;
+import io.improbable.keanu.distributions.continuous.Beta;
+import io.improbable.keanu.distributions.continuous.Gamma;
+import io.improbable.keanu.distributions.continuous.Gaussian;
+import io.improbable.keanu.distributions.continuous.InverseGamma;
+import io.improbable.keanu.network.BayesianNetwork;
+import io.improbable.keanu.network.LambdaSection;
+import io.improbable.keanu.tensor.Tensor;
+import io.improbable.keanu.tensor.bool.BooleanTensor;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.Vertex;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.nonprobabilistic.ConstantDoubleVertex;
+import io.improbable.keanu.vertices.dbl.nonprobabilistic.DoubleIfVertex;
+import io.improbable.keanu.vertices.dbl.nonprobabilistic.operators.binary.PowerVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.BetaVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.GammaVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.GaussianVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.InverseGammaVertex;
+import io.improbable.keanu.vertices.intgr.probabilistic.BinomialVertex;
+import io.improbable.keanu.vertices.intgr.probabilistic.PoissonVertex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static io.improbable.keanu.tensor.ScalarBroadcast.getOrScalar;
+
+/**
+ * Finds the latent vertices whose distribution given the rest of the network has a closed form,
+ * because their prior is conjugate to the likelihood of every vertex whose probability they change:
+ * <ul>
+ * <li>a Gaussian that's the mu of Gaussian children</li>
+ * <li>a Gamma with a constant zero location that's the mu of Poisson children</li>
+ * <li>a Beta that's the p of Binomial children</li>
+ * <li>an InverseGamma whose square root is the sigma of Gaussian children, i.e. that's their variance</li>
+ * </ul>
+ * A child's parameter can also be picked from the latent by an If, e.g. a Poisson rate that changes
+ * at a switchpoint, in which case only the elements of the child that pick the latent depend on it.
+ * <p>
+ * Either the latent is a scalar that every element of its children depends on, or it has the same
+ * length as each of its children and their elements match one to one. None of a child's other
+ * parameters may depend on the latent.
+ */
+public final class ConjugacyDetector {
+
+    private ConjugacyDetector() {
+    }
+
+    /**
+     * @param bayesNet the network to look for conjugate vertices in
+     * @return the full conditional of each latent vertex that has one in closed form
+     */
+    public static Map<Vertex, FullConditional> detect(BayesianNetwork bayesNet) {
+        Map<Vertex, FullConditional> fullConditionals = new HashMap<>();
+        for (Vertex<?> latent : bayesNet.getLatentVertices()) {
+            FullConditional fullConditional = detect(latent);
+            if (fullConditional != null) {
+                fullConditionals.put(latent, fullConditional);
+            }
+        }
+        return fullConditionals;
+    }
+
+    /**
+     * @param vertex a latent vertex
+     * @return the vertex's full conditional, or null if it isn't one of the conjugate patterns
+     */
+    public static FullConditional detect(Vertex<?> vertex) {
+        if (vertex.isObserved()) {
+            return null;
+        }
+
+        if (vertex instanceof GaussianVertex) {
+            return gaussianMean((GaussianVertex) vertex);
+        } else if (vertex instanceof GammaVertex) {
+            return poissonRate((GammaVertex) vertex);
+        } else if (vertex instanceof BetaVertex) {
+            return binomialProbability((BetaVertex) vertex);
+        } else if (vertex instanceof InverseGammaVertex) {
+            return gaussianVariance((InverseGammaVertex) vertex);
+        }
+        return null;
+    }
+
+    private static FullConditional gaussianMean(GaussianVertex latent) {
+        List<Term<GaussianVertex>> terms = termsOf(
+            latent,
+            GaussianVertex.class,
+            GaussianVertex::getMu,
+            parameter -> parameter == latent,
+            child -> Collections.singletonList(child.getSigma())
+        );
+        return terms == null ? null : new GaussianMean(latent, terms);
+    }
+
+    private static FullConditional poissonRate(GammaVertex latent) {
+        DoubleVertex location = latent.getLocation();
+        if (!(location instanceof ConstantDoubleVertex) || !allEqual(location.getValue(), 0.0)) {
+            return null;
+        }
+
+        List<Term<PoissonVertex>> terms = termsOf(
+            latent,
+            PoissonVertex.class,
+            PoissonVertex::getMu,
+            parameter -> parameter == latent,
+            child -> Collections.emptyList()
+        );
+        return terms == null ? null : new PoissonRate(latent, terms);
+    }
+
+    private static FullConditional binomialProbability(BetaVertex latent) {
+        List<Term<BinomialVertex>> terms = termsOf(
+            latent,
+            BinomialVertex.class,
+            BinomialVertex::getP,
+            parameter -> parameter == latent,
+            child -> Collections.singletonList(child.getN())
+        );
+        return terms == null ? null : new BinomialProbability(latent, terms);
+    }
+
+    private static FullConditional gaussianVariance(InverseGammaVertex latent) {
+        List<Term<GaussianVertex>> terms = termsOf(
+            latent,
+            GaussianVertex.class,
+            GaussianVertex::getSigma,
+            parameter -> isSquareRootOf(parameter, latent),
+            child -> Collections.singletonList(child.getMu())
+        );
+        return terms == null ? null : new GaussianVariance(latent, terms);
+    }
+
+    private static boolean isSquareRootOf(Vertex<?> parameter, Vertex<?> latent) {
+        if (!(parameter instanceof PowerVertex)) {
+            return false;
+        }
+        PowerVertex power = (PowerVertex) parameter;
+        return power.getLeft() == latent && allEqual(power.getRight().getValue(), 0.5);
+    }
+
+    private static boolean allEqual(DoubleTensor tensor, double value) {
+        for (double element : tensor.asFlatDoubleArray()) {
+            if (element != value) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return a term for each vertex whose probability depends on the latent, or null if any of them
+     * isn't a child of the given type whose parameter is, or is picked from, the latent
+     */
+    private static <C extends Vertex<? extends Tensor>> List<Term<C>> termsOf(Vertex<?> latent,
+                                                                             Class<C> childType,
+                                                                             Function<C, Vertex<?>> parameterOf,
+                                                                             Predicate<Vertex<?>> isLatent,
+                                                                             Function<C, List<Vertex<?>>> otherParametersOf) {
+
+        Set<Vertex> affected = LambdaSection.getDownstreamLambdaSection(latent, true).getAllVertices();
+        long latentLength = ((Tensor) latent.getValue()).getLength();
+
+        List<Term<C>> terms = new ArrayList<>();
+        for (Vertex<?> vertex : affected) {
+            if (vertex == latent || !(vertex.isProbabilistic() || vertex.isObserved())) {
+                continue;
+            }
+            if (!childType.isInstance(vertex)) {
+                return null;
+            }
+
+            C child = childType.cast(vertex);
+            for (Vertex<?> otherParameter : otherParametersOf.apply(child)) {
+                if (affected.contains(otherParameter)) {
+                    return null;
+                }
+            }
+
+            long childLength = child.getValue().getLength();
+            if (latentLength != 1 && latentLength != childLength) {
+                return null;
+            }
+
+            Term<C> term = termOf(child, parameterOf.apply(child), isLatent, affected);
+            if (term == null) {
+                return null;
+            }
+            terms.add(term);
+        }
+        return terms;
+    }
+
+    private static <C extends Vertex<? extends Tensor>> Term<C> termOf(C child,
+                                                                      Vertex<?> parameter,
+                                                                      Predicate<Vertex<?>> isLatent,
+                                                                      Set<Vertex> affected) {
+        if (isLatent.test(parameter)) {
+            return new Term<>(child, null, true);
+        }
+        if (!(parameter instanceof DoubleIfVertex)) {
+            return null;
+        }
+
+        DoubleIfVertex pick = (DoubleIfVertex) parameter;
+        long predicateLength = pick.getPredicate().getValue().getLength();
+        if (affected.contains(pick.getPredicate()) || (predicateLength != 1 && predicateLength != child.getValue().getLength())) {
+            return null;
+        }
+
+        if (isLatent.test(pick.getThn()) && !affected.contains(pick.getEls())) {
+            return new Term<>(child, pick.getPredicate(), true);
+        } else if (isLatent.test(pick.getEls()) && !affected.contains(pick.getThn())) {
+            return new Term<>(child, pick.getPredicate(), false);
+        }
+        return null;
+    }
+
+    /**
+     * A child of the latent, and which of its elements depend on the latent
+     */
+    private static final class Term<C extends Vertex<? extends Tensor>> {
+
+        private final C child;
+        private final Vertex<? extends BooleanTensor> predicate;
+        private final boolean picksLatentWhen;
+
+        Term(C child, Vertex<? extends BooleanTensor> predicate, boolean picksLatentWhen) {
+            this.child = child;
+            this.predicate = predicate;
+            this.picksLatentWhen = picksLatentWhen;
+        }
+
+        /**
+         * @return for each element of the child, the element of the latent it depends on or -1 if
+         * it doesn't depend on the latent
+         */
+        int[] latentIndices(int latentLength) {
+            int childLength = (int) child.getValue().getLength();
+            Boolean[] picks = predicate == null ? null : predicate.getValue().asFlatArray();
+
+            int[] indices = new int[childLength];
+            for (int i = 0; i < childLength; i++) {
+                boolean dependsOnLatent = picks == null || getOrScalar(picks, i) == picksLatentWhen;
+                indices[i] = !dependsOnLatent ? -1 : (latentLength == 1 ? 0 : i);
+            }
+            return indices;
+        }
+    }
+
+    private abstract static class Conjugate<L extends DoubleVertex, C extends Vertex<? extends Tensor>> implements FullConditional {
+
+        protected final L latent;
+        protected final List<Term<C>> terms;
+
+        Conjugate(L latent, List<Term<C>> terms) {
+            this.latent = latent;
+            this.terms = terms;
+        }
+
+        @Override
+        public DoubleVertex getVertex() {
+            return latent;
+        }
+
+        int latentLength() {
+            return (int) latent.getValue().getLength();
+        }
+
+        int[] latentShape() {
+            return latent.getValue().getShape();
+        }
+    }
+
+    /**
+     * With a N(mu0, sigma0) prior and children y ~ N(latent, sigma), the latent's precision is the
+     * prior's precision plus the children's, and its mean is the precision weighted mean.
+     */
+    private static final class GaussianMean extends Conjugate<GaussianVertex, GaussianVertex> {
+
+        GaussianMean(GaussianVertex latent, List<Term<GaussianVertex>> terms) {
+            super(latent, terms);
+        }
+
+        @Override
+        public ContinuousDistribution distribution() {
+            int length = latentLength();
+            double[] priorMu = latent.getMu().getValue().asFlatDoubleArray();
+            double[] priorSigma = latent.getSigma().getValue().asFlatDoubleArray();
+
+            double[] precision = new double[length];
+            double[] weightedSum = new double[length];
+            for (int i = 0; i < length; i++) {
+                double sigma = getOrScalar(priorSigma, i);
+                precision[i] = 1.0 / (sigma * sigma);
+                weightedSum[i] = getOrScalar(priorMu, i) * precision[i];
+            }
+
+            for (Term<GaussianVertex> term : terms) {
+                double[] y = term.child.getValue().asFlatDoubleArray();
+                double[] sigmas = term.child.getSigma().getValue().asFlatDoubleArray();
+                int[] latentIndices = term.latentIndices(length);
+
+                for (int j = 0; j < y.length; j++) {
+                    int i = latentIndices[j];
+                    if (i >= 0) {
+                        double sigma = getOrScalar(sigmas, j);
+                        double weight = 1.0 / (sigma * sigma);
+                        precision[i] += weight;
+                        weightedSum[i] += weight * y[j];
+                    }
+                }
+            }
+
+            double[] mu = new double[length];
+            double[] sigma = new double[length];
+            for (int i = 0; i < length; i++) {
+                mu[i] = weightedSum[i] / precision[i];
+                sigma[i] = 1.0 / Math.sqrt(precision[i]);
+            }
+
+            return Gaussian.withParameters(DoubleTensor.create(mu, latentShape()), DoubleTensor.create(sigma, latentShape()));
+        }
+    }
+
+    /**
+     * With a Gamma(k, theta) prior and n children y ~ Poisson(latent), the latent is
+     * Gamma(k + sum(y), theta / (1 + n * theta)).
+     */
+    private static final class PoissonRate extends Conjugate<GammaVertex, PoissonVertex> {
+
+        PoissonRate(GammaVertex latent, List<Term<PoissonVertex>> terms) {
+            super(latent, terms);
+        }
+
+        @Override
+        public ContinuousDistribution distribution() {
+            int length = latentLength();
+            double[] priorK = latent.getK().getValue().asFlatDoubleArray();
+            double[] priorTheta = latent.getTheta().getValue().asFlatDoubleArray();
+
+            double[] sumOfCounts = new double[length];
+            double[] observations = new double[length];
+            for (Term<PoissonVertex> term : terms) {
+                double[] y = term.child.getValue().asFlatDoubleArray();
+                int[] latentIndices = term.latentIndices(length);
+
+                for (int j = 0; j < y.length; j++) {
+                    int i = latentIndices[j];
+                    if (i >= 0) {
+                        sumOfCounts[i] += y[j];
+                        observations[i]++;
+                    }
+                }
+            }
+
+            double[] k = new double[length];
+            double[] theta = new double[length];
+            for (int i = 0; i < length; i++) {
+                double thetaBefore = getOrScalar(priorTheta, i);
+                k[i] = getOrScalar(priorK, i) + sumOfCounts[i];
+                theta[i] = thetaBefore / (1.0 + observations[i] * thetaBefore);
+            }
+
+            return Gamma.withParameters(
+                DoubleTensor.zeros(latentShape()),
+                DoubleTensor.create(theta, latentShape()),
+                DoubleTensor.create(k, latentShape())
+            );
+        }
+    }
+
+    /**
+     * With a Beta(alpha, beta) prior and children y ~ Binomial(latent, n), the latent is
+     * Beta(alpha + sum(y), beta + sum(n - y)).
+     */
+    private static final class BinomialProbability extends Conjugate<BetaVertex, BinomialVertex> {
+
+        BinomialProbability(BetaVertex latent, List<Term<BinomialVertex>> terms) {
+            super(latent, terms);
+        }
+
+        @Override
+        public ContinuousDistribution distribution() {
+            int length = latentLength();
+            double[] alpha = latent.getAlpha().getValue().asFlatDoubleArray();
+            double[] beta = latent.getBeta().getValue().asFlatDoubleArray();
+
+            double[] successes = new double[length];
+            double[] failures = new double[length];
+            for (Term<BinomialVertex> term : terms) {
+                double[] y = term.child.getValue().asFlatDoubleArray();
+                double[] n = term.child.getN().getValue().asFlatDoubleArray();
+                int[] latentIndices = term.latentIndices(length);
+
+                for (int j = 0; j < y.length; j++) {
+                    int i = latentIndices[j];
+                    if (i >= 0) {
+                        successes[i] += y[j];
+                        failures[i] += getOrScalar(n, j) - y[j];
+                    }
+                }
+            }
+
+            double[] alphaAfter = new double[length];
+            double[] betaAfter = new double[length];
+            for (int i = 0; i < length; i++) {
+                alphaAfter[i] = getOrScalar(alpha, i) + successes[i];
+                betaAfter[i] = getOrScalar(beta, i) + failures[i];
+            }
+
+            return Beta.withParameters(
+                DoubleTensor.create(alphaAfter, latentShape()),
+                DoubleTensor.create(betaAfter, latentShape()),
+                DoubleTensor.scalar(0.),
+                DoubleTensor.scalar(1.)
+            );
+        }
+    }
+
+    /**
+     * With an InverseGamma(alpha, beta) prior and n children y ~ N(mu, sqrt(latent)), the latent is
+     * InverseGamma(alpha + n / 2, beta + sum((y - mu)^2) / 2).
+     */
+    private static final class GaussianVariance extends Conjugate<InverseGammaVertex, GaussianVertex> {
+
+        GaussianVariance(InverseGammaVertex latent, List<Term<GaussianVertex>> terms) {
+            super(latent, terms);
+        }
+
+        @Override
+        public ContinuousDistribution distribution() {
+            int length = latentLength();
+            double[] alpha = latent.getAlpha().getValue().asFlatDoubleArray();
+            double[] beta = latent.getBeta().getValue().asFlatDoubleArray();
+
+            double[] observations = new double[length];
+            double[] sumOfSquares = new double[length];
+            for (Term<GaussianVertex> term : terms) {
+                double[] y = term.child.getValue().asFlatDoubleArray();
+                double[] mu = term.child.getMu().getValue().asFlatDoubleArray();
+                int[] latentIndices = term.latentIndices(length);
+
+                for (int j = 0; j < y.length; j++) {
+                    int i = latentIndices[j];
+                    if (i >= 0) {
+                        double deviation = y[j] - getOrScalar(mu, j);
+                        observations[i]++;
+                        sumOfSquares[i] += deviation * deviation;
+                    }
+                }
+            }
+
+            double[] alphaAfter = new double[length];
+            double[] betaAfter = new double[length];
+            for (int i = 0; i < length; i++) {
+                alphaAfter[i] = getOrScalar(alpha, i) + observations[i] / 2.0;
+                betaAfter[i] = getOrScalar(beta, i) + sumOfSquares[i] / 2.0;
+            }
+
+            return InverseGamma.withParameters(
+                DoubleTensor.create(alphaAfter, latentShape()),
+                DoubleTensor.create(betaAfter, latentShape())
+            );
+        }
+    }
+}
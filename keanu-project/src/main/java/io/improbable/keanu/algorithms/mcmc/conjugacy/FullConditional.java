@@ -0,0 +1,21 @@
+package io.improbable.keanu.algorithms.mcmc.conjugacy;
+
+import io.improbable.keanu.distributions.ContinuousDistribution;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+
+/**
+ * The closed form distribution of a latent vertex given the values of every other vertex in its network.
+ */
+public interface FullConditional {
+
+    /**
+     * @return the vertex this is the full conditional of
+     */
+    DoubleVertex getVertex();
+
+    /**
+     * @return the distribution of the vertex given the current values of the rest of the network. It has
+     * the same shape as the vertex's value.
+     */
+    ContinuousDistribution distribution();
+}
@@ -0,0 +1,333 @@
+package io.improbable.keanu.algorithms.mcmc.proposal;
+
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.Vertex;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.improbable.keanu.distributions.continuous.Gaussian.LN_SQRT_2PI;
+
+/**
+ * Moves a block of double vertices together with a Gaussian step whose covariance is learnt from the
+ * chain's history, so that correlated vertices move along their correlation (Haario, Saksman and
+ * Tamminen, An adaptive Metropolis algorithm, 2001).
+ * <p>
+ * Each distinct set of vertices that's proposed for is a block with its own covariance. Until a
+ * block has been visited a few times its steps are isotropic. The covariance is learnt for the
+ * block's first adaptCount steps and is then frozen so that the samples after burn in come from a
+ * fixed proposal. Vertices in a block that aren't double vertices are proposed from their priors.
+ */
+public class AdaptiveCovarianceProposalDistribution implements ProposalDistribution {
+
+    /**
+     * The scaling of the covariance that's optimal for Gaussian targets, 2.38^2 / d, from Gelman,
+     * Roberts and Gilks, Efficient Metropolis jumping rules, 1996
+     */
+    private static final double OPTIMAL_SCALING = 2.38 * 2.38;
+
+    /**
+     * Keeps the learnt covariance positive definite when the history is degenerate
+     */
+    private static final double REGULARISATION = 1e-6;
+
+    private final double initialScale;
+    private final int adaptCount;
+    private final Map<Set<Vertex>, Block> blocks = new HashMap<>();
+    private final Map<Vertex, Block> lastBlockOf = new HashMap<>();
+
+    /**
+     * @param initialScale the standard deviation of each element's step before any covariance is learnt
+     * @param adaptCount   the number of steps of each block during which its covariance is learnt
+     */
+    public AdaptiveCovarianceProposalDistribution(double initialScale, int adaptCount) {
+        if (initialScale <= 0.0) {
+            throw new IllegalArgumentException("Scale must be positive but was " + initialScale);
+        }
+        this.initialScale = initialScale;
+        this.adaptCount = adaptCount;
+    }
+
+    @Override
+    public Proposal getProposal(Set<Vertex> vertices, KeanuRandom random) {
+        Proposal proposal = new Proposal();
+        Block block = blockOf(vertices);
+        for (DoubleVertex vertex : block.vertices) {
+            lastBlockOf.put(vertex, block);
+        }
+
+        double[] from = block.currentValues();
+        double[] step = block.choleskyOfStepCovariance(initialScale);
+        double[] z = random.nextGaussian(new int[]{1, block.dimension}).asFlatDoubleArray();
+
+        double[] to = from.clone();
+        for (int i = 0; i < block.dimension; i++) {
+            for (int j = 0; j <= i; j++) {
+                to[i] += step[i * block.dimension + j] * z[j];
+            }
+        }
+        block.propose(to, proposal);
+
+        for (Vertex<?> vertex : vertices) {
+            if (!(vertex instanceof DoubleVertex)) {
+                setFromPrior(vertex, random, proposal);
+            }
+        }
+        return proposal;
+    }
+
+    /**
+     * For a double vertex this is the density of its marginal step, from the block it was last proposed
+     * in or, if it hasn't been yet, from the isotropic step it would start with. Block steps are
+     * symmetric, so their densities cancel in the Hastings correction and the block log probs below
+     * only count vertices proposed from their priors.
+     */
+    @Override
+    public <T> double logProb(Vertex<T> vertex, T ofValue, T givenValue) {
+        if (!(vertex instanceof DoubleVertex)) {
+            return vertex.logProb(ofValue);
+        }
+
+        double[] of = ((DoubleTensor) ofValue).asFlatDoubleArray();
+        double[] given = ((DoubleTensor) givenValue).asFlatDoubleArray();
+        Block block = lastBlockOf.get(vertex);
+        double[] step = block == null
+            ? Block.isotropicCholesky(initialScale, of.length)
+            : block.choleskyOfMarginalStepCovariance((DoubleVertex) vertex, initialScale);
+
+        return gaussianLogProb(of, given, step);
+    }
+
+    @Override
+    public double logProbAtFromGivenTo(Proposal proposal) {
+        return logProbOfPriorProposals(proposal, true);
+    }
+
+    @Override
+    public double logProbAtToGivenFrom(Proposal proposal) {
+        return logProbOfPriorProposals(proposal, false);
+    }
+
+    @Override
+    public void adapt(Proposal proposal, boolean accepted, double acceptanceProbability) {
+        Block block = blocks.get(proposal.getVerticesWithProposal());
+        if (block != null && block.steps < adaptCount) {
+            block.record(block.valuesOf(proposal, accepted));
+        }
+    }
+
+    private Block blockOf(Set<Vertex> vertices) {
+        Block block = blocks.get(vertices);
+        if (block == null) {
+            block = new Block(vertices);
+            blocks.put(new HashSet<>(vertices), block);
+        }
+        return block;
+    }
+
+    private double logProbOfPriorProposals(Proposal proposal, boolean ofFrom) {
+        double logProb = 0.0;
+        for (Vertex vertex : proposal.getVerticesWithProposal()) {
+            if (!(vertex instanceof DoubleVertex)) {
+                logProb += vertex.logProb(ofFrom ? proposal.getProposalFrom(vertex) : proposal.getProposalTo(vertex));
+            }
+        }
+        return logProb;
+    }
+
+    /**
+     * @param lower the lower triangular Cholesky factor, row major, of the covariance
+     */
+    private static double gaussianLogProb(double[] of, double[] mean, double[] lower) {
+        int n = of.length;
+        double[] whitened = new double[n];
+        double logProb = -n * LN_SQRT_2PI;
+
+        for (int i = 0; i < n; i++) {
+            double residual = of[i] - mean[i];
+            for (int j = 0; j < i; j++) {
+                residual -= lower[i * n + j] * whitened[j];
+            }
+            whitened[i] = residual / lower[i * n + i];
+            logProb -= 0.5 * whitened[i] * whitened[i] + Math.log(lower[i * n + i]);
+        }
+        return logProb;
+    }
+
+    private static <T> void setFromPrior(Vertex<T> vertex, KeanuRandom random, Proposal proposal) {
+        proposal.setProposal(vertex, vertex.sample(random));
+    }
+
+    /**
+     * The double vertices of a block in a fixed order, with a running mean and sum of squared
+     * deviations (Welford) of their flattened values.
+     */
+    private static final class Block {
+
+        private final List<DoubleVertex> vertices = new ArrayList<>();
+        private final int dimension;
+        private final double[] mean;
+        private final double[] sumOfSquares;
+        private int steps;
+
+        Block(Set<Vertex> blockVertices) {
+            for (Vertex vertex : blockVertices) {
+                if (vertex instanceof DoubleVertex) {
+                    vertices.add((DoubleVertex) vertex);
+                }
+            }
+            vertices.sort(Comparator.comparingLong(Vertex::getId));
+
+            int length = 0;
+            for (DoubleVertex vertex : vertices) {
+                length += vertex.getValue().asFlatDoubleArray().length;
+            }
+            this.dimension = length;
+            this.mean = new double[dimension];
+            this.sumOfSquares = new double[dimension * dimension];
+        }
+
+        /**
+         * @return the lower triangular Cholesky factor, row major, of the step covariance of one of the
+         * block's vertices, which is its rows and columns of the block's step covariance
+         */
+        double[] choleskyOfMarginalStepCovariance(DoubleVertex vertex, double initialScale) {
+            int offset = 0;
+            for (DoubleVertex blockVertex : vertices) {
+                if (blockVertex == vertex) {
+                    break;
+                }
+                offset += blockVertex.getValue().asFlatDoubleArray().length;
+            }
+
+            int length = vertex.getValue().asFlatDoubleArray().length;
+            double[] lower = choleskyOfStepCovariance(initialScale);
+            double[] covariance = new double[length * length];
+            for (int i = 0; i < length; i++) {
+                for (int j = 0; j < length; j++) {
+                    double sum = 0.0;
+                    for (int k = 0; k < dimension; k++) {
+                        sum += lower[(offset + i) * dimension + k] * lower[(offset + j) * dimension + k];
+                    }
+                    covariance[i * length + j] = sum;
+                }
+            }
+            return cholesky(covariance, length);
+        }
+
+        static double[] isotropicCholesky(double initialScale, int length) {
+            double[] lower = new double[length * length];
+            for (int i = 0; i < length; i++) {
+                lower[i * length + i] = initialScale;
+            }
+            return lower;
+        }
+
+        double[] currentValues() {
+            double[] values = new double[dimension];
+            int offset = 0;
+            for (DoubleVertex vertex : vertices) {
+                double[] flat = vertex.getValue().asFlatDoubleArray();
+                System.arraycopy(flat, 0, values, offset, flat.length);
+                offset += flat.length;
+            }
+            return values;
+        }
+
+        /**
+         * @return the block's values after the step, which are the proposed values if it was
+         * accepted and the values it started from if not
+         */
+        double[] valuesOf(Proposal proposal, boolean accepted) {
+            double[] values = new double[dimension];
+            int offset = 0;
+            for (DoubleVertex vertex : vertices) {
+                DoubleTensor value = accepted ? proposal.getProposalTo(vertex) : proposal.getProposalFrom(vertex);
+                double[] flat = value.asFlatDoubleArray();
+                System.arraycopy(flat, 0, values, offset, flat.length);
+                offset += flat.length;
+            }
+            return values;
+        }
+
+        void propose(double[] values, Proposal proposal) {
+            int offset = 0;
+            for (DoubleVertex vertex : vertices) {
+                int[] shape = vertex.getShape();
+                int length = vertex.getValue().asFlatDoubleArray().length;
+                double[] flat = new double[length];
+                System.arraycopy(values, offset, flat, 0, length);
+                proposal.setProposal(vertex, DoubleTensor.create(flat, shape));
+                offset += length;
+            }
+        }
+
+        void record(double[] state) {
+            steps++;
+            double[] delta = new double[dimension];
+            for (int i = 0; i < dimension; i++) {
+                delta[i] = state[i] - mean[i];
+                mean[i] += delta[i] / steps;
+            }
+            for (int i = 0; i < dimension; i++) {
+                for (int j = 0; j < dimension; j++) {
+                    sumOfSquares[i * dimension + j] += delta[i] * (state[j] - mean[j]);
+                }
+            }
+        }
+
+        /**
+         * @return the lower triangular Cholesky factor, row major, of the step covariance. That's
+         * initialScale^2 I until there's enough history, then 2.38^2 / d times the learnt covariance.
+         */
+        double[] choleskyOfStepCovariance(double initialScale) {
+            double[] covariance = new double[dimension * dimension];
+
+            if (steps <= 2 * dimension) {
+                for (int i = 0; i < dimension; i++) {
+                    covariance[i * dimension + i] = initialScale * initialScale;
+                }
+            } else {
+                double trace = 0.0;
+                for (int i = 0; i < dimension; i++) {
+                    trace += sumOfSquares[i * dimension + i] / (steps - 1);
+                }
+                double jitter = REGULARISATION * Math.max(trace / dimension, Double.MIN_NORMAL);
+
+                for (int i = 0; i < dimension * dimension; i++) {
+                    covariance[i] = OPTIMAL_SCALING / dimension * sumOfSquares[i] / (steps - 1);
+                }
+                for (int i = 0; i < dimension; i++) {
+                    covariance[i * dimension + i] += OPTIMAL_SCALING / dimension * jitter;
+                }
+            }
+
+            return cholesky(covariance, dimension);
+        }
+
+        private static double[] cholesky(double[] matrix, int n) {
+            double[] lower = new double[n * n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j <= i; j++) {
+                    double sum = matrix[i * n + j];
+                    for (int k = 0; k < j; k++) {
+                        sum -= lower[i * n + k] * lower[j * n + k];
+                    }
+                    if (i == j) {
+                        lower[i * n + i] = Math.sqrt(Math.max(sum, 0.0));
+                    } else {
+                        lower[i * n + j] = lower[j * n + j] == 0.0 ? 0.0 : sum / lower[j * n + j];
+                    }
+                }
+            }
+            return lower;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package io.improbable.keanu.algorithms.mcmc.proposal;
+
+import io.improbable.keanu.vertices.Vertex;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Chooses every latent vertex in each step, so that they're proposed for together as one block.
+ */
+public final class FullVariableSelector implements MHStepVariableSelector {
+
+    static final FullVariableSelector INSTANCE = new FullVariableSelector();
+
+    private FullVariableSelector() {
+    }
+
+    @Override
+    public Set<Vertex> select(List<? extends Vertex> latentVertices, int sampleNumber) {
+        return new HashSet<>(latentVertices);
+    }
+}
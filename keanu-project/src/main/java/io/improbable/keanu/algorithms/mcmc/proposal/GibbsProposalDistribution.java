@@ -0,0 +1,132 @@
+package io.improbable.keanu.algorithms.mcmc.proposal;
+
+import io.improbable.keanu.algorithms.mcmc.conjugacy.ConjugacyDetector;
+import io.improbable.keanu.algorithms.mcmc.conjugacy.FullConditional;
+import io.improbable.keanu.distributions.ContinuousDistribution;
+import io.improbable.keanu.network.BayesianNetwork;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.Vertex;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Takes a Gibbs step for each vertex that has a closed form full conditional, by drawing it exactly
+ * from that distribution, and proposes for every other vertex with another proposal distribution.
+ * A Gibbs step on its own is always accepted, so Gibbs and Metropolis Hastings steps can be mixed
+ * freely through the variable selector of MetropolisHastings.
+ * <p>
+ * When vertices are proposed for together the full conditionals of the reverse step are worked out
+ * once the proposal has been applied, so the Hastings correction keeps every step exact. This holds
+ * the last proposal between calls, so it should only be used by one chain.
+ */
+public class GibbsProposalDistribution implements ProposalDistribution {
+
+    private final Map<Vertex, FullConditional> fullConditionals;
+    private final ProposalDistribution otherwise;
+    private final Map<Vertex, ContinuousDistribution> forwardDistributions = new HashMap<>();
+    private Proposal otherwiseProposal;
+
+    /**
+     * @param bayesNet  the network to look for conjugate vertices in
+     * @param otherwise proposes for the vertices that don't have a closed form full conditional
+     */
+    public GibbsProposalDistribution(BayesianNetwork bayesNet, ProposalDistribution otherwise) {
+        this(ConjugacyDetector.detect(bayesNet), otherwise);
+    }
+
+    /**
+     * @param fullConditionals the full conditional of each vertex to take Gibbs steps for
+     * @param otherwise        proposes for every other vertex
+     */
+    public GibbsProposalDistribution(Map<Vertex, FullConditional> fullConditionals, ProposalDistribution otherwise) {
+        this.fullConditionals = new HashMap<>(fullConditionals);
+        this.otherwise = otherwise;
+    }
+
+    /**
+     * @return the vertices that Gibbs steps are taken for
+     */
+    public Set<Vertex> getGibbsVertices() {
+        return Collections.unmodifiableSet(fullConditionals.keySet());
+    }
+
+    @Override
+    public Proposal getProposal(Set<Vertex> vertices, KeanuRandom random) {
+        Proposal proposal = new Proposal();
+        Set<Vertex> otherVertices = new HashSet<>();
+        forwardDistributions.clear();
+
+        for (Vertex vertex : vertices) {
+            FullConditional fullConditional = fullConditionals.get(vertex);
+            if (fullConditional == null) {
+                otherVertices.add(vertex);
+            } else {
+                DoubleVertex gibbsVertex = fullConditional.getVertex();
+                ContinuousDistribution distribution = fullConditional.distribution();
+                forwardDistributions.put(vertex, distribution);
+                proposal.setProposal(gibbsVertex, distribution.sample(gibbsVertex.getValue().getShape(), random));
+            }
+        }
+
+        otherwiseProposal = otherVertices.isEmpty() ? null : otherwise.getProposal(otherVertices, random);
+        if (otherwiseProposal != null) {
+            for (Vertex<?> vertex : otherwiseProposal.getVerticesWithProposal()) {
+                copyProposal(vertex, otherwiseProposal, proposal);
+            }
+        }
+        return proposal;
+    }
+
+    /**
+     * The density of a Gibbs step given the current values of the rest of the network
+     */
+    @Override
+    public <T> double logProb(Vertex<T> vertex, T ofValue, T givenValue) {
+        FullConditional fullConditional = fullConditionals.get(vertex);
+        if (fullConditional == null) {
+            return otherwise.logProb(vertex, ofValue, givenValue);
+        }
+        return fullConditional.distribution().logProb((DoubleTensor) ofValue).sum();
+    }
+
+    /**
+     * Expects the proposal to have been applied, so that the full conditionals of the reverse step
+     * are given the proposed values.
+     */
+    @Override
+    public double logProbAtFromGivenTo(Proposal proposal) {
+        double logProb = otherwiseProposal == null ? 0.0 : otherwise.logProbAtFromGivenTo(otherwiseProposal);
+        for (Vertex vertex : forwardDistributions.keySet()) {
+            DoubleTensor from = (DoubleTensor) proposal.getProposalFrom(vertex);
+            logProb += fullConditionals.get(vertex).distribution().logProb(from).sum();
+        }
+        return logProb;
+    }
+
+    @Override
+    public double logProbAtToGivenFrom(Proposal proposal) {
+        double logProb = otherwiseProposal == null ? 0.0 : otherwise.logProbAtToGivenFrom(otherwiseProposal);
+        for (Map.Entry<Vertex, ContinuousDistribution> forward : forwardDistributions.entrySet()) {
+            DoubleTensor to = (DoubleTensor) proposal.getProposalTo(forward.getKey());
+            logProb += forward.getValue().logProb(to).sum();
+        }
+        return logProb;
+    }
+
+    @Override
+    public void adapt(Proposal proposal, boolean accepted, double acceptanceProbability) {
+        if (otherwiseProposal != null) {
+            otherwise.adapt(otherwiseProposal, accepted, acceptanceProbability);
+        }
+    }
+
+    private static <T> void copyProposal(Vertex<T> vertex, Proposal from, Proposal to) {
+        to.setProposal(vertex, from.getProposalTo(vertex));
+    }
+}
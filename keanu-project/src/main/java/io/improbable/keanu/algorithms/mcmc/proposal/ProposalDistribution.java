@@ -1,5 +1,6 @@
 package io.improbable.keanu.algorithms.mcmc.proposal;
 
+import io.improbable.keanu.network.BayesianNetwork;
 import io.improbable.keanu.vertices.Vertex;
 import io.improbable.keanu.vertices.dbl.KeanuRandom;
 
@@ -11,10 +12,64 @@ public interface ProposalDistribution {
         return new PriorProposalDistribution();
     }
 
+    /**
+     * @param scale the standard deviation of continuous steps, and the largest integer step
+     * @return a random walk proposal with a fixed scale
+     */
+    static ProposalDistribution randomWalk(double scale) {
+        return new RandomWalkProposalDistribution(scale, RandomWalkProposalDistribution.DEFAULT_TARGET_ACCEPTANCE_PROB, 0);
+    }
+
+    /**
+     * @param targetAcceptanceProb the acceptance probability each vertex's scale is tuned toward
+     * @param adaptCount           the number of steps of each vertex during which its scale is tuned
+     * @return a random walk proposal whose scales are tuned during burn in
+     */
+    static ProposalDistribution adaptiveRandomWalk(double targetAcceptanceProb, int adaptCount) {
+        return new RandomWalkProposalDistribution(1.0, targetAcceptanceProb, adaptCount);
+    }
+
+    /**
+     * @param adaptCount the number of steps of each block during which its covariance is learnt
+     * @return a random walk proposal that moves blocks of vertices with a learnt covariance
+     */
+    static ProposalDistribution adaptiveCovariance(int adaptCount) {
+        return new AdaptiveCovarianceProposalDistribution(0.1, adaptCount);
+    }
+
+    /**
+     * @param bayesNet  the network that will be sampled from
+     * @param otherwise proposes for the vertices that aren't conjugate to their children
+     * @return a proposal that takes Gibbs steps for the vertices that are conjugate to their children
+     */
+    static ProposalDistribution conjugateGibbs(BayesianNetwork bayesNet, ProposalDistribution otherwise) {
+        return new GibbsProposalDistribution(bayesNet, otherwise);
+    }
+
+    /**
+     * @param bayesNet the network that will be sampled from
+     * @return a proposal that takes Gibbs steps for the vertices that are conjugate to their children
+     * and proposes for the others from their priors
+     */
+    static ProposalDistribution conjugateGibbs(BayesianNetwork bayesNet) {
+        return conjugateGibbs(bayesNet, usePrior());
+    }
+
     Proposal getProposal(Set<Vertex> vertices, KeanuRandom random);
 
     <T> double logProb(Vertex<T> vertex, T ofValue, T givenValue);
 
+    /**
+     * Called after every step so that adaptive proposals can tune themselves. Proposals that hold
+     * adaptation state should only be used by one chain.
+     *
+     * @param proposal              the proposal that was made
+     * @param accepted              whether the proposal was accepted
+     * @param acceptanceProbability the probability that the proposal would be accepted
+     */
+    default void adapt(Proposal proposal, boolean accepted, double acceptanceProbability) {
+    }
+
     /**
      * Represents q(x|x') where q is the proposal distribution,
      * x' is the proposal to value and x is the proposal from value.
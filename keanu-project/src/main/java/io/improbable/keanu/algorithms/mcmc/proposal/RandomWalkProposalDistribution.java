@@ -0,0 +1,169 @@
+package io.improbable.keanu.algorithms.mcmc.proposal;
+
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.tensor.intgr.IntegerTensor;
+import io.improbable.keanu.vertices.Vertex;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import io.improbable.keanu.vertices.intgr.IntegerVertex;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Proposes a step away from each vertex's current value. Double vertices take a Gaussian step and
+ * integer vertices a step of between 1 and k either way. Any other vertex is proposed from its prior.
+ * <p>
+ * Each vertex has its own scale, which can be tuned toward a target acceptance probability for its
+ * first adaptCount steps (Roberts and Rosenthal, Examples of Adaptive MCMC, 2009) and is then
+ * frozen so that the samples after burn in come from a fixed proposal.
+ */
+public class RandomWalkProposalDistribution implements ProposalDistribution {
+
+    /**
+     * The optimal acceptance probability of a one dimensional Gaussian random walk
+     */
+    public static final double DEFAULT_TARGET_ACCEPTANCE_PROB = 0.44;
+
+    /**
+     * Adaptation step sizes fall as n^-0.6, so they sum to infinity but their squares don't
+     */
+    private static final double ADAPTATION_DECAY = 0.6;
+
+    private static final double LOG_ROOT_TWO_PI = 0.5 * Math.log(2 * Math.PI);
+
+    private final double initialScale;
+    private final double targetAcceptanceProb;
+    private final int adaptCount;
+    private final Map<Vertex, Scale> scales = new HashMap<>();
+
+    /**
+     * @param initialScale         the standard deviation of continuous steps, and the largest integer step,
+     *                             before any tuning
+     * @param targetAcceptanceProb the acceptance probability each scale is tuned toward
+     * @param adaptCount           the number of steps of each vertex during which its scale is tuned
+     */
+    public RandomWalkProposalDistribution(double initialScale, double targetAcceptanceProb, int adaptCount) {
+        if (initialScale <= 0.0) {
+            throw new IllegalArgumentException("Scale must be positive but was " + initialScale);
+        }
+        if (targetAcceptanceProb <= 0.0 || targetAcceptanceProb >= 1.0) {
+            throw new IllegalArgumentException("Target acceptance probability must be between 0 and 1 but was " + targetAcceptanceProb);
+        }
+        this.initialScale = initialScale;
+        this.targetAcceptanceProb = targetAcceptanceProb;
+        this.adaptCount = adaptCount;
+    }
+
+    /**
+     * @param vertex a vertex that has been proposed for
+     * @return the vertex's current scale
+     */
+    public double getScale(Vertex<?> vertex) {
+        return scaleOf(vertex).get();
+    }
+
+    @Override
+    public Proposal getProposal(Set<Vertex> vertices, KeanuRandom random) {
+        Proposal proposal = new Proposal();
+        for (Vertex<?> vertex : vertices) {
+            if (vertex instanceof DoubleVertex) {
+                DoubleVertex doubleVertex = (DoubleVertex) vertex;
+                DoubleTensor step = random.nextGaussian(doubleVertex.getShape()).timesInPlace(scaleOf(vertex).get());
+                proposal.setProposal(doubleVertex, step.plusInPlace(doubleVertex.getValue()));
+            } else if (vertex instanceof IntegerVertex) {
+                IntegerVertex integerVertex = (IntegerVertex) vertex;
+                proposal.setProposal(integerVertex, integerStep(integerVertex.getValue(), maxIntegerStep(vertex), random));
+            } else {
+                setFromPrior(vertex, random, proposal);
+            }
+        }
+        return proposal;
+    }
+
+    @Override
+    public <T> double logProb(Vertex<T> vertex, T ofValue, T givenValue) {
+        if (vertex instanceof DoubleVertex) {
+            double scale = scaleOf(vertex).get();
+            double[] of = ((DoubleTensor) ofValue).asFlatDoubleArray();
+            double[] given = ((DoubleTensor) givenValue).asFlatDoubleArray();
+
+            double logProb = 0.0;
+            for (int i = 0; i < of.length; i++) {
+                double z = (of[i] - given[i]) / scale;
+                logProb += -0.5 * z * z - Math.log(scale) - LOG_ROOT_TWO_PI;
+            }
+            return logProb;
+
+        } else if (vertex instanceof IntegerVertex) {
+            int maxStep = maxIntegerStep(vertex);
+            int[] of = ((IntegerTensor) ofValue).asFlatIntegerArray();
+            int[] given = ((IntegerTensor) givenValue).asFlatIntegerArray();
+
+            for (int i = 0; i < of.length; i++) {
+                int step = Math.abs(of[i] - given[i]);
+                if (step < 1 || step > maxStep) {
+                    return Double.NEGATIVE_INFINITY;
+                }
+            }
+            return -of.length * Math.log(2.0 * maxStep);
+
+        } else {
+            return vertex.logProb(ofValue);
+        }
+    }
+
+    /**
+     * Robbins-Monro: each step moves the log scale by the acceptance probability's distance from
+     * the target, so scales grow while too much is accepted and shrink while too little is.
+     */
+    @Override
+    public void adapt(Proposal proposal, boolean accepted, double acceptanceProbability) {
+        for (Vertex vertex : proposal.getVerticesWithProposal()) {
+            if (vertex instanceof DoubleVertex || vertex instanceof IntegerVertex) {
+                Scale scale = scaleOf(vertex);
+                if (scale.steps < adaptCount) {
+                    scale.steps++;
+                    scale.logScale += Math.pow(scale.steps, -ADAPTATION_DECAY) * (acceptanceProbability - targetAcceptanceProb);
+                }
+            }
+        }
+    }
+
+    private Scale scaleOf(Vertex<?> vertex) {
+        return scales.computeIfAbsent(vertex, v -> new Scale(Math.log(initialScale)));
+    }
+
+    private int maxIntegerStep(Vertex<?> vertex) {
+        return Math.max(1, (int) Math.round(scaleOf(vertex).get()));
+    }
+
+    private static IntegerTensor integerStep(IntegerTensor from, int maxStep, KeanuRandom random) {
+        int[] values = from.asFlatIntegerArray();
+        int[] stepped = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            int step = 1 + random.nextInt(maxStep);
+            stepped[i] = values[i] + (random.nextBoolean() ? step : -step);
+        }
+        return IntegerTensor.create(stepped, from.getShape());
+    }
+
+    private static <T> void setFromPrior(Vertex<T> vertex, KeanuRandom random, Proposal proposal) {
+        proposal.setProposal(vertex, vertex.sample(random));
+    }
+
+    private static final class Scale {
+
+        private double logScale;
+        private int steps;
+
+        Scale(double logScale) {
+            this.logScale = logScale;
+        }
+
+        double get() {
+            return Math.exp(logScale);
+        }
+    }
+}
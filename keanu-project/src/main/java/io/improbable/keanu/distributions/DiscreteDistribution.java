@@ -3,4 +3,13 @@ package io.improbable.keanu.distributions;
 import io.improbable.keanu.tensor.intgr.IntegerTensor;
 
 public interface DiscreteDistribution  extends Distribution<IntegerTensor> {
+
+    /**
+     * @param k the values to evaluate the log prob at
+     * @return the sum of the log probs over every element of k. Implementations may sum as they go
+     * rather than making the tensor of log probs first.
+     */
+    default double logProbSum(IntegerTensor k) {
+        return logProb(k).sum();
+    }
 }
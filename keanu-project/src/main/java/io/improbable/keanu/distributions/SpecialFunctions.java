@@ -0,0 +1,136 @@
+package io.improbable.keanu.distributions;
+
+import java.util.function.DoubleUnaryOperator;
+
+import org.apache.commons.math3.special.Beta;
+import org.apache.commons.math3.special.Gamma;
+
+import io.improbable.keanu.tensor.ParallelLoops;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.tensor.intgr.IntegerTensor;
+
+/**
+ * Special functions in log space for computing log probs and their derivatives without
+ * overflowing. The tensor versions work over the flat primitive data.
+ */
+public final class SpecialFunctions {
+
+    private static final int LOG_FACTORIAL_TABLE_SIZE = 1024;
+
+    private static final double[] LOG_FACTORIAL = new double[LOG_FACTORIAL_TABLE_SIZE];
+
+    static {
+        for (int k = 2; k < LOG_FACTORIAL_TABLE_SIZE; k++) {
+            LOG_FACTORIAL[k] = Gamma.logGamma(k + 1.0);
+        }
+    }
+
+    private SpecialFunctions() {
+    }
+
+    /**
+     * @param x a positive value
+     * @return log(gamma(x))
+     */
+    public static double logGamma(double x) {
+        if (x >= 1 && x < LOG_FACTORIAL_TABLE_SIZE + 1 && x == Math.rint(x)) {
+            return LOG_FACTORIAL[(int) x - 1];
+        }
+        return Gamma.logGamma(x);
+    }
+
+    /**
+     * @param k a non negative integer
+     * @return log(k!), read from a table for small k
+     */
+    public static double logFactorial(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Factorial is undefined for negative values: " + k);
+        }
+        if (k < LOG_FACTORIAL_TABLE_SIZE) {
+            return LOG_FACTORIAL[k];
+        }
+        return Gamma.logGamma(k + 1.0);
+    }
+
+    /**
+     * @return log(n choose k), or negative infinity if k isn't between 0 and n
+     */
+    public static double logBinomialCoefficient(int n, int k) {
+        if (k < 0 || k > n) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return logFactorial(n) - logFactorial(k) - logFactorial(n - k);
+    }
+
+    /**
+     * @return log(B(a, b)) where B is the beta function
+     */
+    public static double logBeta(double a, double b) {
+        return Beta.logBeta(a, b);
+    }
+
+    /**
+     * @return the derivative of log(gamma(x))
+     */
+    public static double digamma(double x) {
+        return Gamma.digamma(x);
+    }
+
+    /**
+     * @return x * log(y), taken to be 0 when x is 0 even if y is 0
+     */
+    public static double xLogY(double x, double y) {
+        return x == 0 ? 0 : x * Math.log(y);
+    }
+
+    /**
+     * @return x * log(1 + y), taken to be 0 when x is 0 even if y is -1
+     */
+    public static double xLog1pY(double x, double y) {
+        return x == 0 ? 0 : x * Math.log1p(y);
+    }
+
+    /**
+     * @return log(1 + e^x) without overflowing for large x
+     */
+    public static double log1pExp(double x) {
+        if (x > 0) {
+            return x + Math.log1p(Math.exp(-x));
+        }
+        return Math.log1p(Math.exp(x));
+    }
+
+    /**
+     * @param x a non positive value
+     * @return log(1 - e^x), accurate for x near 0 as well as for large negative x
+     */
+    public static double log1mExp(double x) {
+        if (x > -Math.log(2)) {
+            return Math.log(-Math.expm1(x));
+        }
+        return Math.log1p(-Math.exp(x));
+    }
+
+    public static DoubleTensor logGamma(DoubleTensor x) {
+        return map(x, SpecialFunctions::logGamma);
+    }
+
+    public static DoubleTensor digamma(DoubleTensor x) {
+        return map(x, SpecialFunctions::digamma);
+    }
+
+    public static DoubleTensor logFactorial(IntegerTensor k) {
+        final int[] values = k.asFlatIntegerArray();
+        final double[] result = new double[values.length];
+        ParallelLoops.forEach(values.length, i -> result[i] = logFactorial(values[i]));
+        return DoubleTensor.create(result, k.getShape());
+    }
+
+    private static DoubleTensor map(DoubleTensor x, DoubleUnaryOperator function) {
+        final double[] values = x.asFlatDoubleArray();
+        final double[] result = new double[values.length];
+        ParallelLoops.forEach(values.length, i -> result[i] = function.applyAsDouble(values[i]));
+        return DoubleTensor.create(result, x.getShape());
+    }
+}
@@ -4,9 +4,8 @@ import static io.improbable.keanu.distributions.dual.Diffs.A;
 import static io.improbable.keanu.distributions.dual.Diffs.B;
 import static io.improbable.keanu.distributions.dual.Diffs.X;
 
-import org.apache.commons.math3.special.Gamma;
-
 import io.improbable.keanu.distributions.ContinuousDistribution;
+import io.improbable.keanu.distributions.SpecialFunctions;
 import io.improbable.keanu.distributions.dual.Diffs;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
 import io.improbable.keanu.vertices.dbl.KeanuRandom;
@@ -18,6 +17,13 @@ public class Beta implements ContinuousDistribution {
     private final DoubleTensor xMin;
     private final DoubleTensor xMax;
 
+    /**
+     * Terms that only depend on the parameters, worked out by the first log prob or gradient that
+     * needs them and published whole, as in {@link Gaussian}
+     */
+    private volatile LogProbTerms logProbTerms;
+    private volatile DLogProbTerms dLogProbTerms;
+
     public static ContinuousDistribution withParameters(DoubleTensor alpha, DoubleTensor beta, DoubleTensor xMin, DoubleTensor xMax) {
         return new Beta(alpha, beta, xMin, xMax);
     }
@@ -49,30 +55,82 @@ public class Beta implements ContinuousDistribution {
 
     @Override
     public DoubleTensor logProb(DoubleTensor x) {
-        final DoubleTensor lnGammaAlpha = alpha.apply(Gamma::logGamma);
-        final DoubleTensor lnGammaBeta = beta.apply(Gamma::logGamma);
-        final DoubleTensor alphaPlusBetaLnGamma = (alpha.plus(beta)).applyInPlace(Gamma::logGamma);
-        final DoubleTensor alphaMinusOneTimesLnX = x.log().timesInPlace(alpha.minus(1));
-        final DoubleTensor betaMinusOneTimesOneMinusXLn = x.unaryMinus().plusInPlace(1).logInPlace().timesInPlace(beta.minus(1));
-
-        final DoubleTensor betaFunction = lnGammaAlpha.plusInPlace(lnGammaBeta).minusInPlace(alphaPlusBetaLnGamma);
+        final LogProbTerms terms = logProbTerms();
+        final DoubleTensor alphaMinusOneTimesLnX = x.log().timesInPlace(terms.alphaMinusOne);
+        final DoubleTensor betaMinusOneTimesOneMinusXLn = x.unaryMinus().plusInPlace(1).logInPlace().timesInPlace(terms.betaMinusOne);
 
-        return alphaMinusOneTimesLnX.plusInPlace(betaMinusOneTimesOneMinusXLn).minusInPlace(betaFunction);
+        return alphaMinusOneTimesLnX.plusInPlace(betaMinusOneTimesOneMinusXLn).minusInPlace(terms.logBetaFunction);
     }
 
     @Override
     public Diffs dLogProb(DoubleTensor x) {
+        final DLogProbTerms terms = dLogProbTerms();
         final DoubleTensor oneMinusX = x.unaryMinus().plusInPlace(1);
-        final DoubleTensor digammaAlphaPlusBeta = alpha.plus(beta).applyInPlace(Gamma::digamma);
-        final DoubleTensor alphaMinusOneDivX = x.reciprocal().timesInPlace(alpha.minus(1));
+        final DoubleTensor alphaMinusOneDivX = x.reciprocal().timesInPlace(terms.alphaMinusOne);
 
-        final DoubleTensor dLogPdx = alphaMinusOneDivX.minusInPlace(oneMinusX.reciprocal().timesInPlace(beta.minus(1)));
-        final DoubleTensor dLogPda = x.log().plusInPlace(digammaAlphaPlusBeta.minus(alpha.apply(Gamma::digamma)));
-        final DoubleTensor dLogPdb = oneMinusX.logInPlace().plusInPlace(digammaAlphaPlusBeta.minusInPlace(beta.apply(Gamma::digamma)));
+        final DoubleTensor dLogPdx = alphaMinusOneDivX.minusInPlace(oneMinusX.reciprocal().timesInPlace(terms.betaMinusOne));
+        final DoubleTensor dLogPda = x.log().plusInPlace(terms.digammaAlphaPlusBetaMinusDigammaAlpha);
+        final DoubleTensor dLogPdb = oneMinusX.logInPlace().plusInPlace(terms.digammaAlphaPlusBetaMinusDigammaBeta);
 
         return new Diffs()
             .put(A, dLogPda)
             .put(B, dLogPdb)
             .put(X, dLogPdx);
     }
+
+    private LogProbTerms logProbTerms() {
+        LogProbTerms terms = logProbTerms;
+        if (terms == null) {
+            terms = new LogProbTerms(alpha, beta);
+            logProbTerms = terms;
+        }
+        return terms;
+    }
+
+    private DLogProbTerms dLogProbTerms() {
+        DLogProbTerms terms = dLogProbTerms;
+        if (terms == null) {
+            terms = new DLogProbTerms(alpha, beta);
+            dLogProbTerms = terms;
+        }
+        return terms;
+    }
+
+    private static final class LogProbTerms {
+
+        private final DoubleTensor alphaMinusOne;
+        private final DoubleTensor betaMinusOne;
+
+        /**
+         * log(gamma(alpha)) + log(gamma(beta)) - log(gamma(alpha + beta))
+         */
+        private final DoubleTensor logBetaFunction;
+
+        LogProbTerms(DoubleTensor alpha, DoubleTensor beta) {
+            this.alphaMinusOne = alpha.minus(1);
+            this.betaMinusOne = beta.minus(1);
+
+            final DoubleTensor lnGammaAlpha = SpecialFunctions.logGamma(alpha);
+            final DoubleTensor lnGammaBeta = SpecialFunctions.logGamma(beta);
+            final DoubleTensor alphaPlusBetaLnGamma = SpecialFunctions.logGamma(alpha.plus(beta));
+            this.logBetaFunction = lnGammaAlpha.plusInPlace(lnGammaBeta).minusInPlace(alphaPlusBetaLnGamma);
+        }
+    }
+
+    private static final class DLogProbTerms {
+
+        private final DoubleTensor alphaMinusOne;
+        private final DoubleTensor betaMinusOne;
+        private final DoubleTensor digammaAlphaPlusBetaMinusDigammaAlpha;
+        private final DoubleTensor digammaAlphaPlusBetaMinusDigammaBeta;
+
+        DLogProbTerms(DoubleTensor alpha, DoubleTensor beta) {
+            this.alphaMinusOne = alpha.minus(1);
+            this.betaMinusOne = beta.minus(1);
+
+            final DoubleTensor digammaAlphaPlusBeta = SpecialFunctions.digamma(alpha.plus(beta));
+            this.digammaAlphaPlusBetaMinusDigammaAlpha = digammaAlphaPlusBeta.minus(SpecialFunctions.digamma(alpha));
+            this.digammaAlphaPlusBetaMinusDigammaBeta = digammaAlphaPlusBeta.minus(SpecialFunctions.digamma(beta));
+        }
+    }
 }
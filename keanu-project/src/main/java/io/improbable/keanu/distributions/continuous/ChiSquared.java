@@ -1,8 +1,7 @@
 package io.improbable.keanu.distributions.continuous;
 
-import org.apache.commons.math3.special.Gamma;
-
 import io.improbable.keanu.distributions.ContinuousDistribution;
+import io.improbable.keanu.distributions.SpecialFunctions;
 import io.improbable.keanu.distributions.dual.Diffs;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
 import io.improbable.keanu.tensor.intgr.IntegerTensor;
@@ -30,7 +29,7 @@ public class ChiSquared implements ContinuousDistribution {
     public DoubleTensor logProb(DoubleTensor x) {
         DoubleTensor halfK = k.toDouble().div(2);
         DoubleTensor numerator = halfK.minus(1).timesInPlace(x.log()).minusInPlace(x.div(2));
-        DoubleTensor denominator = halfK.times(LOG_TWO).plusInPlace(halfK.apply(Gamma::gamma).logInPlace());
+        DoubleTensor denominator = halfK.times(LOG_TWO).plusInPlace(SpecialFunctions.logGamma(halfK));
         return numerator.minusInPlace(denominator);
     }
 
@@ -16,6 +16,15 @@ public class Gaussian implements ContinuousDistribution {
     private final DoubleTensor mu;
     private final DoubleTensor sigma;
 
+    /**
+     * Terms that only depend on the parameters. They're worked out by the first log prob or gradient
+     * that needs them, so a distribution that's only sampled from never pays for them, and are then
+     * shared by every later one. Each set is built whole before it's published, so threads that share
+     * a cached distribution can at worst build the same set twice.
+     */
+    private volatile LogProbTerms logProbTerms;
+    private volatile DLogProbTerms dLogProbTerms;
+
     public static ContinuousDistribution withParameters(DoubleTensor mu, DoubleTensor sigma) {
         return new Gaussian(mu, sigma);
     }
@@ -33,22 +42,22 @@ public class Gaussian implements ContinuousDistribution {
 
     @Override
     public DoubleTensor logProb(DoubleTensor x) {
-        final DoubleTensor lnSigma = sigma.log();
+        final LogProbTerms terms = logProbTerms();
         final DoubleTensor xMinusMuSquared = x.minus(mu).powInPlace(2);
-        final DoubleTensor xMinusMuSquaredOver2Variance = xMinusMuSquared.divInPlace(sigma.pow(2).timesInPlace(2.0));
-        return xMinusMuSquaredOver2Variance.plusInPlace(lnSigma).plusInPlace(LN_SQRT_2PI).unaryMinusInPlace();
+        final DoubleTensor xMinusMuSquaredOver2Variance = xMinusMuSquared.divInPlace(terms.twoVariance);
+        return xMinusMuSquaredOver2Variance.plusInPlace(terms.logNormaliser).unaryMinusInPlace();
     }
 
     @Override
     public Diffs dLogProb(DoubleTensor x) {
-        final DoubleTensor variance = sigma.pow(2);
+        final DLogProbTerms terms = dLogProbTerms();
         final DoubleTensor xMinusMu = x.minus(mu);
 
-        final DoubleTensor dLogPdmu = xMinusMu.div(variance);
+        final DoubleTensor dLogPdmu = xMinusMu.div(terms.variance);
         final DoubleTensor dLogPdx = dLogPdmu.unaryMinus();
         final DoubleTensor dLogPdsigma = xMinusMu.powInPlace(2)
-            .divInPlace(variance.timesInPlace(sigma))
-            .minusInPlace(sigma.reciprocal());
+            .divInPlace(terms.sigmaCubed)
+            .minusInPlace(terms.reciprocalSigma);
 
         return new Diffs()
             .put(MU, dLogPdmu)
@@ -56,4 +65,49 @@ public class Gaussian implements ContinuousDistribution {
             .put(X, dLogPdx);
     }
 
+    private LogProbTerms logProbTerms() {
+        LogProbTerms terms = logProbTerms;
+        if (terms == null) {
+            terms = new LogProbTerms(sigma);
+            logProbTerms = terms;
+        }
+        return terms;
+    }
+
+    private DLogProbTerms dLogProbTerms() {
+        DLogProbTerms terms = dLogProbTerms;
+        if (terms == null) {
+            terms = new DLogProbTerms(sigma);
+            dLogProbTerms = terms;
+        }
+        return terms;
+    }
+
+    private static final class LogProbTerms {
+
+        private final DoubleTensor twoVariance;
+
+        /**
+         * log(sigma * sqrt(2 * pi))
+         */
+        private final DoubleTensor logNormaliser;
+
+        LogProbTerms(DoubleTensor sigma) {
+            this.twoVariance = sigma.pow(2).timesInPlace(2.0);
+            this.logNormaliser = sigma.log().plusInPlace(LN_SQRT_2PI);
+        }
+    }
+
+    private static final class DLogProbTerms {
+
+        private final DoubleTensor variance;
+        private final DoubleTensor sigmaCubed;
+        private final DoubleTensor reciprocalSigma;
+
+        DLogProbTerms(DoubleTensor sigma) {
+            this.variance = sigma.pow(2);
+            this.sigmaCubed = variance.times(sigma);
+            this.reciprocalSigma = sigma.reciprocal();
+        }
+    }
 }
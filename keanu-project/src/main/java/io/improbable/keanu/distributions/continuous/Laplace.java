@@ -3,12 +3,13 @@ package io.improbable.keanu.distributions.continuous;
 import static io.improbable.keanu.distributions.dual.Diffs.BETA;
 import static io.improbable.keanu.distributions.dual.Diffs.MU;
 import static io.improbable.keanu.distributions.dual.Diffs.X;
+import static io.improbable.keanu.tensor.ScalarBroadcast.getOrScalar;
 
 import org.nd4j.linalg.util.ArrayUtil;
 
 import io.improbable.keanu.distributions.ContinuousDistribution;
 import io.improbable.keanu.distributions.dual.Diffs;
-import io.improbable.keanu.tensor.Tensor;
+import io.improbable.keanu.tensor.ParallelLoops;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
 import io.improbable.keanu.vertices.dbl.KeanuRandom;
 
@@ -33,27 +34,25 @@ public class Laplace implements ContinuousDistribution {
 
     @Override
     public DoubleTensor sample(int[] shape, KeanuRandom random) {
-        Tensor.FlattenedView<Double> muWrapped = mu.getFlattenedView();
-        Tensor.FlattenedView<Double> betaWrapped = beta.getFlattenedView();
+        final double[] muValues = mu.asFlatDoubleArray();
+        final double[] betaValues = beta.asFlatDoubleArray();
 
         int length = ArrayUtil.prod(shape);
         double[] samples = new double[length];
-        for (int i = 0; i < length; i++) {
-            samples[i] = sample(muWrapped.getOrScalar(i), betaWrapped.getOrScalar(i), random);
-        }
+        ParallelLoops.forEach(length, random, (i, r) -> samples[i] = sample(getOrScalar(muValues, i), getOrScalar(betaValues, i), r));
 
         return DoubleTensor.create(samples, shape);
     }
 
+    /**
+     * Inverts the cdf so each sample only needs one uniform.
+     */
     private static double sample(double mu, double beta, KeanuRandom random) {
         if (beta <= 0.0) {
             throw new IllegalArgumentException("Invalid value for beta: " + beta);
         }
-        if (random.nextDouble() > 0.5) {
-            return mu + beta * Math.log(random.nextDouble());
-        } else {
-            return mu - beta * Math.log(random.nextDouble());
-        }
+        double u = random.nextDouble() - 0.5;
+        return mu - beta * Math.signum(u) * Math.log(1.0 - 2.0 * Math.abs(u));
     }
 
     @Override
@@ -5,9 +5,8 @@ import static java.lang.Math.log;
 
 import static io.improbable.keanu.distributions.dual.Diffs.T;
 
-import org.apache.commons.math3.special.Gamma;
-
 import io.improbable.keanu.distributions.ContinuousDistribution;
+import io.improbable.keanu.distributions.SpecialFunctions;
 import io.improbable.keanu.distributions.dual.Diffs;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
 import io.improbable.keanu.tensor.intgr.IntegerTensor;
@@ -21,6 +20,14 @@ public class StudentT implements ContinuousDistribution {
 
     private static final double HALF_LOG_PI = log(PI) / 2;
     private final IntegerTensor v;
+    private final DoubleTensor vAsDouble;
+
+    /**
+     * Terms that only depend on the parameters, worked out by the first log prob or gradient that
+     * needs them and published whole, as in {@link Gaussian}
+     */
+    private volatile LogProbTerms logProbTerms;
+    private volatile DoubleTensor vPlusOne;
 
     /**
      * Computer Generation of Statistical Distributions
@@ -37,40 +44,28 @@ public class StudentT implements ContinuousDistribution {
 
     private StudentT(IntegerTensor v) {
         this.v = v;
+        this.vAsDouble = v.toDouble();
     }
 
     @Override
     public DoubleTensor sample(int[] shape, KeanuRandom random) {
         DoubleTensor chi2Samples = ChiSquared.withParameters(v).sample(shape, random);
-        return random.nextGaussian(shape).divInPlace(chi2Samples.divInPlace(v.toDouble()).sqrtInPlace());
+        return random.nextGaussian(shape).divInPlace(chi2Samples.divInPlace(vAsDouble).sqrtInPlace());
     }
 
     @Override
     public DoubleTensor logProb(DoubleTensor t) {
-
-        DoubleTensor vAsDouble = v.toDouble();
-        DoubleTensor halfVPlusOne = vAsDouble.plus(1).divInPlace(2);
-
-        DoubleTensor logGammaHalfVPlusOne = halfVPlusOne.apply(Gamma::logGamma);
-        DoubleTensor logGammaHalfV = vAsDouble.div(2).applyInPlace(Gamma::logGamma);
-        DoubleTensor halfLogV = vAsDouble.log().divInPlace(2);
-
-        return logGammaHalfVPlusOne
-            .minusInPlace(halfLogV)
-            .minusInPlace(HALF_LOG_PI)
-            .minusInPlace(logGammaHalfV)
-            .minusInPlace(
-                halfVPlusOne.timesInPlace(
-                    t.pow(2).divInPlace(vAsDouble).plusInPlace(1).logInPlace()
-                )
-            );
+        final LogProbTerms terms = logProbTerms();
+        return t.pow(2).divInPlace(vAsDouble).plusInPlace(1).logInPlace()
+            .timesInPlace(terms.halfVPlusOne)
+            .unaryMinusInPlace()
+            .plusInPlace(terms.logNormaliser);
     }
 
     @Override
     public Diffs dLogProb(DoubleTensor t) {
-        DoubleTensor vAsDouble = v.toDouble();
         DoubleTensor dPdt = t.unaryMinus()
-            .timesInPlace(vAsDouble.plus(1.0))
+            .timesInPlace(vPlusOne())
             .divInPlace(
                 t.pow(2).plusInPlace(vAsDouble)
             );
@@ -78,4 +73,45 @@ public class StudentT implements ContinuousDistribution {
         return new Diffs()
             .put(T, dPdt);
     }
+
+    private LogProbTerms logProbTerms() {
+        LogProbTerms terms = logProbTerms;
+        if (terms == null) {
+            terms = new LogProbTerms(vAsDouble);
+            logProbTerms = terms;
+        }
+        return terms;
+    }
+
+    private DoubleTensor vPlusOne() {
+        DoubleTensor term = vPlusOne;
+        if (term == null) {
+            term = vAsDouble.plus(1);
+            vPlusOne = term;
+        }
+        return term;
+    }
+
+    private static final class LogProbTerms {
+
+        private final DoubleTensor halfVPlusOne;
+
+        /**
+         * log(gamma((v + 1) / 2)) - log(v) / 2 - log(pi) / 2 - log(gamma(v / 2))
+         */
+        private final DoubleTensor logNormaliser;
+
+        LogProbTerms(DoubleTensor vAsDouble) {
+            this.halfVPlusOne = vAsDouble.plus(1).divInPlace(2);
+
+            DoubleTensor logGammaHalfVPlusOne = SpecialFunctions.logGamma(halfVPlusOne);
+            DoubleTensor logGammaHalfV = SpecialFunctions.logGamma(vAsDouble.div(2));
+            DoubleTensor halfLogV = vAsDouble.log().divInPlace(2);
+
+            this.logNormaliser = logGammaHalfVPlusOne
+                .minusInPlace(halfLogV)
+                .minusInPlace(HALF_LOG_PI)
+                .minusInPlace(logGammaHalfV);
+        }
+    }
 }
@@ -1,13 +1,20 @@
 package io.improbable.keanu.distributions.discrete;
 
 import io.improbable.keanu.distributions.DiscreteDistribution;
+import io.improbable.keanu.distributions.SpecialFunctions;
+import io.improbable.keanu.tensor.ParallelLoops;
 import io.improbable.keanu.tensor.Tensor;
+import io.improbable.keanu.tensor.TensorShape;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
 import io.improbable.keanu.tensor.intgr.IntegerTensor;
 import io.improbable.keanu.vertices.dbl.KeanuRandom;
-import org.apache.commons.math3.util.CombinatoricsUtils;
 import org.nd4j.linalg.util.ArrayUtil;
 
+import java.util.function.IntToDoubleFunction;
+
+import static io.improbable.keanu.tensor.ScalarBroadcast.getOrScalar;
+import static io.improbable.keanu.tensor.ScalarBroadcast.strideOf;
+
 public class Binomial implements DiscreteDistribution {
 
     private final DoubleTensor p;
@@ -23,55 +30,88 @@ public class Binomial implements DiscreteDistribution {
     }
     @Override
     public IntegerTensor sample(int[] shape, KeanuRandom random) {
-        Tensor.FlattenedView<Double> pWrapped = p.getFlattenedView();
-        Tensor.FlattenedView<Integer> nWrapped = n.getFlattenedView();
+        final double[] pValues = p.asFlatDoubleArray();
+        final int[] nValues = n.asFlatIntegerArray();
 
         int length = ArrayUtil.prod(shape);
         int[] samples = new int[length];
-        for (int i = 0; i < length; i++) {
-            samples[i] = sample(pWrapped.getOrScalar(i), nWrapped.getOrScalar(i), random);
-        }
+        ParallelLoops.forEach(length, random, (i, r) -> samples[i] = sample(
+            getOrScalar(pValues, i),
+            getOrScalar(nValues, i),
+            r
+        ));
 
         return IntegerTensor.create(samples, shape);
     }
 
     private static int sample(double p, int n, KeanuRandom random) {
-        int sum = 0;
-        for (int i = 0; i < n; i++) {
-            if (random.nextDouble() < p) {
-                sum++;
-            }
+        if (p < 0.0 || p > 1.0 || n < 0) {
+            throw new IllegalArgumentException("Invalid value for p or n. p: " + p + ". n: " + n);
         }
-        return sum;
+        return random.nextBinomial(n, p);
     }
 
     @Override
     public DoubleTensor logProb(IntegerTensor k) {
-        DoubleTensor logBinomialCoefficient = getLogBinomialCoefficient(k, n);
+        final int[] kValues = k.asFlatIntegerArray();
+        final IntToDoubleFunction logPmf = logPmf(kValues);
+        final int[] shape = longestShape(k, p, n);
 
-        DoubleTensor logBinomial = p.pow(k.toDouble())
-            .times(
-                p.unaryMinus().plusInPlace(1.0).powInPlace(n.minus(k).toDouble())
-            ).logInPlace();
+        double[] result = new double[(int) TensorShape.getLength(shape)];
+        ParallelLoops.forEach(result.length, i -> result[i] = logPmf.applyAsDouble(i));
 
-        return logBinomialCoefficient.plusInPlace(logBinomial);
+        return DoubleTensor.create(result, shape);
+    }
+
+    @Override
+    public double logProbSum(IntegerTensor k) {
+        final int[] kValues = k.asFlatIntegerArray();
+        return ParallelLoops.sum((int) TensorShape.getLength(longestShape(k, p, n)), logPmf(kValues));
     }
 
-    private static DoubleTensor getLogBinomialCoefficient(IntegerTensor k, IntegerTensor n) {
-        Tensor.FlattenedView<Integer> nWrapped = n.getFlattenedView();
-        Tensor.FlattenedView<Integer> kWrapped = k.getFlattenedView();
+    /**
+     * log(p) and log(1 - p) are taken once for each element of p rather than once for each k.
+     *
+     * @return the log pmf at each flat index
+     */
+    private IntToDoubleFunction logPmf(int[] kValues) {
+        final double[] pValues = p.asFlatDoubleArray();
+        final int[] nValues = n.asFlatIntegerArray();
 
-        int length = (int) k.getLength();
-        double[] logBinomialCoefficient = new double[length];
-        for (int i = 0; i < length; i++) {
-            logBinomialCoefficient[i] = getLogBinomialCoefficient(kWrapped.getOrScalar(i), nWrapped.getOrScalar(i));
+        final double[] logP = new double[pValues.length];
+        final double[] logOneMinusP = new double[pValues.length];
+        for (int i = 0; i < pValues.length; i++) {
+            logP[i] = Math.log(pValues[i]);
+            logOneMinusP[i] = Math.log1p(-pValues[i]);
         }
 
-        return DoubleTensor.create(logBinomialCoefficient, k.getShape());
+        final int pStride = strideOf(pValues);
+        final int nStride = strideOf(nValues);
+        final int kStride = strideOf(kValues);
+        return i -> logPmf(logP[i * pStride], logOneMinusP[i * pStride], nValues[i * nStride], kValues[i * kStride]);
     }
 
-    private static double getLogBinomialCoefficient(int k, int n) {
-        long binomialCoefficient = CombinatoricsUtils.binomialCoefficient(n, k);
-        return Math.log(binomialCoefficient);
+    private static double logPmf(double logP, double logOneMinusP, int n, int k) {
+        if (k < 0 || k > n) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        double logPmf = SpecialFunctions.logBinomialCoefficient(n, k);
+        if (k != 0) {
+            logPmf += k * logP;
+        }
+        if (n != k) {
+            logPmf += (n - k) * logOneMinusP;
+        }
+        return logPmf;
+    }
+
+    private static int[] longestShape(Tensor<?>... tensors) {
+        Tensor<?> longest = tensors[0];
+        for (Tensor<?> tensor : tensors) {
+            if (tensor.getLength() > longest.getLength()) {
+                longest = tensor;
+            }
+        }
+        return longest.getShape();
     }
 }
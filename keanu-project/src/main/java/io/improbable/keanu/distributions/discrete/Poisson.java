@@ -1,21 +1,19 @@
 package io.improbable.keanu.distributions.discrete;
 
-import static org.apache.commons.math3.util.CombinatoricsUtils.factorial;
+import java.util.function.IntToDoubleFunction;
+
+import static io.improbable.keanu.tensor.ScalarBroadcast.getOrScalar;
+import static io.improbable.keanu.tensor.ScalarBroadcast.strideOf;
 
 import org.nd4j.linalg.util.ArrayUtil;
 
 import io.improbable.keanu.distributions.DiscreteDistribution;
-import io.improbable.keanu.tensor.Tensor;
+import io.improbable.keanu.distributions.SpecialFunctions;
+import io.improbable.keanu.tensor.ParallelLoops;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
 import io.improbable.keanu.tensor.intgr.IntegerTensor;
 import io.improbable.keanu.vertices.dbl.KeanuRandom;
 
-/**
- * Computer Generation of Statistical Distributions
- * by Richard Saucier
- * ARL-TR-2168 March 2000
- * 5.2.8 page 49
- */
 public class Poisson implements DiscreteDistribution {
 
     private final DoubleTensor mu;
@@ -30,13 +28,13 @@ public class Poisson implements DiscreteDistribution {
 
     @Override
     public IntegerTensor sample(int[] shape, KeanuRandom random) {
-        Tensor.FlattenedView<Double> muWrapped = mu.getFlattenedView();
+        final double[] muValues = mu.asFlatDoubleArray();
 
         int length = ArrayUtil.prod(shape);
         int[] samples = new int[length];
-        for (int i = 0; i < length; i++) {
-            samples[i] = sample(muWrapped.getOrScalar(i), random);
-        }
+        ParallelLoops.forEach(length, random, (i, r) ->
+            samples[i] = sample(getOrScalar(muValues, i), r)
+        );
 
         return IntegerTensor.create(samples, shape);
     }
@@ -45,41 +43,58 @@ public class Poisson implements DiscreteDistribution {
         if (mu <= 0.) {
             throw new IllegalArgumentException("Invalid value for mu: " + mu);
         }
+        return random.nextPoisson(mu);
+    }
 
-        double b = 1.;
-        double stopB = Math.exp(-mu);
-        int i;
+    @Override
+    public DoubleTensor logProb(IntegerTensor k) {
+        final int[] kValues = k.asFlatIntegerArray();
+        final IntToDoubleFunction logPmf = logPmf(kValues);
+        final int[] shape = mu.getLength() > kValues.length ? mu.getShape() : k.getShape();
 
-        for (i = 0; b >= stopB; i++) {
-            b *= random.nextDouble();
-        }
+        double[] result = new double[resultLength(kValues)];
+        ParallelLoops.forEach(result.length, i -> result[i] = logPmf.applyAsDouble(i));
 
-        return i - 1;
+        return DoubleTensor.create(result, shape);
     }
 
     @Override
-    public DoubleTensor logProb(IntegerTensor k) {
-        Tensor.FlattenedView<Double> muFlattenedView = mu.getFlattenedView();
-        Tensor.FlattenedView<Integer> kFlattenedView = k.getFlattenedView();
+    public double logProbSum(IntegerTensor k) {
+        final int[] kValues = k.asFlatIntegerArray();
+        return ParallelLoops.sum(resultLength(kValues), logPmf(kValues));
+    }
 
-        double[] result = new double[(int) k.getLength()];
-        for (int i = 0; i < result.length; i++) {
-            result[i] = Math.log(pmf(muFlattenedView.getOrScalar(i), kFlattenedView.getOrScalar(i)));
+    private int resultLength(int[] kValues) {
+        return Math.max((int) mu.getLength(), kValues.length);
+    }
+
+    /**
+     * log(mu) is taken once for each element of mu rather than once for each k, which means only
+     * once when mu is a scalar.
+     *
+     * @return the log pmf at each flat index
+     */
+    private IntToDoubleFunction logPmf(int[] kValues) {
+        final double[] muValues = mu.asFlatDoubleArray();
+        final int kStride = strideOf(kValues);
+
+        if (muValues.length == 1) {
+            final double muValue = muValues[0];
+            final double logMu = Math.log(muValue);
+            return i -> logPmf(muValue, logMu, kValues[i * kStride]);
         }
 
-        return DoubleTensor.create(result, k.getShape());
+        final double[] logMuValues = new double[muValues.length];
+        for (int i = 0; i < muValues.length; i++) {
+            logMuValues[i] = Math.log(muValues[i]);
+        }
+        return i -> logPmf(muValues[i], logMuValues[i], kValues[i * kStride]);
     }
 
-    private static double pmf(double mu, int k) {
-        if (k >= 0 && k < 20) {
-            return (Math.pow(mu, k) / factorial(k)) * Math.exp(-mu);
-        } else if (k >= 20) {
-            double sumOfFactorial = 0;
-            for (int i = 1; i <= k; i++) {
-                sumOfFactorial += Math.log(i);
-            }
-            return Math.exp((k * Math.log(mu)) - sumOfFactorial - mu);
+    private static double logPmf(double mu, double logMu, int k) {
+        if (k < 0) {
+            return Double.NEGATIVE_INFINITY;
         }
-        return 0;
+        return (k == 0 ? 0 : k * logMu) - mu - SpecialFunctions.logFactorial(k);
     }
 }
@@ -2,7 +2,8 @@ package io.improbable.keanu.kotlin
 
 import io.improbable.keanu.tensor.dbl.DoubleTensor
 import io.improbable.keanu.vertices.dbl.DoubleVertex
-import io.improbable.keanu.vertices.dbl.nonprobabilistic.ConstantDoubleVertex
+import io.improbable.keanu.vertices.dbl.nonprobabilistic.operators.binary.DifferenceVertex
+import io.improbable.keanu.vertices.dbl.nonprobabilistic.operators.binary.DivisionVertex
 
 // Vertices
 operator fun Double.plus(that: DoubleVertex): DoubleVertex {
@@ -10,7 +11,7 @@ operator fun Double.plus(that: DoubleVertex): DoubleVertex {
 }
 
 operator fun Double.minus(that: DoubleVertex): DoubleVertex {
-    return ConstantDoubleVertex(this) - that
+    return DifferenceVertex(this, that)
 }
 
 operator fun Double.times(that: DoubleVertex): DoubleVertex {
@@ -18,7 +19,7 @@ operator fun Double.times(that: DoubleVertex): DoubleVertex {
 }
 
 operator fun Double.div(that: DoubleVertex): DoubleVertex {
-    return ConstantDoubleVertex(this) / that
+    return DivisionVertex(this, that)
 }
 
 // Tensors
@@ -6,6 +6,7 @@ import java.util.*;
 
 /**
  * Saves the state (value and observed) of a specified collection of vertices.
+ * Non-probabilistic vertices that don't have a value yet are left to be calculated when needed.
  */
 public class NetworkSnapshot {
 
@@ -15,11 +16,17 @@ public class NetworkSnapshot {
 
     private final Map<Vertex, Object> values;
     private final Set<Vertex> observed;
+    private final Set<Vertex> withoutValues;
 
     private NetworkSnapshot(Collection<Vertex> vertices) {
         values = new HashMap<>();
         observed = new HashSet<>();
+        withoutValues = new HashSet<>();
         for (Vertex v : vertices) {
+            if (!v.hasValue() && !v.isProbabilistic()) {
+                withoutValues.add(v);
+                continue;
+            }
             values.put(v, v.getValue());
             if (v.isObserved()) {
                 observed.add(v);
@@ -40,6 +47,9 @@ public class NetworkSnapshot {
             }
 
         }
+        for (Vertex v : withoutValues) {
+            v.clearDerivedValue();
+        }
     }
 
 }
@@ -0,0 +1,163 @@
+package io.improbable.keanu.tensor;
+
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Element loops over flat tensor data that fan out over the common fork-join pool once the
+ * length reaches a threshold.
+ * <p>
+ * Work is always split into blocks of a fixed size that only depends on the length, and
+ * reductions combine block results in block order. This means results are the same from
+ * run to run regardless of how many threads are available.
+ * <p>
+ * The threshold can be set with the system property {@value #THRESHOLD_PROPERTY}.
+ */
+public final class ParallelLoops {
+
+    public static final String THRESHOLD_PROPERTY = "io.improbable.keanu.parallelThreshold";
+
+    static final int BLOCK_SIZE = 1 << 14;
+
+    private static final int DEFAULT_THRESHOLD = 1 << 17;
+
+    private static volatile int threshold = Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD);
+
+    private ParallelLoops() {
+    }
+
+    public static int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @param minimumLength the smallest length that will be run in parallel
+     */
+    public static void setThreshold(int minimumLength) {
+        if (minimumLength < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be positive but was " + minimumLength);
+        }
+        threshold = minimumLength;
+    }
+
+    public static boolean isParallel(long length) {
+        return length >= threshold;
+    }
+
+    /**
+     * Calls the body once for every index. The body must only write to the element at the index it is given.
+     *
+     * @param length number of elements
+     * @param body   called with each index from 0 to length - 1
+     */
+    public static void forEach(int length, IntConsumer body) {
+        if (isParallel(length)) {
+            IntStream.range(0, blockCount(length)).parallel().forEach(block -> {
+                int to = blockEnd(block, length);
+                for (int i = block * BLOCK_SIZE; i < to; i++) {
+                    body.accept(i);
+                }
+            });
+        } else {
+            for (int i = 0; i < length; i++) {
+                body.accept(i);
+            }
+        }
+    }
+
+    /**
+     * Like {@link #forEach(int, IntConsumer)} but for bodies that draw random numbers. When run in
+     * parallel each block gets its own random split, in block order, from the given random, so
+     * the samples are reproducible for a seeded random.
+     *
+     * @param length number of elements
+     * @param random source of randomness
+     * @param body   called with each index and the random to use for it
+     */
+    public static void forEach(int length, KeanuRandom random, RandomIndexConsumer body) {
+        if (isParallel(length)) {
+            KeanuRandom[] blockRandoms = new KeanuRandom[blockCount(length)];
+            for (int block = 0; block < blockRandoms.length; block++) {
+                blockRandoms[block] = random.split();
+            }
+
+            IntStream.range(0, blockRandoms.length).parallel().forEach(block -> {
+                KeanuRandom blockRandom = blockRandoms[block];
+                int to = blockEnd(block, length);
+                for (int i = block * BLOCK_SIZE; i < to; i++) {
+                    body.accept(i, blockRandom);
+                }
+            });
+        } else {
+            for (int i = 0; i < length; i++) {
+                body.accept(i, random);
+            }
+        }
+    }
+
+    /**
+     * @param length number of elements
+     * @param term   the value to sum for each index
+     * @return the sum of the term over every index, added up block by block
+     */
+    public static double sum(int length, IntToDoubleFunction term) {
+        double[] blockSums = new double[blockCount(length)];
+
+        IntConsumer sumBlock = block -> {
+            double blockSum = 0.0;
+            int to = blockEnd(block, length);
+            for (int i = block * BLOCK_SIZE; i < to; i++) {
+                blockSum += term.applyAsDouble(i);
+            }
+            blockSums[block] = blockSum;
+        };
+
+        if (isParallel(length)) {
+            IntStream.range(0, blockSums.length).parallel().forEach(sumBlock);
+        } else {
+            for (int block = 0; block < blockSums.length; block++) {
+                sumBlock.accept(block);
+            }
+        }
+
+        double sum = 0.0;
+        for (double blockSum : blockSums) {
+            sum += blockSum;
+        }
+        return sum;
+    }
+
+    /**
+     * @param length number of elements
+     * @param term   the value to sum for each index
+     * @return the exact sum of the term over every index
+     */
+    public static long sumExact(int length, IntToLongFunction term) {
+        if (isParallel(length)) {
+            return IntStream.range(0, length).parallel().mapToLong(term::applyAsLong).sum();
+        }
+
+        long sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += term.applyAsLong(i);
+        }
+        return sum;
+    }
+
+    private static int blockCount(int length) {
+        return (length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    private static int blockEnd(int block, int length) {
+        return Math.min((block + 1) * BLOCK_SIZE, length);
+    }
+
+    @FunctionalInterface
+    public interface RandomIndexConsumer {
+        void accept(int index, KeanuRandom random);
+    }
+}
@@ -0,0 +1,67 @@
+package io.improbable.keanu.tensor;
+
+/**
+ * Element lookups into flat tensor data where a single value stands for every element,
+ * which is how scalar operands and parameters are broadcast against a longer tensor.
+ */
+public final class ScalarBroadcast {
+
+    private ScalarBroadcast() {
+    }
+
+    /**
+     * For loops hot enough that a branch per element matters, values[i * stride] looks up the same
+     * value as getOrScalar without one.
+     *
+     * @param values flat values, or a single value for every index
+     * @return 0 if there's only one value, otherwise 1
+     */
+    public static int strideOf(double[] values) {
+        return values.length == 1 ? 0 : 1;
+    }
+
+    /**
+     * @param values flat values, or a single value for every index
+     * @return 0 if there's only one value, otherwise 1
+     */
+    public static int strideOf(int[] values) {
+        return values.length == 1 ? 0 : 1;
+    }
+
+    /**
+     * @param values flat values, or a single value for every index
+     * @param index  the flat index to look up
+     * @return the only value if there is one, otherwise the value at index
+     */
+    public static double getOrScalar(double[] values, int index) {
+        return values.length == 1 ? values[0] : values[index];
+    }
+
+    /**
+     * @param values flat values, or a single value for every index
+     * @param index  the flat index to look up
+     * @return the only value if there is one, otherwise the value at index
+     */
+    public static int getOrScalar(int[] values, int index) {
+        return values.length == 1 ? values[0] : values[index];
+    }
+
+    /**
+     * @param values flat values, or a single value for every index
+     * @param index  the flat index to look up
+     * @return the only value if there is one, otherwise the value at index
+     */
+    public static boolean getOrScalar(boolean[] values, int index) {
+        return values.length == 1 ? values[0] : values[index];
+    }
+
+    /**
+     * @param values flat values, or a single value for every index
+     * @param index  the flat index to look up
+     * @param <T>    the type of the values
+     * @return the only value if there is one, otherwise the value at index
+     */
+    public static <T> T getOrScalar(T[] values, int index) {
+        return values.length == 1 ? values[0] : values[index];
+    }
+}
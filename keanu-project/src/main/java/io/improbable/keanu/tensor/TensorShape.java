@@ -159,12 +159,121 @@ public class TensorShape {
         if (append) {
             System.arraycopy(lowRankTensorShape, 0, paddedShape, 0, lowRankTensorShape.length);
         } else {
-            System.arraycopy(lowRankTensorShape, 0, paddedShape, lowRankTensorShape.length, lowRankTensorShape.length);
+            System.arraycopy(lowRankTensorShape, 0, paddedShape, desiredRank - lowRankTensorShape.length, lowRankTensorShape.length);
         }
 
         return paddedShape;
     }
 
+    /**
+     * @param left  shape of the left operand
+     * @param right shape of the right operand
+     * @return the shape resulting from broadcasting the two shapes together. Shapes of lower
+     * rank are padded with leading ones and each dimension must either match or be one.
+     */
+    public static int[] getBroadcastResultShape(int[] left, int[] right) {
+        int rank = Math.max(left.length, right.length);
+        int[] paddedLeft = shapeToDesiredRankByPrependingOnes(left, rank);
+        int[] paddedRight = shapeToDesiredRankByPrependingOnes(right, rank);
+
+        int[] result = new int[rank];
+        for (int i = 0; i < rank; i++) {
+            if (paddedLeft[i] == paddedRight[i] || paddedRight[i] == 1) {
+                result[i] = paddedLeft[i];
+            } else if (paddedLeft[i] == 1) {
+                result[i] = paddedRight[i];
+            } else {
+                throw new IllegalArgumentException(
+                    "Cannot broadcast shape " + Arrays.toString(left) + " with " + Arrays.toString(right)
+                );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes the given dimensions from a shape in the same way a reduction or a slice does.
+     * Results are kept at a minimum rank of two in line with the rest of the tensor library.
+     *
+     * @param shape      the shape to remove dimensions from
+     * @param dimensions the dimensions to remove
+     * @return the shape without the specified dimensions
+     */
+    public static int[] removeDimensions(int[] shape, int... dimensions) {
+        boolean[] removed = new boolean[shape.length];
+        for (int dimension : dimensions) {
+            removed[dimension] = true;
+        }
+
+        int[] remaining = new int[shape.length];
+        int remainingCount = 0;
+        for (int i = 0; i < shape.length; i++) {
+            if (!removed[i]) {
+                remaining[remainingCount++] = shape[i];
+            }
+        }
+
+        if (remainingCount == 0) {
+            return new int[]{1, 1};
+        } else if (remainingCount == 1) {
+            if (shape.length == 2) {
+                int[] keptDimensions = Arrays.copyOf(shape, shape.length);
+                for (int dimension : dimensions) {
+                    keptDimensions[dimension] = 1;
+                }
+                return keptDimensions;
+            }
+            return new int[]{1, remaining[0]};
+        }
+
+        return Arrays.copyOf(remaining, remainingCount);
+    }
+
+    /**
+     * Maps each element of a tensor to the element of the result that it's reduced into when the
+     * given dimensions are summed over, where the result has the shape given by {@link #removeDimensions}.
+     *
+     * @param shape      the shape of the tensor being reduced
+     * @param dimensions the dimensions to reduce over
+     * @return the flat index in the result of each flat index of the tensor
+     */
+    public static int[] getReducedFlatIndices(int[] shape, int... dimensions) {
+        int[] resultShape = removeDimensions(shape, dimensions);
+
+        boolean[] removed = new boolean[shape.length];
+        int removedCount = 0;
+        for (int dimension : dimensions) {
+            if (!removed[dimension]) {
+                removed[dimension] = true;
+                removedCount++;
+            }
+        }
+
+        int[] resultStride = getRowFirstStride(resultShape);
+        int[] keptStride = new int[shape.length];
+        int keptDimension = resultShape.length - (shape.length - removedCount);
+        for (int i = 0; i < shape.length; i++) {
+            if (!removed[i]) {
+                keptStride[i] = resultStride[keptDimension++];
+            }
+        }
+
+        int[] reducedFlatIndices = new int[(int) getLength(shape)];
+        int[] index = new int[shape.length];
+        for (int i = 0; i < reducedFlatIndices.length; i++) {
+            int reducedFlatIndex = 0;
+            for (int d = 0; d < shape.length; d++) {
+                reducedFlatIndex += index[d] * keptStride[d];
+            }
+            reducedFlatIndices[i] = reducedFlatIndex;
+
+            for (int d = shape.length - 1; d >= 0 && ++index[d] == shape[d]; d--) {
+                index[d] = 0;
+            }
+        }
+        return reducedFlatIndices;
+    }
+
     public static int[] shapeSlice(int dimension, int[] shape) {
         int[] newShape = Arrays.copyOf(shape, shape.length);
         newShape[dimension] = 1;
@@ -0,0 +1,565 @@
+package io.improbable.keanu.tensor.bool;
+
+import io.improbable.keanu.tensor.ParallelLoops;
+import io.improbable.keanu.tensor.Tensor;
+import io.improbable.keanu.tensor.TensorShape;
+import io.improbable.keanu.tensor.TensorShapeValidation;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.tensor.generic.GenericTensor;
+import io.improbable.keanu.tensor.intgr.IntegerTensor;
+
+import java.util.Arrays;
+
+import static io.improbable.keanu.tensor.ScalarBroadcast.getOrScalar;
+import static io.improbable.keanu.tensor.TensorShape.getFlatIndex;
+import static java.util.Arrays.copyOf;
+
+/**
+ * A boolean tensor that packs its values 64 to a long word. Logical operations and the
+ * all true/all false checks work a word at a time and the setXIf selections read the
+ * bits directly rather than going through a double mask.
+ */
+public class BitSetBooleanTensor implements BooleanTensor {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
+    private static final long ALL_BITS = -1L;
+
+    private final long[] words;
+    private final int length;
+    private final int[] shape;
+    private final int[] stride;
+
+    /**
+     * @param data  tensor data used c ordering
+     * @param shape desired shape of tensor
+     */
+    public BitSetBooleanTensor(boolean[] data, int[] shape) {
+        this.length = getLengthAsInt(shape);
+        if (data.length < length) {
+            throw new IllegalArgumentException(
+                "Cannot create tensor of shape " + Arrays.toString(shape) + " from " + data.length + " values"
+            );
+        }
+        this.words = new long[wordCount(length)];
+        for (int i = 0; i < length; i++) {
+            if (data[i]) {
+                words[i >>> ADDRESS_BITS_PER_WORD] |= 1L << i;
+            }
+        }
+        this.shape = copyOf(shape, shape.length);
+        this.stride = TensorShape.getRowFirstStride(shape);
+    }
+
+    /**
+     * @param constant constant boolean value to fill shape
+     */
+    public BitSetBooleanTensor(boolean constant) {
+        this(constant, Tensor.SCALAR_SHAPE);
+    }
+
+    /**
+     * @param shape shape to use as place holder
+     */
+    public BitSetBooleanTensor(int[] shape) {
+        this.words = null;
+        this.length = getLengthAsInt(shape);
+        this.shape = copyOf(shape, shape.length);
+        this.stride = TensorShape.getRowFirstStride(shape);
+    }
+
+    /**
+     * @param constant constant boolean value to fill shape
+     * @param shape    desired shape of tensor
+     */
+    public BitSetBooleanTensor(boolean constant, int[] shape) {
+        this.length = getLengthAsInt(shape);
+        this.words = new long[wordCount(length)];
+        if (constant) {
+            fillWords(words, length, true);
+        }
+        this.shape = copyOf(shape, shape.length);
+        this.stride = TensorShape.getRowFirstStride(shape);
+    }
+
+    private BitSetBooleanTensor(long[] words, int length, int[] shape) {
+        this.words = words;
+        this.length = length;
+        this.shape = shape;
+        this.stride = TensorShape.getRowFirstStride(shape);
+    }
+
+    @Override
+    public BooleanTensor reshape(int... newShape) {
+        if (TensorShape.getLength(shape) != TensorShape.getLength(newShape)) {
+            throw new IllegalArgumentException("Cannot reshape a tensor to a shape of different length. Failed to reshape: "
+                + Arrays.toString(shape) + " to: " + Arrays.toString(newShape));
+        }
+        return new BitSetBooleanTensor(copyOfWords(), length, copyOf(newShape, newShape.length));
+    }
+
+    @Override
+    public BooleanTensor and(BooleanTensor that) {
+        return duplicate().andInPlace(that);
+    }
+
+    @Override
+    public BooleanTensor or(BooleanTensor that) {
+        return duplicate().orInPlace(that);
+    }
+
+    @Override
+    public BooleanTensor not() {
+        return duplicate().notInPlace();
+    }
+
+    @Override
+    public DoubleTensor setDoubleIf(DoubleTensor trueValue, DoubleTensor falseValue) {
+        double[] trueValues = trueValue.asFlatDoubleArray();
+        double[] falseValues = falseValue.asFlatDoubleArray();
+
+        double[] result = new double[length];
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            int from = w << ADDRESS_BITS_PER_WORD;
+            int to = Math.min(from + BITS_PER_WORD, length);
+
+            if (word == 0L) {
+                fillFrom(result, from, to, falseValues);
+            } else if (word == fullWord(w)) {
+                fillFrom(result, from, to, trueValues);
+            } else {
+                for (int i = from; i < to; i++) {
+                    result[i] = (word >>> i & 1L) != 0 ? getOrScalar(trueValues, i) : getOrScalar(falseValues, i);
+                }
+            }
+        }
+
+        return DoubleTensor.create(result, copyOf(shape, shape.length));
+    }
+
+    @Override
+    public IntegerTensor setIntegerIf(IntegerTensor trueValue, IntegerTensor falseValue) {
+        int[] trueValues = trueValue.asFlatIntegerArray();
+        int[] falseValues = falseValue.asFlatIntegerArray();
+
+        int[] result = new int[length];
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            int from = w << ADDRESS_BITS_PER_WORD;
+            int to = Math.min(from + BITS_PER_WORD, length);
+
+            if (word == 0L) {
+                fillFrom(result, from, to, falseValues);
+            } else if (word == fullWord(w)) {
+                fillFrom(result, from, to, trueValues);
+            } else {
+                for (int i = from; i < to; i++) {
+                    result[i] = (word >>> i & 1L) != 0 ? getOrScalar(trueValues, i) : getOrScalar(falseValues, i);
+                }
+            }
+        }
+
+        return IntegerTensor.create(result, copyOf(shape, shape.length));
+    }
+
+    @Override
+    public BooleanTensor setBooleanIf(BooleanTensor trueValue, BooleanTensor falseValue) {
+        long[] trueWords = wordsOf(trueValue);
+        long[] falseWords = wordsOf(falseValue);
+
+        long[] result = new long[words.length];
+        for (int w = 0; w < result.length; w++) {
+            result[w] = (words[w] & trueWords[w]) | (~words[w] & falseWords[w]);
+        }
+
+        return new BitSetBooleanTensor(result, length, copyOf(shape, shape.length));
+    }
+
+    @Override
+    public <T> Tensor<T> setIf(Tensor<T> trueValue, Tensor<T> falseValue) {
+        FlattenedView<T> trueValuesFlattened = trueValue.getFlattenedView();
+        FlattenedView<T> falseValuesFlattened = falseValue.getFlattenedView();
+
+        T[] result = (T[]) (new Object[length]);
+        ParallelLoops.forEach(result.length, i -> result[i] = get(i) ? trueValuesFlattened.get(i) : falseValuesFlattened.get(i));
+
+        return new GenericTensor<>(result, copyOf(shape, shape.length));
+    }
+
+    @Override
+    public BooleanTensor andInPlace(BooleanTensor that) {
+        long[] thatWords = wordsOf(that);
+        for (int w = 0; w < words.length; w++) {
+            words[w] &= thatWords[w];
+        }
+        return this;
+    }
+
+    @Override
+    public BooleanTensor orInPlace(BooleanTensor that) {
+        long[] thatWords = wordsOf(that);
+        for (int w = 0; w < words.length; w++) {
+            words[w] |= thatWords[w];
+        }
+        return this;
+    }
+
+    @Override
+    public BooleanTensor notInPlace() {
+        for (int w = 0; w < words.length; w++) {
+            words[w] = ~words[w] & fullWord(w);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean allTrue() {
+        for (int w = 0; w < words.length; w++) {
+            if (words[w] != fullWord(w)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean allFalse() {
+        for (long word : words) {
+            if (word != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of elements that are true
+     */
+    public int countTrue() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    @Override
+    public DoubleTensor toDoubleMask() {
+        return DoubleTensor.create(asFlatDoubleArray(), copyOf(shape, shape.length));
+    }
+
+    @Override
+    public IntegerTensor toIntegerMask() {
+        return IntegerTensor.create(asFlatIntegerArray(), copyOf(shape, shape.length));
+    }
+
+    @Override
+    public BooleanTensor slice(int dimension, int index) {
+        if (index >= shape[dimension]) {
+            throw new IllegalArgumentException(
+                "Invalid slice index " + index + " on dimension " + dimension + " for shape " + Arrays.toString(shape)
+            );
+        }
+
+        int inner = stride[dimension];
+        int outer = length / (inner * shape[dimension]);
+
+        long[] result = new long[wordCount(outer * inner)];
+        for (int o = 0; o < outer; o++) {
+            copyBits(words, o * shape[dimension] * inner + index * inner, result, o * inner, inner);
+        }
+
+        return new BitSetBooleanTensor(result, outer * inner, TensorShape.removeDimensions(shape, dimension));
+    }
+
+    @Override
+    public BooleanTensor concat(int dimension, BooleanTensor... those) {
+        int[][] shapes = new int[those.length + 1][];
+        shapes[0] = shape;
+        for (int i = 0; i < those.length; i++) {
+            shapes[i + 1] = those[i].getShape();
+        }
+
+        int[] concatShape = TensorShapeValidation.checkShapesCanBeConcatenated(dimension, shapes);
+        int concatLength = getLengthAsInt(concatShape);
+        long[] result = new long[wordCount(concatLength)];
+
+        int inner = stride[dimension];
+        int outer = length / (inner * shape[dimension]);
+
+        long[][] allWords = new long[shapes.length][];
+        allWords[0] = words;
+        for (int i = 0; i < those.length; i++) {
+            allWords[i + 1] = wordsOf(those[i], (int) those[i].getLength());
+        }
+
+        int position = 0;
+        for (int o = 0; o < outer; o++) {
+            for (int i = 0; i < shapes.length; i++) {
+                int chunkLength = shapes[i][dimension] * inner;
+                copyBits(allWords[i], o * chunkLength, result, position, chunkLength);
+                position += chunkLength;
+            }
+        }
+
+        return new BitSetBooleanTensor(result, concatLength, concatShape);
+    }
+
+    @Override
+    public int getRank() {
+        return shape.length;
+    }
+
+    @Override
+    public int[] getShape() {
+        return shape;
+    }
+
+    @Override
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public boolean isShapePlaceholder() {
+        return words == null;
+    }
+
+    @Override
+    public Boolean getValue(int... index) {
+        return get(getFlatIndex(shape, stride, index));
+    }
+
+    @Override
+    public void setValue(Boolean value, int... index) {
+        set(getFlatIndex(shape, stride, index), value);
+    }
+
+    @Override
+    public Boolean scalar() {
+        return get(0);
+    }
+
+    @Override
+    public BooleanTensor duplicate() {
+        return new BitSetBooleanTensor(copyOfWords(), length, copyOf(shape, shape.length));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+
+        if (o instanceof BitSetBooleanTensor) {
+            BitSetBooleanTensor that = (BitSetBooleanTensor) o;
+            return Arrays.equals(shape, that.shape) && Arrays.equals(words, that.words);
+        }
+
+        if (o instanceof Tensor) {
+            Tensor that = (Tensor) o;
+            if (!Arrays.equals(that.getShape(), shape)) return false;
+            return Arrays.equals(
+                that.asFlatArray(),
+                this.asFlatArray()
+            );
+        }
+
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Arrays.hashCode(words);
+        result = 31 * result + Arrays.hashCode(shape);
+        return result;
+    }
+
+    @Override
+    public FlattenedView<Boolean> getFlattenedView() {
+        return new BitSetBooleanFlattenedView();
+    }
+
+    private class BitSetBooleanFlattenedView implements FlattenedView<Boolean> {
+
+        @Override
+        public long size() {
+            return length;
+        }
+
+        @Override
+        public Boolean get(long index) {
+            if (index > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Only integer based indexing supported for boolean tensors");
+            }
+            return BitSetBooleanTensor.this.get((int) index);
+        }
+
+        @Override
+        public Boolean getOrScalar(long index) {
+            if (length == 1) {
+                return get(0);
+            } else {
+                return get(index);
+            }
+        }
+
+        @Override
+        public void set(long index, Boolean value) {
+            if (index > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Only integer based indexing supported for boolean tensors");
+            }
+            BitSetBooleanTensor.this.set((int) index, value);
+        }
+
+    }
+
+    @Override
+    public double[] asFlatDoubleArray() {
+        double[] doubles = new double[length];
+        for (int i = 0; i < doubles.length; i++) {
+            doubles[i] = get(i) ? 1.0 : 0.0;
+        }
+
+        return doubles;
+    }
+
+    @Override
+    public int[] asFlatIntegerArray() {
+        int[] integers = new int[length];
+        for (int i = 0; i < integers.length; i++) {
+            integers[i] = get(i) ? 1 : 0;
+        }
+
+        return integers;
+    }
+
+    @Override
+    public Boolean[] asFlatArray() {
+        Boolean[] booleans = new Boolean[length];
+        for (int i = 0; i < booleans.length; i++) {
+            booleans[i] = get(i);
+        }
+
+        return booleans;
+    }
+
+    @Override
+    public String toString() {
+        return "{\n" +
+            "shape = " + Arrays.toString(shape) +
+            "\ndata = " + Arrays.toString(asFlatArray()) +
+            "\n}";
+    }
+
+    private long[] copyOfWords() {
+        return words == null ? null : copyOf(words, words.length);
+    }
+
+    private boolean get(int index) {
+        return isSet(words, index);
+    }
+
+    private void set(int index, boolean value) {
+        if (value) {
+            words[index >>> ADDRESS_BITS_PER_WORD] |= 1L << index;
+        } else {
+            words[index >>> ADDRESS_BITS_PER_WORD] &= ~(1L << index);
+        }
+    }
+
+    /**
+     * @param w index of a word
+     * @return the word with every bit that belongs to this tensor set. This is all ones
+     * except for the last word, where the bits past the end of the tensor are kept clear.
+     */
+    private long fullWord(int w) {
+        return w == words.length - 1 ? lastWordMask(length) : ALL_BITS;
+    }
+
+    private long[] wordsOf(BooleanTensor that) {
+        return wordsOf(that, length);
+    }
+
+    /**
+     * Gets the words of a boolean tensor, packing it if it isn't already bit packed. A length
+     * one tensor is broadcast to every element.
+     */
+    private static long[] wordsOf(BooleanTensor that, int length) {
+        if (that instanceof BitSetBooleanTensor && ((BitSetBooleanTensor) that).length == length) {
+            return ((BitSetBooleanTensor) that).words;
+        }
+
+        long[] thatWords = new long[wordCount(length)];
+        if (that.getLength() == 1) {
+            if (that.scalar()) {
+                fillWords(thatWords, length, true);
+            }
+        } else if (that.getLength() == length) {
+            //Neighbouring values share a word, so this isn't split over ParallelLoops
+            FlattenedView<Boolean> thatFlattened = that.getFlattenedView();
+            for (int i = 0; i < length; i++) {
+                if (thatFlattened.get(i)) {
+                    thatWords[i >>> ADDRESS_BITS_PER_WORD] |= 1L << i;
+                }
+            }
+        } else {
+            throw new IllegalArgumentException(
+                "Cannot operate on boolean tensors of length " + length + " and " + that.getLength()
+            );
+        }
+        return thatWords;
+    }
+
+    private static void copyBits(long[] source, int sourceStart, long[] destination, int destinationStart, int count) {
+        for (int i = 0; i < count; i++) {
+            if (isSet(source, sourceStart + i)) {
+                int index = destinationStart + i;
+                destination[index >>> ADDRESS_BITS_PER_WORD] |= 1L << index;
+            }
+        }
+    }
+
+    private static boolean isSet(long[] words, int index) {
+        return (words[index >>> ADDRESS_BITS_PER_WORD] & (1L << index)) != 0;
+    }
+
+    private static void fillWords(long[] words, int length, boolean value) {
+        Arrays.fill(words, value ? ALL_BITS : 0L);
+        if (value && words.length > 0) {
+            words[words.length - 1] = lastWordMask(length);
+        }
+    }
+
+    private static long lastWordMask(int length) {
+        int bitsInLastWord = length & (BITS_PER_WORD - 1);
+        return bitsInLastWord == 0 ? ALL_BITS : (1L << bitsInLastWord) - 1;
+    }
+
+    private static int wordCount(int length) {
+        return (length + BITS_PER_WORD - 1) >>> ADDRESS_BITS_PER_WORD;
+    }
+
+    private static void fillFrom(double[] result, int from, int to, double[] values) {
+        if (values.length == 1) {
+            Arrays.fill(result, from, to, values[0]);
+        } else {
+            System.arraycopy(values, from, result, from, to - from);
+        }
+    }
+
+    private static void fillFrom(int[] result, int from, int to, int[] values) {
+        if (values.length == 1) {
+            Arrays.fill(result, from, to, values[0]);
+        } else {
+            System.arraycopy(values, from, result, from, to - from);
+        }
+    }
+
+    private static int getLengthAsInt(int[] shape) {
+        long length = TensorShape.getLength(shape);
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Only integer based indexing supported for boolean tensors");
+        }
+        return (int) length;
+    }
+}
@@ -7,11 +7,11 @@ import io.improbable.keanu.tensor.intgr.IntegerTensor;
 public interface BooleanTensor extends Tensor<Boolean> {
 
     static BooleanTensor create(boolean value, int[] shape) {
-        return new SimpleBooleanTensor(value, shape);
+        return new BitSetBooleanTensor(value, shape);
     }
 
     static BooleanTensor create(boolean[] values, int... shape) {
-        return new SimpleBooleanTensor(values, shape);
+        return new BitSetBooleanTensor(values, shape);
     }
 
     static BooleanTensor create(boolean[] values) {
@@ -19,11 +19,11 @@ public interface BooleanTensor extends Tensor<Boolean> {
     }
 
     static BooleanTensor scalar(boolean scalarValue) {
-        return new SimpleBooleanTensor(scalarValue);
+        return new BitSetBooleanTensor(scalarValue);
     }
 
     static BooleanTensor placeHolder(int[] shape) {
-        return new SimpleBooleanTensor(shape);
+        return new BitSetBooleanTensor(shape);
     }
 
     @Override
@@ -1,5 +1,6 @@
 package io.improbable.keanu.tensor.bool;
 
+import io.improbable.keanu.tensor.ParallelLoops;
 import io.improbable.keanu.tensor.Tensor;
 import io.improbable.keanu.tensor.TensorShape;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
@@ -10,6 +11,7 @@ import org.apache.commons.lang3.ArrayUtils;
 
 import java.util.Arrays;
 
+import static io.improbable.keanu.tensor.ScalarBroadcast.getOrScalar;
 import static io.improbable.keanu.tensor.TensorShape.getFlatIndex;
 import static java.util.Arrays.copyOf;
 
@@ -97,30 +99,18 @@ public class SimpleBooleanTensor implements BooleanTensor {
         double[] falseValues = falseValue.asFlatDoubleArray();
 
         double[] result = new double[data.length];
-        for (int i = 0; i < result.length; i++) {
-            result[i] = data[i] ? getOrScalar(trueValues, i) : getOrScalar(falseValues, i);
-        }
+        ParallelLoops.forEach(result.length, i -> result[i] = data[i] ? getOrScalar(trueValues, i) : getOrScalar(falseValues, i));
 
         return DoubleTensor.create(result, copyOf(shape, shape.length));
     }
 
-    private double getOrScalar(double[] values, int index) {
-        if (values.length == 1) {
-            return values[0];
-        } else {
-            return values[index];
-        }
-    }
-
     @Override
     public IntegerTensor setIntegerIf(IntegerTensor trueValue, IntegerTensor falseValue) {
         FlattenedView<Integer> trueValuesFlattened = trueValue.getFlattenedView();
         FlattenedView<Integer> falseValuesFlattened = falseValue.getFlattenedView();
 
         int[] result = new int[data.length];
-        for (int i = 0; i < result.length; i++) {
-            result[i] = data[i] ? trueValuesFlattened.getOrScalar(i) : falseValuesFlattened.getOrScalar(i);
-        }
+        ParallelLoops.forEach(result.length, i -> result[i] = data[i] ? trueValuesFlattened.getOrScalar(i) : falseValuesFlattened.getOrScalar(i));
 
         return IntegerTensor.create(result, copyOf(shape, shape.length));
     }
@@ -131,9 +121,7 @@ public class SimpleBooleanTensor implements BooleanTensor {
         FlattenedView<Boolean> falseValuesFlattened = falseValue.getFlattenedView();
 
         boolean[] result = new boolean[data.length];
-        for (int i = 0; i < result.length; i++) {
-            result[i] = data[i] ? trueValuesFlattened.getOrScalar(i) : falseValuesFlattened.getOrScalar(i);
-        }
+        ParallelLoops.forEach(result.length, i -> result[i] = data[i] ? trueValuesFlattened.getOrScalar(i) : falseValuesFlattened.getOrScalar(i));
 
         return BooleanTensor.create(result, copyOf(shape, shape.length));
     }
@@ -144,9 +132,7 @@ public class SimpleBooleanTensor implements BooleanTensor {
         FlattenedView<T> falseValuesFlattened = falseValue.getFlattenedView();
 
         T[] result = (T[]) (new Object[data.length]);
-        for (int i = 0; i < result.length; i++) {
-            result[i] = data[i] ? trueValuesFlattened.get(i) : falseValuesFlattened.get(i);
-        }
+        ParallelLoops.forEach(result.length, i -> result[i] = data[i] ? trueValuesFlattened.get(i) : falseValuesFlattened.get(i));
 
         return new GenericTensor<>(result, copyOf(shape, shape.length));
     }
@@ -1,11 +1,11 @@
 package io.improbable.keanu.tensor.dbl;
 
 import io.improbable.keanu.tensor.INDArrayShim;
+import io.improbable.keanu.tensor.ParallelLoops;
 import io.improbable.keanu.tensor.Tensor;
+import io.improbable.keanu.tensor.TensorShape;
 import io.improbable.keanu.tensor.bool.BooleanTensor;
-import io.improbable.keanu.tensor.bool.SimpleBooleanTensor;
 import io.improbable.keanu.tensor.intgr.IntegerTensor;
-import io.improbable.keanu.tensor.intgr.Nd4jIntegerTensor;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.LUDecomposition;
@@ -26,7 +26,7 @@ import static java.util.Arrays.copyOf;
 public class Nd4jDoubleTensor implements DoubleTensor {
 
     static {
-        System.setProperty("dtype", "double");
+        System.setProperty("dtype", Precision.get().getNd4jDataType());
     }
 
     public static Nd4jDoubleTensor scalar(double scalarValue) {
@@ -55,6 +55,12 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     private INDArray tensor;
 
+    /**
+     * True while the underlying INDArray may be shared with another tensor, e.g. a view returned
+     * from slice, reshape or transpose. The array is copied before the first write.
+     */
+    private boolean copyOnWrite;
+
     public Nd4jDoubleTensor(double[] data, int[] shape) {
         DataBuffer buffer = Nd4j.createBuffer(data);
         tensor = Nd4j.create(buffer, shape);
@@ -64,6 +70,24 @@ public class Nd4jDoubleTensor implements DoubleTensor {
         this.tensor = tensor;
     }
 
+    /**
+     * Wraps a view of this tensor's INDArray without copying. Both tensors copy their
+     * data before they next write to it.
+     */
+    private DoubleTensor share(INDArray view) {
+        Nd4jDoubleTensor shared = new Nd4jDoubleTensor(view);
+        shared.copyOnWrite = true;
+        this.copyOnWrite = true;
+        return shared;
+    }
+
+    private void copyIfShared() {
+        if (copyOnWrite) {
+            tensor = tensor.dup();
+            copyOnWrite = false;
+        }
+    }
+
     @Override
     public int getRank() {
         return tensor.shape().length;
@@ -89,12 +113,13 @@ public class Nd4jDoubleTensor implements DoubleTensor {
     }
 
     public void setValue(Double value, int... index) {
+        copyIfShared();
         tensor.putScalar(index, value);
     }
 
     @Override
     public DoubleTensor reshape(int... newShape) {
-        return new Nd4jDoubleTensor(tensor.reshape(newShape));
+        return share(tensor.reshape(newShape));
     }
 
     @Override
@@ -104,18 +129,43 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     @Override
     public DoubleTensor transpose() {
-        return new Nd4jDoubleTensor(tensor.transpose());
+        return share(tensor.transpose());
     }
 
     @Override
     public DoubleTensor sum(int... overDimensions) {
+        if (Precision.isSinglePrecision()) {
+            return sumInDoublePrecision(overDimensions);
+        }
         return new Nd4jDoubleTensor(tensor.sum(overDimensions));
     }
 
     public Double sum() {
+        if (Precision.isSinglePrecision()) {
+            double[] values = asFlatDoubleArray();
+            return ParallelLoops.sum(values.length, i -> values[i]);
+        }
         return tensor.sumNumber().doubleValue();
     }
 
+    /**
+     * Sums over dimensions accumulating in double so that single precision storage doesn't lose
+     * precision in large reductions.
+     */
+    private DoubleTensor sumInDoublePrecision(int... overDimensions) {
+        int[] shape = getShape();
+        int[] resultShape = TensorShape.removeDimensions(shape, overDimensions);
+        int[] resultIndices = TensorShape.getReducedFlatIndices(shape, overDimensions);
+
+        double[] values = asFlatDoubleArray();
+        double[] result = new double[(int) TensorShape.getLength(resultShape)];
+        for (int i = 0; i < values.length; i++) {
+            result[resultIndices[i]] += values[i];
+        }
+
+        return new Nd4jDoubleTensor(result, resultShape);
+    }
+
     @Override
     public DoubleTensor duplicate() {
         return new Nd4jDoubleTensor(tensor.dup());
@@ -123,11 +173,11 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     @Override
     public DoubleTensor apply(Function<Double, Double> function) {
-        DataBuffer data = tensor.data().dup();
-        for (int i = 0; i < data.length(); i++) {
-            data.put(i, function.apply(data.getDouble(i)));
+        double[] data = asFlatDoubleArray();
+        for (int i = 0; i < data.length; i++) {
+            data[i] = function.apply(data[i]);
         }
-        return new Nd4jDoubleTensor(data.asDouble(), this.getShape());
+        return new Nd4jDoubleTensor(data, this.getShape());
     }
 
     @Override
@@ -157,12 +207,17 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     @Override
     public double average() {
-        return tensor.sumNumber().doubleValue() / tensor.length();
+        return sum() / tensor.length();
     }
 
     @Override
     public double standardDeviation() {
         double average = average();
+        if (Precision.isSinglePrecision()) {
+            double[] values = asFlatDoubleArray();
+            double sumOfSquares = ParallelLoops.sum(values.length, i -> Math.pow(values[i] - average, 2));
+            return Math.sqrt(sumOfSquares / (values.length - 1));
+        }
         return Math.sqrt(Transforms.pow(tensor.sub(average), 2, false)
             .sumNumber().doubleValue() / (tensor.length() - 1));
     }
@@ -372,36 +427,42 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     @Override
     public DoubleTensor reciprocalInPlace() {
+        copyIfShared();
         tensor.rdivi(1.0);
         return this;
     }
 
     @Override
     public DoubleTensor minusInPlace(double value) {
+        copyIfShared();
         tensor.subi(value);
         return this;
     }
 
     @Override
     public DoubleTensor plusInPlace(double value) {
+        copyIfShared();
         tensor.addi(value);
         return this;
     }
 
     @Override
     public DoubleTensor timesInPlace(double value) {
+        copyIfShared();
         tensor.muli(value);
         return this;
     }
 
     @Override
     public DoubleTensor divInPlace(double value) {
+        copyIfShared();
         tensor.divi(value);
         return this;
     }
 
     @Override
     public DoubleTensor powInPlace(DoubleTensor exponent) {
+        copyIfShared();
         if (exponent.isScalar()) {
             Transforms.pow(tensor, exponent.scalar(), false);
         } else {
@@ -413,36 +474,42 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     @Override
     public DoubleTensor powInPlace(double exponent) {
+        copyIfShared();
         Transforms.pow(tensor, exponent, false);
         return this;
     }
 
     @Override
     public DoubleTensor sqrtInPlace() {
+        copyIfShared();
         Transforms.sqrt(tensor, false);
         return this;
     }
 
     @Override
     public DoubleTensor logInPlace() {
+        copyIfShared();
         Transforms.log(tensor, false);
         return this;
     }
 
     @Override
     public DoubleTensor sinInPlace() {
+        copyIfShared();
         Transforms.sin(tensor, false);
         return this;
     }
 
     @Override
     public DoubleTensor cosInPlace() {
+        copyIfShared();
         Transforms.cos(tensor, false);
         return this;
     }
 
     @Override
     public DoubleTensor tanInPlace() {
+        copyIfShared();
         INDArray sin = Transforms.sin(tensor, true);
         INDArray cos = Transforms.cos(tensor, true);
         tensor = sin.divi(cos);
@@ -451,17 +518,20 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     @Override
     public DoubleTensor atanInPlace() {
+        copyIfShared();
         Transforms.atan(tensor, false);
         return this;
     }
 
     @Override
     public DoubleTensor atan2InPlace(double y) {
+        copyIfShared();
         return atan2InPlace(DoubleTensor.create(y, this.tensor.shape()));
     }
 
     @Override
     public DoubleTensor atan2InPlace(DoubleTensor y) {
+        copyIfShared();
         if (y.isScalar()) {
             tensor = Transforms.atan2(tensor, Nd4j.valueArrayOf(this.tensor.shape(), y.scalar()));
         } else {
@@ -472,24 +542,28 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     @Override
     public DoubleTensor asinInPlace() {
+        copyIfShared();
         Transforms.asin(tensor, false);
         return this;
     }
 
     @Override
     public DoubleTensor acosInPlace() {
+        copyIfShared();
         Transforms.acos(tensor, false);
         return this;
     }
 
     @Override
     public DoubleTensor expInPlace() {
+        copyIfShared();
         Transforms.exp(tensor, false);
         return this;
     }
 
     @Override
     public DoubleTensor minusInPlace(DoubleTensor that) {
+        copyIfShared();
         if (that.isScalar()) {
             tensor.subi(that.scalar());
         } else {
@@ -500,6 +574,7 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     @Override
     public DoubleTensor plusInPlace(DoubleTensor that) {
+        copyIfShared();
         if (that.isScalar()) {
             tensor.addi(that.scalar());
         } else {
@@ -510,6 +585,7 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     @Override
     public DoubleTensor timesInPlace(DoubleTensor that) {
+        copyIfShared();
         if (that.isScalar()) {
             tensor.muli(that.scalar());
         } else {
@@ -520,6 +596,7 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     @Override
     public DoubleTensor divInPlace(DoubleTensor that) {
+        copyIfShared();
         if (that.isScalar()) {
             tensor.divi(that.scalar());
         } else {
@@ -530,12 +607,14 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     @Override
     public DoubleTensor unaryMinusInPlace() {
+        copyIfShared();
         tensor.negi();
         return this;
     }
 
     @Override
     public DoubleTensor absInPlace() {
+        copyIfShared();
         Transforms.abs(tensor, false);
         return this;
     }
@@ -634,6 +713,7 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     @Override
     public DoubleTensor setWithMaskInPlace(DoubleTensor mask, double value) {
+        copyIfShared();
 
         INDArray maskDup = unsafeGetNd4J(mask).dup();
 
@@ -655,6 +735,7 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     @Override
     public DoubleTensor applyInPlace(Function<Double, Double> function) {
+        copyIfShared();
         DataBuffer data = tensor.data();
         for (int i = 0; i < data.length(); i++) {
             data.put(i, function.apply(data.getDouble(i)));
@@ -664,6 +745,7 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     @Override
     public DoubleTensor maxInPlace(DoubleTensor max) {
+        copyIfShared();
         if (max.isScalar()) {
             Transforms.max(tensor, max.scalar(), false);
         } else {
@@ -674,6 +756,7 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     @Override
     public DoubleTensor minInPlace(DoubleTensor max) {
+        copyIfShared();
         if (max.isScalar()) {
             Transforms.min(tensor, max.scalar(), false);
         } else {
@@ -684,35 +767,41 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     @Override
     public DoubleTensor standardizeInPlace() {
+        copyIfShared();
         tensor.subi(average()).divi(standardDeviation());
         return this;
     }
 
     @Override
     public DoubleTensor clampInPlace(DoubleTensor min, DoubleTensor max) {
+        copyIfShared();
         return minInPlace(max).maxInPlace(min);
     }
 
     @Override
     public DoubleTensor ceilInPlace() {
+        copyIfShared();
         Transforms.ceil(tensor, false);
         return this;
     }
 
     @Override
     public DoubleTensor floorInPlace() {
+        copyIfShared();
         Transforms.floor(tensor, false);
         return this;
     }
 
     @Override
     public DoubleTensor roundInPlace() {
+        copyIfShared();
         Transforms.round(tensor, false);
         return this;
     }
 
     @Override
     public DoubleTensor sigmoidInPlace() {
+        copyIfShared();
         Transforms.sigmoid(tensor, false);
         return this;
     }
@@ -727,9 +816,7 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     @Override
     public DoubleTensor slice(int dimension, int index) {
-        INDArray dup = tensor.dup();
-        INDArray slice = dup.slice(index, dimension);
-        return new Nd4jDoubleTensor(slice);
+        return share(tensor.slice(index, dimension));
     }
 
     @Override
@@ -845,7 +932,7 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     @Override
     public FlattenedView<Double> getFlattenedView() {
-        return new Nd4jDoubleFlattenedView(tensor);
+        return new Nd4jDoubleFlattenedView();
     }
 
     @Override
@@ -883,36 +970,40 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
     @Override
     public IntegerTensor toInteger() {
-        Transforms.floor(tensor, false);
-        return new Nd4jIntegerTensor(tensor);
+        double[] values = asFlatDoubleArray();
+        int[] integers = new int[values.length];
+        ParallelLoops.forEach(values.length, i -> integers[i] = (int) Math.floor(values[i]));
+        return IntegerTensor.create(integers, copyOf(getShape(), getShape().length));
     }
 
     private BooleanTensor fromMask(INDArray mask, int[] shape) {
         DataBuffer data = mask.data();
         boolean[] boolsFromMask = new boolean[mask.length()];
 
-        for (int i = 0; i < boolsFromMask.length; i++) {
-            boolsFromMask[i] = data.getDouble(i) != 0.0;
-        }
-        return new SimpleBooleanTensor(boolsFromMask, shape);
+        ParallelLoops.forEach(boolsFromMask.length, i -> boolsFromMask[i] = data.getDouble(i) != 0.0);
+        return BooleanTensor.create(boolsFromMask, shape);
     }
 
-    private static class Nd4jDoubleFlattenedView implements FlattenedView<Double> {
-
-        INDArray tensor;
+    /**
+     * Reads through the INDArray's own length and strides, so a view from slice, reshape or transpose
+     * is only copied if it's written to.
+     */
+    private class Nd4jDoubleFlattenedView implements FlattenedView<Double> {
 
-        public Nd4jDoubleFlattenedView(INDArray tensor) {
-            this.tensor = tensor;
-        }
+        /**
+         * The array that contiguous was worked out for, which changes when a shared array is copied on write
+         */
+        private INDArray layoutOf;
+        private boolean contiguous;
 
         @Override
         public long size() {
-            return tensor.data().length();
+            return tensor.lengthLong();
         }
 
         @Override
         public Double get(long index) {
-            return tensor.data().getDouble(index);
+            return tensor.data().getDouble(offsetOf(index));
         }
 
         @Override
@@ -926,8 +1017,47 @@ public class Nd4jDoubleTensor implements DoubleTensor {
 
         @Override
         public void set(long index, Double value) {
-            tensor.data().put(index, value);
+            copyIfShared();
+            tensor.data().put(offsetOf(index), value);
+        }
+
+        /**
+         * @param index an index into the flattened, row major, values
+         * @return where that value is in the INDArray's data buffer, which for a view already starts at the view's offset
+         */
+        private long offsetOf(long index) {
+            if (layoutOf != tensor) {
+                layoutOf = tensor;
+                contiguous = isContiguous(tensor);
+            }
+
+            if (contiguous) {
+                return index;
+            }
+
+            int[] shape = tensor.shape();
+            int[] stride = tensor.stride();
+            long offset = 0;
+            long remaining = index;
+            for (int dimension = shape.length - 1; dimension >= 0; dimension--) {
+                offset += (remaining % shape[dimension]) * stride[dimension];
+                remaining /= shape[dimension];
+            }
+            return offset;
+        }
+    }
+
+    private static boolean isContiguous(INDArray array) {
+        int[] shape = array.shape();
+        int[] stride = array.stride();
+        long expectedStride = 1;
+        for (int dimension = shape.length - 1; dimension >= 0; dimension--) {
+            if (shape[dimension] != 1 && stride[dimension] != expectedStride) {
+                return false;
+            }
+            expectedStride *= shape[dimension];
         }
+        return true;
     }
 
     @Override
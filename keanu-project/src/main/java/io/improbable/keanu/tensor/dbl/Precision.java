@@ -0,0 +1,61 @@
+package io.improbable.keanu.tensor.dbl;
+
+/**
+ * The floating point type that ND4J backed double tensors are stored and operated on in.
+ * <p>
+ * Single precision halves the memory used by large tensors. Sums over tensors, such as log prob
+ * totals and gradient reductions, are still accumulated in double precision.
+ * <p>
+ * ND4J only supports one data type per process, so the precision is chosen once, before the first
+ * tensor is created, by setting the system property {@value #PRECISION_PROPERTY} to "float" or
+ * "double". It defaults to double.
+ */
+public enum Precision {
+
+    DOUBLE("double"),
+    FLOAT("float");
+
+    public static final String PRECISION_PROPERTY = "io.improbable.keanu.precision";
+
+    private static final Precision CURRENT = fromProperty(System.getProperty(PRECISION_PROPERTY));
+
+    private final String nd4jDataType;
+
+    Precision(String nd4jDataType) {
+        this.nd4jDataType = nd4jDataType;
+    }
+
+    /**
+     * @return the value of the ND4J "dtype" property for this precision
+     */
+    public String getNd4jDataType() {
+        return nd4jDataType;
+    }
+
+    /**
+     * @return the precision in use for this process
+     */
+    public static Precision get() {
+        return CURRENT;
+    }
+
+    public static boolean isSinglePrecision() {
+        return CURRENT == FLOAT;
+    }
+
+    static Precision fromProperty(String value) {
+        if (value == null) {
+            return DOUBLE;
+        }
+
+        for (Precision precision : values()) {
+            if (precision.nd4jDataType.equalsIgnoreCase(value)) {
+                return precision;
+            }
+        }
+
+        throw new IllegalArgumentException(
+            "Unknown precision " + value + " for " + PRECISION_PROPERTY + ". Expected float or double."
+        );
+    }
+}
@@ -20,7 +20,7 @@ public interface IntegerTensor extends NumberTensor<Integer>, IntegerOperators<I
         if (Arrays.equals(shape, Tensor.SCALAR_SHAPE)) {
             return new ScalarIntegerTensor(value);
         } else {
-            return Nd4jIntegerTensor.create(value, shape);
+            return SimpleIntegerTensor.create(value, shape);
         }
     }
 
@@ -28,7 +28,7 @@ public interface IntegerTensor extends NumberTensor<Integer>, IntegerOperators<I
         if (Arrays.equals(shape, Tensor.SCALAR_SHAPE) && values.length == 1) {
             return new ScalarIntegerTensor(values[0]);
         } else {
-            return Nd4jIntegerTensor.create(values, shape);
+            return SimpleIntegerTensor.create(values, shape);
         }
     }
 
@@ -40,7 +40,7 @@ public interface IntegerTensor extends NumberTensor<Integer>, IntegerOperators<I
         if (Arrays.equals(shape, Tensor.SCALAR_SHAPE)) {
             return new ScalarIntegerTensor(1);
         } else {
-            return Nd4jIntegerTensor.ones(shape);
+            return SimpleIntegerTensor.ones(shape);
         }
     }
 
@@ -48,7 +48,7 @@ public interface IntegerTensor extends NumberTensor<Integer>, IntegerOperators<I
         if (n == 1) {
             return new ScalarIntegerTensor(1);
         } else {
-            return Nd4jIntegerTensor.eye(n);
+            return SimpleIntegerTensor.eye(n);
         }
     }
 
@@ -56,7 +56,7 @@ public interface IntegerTensor extends NumberTensor<Integer>, IntegerOperators<I
         if (Arrays.equals(shape, Tensor.SCALAR_SHAPE)) {
             return new ScalarIntegerTensor(0);
         } else {
-            return Nd4jIntegerTensor.zeros(shape);
+            return SimpleIntegerTensor.zeros(shape);
         }
     }
 
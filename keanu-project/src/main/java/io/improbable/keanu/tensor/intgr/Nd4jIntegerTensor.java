@@ -3,7 +3,6 @@ package io.improbable.keanu.tensor.intgr;
 import io.improbable.keanu.tensor.INDArrayShim;
 import io.improbable.keanu.tensor.Tensor;
 import io.improbable.keanu.tensor.bool.BooleanTensor;
-import io.improbable.keanu.tensor.bool.SimpleBooleanTensor;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
 import io.improbable.keanu.tensor.dbl.Nd4jDoubleTensor;
 import org.apache.commons.lang3.ArrayUtils;
@@ -585,8 +584,10 @@ public class Nd4jIntegerTensor implements IntegerTensor {
     private INDArray unsafeGetNd4J(IntegerTensor that) {
         if (that.isScalar()) {
             return Nd4j.scalar(that.scalar().doubleValue()).reshape(that.getShape());
+        } else if (that instanceof Nd4jIntegerTensor) {
+            return ((Nd4jIntegerTensor) that).tensor;
         }
-        return ((Nd4jIntegerTensor) that).tensor;
+        return Nd4j.create(that.asFlatDoubleArray(), that.getShape());
     }
 
     private BooleanTensor fromMask(INDArray mask, int[] shape) {
@@ -596,7 +597,7 @@ public class Nd4jIntegerTensor implements IntegerTensor {
         for (int i = 0; i < boolsFromMask.length; i++) {
             boolsFromMask[i] = data.getInt(i) != 0;
         }
-        return new SimpleBooleanTensor(boolsFromMask, shape);
+        return BooleanTensor.create(boolsFromMask, shape);
     }
 
     private static class Nd4jIntegerFlattenedView implements FlattenedView<Integer> {
@@ -255,7 +255,7 @@ public class ScalarIntegerTensor implements IntegerTensor {
 
     @Override
     public IntegerTensor concat(int dimension, IntegerTensor... those) {
-        return Nd4jIntegerTensor.scalar(value).concat(dimension, those);
+        return SimpleIntegerTensor.scalar(value).concat(dimension, those);
     }
 
     @Override
@@ -0,0 +1,843 @@
+package io.improbable.keanu.tensor.intgr;
+
+import io.improbable.keanu.tensor.ParallelLoops;
+import io.improbable.keanu.tensor.Tensor;
+import io.improbable.keanu.tensor.TensorShape;
+import io.improbable.keanu.tensor.TensorShapeValidation;
+import io.improbable.keanu.tensor.bool.BooleanTensor;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import org.apache.commons.lang3.ArrayUtils;
+
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
+
+import static io.improbable.keanu.tensor.TensorShape.getFlatIndex;
+import static java.util.Arrays.copyOf;
+
+/**
+ * An integer tensor backed by a primitive int array in c ordering. Unlike the Nd4j
+ * backed tensor this keeps values as exact integers, so there is no conversion on
+ * create/read and no loss of precision for values above 2^24.
+ */
+public class SimpleIntegerTensor implements IntegerTensor {
+
+    public static SimpleIntegerTensor create(int[] values, int[] shape) {
+        return new SimpleIntegerTensor(values, shape);
+    }
+
+    public static SimpleIntegerTensor create(int value, int[] shape) {
+        int[] buffer = new int[getLengthAsInt(shape)];
+        if (value != 0) {
+            Arrays.fill(buffer, value);
+        }
+        return new SimpleIntegerTensor(buffer, copyOf(shape, shape.length), TensorShape.getRowFirstStride(shape));
+    }
+
+    public static SimpleIntegerTensor scalar(int scalarValue) {
+        return create(scalarValue, SCALAR_SHAPE);
+    }
+
+    public static SimpleIntegerTensor ones(int[] shape) {
+        return create(1, shape);
+    }
+
+    public static SimpleIntegerTensor zeros(int[] shape) {
+        return create(0, shape);
+    }
+
+    public static SimpleIntegerTensor eye(int n) {
+        int[] buffer = new int[n * n];
+        for (int i = 0; i < n; i++) {
+            buffer[i * n + i] = 1;
+        }
+        return wrap(buffer, new int[]{n, n});
+    }
+
+    private int[] buffer;
+    private final int[] shape;
+    private final int[] stride;
+
+    /**
+     * True while the buffer may be shared with another tensor, e.g. one returned from reshape.
+     * The buffer is copied before the first write.
+     */
+    private boolean copyOnWrite;
+
+    /**
+     * @param data  tensor data used c ordering. This is copied so later changes to data are not reflected.
+     * @param shape desired shape of tensor
+     */
+    public SimpleIntegerTensor(int[] data, int[] shape) {
+        int length = getLengthAsInt(shape);
+        if (data.length != length) {
+            throw new IllegalArgumentException(
+                "Data length " + data.length + " does not match shape " + Arrays.toString(shape)
+            );
+        }
+        this.buffer = copyOf(data, length);
+        this.shape = copyOf(shape, shape.length);
+        this.stride = TensorShape.getRowFirstStride(shape);
+    }
+
+    private SimpleIntegerTensor(int[] buffer, int[] shape, int[] stride) {
+        this.buffer = buffer;
+        this.shape = shape;
+        this.stride = stride;
+    }
+
+    /**
+     * Creates a tensor that takes ownership of the buffer without copying it.
+     */
+    private static SimpleIntegerTensor wrap(int[] buffer, int[] shape) {
+        return new SimpleIntegerTensor(buffer, shape, TensorShape.getRowFirstStride(shape));
+    }
+
+    /**
+     * Creates a tensor of a different shape over the same buffer. Both tensors copy the buffer
+     * before they next write to it.
+     */
+    private SimpleIntegerTensor share(int[] shape) {
+        SimpleIntegerTensor shared = wrap(buffer, shape);
+        shared.copyOnWrite = true;
+        this.copyOnWrite = true;
+        return shared;
+    }
+
+    private void copyIfShared() {
+        if (copyOnWrite) {
+            buffer = copyOf(buffer, buffer.length);
+            copyOnWrite = false;
+        }
+    }
+
+    @Override
+    public int getRank() {
+        return shape.length;
+    }
+
+    @Override
+    public int[] getShape() {
+        return shape;
+    }
+
+    @Override
+    public long getLength() {
+        return buffer.length;
+    }
+
+    @Override
+    public boolean isShapePlaceholder() {
+        return buffer == null;
+    }
+
+    @Override
+    public Integer getValue(int... index) {
+        return buffer[getFlatIndex(shape, stride, index)];
+    }
+
+    @Override
+    public void setValue(Integer value, int... index) {
+        copyIfShared();
+        buffer[getFlatIndex(shape, stride, index)] = value;
+    }
+
+    @Override
+    public Integer scalar() {
+        return buffer[0];
+    }
+
+    @Override
+    public SimpleIntegerTensor duplicate() {
+        return new SimpleIntegerTensor(copyOf(buffer, buffer.length), copyOf(shape, shape.length), stride);
+    }
+
+    @Override
+    public Integer sum() {
+        int[] values = buffer;
+        return (int) ParallelLoops.sumExact(values.length, i -> values[i]);
+    }
+
+    @Override
+    public DoubleTensor toDouble() {
+        return DoubleTensor.create(asFlatDoubleArray(), copyOf(shape, shape.length));
+    }
+
+    @Override
+    public IntegerTensor toInteger() {
+        return this;
+    }
+
+    @Override
+    public IntegerTensor reshape(int... newShape) {
+        if (TensorShape.getLength(shape) != TensorShape.getLength(newShape)) {
+            throw new IllegalArgumentException("Cannot reshape a tensor to a shape of different length. Failed to reshape: "
+                + Arrays.toString(shape) + " to: " + Arrays.toString(newShape));
+        }
+        return share(copyOf(newShape, newShape.length));
+    }
+
+    @Override
+    public IntegerTensor diag() {
+        int nonUnitDimensions = 0;
+        for (int dimension : shape) {
+            if (dimension != 1) {
+                nonUnitDimensions++;
+            }
+        }
+
+        if (nonUnitDimensions > 1) {
+            throw new IllegalArgumentException("Diag is only supported for vectors. Cannot diag " + Arrays.toString(shape));
+        }
+
+        int n = buffer.length;
+        int[] result = new int[n * n];
+        for (int i = 0; i < n; i++) {
+            result[i * n + i] = buffer[i];
+        }
+        return wrap(result, new int[]{n, n});
+    }
+
+    @Override
+    public IntegerTensor transpose() {
+        int rank = shape.length;
+        int[] transposedShape = new int[rank];
+        int[] strideInThis = new int[rank];
+        for (int i = 0; i < rank; i++) {
+            transposedShape[i] = shape[rank - 1 - i];
+            strideInThis[i] = stride[rank - 1 - i];
+        }
+
+        return wrap(gather(buffer, transposedShape, strideInThis), transposedShape);
+    }
+
+    @Override
+    public IntegerTensor sum(int... overDimensions) {
+        int[] resultShape = TensorShape.removeDimensions(shape, overDimensions);
+        int[] resultIndices = TensorShape.getReducedFlatIndices(shape, overDimensions);
+
+        int[] result = new int[getLengthAsInt(resultShape)];
+        for (int i = 0; i < buffer.length; i++) {
+            result[resultIndices[i]] += buffer[i];
+        }
+
+        return wrap(result, resultShape);
+    }
+
+    @Override
+    public IntegerTensor minus(int value) {
+        return duplicate().minusInPlace(value);
+    }
+
+    @Override
+    public IntegerTensor plus(int value) {
+        return duplicate().plusInPlace(value);
+    }
+
+    @Override
+    public IntegerTensor times(int value) {
+        return duplicate().timesInPlace(value);
+    }
+
+    @Override
+    public IntegerTensor div(int value) {
+        return duplicate().divInPlace(value);
+    }
+
+    @Override
+    public IntegerTensor pow(IntegerTensor exponent) {
+        return duplicate().powInPlace(exponent);
+    }
+
+    @Override
+    public IntegerTensor pow(int exponent) {
+        return duplicate().powInPlace(exponent);
+    }
+
+    @Override
+    public IntegerTensor minus(IntegerTensor that) {
+        return duplicate().minusInPlace(that);
+    }
+
+    @Override
+    public IntegerTensor plus(IntegerTensor that) {
+        return duplicate().plusInPlace(that);
+    }
+
+    @Override
+    public IntegerTensor times(IntegerTensor that) {
+        return duplicate().timesInPlace(that);
+    }
+
+    @Override
+    public IntegerTensor matrixMultiply(IntegerTensor value) {
+        int[] thatShape = value.getShape();
+        if (shape.length != 2 || thatShape.length != 2) {
+            throw new IllegalArgumentException("Matrix multiply for non matrix operands is not supported");
+        }
+
+        if (shape[1] != thatShape[0]) {
+            throw new IllegalArgumentException(
+                "Cannot matrix multiply shape " + Arrays.toString(shape) + " with " + Arrays.toString(thatShape)
+            );
+        }
+
+        int[] result = matrixMultiply(buffer, getBuffer(value), shape[0], shape[1], thatShape[1]);
+        return wrap(result, new int[]{shape[0], thatShape[1]});
+    }
+
+    @Override
+    public IntegerTensor tensorMultiply(IntegerTensor value, int[] dimsLeft, int[] dimsRight) {
+        int[] thatShape = value.getShape();
+
+        if (dimsLeft.length != dimsRight.length) {
+            throw new IllegalArgumentException("Tensor multiply requires the same number of dimensions on each side");
+        }
+
+        int summedLength = 1;
+        for (int i = 0; i < dimsLeft.length; i++) {
+            if (shape[dimsLeft[i]] != thatShape[dimsRight[i]]) {
+                throw new IllegalArgumentException(
+                    "Cannot tensor multiply shape " + Arrays.toString(shape) + " with " + Arrays.toString(thatShape)
+                );
+            }
+            summedLength *= shape[dimsLeft[i]];
+        }
+
+        int[] freeLeft = freeDimensions(shape.length, dimsLeft);
+        int[] freeRight = freeDimensions(thatShape.length, dimsRight);
+
+        int[] leftOrder = TensorShape.concat(freeLeft, dimsLeft);
+        int[] rightOrder = TensorShape.concat(dimsRight, freeRight);
+
+        int[] leftPermuted = permute(buffer, shape, stride, leftOrder);
+        int[] rightPermuted = permute(getBuffer(value), thatShape, TensorShape.getRowFirstStride(thatShape), rightOrder);
+
+        int leftFreeLength = buffer.length / summedLength;
+        int rightFreeLength = (int) (value.getLength() / summedLength);
+
+        int[] result = matrixMultiply(leftPermuted, rightPermuted, leftFreeLength, summedLength, rightFreeLength);
+
+        int[] resultShape = TensorShape.concat(selectDimensions(shape, freeLeft), selectDimensions(thatShape, freeRight));
+        if (resultShape.length < 2) {
+            resultShape = resultShape.length == 0 ? new int[]{1, 1} : new int[]{1, resultShape[0]};
+        }
+
+        return wrap(result, resultShape);
+    }
+
+    @Override
+    public IntegerTensor div(IntegerTensor that) {
+        return duplicate().divInPlace(that);
+    }
+
+    @Override
+    public IntegerTensor unaryMinus() {
+        return duplicate().unaryMinusInPlace();
+    }
+
+    @Override
+    public IntegerTensor abs() {
+        return duplicate().absInPlace();
+    }
+
+    @Override
+    public SimpleIntegerTensor getGreaterThanMask(IntegerTensor greaterThanThis) {
+        return duplicate().broadcastableOpInPlace((a, b) -> a > b ? 1 : 0, greaterThanThis);
+    }
+
+    @Override
+    public SimpleIntegerTensor getGreaterThanOrEqualToMask(IntegerTensor greaterThanOrEqualToThis) {
+        return duplicate().broadcastableOpInPlace((a, b) -> a >= b ? 1 : 0, greaterThanOrEqualToThis);
+    }
+
+    @Override
+    public SimpleIntegerTensor getLessThanMask(IntegerTensor lessThanThis) {
+        return duplicate().broadcastableOpInPlace((a, b) -> a < b ? 1 : 0, lessThanThis);
+    }
+
+    @Override
+    public SimpleIntegerTensor getLessThanOrEqualToMask(IntegerTensor lessThanOrEqualToThis) {
+        return duplicate().broadcastableOpInPlace((a, b) -> a <= b ? 1 : 0, lessThanOrEqualToThis);
+    }
+
+    @Override
+    public IntegerTensor setWithMaskInPlace(IntegerTensor mask, int value) {
+        copyIfShared();
+        if (mask.getLength() != buffer.length) {
+            throw new IllegalArgumentException("The lengths of the tensor and mask must match, but got tensor length: " + buffer.length + ", mask length: " + mask.getLength());
+        }
+
+        int[] maskBuffer = getBuffer(mask);
+        for (int i = 0; i < buffer.length; i++) {
+            if (maskBuffer[i] != 0) {
+                buffer[i] = value;
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public IntegerTensor setWithMask(IntegerTensor mask, int value) {
+        return duplicate().setWithMaskInPlace(mask, value);
+    }
+
+    @Override
+    public IntegerTensor apply(Function<Integer, Integer> function) {
+        return duplicate().applyInPlace(function);
+    }
+
+    @Override
+    public IntegerTensor slice(int dimension, int index) {
+        if (index >= shape[dimension]) {
+            throw new IllegalArgumentException(
+                "Invalid slice index " + index + " on dimension " + dimension + " for shape " + Arrays.toString(shape)
+            );
+        }
+
+        int inner = stride[dimension];
+        int outer = buffer.length / (inner * shape[dimension]);
+
+        int[] result = new int[outer * inner];
+        for (int o = 0; o < outer; o++) {
+            System.arraycopy(buffer, o * shape[dimension] * inner + index * inner, result, o * inner, inner);
+        }
+
+        return wrap(result, TensorShape.removeDimensions(shape, dimension));
+    }
+
+    @Override
+    public IntegerTensor concat(int dimension, IntegerTensor... those) {
+        int[][] shapes = new int[those.length + 1][];
+        shapes[0] = shape;
+        for (int i = 0; i < those.length; i++) {
+            shapes[i + 1] = those[i].getShape();
+        }
+
+        int[] concatShape = TensorShapeValidation.checkShapesCanBeConcatenated(dimension, shapes);
+        int[] result = new int[getLengthAsInt(concatShape)];
+
+        int inner = stride[dimension];
+        int outer = buffer.length / (inner * shape[dimension]);
+
+        int position = 0;
+        for (int o = 0; o < outer; o++) {
+            position = copyChunk(buffer, o, shape[dimension] * inner, result, position);
+            for (int i = 0; i < those.length; i++) {
+                position = copyChunk(getBuffer(those[i]), o, shapes[i + 1][dimension] * inner, result, position);
+            }
+        }
+
+        return wrap(result, concatShape);
+    }
+
+    @Override
+    public IntegerTensor minusInPlace(int value) {
+        copyIfShared();
+        return mapInPlace(x -> x - value);
+    }
+
+    @Override
+    public IntegerTensor plusInPlace(int value) {
+        copyIfShared();
+        return mapInPlace(x -> x + value);
+    }
+
+    @Override
+    public IntegerTensor timesInPlace(int value) {
+        copyIfShared();
+        return mapInPlace(x -> x * value);
+    }
+
+    @Override
+    public IntegerTensor divInPlace(int value) {
+        copyIfShared();
+        return mapInPlace(x -> Math.floorDiv(x, value));
+    }
+
+    @Override
+    public IntegerTensor powInPlace(IntegerTensor exponent) {
+        copyIfShared();
+        return broadcastableOpInPlace(SimpleIntegerTensor::pow, exponent);
+    }
+
+    @Override
+    public IntegerTensor powInPlace(int exponent) {
+        copyIfShared();
+        return mapInPlace(x -> pow(x, exponent));
+    }
+
+    @Override
+    public IntegerTensor minusInPlace(IntegerTensor that) {
+        copyIfShared();
+        return broadcastableOpInPlace((a, b) -> a - b, that);
+    }
+
+    @Override
+    public IntegerTensor plusInPlace(IntegerTensor that) {
+        copyIfShared();
+        return broadcastableOpInPlace((a, b) -> a + b, that);
+    }
+
+    @Override
+    public IntegerTensor timesInPlace(IntegerTensor that) {
+        copyIfShared();
+        return broadcastableOpInPlace((a, b) -> a * b, that);
+    }
+
+    @Override
+    public IntegerTensor divInPlace(IntegerTensor that) {
+        copyIfShared();
+        return broadcastableOpInPlace(Math::floorDiv, that);
+    }
+
+    @Override
+    public IntegerTensor unaryMinusInPlace() {
+        copyIfShared();
+        return mapInPlace(x -> -x);
+    }
+
+    @Override
+    public IntegerTensor absInPlace() {
+        copyIfShared();
+        return mapInPlace(Math::abs);
+    }
+
+    @Override
+    public IntegerTensor applyInPlace(Function<Integer, Integer> function) {
+        copyIfShared();
+        for (int i = 0; i < buffer.length; i++) {
+            buffer[i] = function.apply(buffer[i]);
+        }
+        return this;
+    }
+
+    @Override
+    public BooleanTensor lessThan(int value) {
+        boolean[] result = new boolean[buffer.length];
+        for (int i = 0; i < buffer.length; i++) {
+            result[i] = buffer[i] < value;
+        }
+        return BooleanTensor.create(result, copyOf(shape, shape.length));
+    }
+
+    @Override
+    public BooleanTensor lessThanOrEqual(int value) {
+        boolean[] result = new boolean[buffer.length];
+        for (int i = 0; i < buffer.length; i++) {
+            result[i] = buffer[i] <= value;
+        }
+        return BooleanTensor.create(result, copyOf(shape, shape.length));
+    }
+
+    @Override
+    public BooleanTensor lessThan(IntegerTensor value) {
+        return getLessThanMask(value).toBooleanMask();
+    }
+
+    @Override
+    public BooleanTensor lessThanOrEqual(IntegerTensor value) {
+        return getLessThanOrEqualToMask(value).toBooleanMask();
+    }
+
+    @Override
+    public BooleanTensor greaterThan(int value) {
+        boolean[] result = new boolean[buffer.length];
+        for (int i = 0; i < buffer.length; i++) {
+            result[i] = buffer[i] > value;
+        }
+        return BooleanTensor.create(result, copyOf(shape, shape.length));
+    }
+
+    @Override
+    public BooleanTensor greaterThanOrEqual(int value) {
+        boolean[] result = new boolean[buffer.length];
+        for (int i = 0; i < buffer.length; i++) {
+            result[i] = buffer[i] >= value;
+        }
+        return BooleanTensor.create(result, copyOf(shape, shape.length));
+    }
+
+    @Override
+    public BooleanTensor greaterThan(IntegerTensor value) {
+        return getGreaterThanMask(value).toBooleanMask();
+    }
+
+    @Override
+    public BooleanTensor greaterThanOrEqual(IntegerTensor value) {
+        return getGreaterThanOrEqualToMask(value).toBooleanMask();
+    }
+
+    @Override
+    public BooleanTensor elementwiseEquals(Tensor that) {
+        if (that instanceof IntegerTensor && that.hasSameShapeAs(this)) {
+            int[] thatBuffer = getBuffer((IntegerTensor) that);
+            boolean[] result = new boolean[buffer.length];
+            for (int i = 0; i < buffer.length; i++) {
+                result[i] = buffer[i] == thatBuffer[i];
+            }
+            return BooleanTensor.create(result, copyOf(shape, shape.length));
+        } else {
+            return Tensor.elementwiseEquals(this, that);
+        }
+    }
+
+    @Override
+    public FlattenedView<Integer> getFlattenedView() {
+        return new SimpleIntegerFlattenedView();
+    }
+
+    private class SimpleIntegerFlattenedView implements FlattenedView<Integer> {
+
+        @Override
+        public long size() {
+            return buffer.length;
+        }
+
+        @Override
+        public Integer get(long index) {
+            return buffer[Math.toIntExact(index)];
+        }
+
+        @Override
+        public Integer getOrScalar(long index) {
+            if (buffer.length == 1) {
+                return buffer[0];
+            } else {
+                return get(index);
+            }
+        }
+
+        @Override
+        public void set(long index, Integer value) {
+            copyIfShared();
+            buffer[Math.toIntExact(index)] = value;
+        }
+
+    }
+
+    @Override
+    public double[] asFlatDoubleArray() {
+        double[] doubles = new double[buffer.length];
+        for (int i = 0; i < buffer.length; i++) {
+            doubles[i] = buffer[i];
+        }
+        return doubles;
+    }
+
+    @Override
+    public int[] asFlatIntegerArray() {
+        return copyOf(buffer, buffer.length);
+    }
+
+    @Override
+    public Integer[] asFlatArray() {
+        return ArrayUtils.toObject(buffer);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+
+        if (o instanceof SimpleIntegerTensor) {
+            SimpleIntegerTensor that = (SimpleIntegerTensor) o;
+            return Arrays.equals(shape, that.shape) && Arrays.equals(buffer, that.buffer);
+        } else if (o instanceof Tensor) {
+            Tensor that = (Tensor) o;
+            if (!Arrays.equals(that.getShape(), shape)) return false;
+            return Arrays.equals(
+                that.asFlatArray(),
+                this.asFlatArray()
+            );
+        }
+
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Arrays.hashCode(buffer);
+        result = 31 * result + Arrays.hashCode(shape);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "{\n" +
+            "shape = " + Arrays.toString(shape) +
+            "\ndata = " + Arrays.toString(buffer) +
+            "\n}";
+    }
+
+    private BooleanTensor toBooleanMask() {
+        boolean[] result = new boolean[buffer.length];
+        for (int i = 0; i < buffer.length; i++) {
+            result[i] = buffer[i] != 0;
+        }
+        return BooleanTensor.create(result, shape);
+    }
+
+    /**
+     * Applies a binary operation elementwise, writing into this tensor's buffer when the result
+     * has the same shape as this. When broadcasting produces a larger result a new tensor is returned.
+     */
+    private SimpleIntegerTensor broadcastableOpInPlace(IntBinaryOperator op, IntegerTensor that) {
+        if (that.isScalar()) {
+            int value = that.scalar();
+            return mapInPlace(x -> op.applyAsInt(x, value));
+        }
+
+        int[] thatShape = that.getShape();
+        int[] thatBuffer = getBuffer(that);
+
+        if (Arrays.equals(shape, thatShape)) {
+            combineInPlace(op, buffer, thatBuffer);
+            return this;
+        }
+
+        int[] resultShape = TensorShape.getBroadcastResultShape(shape, thatShape);
+        int[] left = Arrays.equals(resultShape, shape) ? buffer : broadcast(buffer, shape, resultShape);
+        int[] right = broadcast(thatBuffer, thatShape, resultShape);
+
+        combineInPlace(op, left, right);
+
+        return left == buffer ? this : wrap(left, resultShape);
+    }
+
+    private SimpleIntegerTensor mapInPlace(IntUnaryOperator op) {
+        int[] values = buffer;
+        ParallelLoops.forEach(values.length, i -> values[i] = op.applyAsInt(values[i]));
+        return this;
+    }
+
+    private static void combineInPlace(IntBinaryOperator op, int[] left, int[] right) {
+        ParallelLoops.forEach(left.length, i -> left[i] = op.applyAsInt(left[i], right[i]));
+    }
+
+    /**
+     * @return the flat buffer of an integer tensor without copying where possible. The
+     * result must be treated as read only.
+     */
+    private static int[] getBuffer(IntegerTensor tensor) {
+        if (tensor instanceof SimpleIntegerTensor) {
+            return ((SimpleIntegerTensor) tensor).buffer;
+        } else {
+            return tensor.asFlatIntegerArray();
+        }
+    }
+
+    private static int[] broadcast(int[] buffer, int[] fromShape, int[] toShape) {
+        int[] paddedShape = TensorShape.shapeToDesiredRankByPrependingOnes(fromShape, toShape.length);
+        int[] paddedStride = TensorShape.getRowFirstStride(paddedShape);
+
+        int[] broadcastStride = new int[toShape.length];
+        for (int i = 0; i < toShape.length; i++) {
+            broadcastStride[i] = paddedShape[i] == 1 ? 0 : paddedStride[i];
+        }
+
+        return gather(buffer, toShape, broadcastStride);
+    }
+
+    /**
+     * Walks every index of the given shape in c order, reading from the buffer with the given stride.
+     */
+    private static int[] gather(int[] buffer, int[] shape, int[] strideInBuffer) {
+        int[] result = new int[getLengthAsInt(shape)];
+        int[] index = new int[shape.length];
+        for (int i = 0; i < result.length; i++) {
+            int from = 0;
+            for (int d = 0; d < shape.length; d++) {
+                from += index[d] * strideInBuffer[d];
+            }
+            result[i] = buffer[from];
+            increment(index, shape);
+        }
+        return result;
+    }
+
+    private static int[] permute(int[] buffer, int[] shape, int[] stride, int[] order) {
+        int[] permutedShape = selectDimensions(shape, order);
+        int[] permutedStride = selectDimensions(stride, order);
+        return gather(buffer, permutedShape, permutedStride);
+    }
+
+    private static int[] matrixMultiply(int[] left, int[] right, int rows, int inner, int columns) {
+        int[] result = new int[rows * columns];
+        for (int r = 0; r < rows; r++) {
+            for (int k = 0; k < inner; k++) {
+                int leftValue = left[r * inner + k];
+                if (leftValue == 0) {
+                    continue;
+                }
+                int rightOffset = k * columns;
+                int resultOffset = r * columns;
+                for (int c = 0; c < columns; c++) {
+                    result[resultOffset + c] += leftValue * right[rightOffset + c];
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int copyChunk(int[] from, int chunkIndex, int chunkLength, int[] to, int position) {
+        System.arraycopy(from, chunkIndex * chunkLength, to, position, chunkLength);
+        return position + chunkLength;
+    }
+
+    private static void increment(int[] index, int[] shape) {
+        for (int d = shape.length - 1; d >= 0; d--) {
+            index[d]++;
+            if (index[d] < shape[d]) {
+                return;
+            }
+            index[d] = 0;
+        }
+    }
+
+    private static int[] freeDimensions(int rank, int[] contracted) {
+        boolean[] isContracted = new boolean[rank];
+        for (int dimension : contracted) {
+            isContracted[dimension] = true;
+        }
+        int[] free = new int[rank - contracted.length];
+        int position = 0;
+        for (int i = 0; i < rank; i++) {
+            if (!isContracted[i]) {
+                free[position++] = i;
+            }
+        }
+        return free;
+    }
+
+    private static int[] selectDimensions(int[] values, int[] dimensions) {
+        int[] selected = new int[dimensions.length];
+        for (int i = 0; i < dimensions.length; i++) {
+            selected[i] = values[dimensions[i]];
+        }
+        return selected;
+    }
+
+    private static int pow(int base, int exponent) {
+        if (exponent < 0) {
+            return (int) Math.pow(base, exponent);
+        }
+
+        int result = 1;
+        int squared = base;
+        int remaining = exponent;
+        while (remaining > 0) {
+            if ((remaining & 1) == 1) {
+                result *= squared;
+            }
+            squared *= squared;
+            remaining >>= 1;
+        }
+        return result;
+    }
+
+    private static int getLengthAsInt(int[] shape) {
+        return Math.toIntExact(TensorShape.getLength(shape));
+    }
+
+}
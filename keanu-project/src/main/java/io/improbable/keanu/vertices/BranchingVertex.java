@@ -0,0 +1,41 @@
+package io.improbable.keanu.vertices;
+
+import io.improbable.keanu.tensor.bool.BooleanTensor;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A vertex whose value only depends on some of its parents, chosen by the value of one
+ * selecting parent (e.g. a predicate). The parents that aren't selected don't need to be
+ * evaluated, sampled or differentiated.
+ */
+public interface BranchingVertex {
+
+    /**
+     * @return the parent whose value chooses which of the other parents are used
+     */
+    Vertex<?> getSelectingParent();
+
+    /**
+     * @return the parents that the value depends on given the selecting parent's current value.
+     * This always includes the selecting parent.
+     */
+    Set<Vertex> getSelectedParents();
+
+    /**
+     * @return the predicate and only the branch it picks if it's all true or all false, otherwise all three
+     */
+    static Set<Vertex> selectedIfParents(Vertex<? extends BooleanTensor> predicate, Vertex<?> thn, Vertex<?> els) {
+        BooleanTensor predicateValue = predicate.getValue();
+
+        if (predicateValue.allTrue()) {
+            return new HashSet<>(Arrays.asList(predicate, thn));
+        } else if (predicateValue.allFalse()) {
+            return new HashSet<>(Arrays.asList(predicate, els));
+        } else {
+            return new HashSet<>(Arrays.asList(predicate, thn, els));
+        }
+    }
+}
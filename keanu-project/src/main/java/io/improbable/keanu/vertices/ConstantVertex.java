@@ -10,8 +10,24 @@ import io.improbable.keanu.vertices.dbl.nonprobabilistic.ConstantDoubleVertex;
 import io.improbable.keanu.vertices.generic.nonprobabilistic.ConstantGenericVertex;
 import io.improbable.keanu.vertices.intgr.nonprobabilistic.ConstantIntegerVertex;
 
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The of(...) factories always make a new constant, which can be re-valued and joins the graph of
+ * its children. The shared(...) factories intern scalars instead: asking for an equal scalar
+ * returns the same vertex, which can't be changed and doesn't join the graphs that use it
+ * (see {@link Vertex#isShared()}).
+ */
 public class ConstantVertex {
 
+    private static final int MIN_PURGE_SIZE = 1024;
+
+    private static final Map<Object, WeakReference<Vertex<?>>> SHARED = new ConcurrentHashMap<>();
+    private static volatile int purgeSize = MIN_PURGE_SIZE;
+
     private ConstantVertex() {
     }
 
@@ -74,4 +90,40 @@ public class ConstantVertex {
     public static <TENSOR extends Tensor> ConstantGenericVertex<TENSOR> of(TENSOR tensor) {
         return new ConstantGenericVertex<>(tensor);
     }
+
+    public static ConstantBoolVertex shared(boolean value) {
+        return intern(value, () -> new ConstantBoolVertex(value));
+    }
+
+    public static ConstantIntegerVertex shared(int value) {
+        return intern(value, () -> new ConstantIntegerVertex(value));
+    }
+
+    public static ConstantDoubleVertex shared(double value) {
+        return intern(value, () -> new ConstantDoubleVertex(value));
+    }
+
+    /**
+     * @param value  a boxed scalar, whose type keeps doubles, integers and booleans apart
+     * @param create makes the constant if there isn't a live one for the value
+     * @return the shared constant for the value
+     */
+    private static <V extends Vertex<?>> V intern(Object value, Supplier<V> create) {
+        WeakReference<Vertex<?>> reference = SHARED.get(value);
+        Vertex<?> existing = reference == null ? null : reference.get();
+        if (existing != null) {
+            return (V) existing;
+        }
+
+        V created = create.get();
+        created.markShared();
+        SHARED.put(value, new WeakReference<>(created));
+
+        if (SHARED.size() > purgeSize) {
+            SHARED.values().removeIf(ref -> ref.get() == null);
+            purgeSize = Math.max(MIN_PURGE_SIZE, 2 * SHARED.size());
+        }
+
+        return created;
+    }
 }
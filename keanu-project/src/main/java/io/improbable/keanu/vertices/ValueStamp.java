@@ -0,0 +1,61 @@
+package io.improbable.keanu.vertices;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the times any of a group of vertices has had its value replaced, in the graph or in any
+ * {@link ValueStore}. Something worked out from their values can keep a mark of when it was worked
+ * out, and tell it's still current from the count alone rather than by looking at every vertex.
+ * <p>
+ * Shared constants can't change, so they aren't counted.
+ */
+public final class ValueStamp {
+
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * @param vertices the vertices whose value changes are counted
+     */
+    public ValueStamp(Collection<? extends Vertex<?>> vertices) {
+        for (Vertex<?> vertex : vertices) {
+            vertex.addValueStamp(this);
+        }
+    }
+
+    /**
+     * Take the mark before reading the values it stands for, so that a change made while they're
+     * being read leaves the mark out of date rather than missing.
+     *
+     * @return a mark of the vertices' values as they are on this thread now
+     */
+    public Mark mark() {
+        return new Mark(count.get(), ValueStore.current());
+    }
+
+    /**
+     * Values in different stores can differ without changing, so a mark is only current in the
+     * store it was taken in.
+     *
+     * @param mark a mark from this stamp
+     * @return true if none of the vertices' values has been replaced since the mark was taken
+     */
+    public boolean isUnchangedSince(Mark mark) {
+        return mark.count == count.get() && mark.store == ValueStore.current();
+    }
+
+    void increment() {
+        count.incrementAndGet();
+    }
+
+    public static final class Mark {
+
+        private final long count;
+        private final ValueStore store;
+
+        private Mark(long count, ValueStore store) {
+            this.count = count;
+            this.store = store;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package io.improbable.keanu.vertices;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Holds vertex values and observations apart from the vertices themselves, so that many independent
+ * states can share one graph.
+ * <p>
+ * While a store is in use on a thread, every value or observation that's read or changed on that
+ * thread goes to the store. A vertex the store hasn't been given a value for reads through to its
+ * own, so a new store starts as a view of the graph's current state, and changes made in the store
+ * never reach the graph.
+ * <p>
+ * A store must only be in use on one thread at a time, and the graph's own values shouldn't be
+ * changed while stores are in use on other threads.
+ */
+public class ValueStore {
+
+    private static final ThreadLocal<ValueStore> CURRENT = new ThreadLocal<>();
+
+    /**
+     * The number of stores in use across all threads. While it's zero vertices skip the thread local
+     * lookup, so graphs that don't use stores don't pay for them.
+     */
+    private static final AtomicInteger IN_USE = new AtomicInteger();
+
+    private final Map<Vertex<?>, Object> values;
+    private final Map<Vertex<?>, Boolean> observations;
+
+    public ValueStore() {
+        this(new HashMap<>(), new HashMap<>());
+    }
+
+    private ValueStore(Map<Vertex<?>, Object> values, Map<Vertex<?>, Boolean> observations) {
+        this.values = values;
+        this.observations = observations;
+    }
+
+    /**
+     * Copying is proportional to the number of vertices changed in this store, not to the size of
+     * the graph. Values are replaced rather than changed in place, so they aren't copied.
+     *
+     * @return a store that starts in the same state as this one and can then be changed independently
+     */
+    public ValueStore copy() {
+        return new ValueStore(new HashMap<>(values), new HashMap<>(observations));
+    }
+
+    /**
+     * @return the number of vertices whose value or observation has been set in this store
+     */
+    public int size() {
+        Set<Vertex<?>> changed = new HashSet<>(values.keySet());
+        changed.addAll(observations.keySet());
+        return changed.size();
+    }
+
+    /**
+     * @param task work to do against the values in this store
+     */
+    public void run(Runnable task) {
+        evaluate(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * @param query work to do against the values in this store
+     * @param <R>   the type of result
+     * @return the result of the query
+     */
+    public <R> R evaluate(Supplier<R> query) {
+        ValueStore previous = CURRENT.get();
+        CURRENT.set(this);
+        IN_USE.incrementAndGet();
+        try {
+            return query.get();
+        } finally {
+            IN_USE.decrementAndGet();
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * @return true if a store is in use on this thread, in which case work on vertices shouldn't be
+     * handed to other threads
+     */
+    public static boolean isInUse() {
+        return current() != null;
+    }
+
+    /**
+     * @return the store in use on this thread, or null if the vertices' own values are in use
+     */
+    static ValueStore current() {
+        return IN_USE.get() == 0 ? null : CURRENT.get();
+    }
+
+    <T> T getValue(Vertex<T> vertex, T ownValue) {
+        return (T) values.getOrDefault(vertex, ownValue);
+    }
+
+    <T> void setValue(Vertex<T> vertex, T value) {
+        values.put(vertex, value);
+    }
+
+    boolean isObserved(Vertex<?> vertex, boolean ownObservation) {
+        return observations.getOrDefault(vertex, ownObservation);
+    }
+
+    void setObserved(Vertex<?> vertex, boolean observed) {
+        observations.put(vertex, observed);
+    }
+}
@@ -13,11 +13,15 @@ public abstract class Vertex<T> {
 
     public static final AtomicLong ID_GENERATOR = new AtomicLong(0L);
 
+    private static final ValueStamp[] NO_VALUE_STAMPS = new ValueStamp[0];
+
     private long uuid = ID_GENERATOR.getAndIncrement();
     private Set<Vertex> children = new HashSet<>();
     private Set<Vertex> parents = new HashSet<>();
     private T value;
     private boolean observed;
+    private boolean shared;
+    private ValueStamp[] valueStamps = NO_VALUE_STAMPS;
 
     /**
      * This is the natural log of the probability at the supplied value. In the
@@ -105,20 +109,24 @@ public abstract class Vertex<T> {
      * @param value the observed value
      */
     public void setValue(T value) {
-        if (!this.observed) {
-            this.value = value;
+        if (value != currentValue()) {
+            checkNotShared();
+        }
+        if (!isObserved()) {
+            putValue(value);
         }
     }
 
     public T getValue() {
-        return hasValue() ? value : lazyEval();
+        return hasValue() ? currentValue() : lazyEval();
     }
 
     protected T getRawValue() {
-        return value;
+        return currentValue();
     }
 
     public boolean hasValue() {
+        T value = currentValue();
         if (value instanceof Tensor) {
             return !((Tensor) value).isShapePlaceholder();
         } else {
@@ -126,7 +134,19 @@ public abstract class Vertex<T> {
         }
     }
 
+    /**
+     * Drops the value of a non-probabilistic vertex, keeping its shape, so that it's recalculated
+     * from its parents the next time it's needed. Observed values are kept.
+     */
+    public void clearDerivedValue() {
+        if (!isObserved() && !shared && !isProbabilistic()) {
+            T value = currentValue();
+            putValue(value instanceof Tensor ? (T) Tensor.placeHolder(((Tensor) value).getShape()) : null);
+        }
+    }
+
     public int[] getShape() {
+        T value = currentValue();
         if (value instanceof Tensor) {
             return ((Tensor) value).getShape();
         } else {
@@ -156,23 +176,65 @@ public abstract class Vertex<T> {
      * @param value the value to be observed
      */
     public void observe(T value) {
-        this.value = value;
-        this.observed = true;
+        checkNotShared();
+        putValue(value);
+        putObserved(true);
     }
 
     /**
      * Cause this vertex to observe its own value, for example when generating test data
      */
     public void observeOwnValue() {
-        this.observed = true;
+        checkNotShared();
+        putObserved(true);
     }
 
     public void unobserve() {
-        observed = false;
+        putObserved(false);
     }
 
     public boolean isObserved() {
-        return observed;
+        ValueStore store = ValueStore.current();
+        return store == null ? observed : store.isObserved(this, observed);
+    }
+
+    /**
+     * @return the value in the store in use on this thread, if there is one, otherwise this vertex's own value
+     */
+    private T currentValue() {
+        ValueStore store = ValueStore.current();
+        return store == null ? value : store.getValue(this, value);
+    }
+
+    private void putValue(T value) {
+        ValueStore store = ValueStore.current();
+        if (store == null) {
+            this.value = value;
+        } else {
+            store.setValue(this, value);
+        }
+        for (ValueStamp valueStamp : valueStamps) {
+            valueStamp.increment();
+        }
+    }
+
+    /**
+     * Stamps are only added while a graph is being built, before it's used on other threads.
+     */
+    void addValueStamp(ValueStamp valueStamp) {
+        if (!shared) {
+            valueStamps = Arrays.copyOf(valueStamps, valueStamps.length + 1);
+            valueStamps[valueStamps.length - 1] = valueStamp;
+        }
+    }
+
+    private void putObserved(boolean observed) {
+        ValueStore store = ValueStore.current();
+        if (store == null) {
+            this.observed = observed;
+        } else {
+            store.setObserved(this, observed);
+        }
     }
 
     public long getId() {
@@ -184,7 +246,28 @@ public abstract class Vertex<T> {
     }
 
     public void addChild(Vertex<?> v) {
-        children.add(v);
+        if (!shared) {
+            children.add(v);
+        }
+    }
+
+    /**
+     * Marks this vertex as shared between graphs, as interned constants are. A shared vertex
+     * can't be changed and doesn't keep track of its children, so graphs that use it stay
+     * separate. It's only equal to itself because ids may be reused once the id generator is reset.
+     */
+    void markShared() {
+        this.shared = true;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    private void checkNotShared() {
+        if (shared) {
+            throw new UnsupportedOperationException("Shared constants can't be changed");
+        }
     }
 
     public void setParents(Collection<? extends Vertex> parents) {
@@ -213,6 +296,7 @@ public abstract class Vertex<T> {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
+        if (shared || ((Vertex<?>) o).shared) return false;
 
         Vertex<?> vertex = (Vertex<?>) o;
 
@@ -221,6 +305,9 @@ public abstract class Vertex<T> {
 
     @Override
     public int hashCode() {
+        if (shared) {
+            return System.identityHashCode(this);
+        }
         return (int) (uuid ^ (uuid >>> 32));
     }
 
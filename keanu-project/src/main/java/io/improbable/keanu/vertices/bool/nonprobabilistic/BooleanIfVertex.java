@@ -1,10 +1,14 @@
 package io.improbable.keanu.vertices.bool.nonprobabilistic;
 
 import io.improbable.keanu.tensor.bool.BooleanTensor;
+import io.improbable.keanu.vertices.BranchingVertex;
 import io.improbable.keanu.vertices.Vertex;
 import io.improbable.keanu.vertices.dbl.KeanuRandom;
 
-public class BooleanIfVertex extends NonProbabilisticBool {
+import java.util.Set;
+import java.util.function.Supplier;
+
+public class BooleanIfVertex extends NonProbabilisticBool implements BranchingVertex {
 
     private final Vertex<? extends BooleanTensor> predicate;
     private final Vertex<? extends BooleanTensor> thn;
@@ -21,17 +25,37 @@ public class BooleanIfVertex extends NonProbabilisticBool {
         setValue(BooleanTensor.placeHolder(shape));
     }
 
-    protected BooleanTensor op(BooleanTensor predicate, BooleanTensor thn, BooleanTensor els) {
-        return predicate.setBooleanIf(thn, els);
+    /**
+     * Only gets the value of the branch that's picked when the predicate is all true or all false.
+     */
+    protected BooleanTensor op(BooleanTensor predicate, Supplier<? extends BooleanTensor> thn, Supplier<? extends BooleanTensor> els) {
+        if (predicate.allTrue()) {
+            BooleanTensor thnValue = thn.get();
+            return predicate.setBooleanIf(thnValue, thnValue);
+        } else if (predicate.allFalse()) {
+            BooleanTensor elsValue = els.get();
+            return predicate.setBooleanIf(elsValue, elsValue);
+        }
+        return predicate.setBooleanIf(thn.get(), els.get());
     }
 
     @Override
     public BooleanTensor sample(KeanuRandom random) {
-        return op(predicate.sample(random), thn.sample(random), els.sample(random));
+        return op(predicate.sample(random), () -> thn.sample(random), () -> els.sample(random));
     }
 
     @Override
     public BooleanTensor getDerivedValue() {
-        return op(predicate.getValue(), thn.getValue(), els.getValue());
+        return op(predicate.getValue(), thn::getValue, els::getValue);
+    }
+
+    @Override
+    public Vertex<?> getSelectingParent() {
+        return predicate;
+    }
+
+    @Override
+    public Set<Vertex> getSelectedParents() {
+        return BranchingVertex.selectedIfParents(predicate, thn, els);
     }
 }
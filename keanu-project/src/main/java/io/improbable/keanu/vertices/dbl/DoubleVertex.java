@@ -1,11 +1,11 @@
 package io.improbable.keanu.vertices.dbl;
 
 
+import io.improbable.keanu.algorithms.graphtraversal.VertexValuePropagation;
 import io.improbable.keanu.kotlin.DoubleOperators;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
 import io.improbable.keanu.vertices.ContinuousVertex;
 import io.improbable.keanu.vertices.Vertex;
-import io.improbable.keanu.vertices.dbl.nonprobabilistic.ConstantDoubleVertex;
 import io.improbable.keanu.vertices.dbl.nonprobabilistic.diff.DualNumber;
 import io.improbable.keanu.vertices.dbl.nonprobabilistic.operators.binary.*;
 import io.improbable.keanu.vertices.dbl.nonprobabilistic.operators.unary.*;
@@ -40,23 +40,23 @@ public abstract class DoubleVertex extends ContinuousVertex<DoubleTensor> implem
     }
 
     public DoubleVertex minus(double that) {
-        return new DifferenceVertex(this, new ConstantDoubleVertex(that));
+        return new DifferenceVertex(this, that);
     }
 
     public DoubleVertex plus(double that) {
-        return new AdditionVertex(this, new ConstantDoubleVertex(that));
+        return new AdditionVertex(this, that);
     }
 
     public DoubleVertex multiply(double that) {
-        return new MultiplicationVertex(this, new ConstantDoubleVertex(that));
+        return new MultiplicationVertex(this, that);
     }
 
     public DoubleVertex divideBy(double that) {
-        return new DivisionVertex(this, new ConstantDoubleVertex(that));
+        return new DivisionVertex(this, that);
     }
 
     public DoubleVertex pow(double power) {
-        return new PowerVertex(this, new ConstantDoubleVertex(power));
+        return new PowerVertex(this, power);
     }
 
     public DoubleVertex abs() {
@@ -160,7 +160,7 @@ public abstract class DoubleVertex extends ContinuousVertex<DoubleTensor> implem
         while (!stack.isEmpty()) {
 
             DoubleVertex head = stack.peek();
-            Set<DoubleVertex> parentsThatDualNumberIsNotCalculated = parentsThatDualNumberIsNotCalculated(dualNumbers, head.getParents());
+            Set<DoubleVertex> parentsThatDualNumberIsNotCalculated = parentsThatDualNumberIsNotCalculated(dualNumbers, VertexValuePropagation.getSelectedParents(head));
 
             if (parentsThatDualNumberIsNotCalculated.isEmpty()) {
 
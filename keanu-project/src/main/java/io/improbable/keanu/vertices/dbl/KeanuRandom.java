@@ -1,26 +1,28 @@
 package io.improbable.keanu.vertices.dbl;
 
-import io.improbable.keanu.distributions.continuous.Gamma;
 import io.improbable.keanu.distributions.continuous.Laplace;
 import io.improbable.keanu.distributions.discrete.Poisson;
+import io.improbable.keanu.tensor.ParallelLoops;
 import io.improbable.keanu.tensor.Tensor;
+import io.improbable.keanu.tensor.TensorShape;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
-import io.improbable.keanu.tensor.dbl.Nd4jDoubleTensor;
+import io.improbable.keanu.tensor.dbl.Precision;
 import io.improbable.keanu.tensor.dbl.ScalarDoubleTensor;
 import io.improbable.keanu.tensor.intgr.IntegerTensor;
-import io.improbable.keanu.tensor.intgr.Nd4jIntegerTensor;
-import org.nd4j.linalg.api.rng.DefaultRandom;
-import org.nd4j.linalg.api.rng.Random;
 
 import java.util.Arrays;
+import java.util.SplittableRandom;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static io.improbable.keanu.tensor.ScalarBroadcast.getOrScalar;
+import static org.apache.commons.math3.special.Gamma.logGamma;
+
 public class KeanuRandom {
 
     private static final AtomicReference<KeanuRandom> DEFAULT_RANDOM = new AtomicReference<>();
 
     static {
-        System.setProperty("dtype", "double");
+        System.setProperty("dtype", Precision.get().getNd4jDataType());
 
         String randomSeed = System.getProperty("io.improbable.keanu.defaultRandom.seed");
 
@@ -32,6 +34,10 @@ public class KeanuRandom {
         }
     }
 
+    /**
+     * @return the shared random used when none is given. It isn't thread safe so work spread over
+     * threads should use {@link #split()} to give each thread its own random.
+     */
     public static KeanuRandom getDefaultRandom() {
         return DEFAULT_RANDOM.get();
     }
@@ -40,71 +46,323 @@ public class KeanuRandom {
         DEFAULT_RANDOM.set(new KeanuRandom(seed));
     }
 
-    private final Random nd4jRandom;
+    private static final double POISSON_PTRS_MIN_MEAN = 10.0;
+    private static final double BINOMIAL_BTRS_MIN_MEAN = 10.0;
+
+    private static final double[] STIRLING_TAIL = {
+        0.0810614667953272, 0.0413406959554092, 0.0276779256849983, 0.02079067210376509,
+        0.0166446911898211, 0.0138761288230707, 0.0118967099458917, 0.0104112652619720,
+        0.00925546218271273, 0.00833056343336287
+    };
+
+    private final SplittableRandom random;
 
     public KeanuRandom() {
-        nd4jRandom = new DefaultRandom();
+        this(new SplittableRandom());
     }
 
     public KeanuRandom(long seed) {
-        nd4jRandom = new DefaultRandom(seed);
+        this(new SplittableRandom(seed));
+    }
+
+    private KeanuRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * Creates a new random with a stream that is statistically independent of this one. Random
+     * isn't thread safe, so parallel algorithms should give each chain, particle or task its own
+     * split. If the splits are made in a fixed order then results are reproducible from one
+     * seed regardless of thread scheduling.
+     *
+     * @return a new independent random
+     */
+    public KeanuRandom split() {
+        return new KeanuRandom(random.split());
     }
 
     public DoubleTensor nextDouble(int[] shape) {
         if (Arrays.equals(shape, Tensor.SCALAR_SHAPE)) {
             return new ScalarDoubleTensor(nextDouble());
         } else {
-            return new Nd4jDoubleTensor(nd4jRandom.nextDouble(shape));
+            double[] values = new double[getLength(shape)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = nextDouble();
+            }
+            return DoubleTensor.create(values, shape);
         }
     }
 
     public double nextDouble() {
-        return nd4jRandom.nextDouble();
+        return random.nextDouble();
     }
 
     public double nextDouble(double min, double max) {
-        return nd4jRandom.nextDouble() * (max - min) + min;
+        return random.nextDouble() * (max - min) + min;
     }
 
     public DoubleTensor nextGaussian(int[] shape) {
         if (Arrays.equals(shape, Tensor.SCALAR_SHAPE)) {
             return new ScalarDoubleTensor(nextGaussian());
         } else {
-            return new Nd4jDoubleTensor(nd4jRandom.nextGaussian(shape));
+            double[] values = new double[getLength(shape)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = nextGaussian();
+            }
+            return DoubleTensor.create(values, shape);
         }
     }
 
+    /**
+     * Samples without making a {@link io.improbable.keanu.distributions.continuous.Gamma}, whose
+     * log prob terms aren't needed for sampling
+     */
     public DoubleTensor nextGamma(int[] shape, DoubleTensor a, DoubleTensor theta, DoubleTensor k) {
-        return Gamma.withParameters(a, theta, k).sample(shape, this);
+        final double[] aValues = a.asFlatDoubleArray();
+        final double[] thetaValues = theta.asFlatDoubleArray();
+        final double[] kValues = k.asFlatDoubleArray();
+
+        double[] samples = new double[getLength(shape)];
+        ParallelLoops.forEach(samples.length, this, (i, r) ->
+            samples[i] = r.nextGamma(getOrScalar(aValues, i), getOrScalar(thetaValues, i), getOrScalar(kValues, i))
+        );
+
+        return DoubleTensor.create(samples, shape);
+    }
+
+    private double nextGamma(double a, double theta, double k) {
+        if (theta <= 0. || k <= 0.) {
+            throw new IllegalArgumentException("Invalid value for theta or k. Theta: " + theta + ". k: " + k);
+        }
+        return a + theta * nextGamma(k);
     }
 
     public DoubleTensor nextLaplace(int[] shape, DoubleTensor mu, DoubleTensor beta) {
         return Laplace.withParameters(mu, beta).sample(shape, this);
     }
 
+    /**
+     * @return a standard normal sample from the {@link Ziggurat}
+     */
     public double nextGaussian() {
-        return nd4jRandom.nextGaussian();
+        return Ziggurat.nextGaussian(random);
     }
 
     public double nextGaussian(double mu, double sigma) {
-        return nd4jRandom.nextGaussian() * sigma + mu;
+        return nextGaussian() * sigma + mu;
     }
 
     public boolean nextBoolean() {
-        return nd4jRandom.nextBoolean();
+        return random.nextBoolean();
     }
 
     public IntegerTensor nextInt(int[] shape) {
-        return new Nd4jIntegerTensor(nd4jRandom.nextInt(shape));
+        int[] values = new int[getLength(shape)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt();
+        }
+        return IntegerTensor.create(values, shape);
     }
 
     public IntegerTensor nextPoisson(int[] shape, DoubleTensor mu) {
         return Poisson.withParameters(mu).sample(shape, this);
-
     }
 
     public int nextInt(int maxExclusive) {
-        return nd4jRandom.nextInt(maxExclusive);
+        return random.nextInt(maxExclusive);
+    }
+
+    public long nextLong() {
+        return random.nextLong();
+    }
+
+    /**
+     * Marsaglia and Tsang's method for gamma with unit scale. Shapes below one are sampled as
+     * gamma(k + 1) * U^(1/k).
+     * <p>
+     * A Simple Method for Generating Gamma Variables
+     * by George Marsaglia and Wai Wan Tsang
+     * ACM Transactions on Mathematical Software, Vol 26, No 3, September 2000
+     *
+     * @param k shape
+     * @return a gamma sample with shape k and scale 1
+     */
+    public double nextGamma(double k) {
+        if (k < 1.0) {
+            return nextGamma(k + 1.0) * Math.exp(Math.log(1.0 - random.nextDouble()) / k);
+        }
+
+        final double d = k - 1.0 / 3.0;
+        final double c = 1.0 / Math.sqrt(9.0 * d);
+
+        while (true) {
+            double x;
+            double v;
+            do {
+                x = nextGaussian();
+                v = 1.0 + c * x;
+            } while (v <= 0.0);
+
+            v = v * v * v;
+            double u = random.nextDouble();
+            double xSquared = x * x;
+
+            if (u < 1.0 - 0.0331 * xSquared * xSquared) {
+                return d * v;
+            }
+
+            if (Math.log(u) < 0.5 * xSquared + d * (1.0 - v + Math.log(v))) {
+                return d * v;
+            }
+        }
+    }
+
+    /**
+     * Inversion for small means and Hormann's transformed rejection with squeeze (PTRS) otherwise,
+     * so the cost doesn't grow with the mean.
+     * <p>
+     * The transformed rejection method for generating Poisson random variables
+     * by Wolfgang Hormann
+     * Insurance: Mathematics and Economics 12, 1993
+     *
+     * @param mu mean
+     * @return a Poisson sample
+     */
+    public int nextPoisson(double mu) {
+        if (mu < POISSON_PTRS_MIN_MEAN) {
+            return poissonByInversion(mu);
+        }
+
+        final double sqrtMu = Math.sqrt(mu);
+        final double logMu = Math.log(mu);
+        final double b = 0.931 + 2.53 * sqrtMu;
+        final double a = -0.059 + 0.02483 * b;
+        final double logInverseAlpha = Math.log(1.1239 + 1.1328 / (b - 3.4));
+        final double vr = 0.9277 - 3.6224 / (b - 2);
+
+        while (true) {
+            double u = random.nextDouble() - 0.5;
+            double v = random.nextDouble();
+            double us = 0.5 - Math.abs(u);
+            double k = Math.floor((2 * a / us + b) * u + mu + 0.43);
+
+            if (us >= 0.07 && v <= vr) {
+                return (int) k;
+            }
+
+            if (k < 0 || (us < 0.013 && v > us)) {
+                continue;
+            }
+
+            double logAcceptance = Math.log(v) + logInverseAlpha - Math.log(a / (us * us) + b);
+            if (logAcceptance <= -mu + k * logMu - logGamma(k + 1)) {
+                return (int) k;
+            }
+        }
+    }
+
+    private int poissonByInversion(double mu) {
+        final double u = random.nextDouble();
+        double probability = Math.exp(-mu);
+        double cumulative = probability;
+        int k = 0;
+
+        while (u > cumulative && probability > 0) {
+            k++;
+            probability *= mu / k;
+            cumulative += probability;
+        }
+
+        return k;
+    }
+
+    /**
+     * Inversion by summing geometric waiting times when n * p is small and Hormann's transformed
+     * rejection with squeeze (BTRS) otherwise, so the cost doesn't grow with n.
+     * <p>
+     * The generation of binomial random variates
+     * by Wolfgang Hormann
+     * Journal of Statistical Computation and Simulation 46, 1993
+     *
+     * @param n number of trials
+     * @param p probability of success of each trial
+     * @return a binomial sample
+     */
+    public int nextBinomial(int n, double p) {
+        if (p > 0.5) {
+            return n - nextBinomial(n, 1.0 - p);
+        }
+
+        if (n == 0 || p == 0.0) {
+            return 0;
+        }
+
+        if (n * p < BINOMIAL_BTRS_MIN_MEAN) {
+            return binomialByInversion(n, p);
+        }
+
+        final double spq = Math.sqrt(n * p * (1 - p));
+        final double b = 1.15 + 2.53 * spq;
+        final double a = -0.0873 + 0.0248 * b + 0.01 * p;
+        final double c = n * p + 0.5;
+        final double vr = 0.92 - 4.2 / b;
+        final double r = p / (1 - p);
+        final double alpha = (2.83 + 5.1 / b) * spq;
+        final double m = Math.floor((n + 1) * p);
+
+        while (true) {
+            double u = random.nextDouble() - 0.5;
+            double v = random.nextDouble();
+            double us = 0.5 - Math.abs(u);
+            double k = Math.floor((2 * a / us + b) * u + c);
+
+            if (k < 0 || k > n) {
+                continue;
+            }
+
+            if (us >= 0.07 && v <= vr) {
+                return (int) k;
+            }
+
+            double logV = Math.log(v * alpha / (a / (us * us) + b));
+            double bound = (m + 0.5) * Math.log((m + 1) / (r * (n - m + 1)))
+                + (n + 1) * Math.log((n - m + 1) / (n - k + 1))
+                + (k + 0.5) * Math.log(r * (n - k + 1) / (k + 1))
+                + stirlingTail(m) + stirlingTail(n - m) - stirlingTail(k) - stirlingTail(n - k);
+
+            if (logV <= bound) {
+                return (int) k;
+            }
+        }
+    }
+
+    private int binomialByInversion(int n, double p) {
+        final double logQ = Math.log1p(-p);
+        double trials = 0;
+        int successes = 0;
+
+        while (true) {
+            trials += Math.ceil(Math.log(1.0 - random.nextDouble()) / logQ);
+            if (trials > n) {
+                return successes;
+            }
+            successes++;
+        }
+    }
+
+    /**
+     * @return log(k!) - log(sqrt(2 * pi) * (k + 1)^(k + 1/2) * e^-(k + 1)), the error in Stirling's approximation
+     */
+    private static double stirlingTail(double k) {
+        if (k < STIRLING_TAIL.length) {
+            return STIRLING_TAIL[(int) k];
+        }
+        double kPlusOneSquared = (k + 1) * (k + 1);
+        return (1.0 / 12 - (1.0 / 360 - 1.0 / 1260 / kPlusOneSquared) / kPlusOneSquared) / (k + 1);
+    }
+
+    private static int getLength(int[] shape) {
+        return Math.toIntExact(TensorShape.getLength(shape));
     }
 
 }
@@ -0,0 +1,85 @@
+package io.improbable.keanu.vertices.dbl;
+
+import java.util.SplittableRandom;
+
+/**
+ * Ziggurat method for standard normals with 128 layers of equal area.
+ * <p>
+ * An improved Ziggurat method to generate normal random samples
+ * by Jurgen A. Doornik
+ * University of Oxford, 2005
+ * <p>
+ * Most samples cost one random long and a multiply. Only samples that fall in the edge of a
+ * layer, or in the tail past the base layer, need logs or exps.
+ */
+final class Ziggurat {
+
+    private static final int LAYERS = 128;
+    private static final int LAYER_MASK = LAYERS - 1;
+
+    /**
+     * Where the tail starts, to the right of the base layer.
+     */
+    private static final double R = 3.442619855899;
+
+    /**
+     * Area of each layer.
+     */
+    private static final double V = 9.91256303526217e-3;
+
+    private static final double[] X = new double[LAYERS + 1];
+    private static final double[] RATIO = new double[LAYERS];
+
+    static {
+        double f = Math.exp(-0.5 * R * R);
+        X[0] = V / f;
+        X[1] = R;
+        X[LAYERS] = 0;
+
+        for (int i = 2; i < LAYERS; i++) {
+            X[i] = Math.sqrt(-2 * Math.log(V / X[i - 1] + f));
+            f = Math.exp(-0.5 * X[i] * X[i]);
+        }
+
+        for (int i = 0; i < LAYERS; i++) {
+            RATIO[i] = X[i + 1] / X[i];
+        }
+    }
+
+    private Ziggurat() {
+    }
+
+    static double nextGaussian(SplittableRandom random) {
+        while (true) {
+            long bits = random.nextLong();
+            int layer = (int) (bits & LAYER_MASK);
+            double u = 2 * ((bits >>> 11) * 0x1.0p-53) - 1;
+
+            if (Math.abs(u) < RATIO[layer]) {
+                return u * X[layer];
+            }
+
+            if (layer == 0) {
+                return tail(u < 0, random);
+            }
+
+            double x = u * X[layer];
+            double f0 = Math.exp(-0.5 * (X[layer] * X[layer] - x * x));
+            double f1 = Math.exp(-0.5 * (X[layer + 1] * X[layer + 1] - x * x));
+            if (f1 + random.nextDouble() * (f0 - f1) < 1.0) {
+                return x;
+            }
+        }
+    }
+
+    private static double tail(boolean negative, SplittableRandom random) {
+        double x;
+        double y;
+        do {
+            x = Math.log(1.0 - random.nextDouble()) / R;
+            y = Math.log(1.0 - random.nextDouble());
+        } while (-2 * y < x * x);
+
+        return negative ? x - R : R - x;
+    }
+}
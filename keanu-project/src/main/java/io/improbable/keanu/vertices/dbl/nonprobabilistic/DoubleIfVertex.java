@@ -2,13 +2,16 @@ package io.improbable.keanu.vertices.dbl.nonprobabilistic;
 
 import io.improbable.keanu.tensor.bool.BooleanTensor;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.BranchingVertex;
 import io.improbable.keanu.vertices.Vertex;
 import io.improbable.keanu.vertices.dbl.KeanuRandom;
 import io.improbable.keanu.vertices.dbl.nonprobabilistic.diff.DualNumber;
 
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
-public class DoubleIfVertex extends NonProbabilisticDouble {
+public class DoubleIfVertex extends NonProbabilisticDouble implements BranchingVertex {
 
     private final Vertex<? extends BooleanTensor> predicate;
     private final Vertex<? extends DoubleTensor> thn;
@@ -26,18 +29,40 @@ public class DoubleIfVertex extends NonProbabilisticDouble {
         setValue(DoubleTensor.placeHolder(shape));
     }
 
+    public Vertex<? extends BooleanTensor> getPredicate() {
+        return predicate;
+    }
+
+    public Vertex<? extends DoubleTensor> getThn() {
+        return thn;
+    }
+
+    public Vertex<? extends DoubleTensor> getEls() {
+        return els;
+    }
+
     @Override
     public DoubleTensor sample(KeanuRandom random) {
-        return op(predicate.sample(random), thn.sample(random), els.sample(random));
+        return op(predicate.sample(random), () -> thn.sample(random), () -> els.sample(random));
     }
 
     @Override
     public DoubleTensor getDerivedValue() {
-        return op(predicate.getValue(), thn.getValue(), els.getValue());
+        return op(predicate.getValue(), thn::getValue, els::getValue);
     }
 
-    private DoubleTensor op(BooleanTensor predicate, DoubleTensor thn, DoubleTensor els) {
-        return predicate.setDoubleIf(thn, els);
+    /**
+     * Only gets the value of the branch that's picked when the predicate is all true or all false.
+     */
+    private DoubleTensor op(BooleanTensor predicate, Supplier<? extends DoubleTensor> thn, Supplier<? extends DoubleTensor> els) {
+        if (predicate.allTrue()) {
+            DoubleTensor thnValue = thn.get();
+            return predicate.setDoubleIf(thnValue, thnValue);
+        } else if (predicate.allFalse()) {
+            DoubleTensor elsValue = els.get();
+            return predicate.setDoubleIf(elsValue, elsValue);
+        }
+        return predicate.setDoubleIf(thn.get(), els.get());
     }
 
     @Override
@@ -45,4 +70,14 @@ public class DoubleIfVertex extends NonProbabilisticDouble {
         return DualNumber.ifThenElse(predicate.getValue(), dualNumbers.get(thn), dualNumbers.get(els));
     }
 
+    @Override
+    public Vertex<?> getSelectingParent() {
+        return predicate;
+    }
+
+    @Override
+    public Set<Vertex> getSelectedParents() {
+        return BranchingVertex.selectedIfParents(predicate, thn, els);
+    }
+
 }
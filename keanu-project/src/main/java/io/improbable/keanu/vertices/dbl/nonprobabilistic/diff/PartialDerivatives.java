@@ -1,5 +1,7 @@
 package io.improbable.keanu.vertices.dbl.nonprobabilistic.diff;
 
+import io.improbable.keanu.tensor.ParallelLoops;
+import io.improbable.keanu.tensor.Tensor;
 import io.improbable.keanu.tensor.TensorShape;
 import io.improbable.keanu.tensor.bool.BooleanTensor;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
@@ -23,9 +25,6 @@ public class PartialDerivatives {
     }
 
     public static PartialDerivatives ifThenElse(BooleanTensor predicate, PartialDerivatives thn, PartialDerivatives els) {
-        DoubleTensor trueMask = predicate.toDoubleMask();
-        DoubleTensor falseMask = predicate.not().toDoubleMask();
-
         Map<Long, DoubleTensor> thenPartials = thn.derivativeWithRespectTo;
         Map<Long, DoubleTensor> elsePartials = els.derivativeWithRespectTo;
         Set<Long> wrtUnion = new HashSet<>();
@@ -36,28 +35,41 @@ public class PartialDerivatives {
         for (Long wrt : wrtUnion) {
             DoubleTensor thnPartial = thenPartials.get(wrt);
             DoubleTensor elsPartial = elsePartials.get(wrt);
-            DoubleTensor broadcastedTrueMask;
-            DoubleTensor broadcastedFalseMask;
-
-            DoubleTensor newPartial;
-            if (thnPartial == null) {
-                broadcastedFalseMask = DoubleTensor.zeros(elsPartial.getShape()).plusInPlace(falseMask);
-                newPartial = broadcastedFalseMask.timesInPlace(elsPartial);
-            } else if (elsPartial == null) {
-                broadcastedTrueMask = DoubleTensor.zeros(thnPartial.getShape()).plusInPlace(trueMask);
-                newPartial = broadcastedTrueMask.timesInPlace(thnPartial);
-            } else {
-                broadcastedFalseMask = DoubleTensor.zeros(thnPartial.getShape()).plusInPlace(falseMask);
-                broadcastedTrueMask = DoubleTensor.zeros(thnPartial.getShape()).plusInPlace(trueMask);
+            mixedPartials.put(wrt, selectPartial(predicate, thnPartial, elsPartial));
+        }
 
-                newPartial = broadcastedTrueMask.timesInPlace(thnPartial)
-                    .plusInPlace(broadcastedFalseMask.timesInPlace(elsPartial));
-            }
+        return new PartialDerivatives(mixedPartials);
+    }
 
-            mixedPartials.put(wrt, newPartial);
+    /**
+     * Picks each element of the partial from the then or else partial depending on the predicate. The
+     * partials have the shape of the predicate followed by the wrt shape so each predicate element
+     * selects a contiguous block of the flattened partial. A missing partial is treated as zero.
+     */
+    private static DoubleTensor selectPartial(BooleanTensor predicate, DoubleTensor thnPartial, DoubleTensor elsPartial) {
+        int[] partialShape = thnPartial != null ? thnPartial.getShape() : elsPartial.getShape();
+        double[] thnValues = thnPartial != null ? thnPartial.asFlatDoubleArray() : null;
+        double[] elsValues = elsPartial != null ? elsPartial.asFlatDoubleArray() : null;
+
+        int partialLength = (int) TensorShape.getLength(partialShape);
+        int predicateLength = (int) predicate.getLength();
+        if (partialLength < predicateLength || partialLength % predicateLength != 0) {
+            throw new IllegalArgumentException(
+                "Cannot select partial of shape " + Arrays.toString(partialShape) + " with predicate of shape " + Arrays.toString(predicate.getShape())
+            );
         }
+        int blockLength = partialLength / predicateLength;
+        Tensor.FlattenedView<Boolean> predicateFlattened = predicate.getFlattenedView();
+
+        double[] result = new double[partialLength];
+        ParallelLoops.forEach(predicateLength, p -> {
+            double[] selected = predicateFlattened.get(p) ? thnValues : elsValues;
+            if (selected != null) {
+                System.arraycopy(selected, p * blockLength, result, p * blockLength, blockLength);
+            }
+        });
 
-        return new PartialDerivatives(mixedPartials);
+        return DoubleTensor.create(result, Arrays.copyOf(partialShape, partialShape.length));
     }
 
     private Map<Long, DoubleTensor> derivativeWithRespectTo;
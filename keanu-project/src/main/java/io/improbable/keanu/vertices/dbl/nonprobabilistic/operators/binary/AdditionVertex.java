@@ -21,10 +21,20 @@ public class AdditionVertex extends DoubleBinaryOpVertex {
         super(checkHasSingleNonScalarShapeOrAllScalar(left.getShape(), right.getShape()), left, right);
     }
 
+    /**
+     * Adds a scalar to a vertex
+     *
+     * @param left a vertex to add
+     * @param right a scalar to add
+     */
+    public AdditionVertex(DoubleVertex left, double right) {
+        super(left, right);
+    }
+
     @Override
     public DualNumber calculateDualNumber(Map<Vertex, DualNumber> dualNumbers) {
-        DualNumber leftDual = dualNumbers.get(left);
-        DualNumber rightDual = dualNumbers.get(right);
+        DualNumber leftDual = dualNumberOf(dualNumbers, left);
+        DualNumber rightDual = dualNumberOf(dualNumbers, right);
         return leftDual.plus(rightDual);
     }
 
@@ -21,10 +21,30 @@ public class DifferenceVertex extends DoubleBinaryOpVertex {
         super(checkHasSingleNonScalarShapeOrAllScalar(left.getShape(), right.getShape()), left, right);
     }
 
+    /**
+     * Subtracts a scalar from a vertex
+     *
+     * @param left the vertex that will be subtracted from
+     * @param right the scalar to subtract
+     */
+    public DifferenceVertex(DoubleVertex left, double right) {
+        super(left, right);
+    }
+
+    /**
+     * Subtracts a vertex from a scalar
+     *
+     * @param left the scalar that will be subtracted from
+     * @param right the vertex to subtract
+     */
+    public DifferenceVertex(double left, DoubleVertex right) {
+        super(left, right);
+    }
+
     @Override
     public DualNumber calculateDualNumber(Map<Vertex, DualNumber> dualNumbers) {
-        DualNumber leftDual = dualNumbers.get(left);
-        DualNumber rightDual = dualNumbers.get(right);
+        DualNumber leftDual = dualNumberOf(dualNumbers, left);
+        DualNumber rightDual = dualNumberOf(dualNumbers, right);
         return leftDual.minus(rightDual);
     }
 
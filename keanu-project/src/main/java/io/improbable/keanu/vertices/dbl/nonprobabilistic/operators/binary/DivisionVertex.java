@@ -20,6 +20,26 @@ public class DivisionVertex extends DoubleBinaryOpVertex {
         super(checkHasSingleNonScalarShapeOrAllScalar(left.getShape(), right.getShape()), left, right);
     }
 
+    /**
+     * Divides a vertex by a scalar
+     *
+     * @param left the vertex to be divided
+     * @param right the scalar to divide by
+     */
+    public DivisionVertex(DoubleVertex left, double right) {
+        super(left, right);
+    }
+
+    /**
+     * Divides a scalar by a vertex
+     *
+     * @param left the scalar to be divided
+     * @param right the vertex to divide by
+     */
+    public DivisionVertex(double left, DoubleVertex right) {
+        super(left, right);
+    }
+
     public DoubleVertex getDividend(){
         return super.getLeft();
     }
@@ -30,8 +50,8 @@ public class DivisionVertex extends DoubleBinaryOpVertex {
 
     @Override
     public DualNumber calculateDualNumber(Map<Vertex, DualNumber> dualNumbers) {
-        DualNumber leftDual = dualNumbers.get(left);
-        DualNumber rightDual = dualNumbers.get(right);
+        DualNumber leftDual = dualNumberOf(dualNumbers, left);
+        DualNumber rightDual = dualNumberOf(dualNumbers, right);
         return leftDual.divideBy(rightDual);
     }
 
@@ -2,9 +2,14 @@ package io.improbable.keanu.vertices.dbl.nonprobabilistic.operators.binary;
 
 
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.ConstantVertex;
+import io.improbable.keanu.vertices.Vertex;
 import io.improbable.keanu.vertices.dbl.DoubleVertex;
 import io.improbable.keanu.vertices.dbl.KeanuRandom;
 import io.improbable.keanu.vertices.dbl.nonprobabilistic.NonProbabilisticDouble;
+import io.improbable.keanu.vertices.dbl.nonprobabilistic.diff.DualNumber;
+
+import java.util.Map;
 
 public abstract class DoubleBinaryOpVertex extends NonProbabilisticDouble {
 
@@ -25,6 +30,31 @@ public abstract class DoubleBinaryOpVertex extends NonProbabilisticDouble {
         setValue(DoubleTensor.placeHolder(shape));
     }
 
+    /**
+     * A vertex that performs an operation on a vertex and an immediate scalar. The scalar is
+     * held in a shared constant that isn't a parent, so it adds no vertex or edge to the graph.
+     *
+     * @param left a vertex
+     * @param right a scalar
+     */
+    protected DoubleBinaryOpVertex(DoubleVertex left, double right) {
+        this.left = left;
+        this.right = ConstantVertex.shared(right);
+        setParents(left);
+        setValue(DoubleTensor.placeHolder(left.getShape()));
+    }
+
+    /**
+     * @param left a scalar
+     * @param right a vertex
+     */
+    protected DoubleBinaryOpVertex(double left, DoubleVertex right) {
+        this.left = ConstantVertex.shared(left);
+        this.right = right;
+        setParents(right);
+        setValue(DoubleTensor.placeHolder(right.getShape()));
+    }
+
     @Override
     public DoubleTensor sample(KeanuRandom random) {
         return op(left.sample(random), right.sample(random));
@@ -37,6 +67,14 @@ public abstract class DoubleBinaryOpVertex extends NonProbabilisticDouble {
 
     protected abstract DoubleTensor op(DoubleTensor left, DoubleTensor right);
 
+    /**
+     * @return the dual number of an operand, which is a constant for an immediate scalar
+     */
+    protected DualNumber dualNumberOf(Map<Vertex, DualNumber> dualNumbers, DoubleVertex operand) {
+        DualNumber dualNumber = dualNumbers.get(operand);
+        return dualNumber != null ? dualNumber : DualNumber.createConstant(operand.getValue());
+    }
+
     public DoubleVertex getLeft(){
         return left;
     }
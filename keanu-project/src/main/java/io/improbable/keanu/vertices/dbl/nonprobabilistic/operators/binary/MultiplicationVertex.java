@@ -21,10 +21,20 @@ public class MultiplicationVertex extends DoubleBinaryOpVertex {
         super(checkHasSingleNonScalarShapeOrAllScalar(left.getShape(), right.getShape()), left, right);
     }
 
+    /**
+     * Multiplies a vertex by a scalar
+     *
+     * @param left vertex to be multiplied
+     * @param right scalar to multiply by
+     */
+    public MultiplicationVertex(DoubleVertex left, double right) {
+        super(left, right);
+    }
+
     @Override
     public DualNumber calculateDualNumber(Map<Vertex, DualNumber> dualNumbers) {
-        DualNumber leftDual = dualNumbers.get(left);
-        DualNumber rightDual = dualNumbers.get(right);
+        DualNumber leftDual = dualNumberOf(dualNumbers, left);
+        DualNumber rightDual = dualNumberOf(dualNumbers, right);
         return leftDual.multiplyBy(rightDual);
     }
 
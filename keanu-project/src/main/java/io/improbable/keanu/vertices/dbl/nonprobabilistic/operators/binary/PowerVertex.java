@@ -21,6 +21,16 @@ public class PowerVertex extends DoubleBinaryOpVertex {
         super(checkHasSingleNonScalarShapeOrAllScalar(left.getShape(), right.getShape()), left, right);
     }
 
+    /**
+     * Raises a vertex to the power of a scalar
+     *
+     * @param left the base vertex
+     * @param right the exponent
+     */
+    public PowerVertex(DoubleVertex left, double right) {
+        super(left, right);
+    }
+
     @Override
     protected DoubleTensor op(DoubleTensor left, DoubleTensor right) {
         return left.pow(right);
@@ -28,8 +38,8 @@ public class PowerVertex extends DoubleBinaryOpVertex {
 
     @Override
     protected DualNumber calculateDualNumber(Map<Vertex, DualNumber> dualNumbers) {
-        DualNumber leftDual = dualNumbers.get(left);
-        DualNumber rightDual = dualNumbers.get(right);
+        DualNumber leftDual = dualNumberOf(dualNumbers, left);
+        DualNumber rightDual = dualNumberOf(dualNumbers, right);
         return leftDual.pow(rightDual);
     }
 
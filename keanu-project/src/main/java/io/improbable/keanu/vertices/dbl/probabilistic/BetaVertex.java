@@ -24,6 +24,7 @@ public class BetaVertex extends ProbabilisticDouble {
 
     private final DoubleVertex alpha;
     private final DoubleVertex beta;
+    private final DistributionCache<ContinuousDistribution> distributionCache = new DistributionCache<>();
 
     /**
      * One alpha or beta or both that match a proposed tensor shape of Beta.
@@ -44,8 +45,14 @@ public class BetaVertex extends ProbabilisticDouble {
     }
 
     ContinuousDistribution distribution() {
-        return Beta.withParameters(alpha.getValue(), beta.getValue(), DoubleTensor.scalar(0.), DoubleTensor.scalar(1.));
+        DoubleTensor alphaValues = alpha.getValue();
+        DoubleTensor betaValues = beta.getValue();
+        return distributionCache.get(
+            () -> Beta.withParameters(alphaValues, betaValues, DoubleTensor.scalar(0.), DoubleTensor.scalar(1.)),
+            alphaValues, betaValues
+        );
     }
+
     /**
      * One to one constructor for mapping some tensorShape of alpha and beta to
      * a matching tensorShaped Beta.
@@ -81,6 +88,14 @@ public class BetaVertex extends ProbabilisticDouble {
         this(tensorShape, new ConstantDoubleVertex(alpha), new ConstantDoubleVertex(beta));
     }
 
+    public DoubleVertex getAlpha() {
+        return alpha;
+    }
+
+    public DoubleVertex getBeta() {
+        return beta;
+    }
+
     @Override
     public double logPdf(DoubleTensor value) {
         DoubleTensor logPdfs = distribution().logProb(value);
@@ -0,0 +1,55 @@
+package io.improbable.keanu.vertices.dbl.probabilistic;
+
+import java.util.function.Supplier;
+
+/**
+ * Keeps the distribution made from a vertex's parent values so that terms that only depend on the
+ * parameters, such as normalisers, are worked out once and reused until a parent value changes.
+ * <p>
+ * Vertex values are replaced rather than changed in place, so parent values are compared by identity.
+ * The distribution and its parameters are swapped in together, so states evaluated on different
+ * threads (see {@link io.improbable.keanu.vertices.ValueStore}) never see one without the other.
+ *
+ * @param <D> the type of distribution
+ */
+final class DistributionCache<D> {
+
+    private volatile Entry<D> entry;
+
+    /**
+     * @param create     makes a new distribution from the current parameters
+     * @param parameters the current parent values
+     * @return the cached distribution if the parameters are the same objects as last time, otherwise a new one
+     */
+    D get(Supplier<D> create, Object... parameters) {
+        Entry<D> cached = entry;
+        if (cached == null || !cached.isFor(parameters)) {
+            cached = new Entry<>(parameters, create.get());
+            entry = cached;
+        }
+        return cached.distribution;
+    }
+
+    private static final class Entry<D> {
+
+        private final Object[] parameters;
+        private final D distribution;
+
+        Entry(Object[] parameters, D distribution) {
+            this.parameters = parameters;
+            this.distribution = distribution;
+        }
+
+        boolean isFor(Object[] parameters) {
+            if (this.parameters.length != parameters.length) {
+                return false;
+            }
+            for (int i = 0; i < parameters.length; i++) {
+                if (this.parameters[i] != parameters[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import static io.improbable.keanu.tensor.TensorShapeValidation.checkTensorsMatch
 
 import java.util.Map;
 
+import io.improbable.keanu.distributions.ContinuousDistribution;
 import io.improbable.keanu.distributions.continuous.Gamma;
 import io.improbable.keanu.distributions.dual.Diffs;
 import io.improbable.keanu.tensor.TensorShape;
@@ -25,6 +26,7 @@ public class GammaVertex extends ProbabilisticDouble {
     private final DoubleVertex location;
     private final DoubleVertex theta;
     private final DoubleVertex k;
+    private final DistributionCache<ContinuousDistribution> distributionCache = new DistributionCache<>();
 
     /**
      * One location, theta or k or all three driving an arbitrarily shaped tensor of Gamma
@@ -86,19 +88,37 @@ public class GammaVertex extends ProbabilisticDouble {
         this(new ConstantDoubleVertex(location), new ConstantDoubleVertex(theta), new ConstantDoubleVertex(k));
     }
 
-    @Override
-    public double logPdf(DoubleTensor value) {
+    public DoubleVertex getLocation() {
+        return location;
+    }
+
+    public DoubleVertex getTheta() {
+        return theta;
+    }
+
+    public DoubleVertex getK() {
+        return k;
+    }
+
+    ContinuousDistribution distribution() {
         DoubleTensor locationValues = location.getValue();
         DoubleTensor thetaValues = theta.getValue();
         DoubleTensor kValues = k.getValue();
+        return distributionCache.get(
+            () -> Gamma.withParameters(locationValues, thetaValues, kValues),
+            locationValues, thetaValues, kValues
+        );
+    }
 
-        DoubleTensor logPdfs = Gamma.withParameters(locationValues, thetaValues, kValues).logProb(value);
+    @Override
+    public double logPdf(DoubleTensor value) {
+        DoubleTensor logPdfs = distribution().logProb(value);
         return logPdfs.sum();
     }
 
     @Override
     public Map<Long, DoubleTensor> dLogPdf(DoubleTensor value) {
-        Diffs dlnP = Gamma.withParameters(location.getValue(), theta.getValue(), k.getValue()).dLogProb(value);
+        Diffs dlnP = distribution().dLogProb(value);
 
         return convertDualNumbersToDiff(dlnP.get(A).getValue(), dlnP.get(THETA).getValue(), dlnP.get(K).getValue(), dlnP.get(X).getValue());
     }
@@ -125,7 +145,7 @@ public class GammaVertex extends ProbabilisticDouble {
 
     @Override
     public DoubleTensor sample(KeanuRandom random) {
-        return Gamma.withParameters(location.getValue(), theta.getValue(), k.getValue()).sample(getShape(), random);
+        return distribution().sample(getShape(), random);
     }
 
 }
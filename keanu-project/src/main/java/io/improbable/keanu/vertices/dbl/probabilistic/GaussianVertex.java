@@ -8,6 +8,7 @@ import static io.improbable.keanu.tensor.TensorShapeValidation.checkTensorsMatch
 
 import java.util.Map;
 
+import io.improbable.keanu.distributions.ContinuousDistribution;
 import io.improbable.keanu.distributions.continuous.Gaussian;
 import io.improbable.keanu.distributions.dual.Diffs;
 import io.improbable.keanu.tensor.TensorShape;
@@ -23,6 +24,7 @@ public class GaussianVertex extends ProbabilisticDouble {
 
     private final DoubleVertex mu;
     private final DoubleVertex sigma;
+    private final DistributionCache<ContinuousDistribution> distributionCache = new DistributionCache<>();
 
     /**
      * One mu or sigma or both that match a proposed tensor shape of Gaussian
@@ -79,20 +81,21 @@ public class GaussianVertex extends ProbabilisticDouble {
         return sigma;
     }
 
-    @Override
-    public double logPdf(DoubleTensor value) {
-
+    ContinuousDistribution distribution() {
         DoubleTensor muValues = mu.getValue();
         DoubleTensor sigmaValues = sigma.getValue();
+        return distributionCache.get(() -> Gaussian.withParameters(muValues, sigmaValues), muValues, sigmaValues);
+    }
 
-        DoubleTensor logPdfs = Gaussian.withParameters(muValues, sigmaValues).logProb(value);
-
+    @Override
+    public double logPdf(DoubleTensor value) {
+        DoubleTensor logPdfs = distribution().logProb(value);
         return logPdfs.sum();
     }
 
     @Override
     public Map<Long, DoubleTensor> dLogPdf(DoubleTensor value) {
-        Diffs dlnP = Gaussian.withParameters(mu.getValue(), sigma.getValue()).dLogProb(value);
+        Diffs dlnP = distribution().dLogProb(value);
         return convertDualNumbersToDiff(dlnP.get(MU).getValue(), dlnP.get(SIGMA).getValue(), dlnP.get(X).getValue());
     }
 
@@ -117,7 +120,7 @@ public class GaussianVertex extends ProbabilisticDouble {
 
     @Override
     public DoubleTensor sample(KeanuRandom random) {
-        return Gaussian.withParameters(mu.getValue(), sigma.getValue()).sample(getShape(), random);
+        return distribution().sample(getShape(), random);
     }
 
 }
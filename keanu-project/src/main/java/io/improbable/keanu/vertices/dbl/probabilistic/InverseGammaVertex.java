@@ -78,6 +78,14 @@ public class InverseGammaVertex extends ProbabilisticDouble {
         this(tensorShape, new ConstantDoubleVertex(alpha), new ConstantDoubleVertex(beta));
     }
 
+    public DoubleVertex getAlpha() {
+        return alpha;
+    }
+
+    public DoubleVertex getBeta() {
+        return beta;
+    }
+
     @Override
     public double logPdf(DoubleTensor value) {
         DoubleTensor alphaValues = alpha.getValue();
@@ -6,10 +6,12 @@ import static io.improbable.keanu.tensor.TensorShapeValidation.checkTensorsMatch
 import java.util.HashMap;
 import java.util.Map;
 
+import io.improbable.keanu.distributions.ContinuousDistribution;
 import io.improbable.keanu.distributions.continuous.StudentT;
 import io.improbable.keanu.distributions.dual.Diffs;
 import io.improbable.keanu.tensor.Tensor;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.tensor.intgr.IntegerTensor;
 import io.improbable.keanu.vertices.dbl.KeanuRandom;
 import io.improbable.keanu.vertices.intgr.IntegerVertex;
 import io.improbable.keanu.vertices.intgr.nonprobabilistic.ConstantIntegerVertex;
@@ -17,6 +19,7 @@ import io.improbable.keanu.vertices.intgr.nonprobabilistic.ConstantIntegerVertex
 public class StudentTVertex extends ProbabilisticDouble {
 
     private final IntegerVertex v;
+    private final DistributionCache<ContinuousDistribution> distributionCache = new DistributionCache<>();
 
     /**
      * One v that must match a proposed tensor shape of StudentT
@@ -49,14 +52,19 @@ public class StudentTVertex extends ProbabilisticDouble {
         return v;
     }
 
+    ContinuousDistribution distribution() {
+        IntegerTensor vValues = v.getValue();
+        return distributionCache.get(() -> StudentT.withParameters(vValues), vValues);
+    }
+
     @Override
     public double logPdf(DoubleTensor t) {
-        return StudentT.withParameters(v.getValue()).logProb(t).sum();
+        return distribution().logProb(t).sum();
     }
 
     @Override
     public Map<Long, DoubleTensor> dLogPdf(DoubleTensor t) {
-        Diffs diff = StudentT.withParameters(v.getValue()).dLogProb(t);
+        Diffs diff = distribution().dLogProb(t);
         Map<Long, DoubleTensor> m = new HashMap<>();
         m.put(getId(), diff.get(T).getValue());
         return m;
@@ -64,6 +72,6 @@ public class StudentTVertex extends ProbabilisticDouble {
 
     @Override
     public DoubleTensor sample(KeanuRandom random) {
-        return StudentT.withParameters(v.getValue()).sample(getShape(), random);
+        return distribution().sample(getShape(), random);
     }
 }
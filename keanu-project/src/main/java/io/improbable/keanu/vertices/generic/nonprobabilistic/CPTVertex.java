@@ -7,20 +7,41 @@ import io.improbable.keanu.vertices.dbl.KeanuRandom;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
-
+import java.util.function.Predicate;
+
+/**
+ * Looks up a result vertex from the values of some boolean inputs. Input i is bit i of an index into
+ * a table of results, so evaluating the vertex takes one array read and allocates nothing. Tables
+ * with more than {@value #MAX_DENSE_INPUTS} inputs, or with many more slots than conditions, would
+ * mostly hold the default result, so they aren't laid out in full and are looked up by
+ * {@link Condition} instead.
+ */
 public class CPTVertex<OUT extends Tensor> extends NonProbabilistic<OUT> {
 
+    static final int MAX_DENSE_INPUTS = 16;
+    static final int MAX_DENSE_SLOTS_PER_RESULT = 16;
+
     private final List<Vertex<? extends Tensor<Boolean>>> inputs;
     private final Map<Condition, ? extends Vertex<OUT>> conditions;
     private final Vertex<OUT> defaultResult;
+    private final Vertex<OUT>[] resultsByIndex;
 
     public CPTVertex(List<Vertex<? extends Tensor<Boolean>>> inputs,
                      Map<Condition, ? extends Vertex<OUT>> conditions,
                      Vertex<OUT> defaultResult) {
+        for (Condition condition : conditions.keySet()) {
+            if (condition.conditions.length != inputs.size()) {
+                throw new IllegalArgumentException(
+                    "Condition " + Arrays.toString(condition.conditions) + " has " + condition.conditions.length +
+                        " values but there are " + inputs.size() + " inputs"
+                );
+            }
+        }
+
         this.conditions = conditions;
         this.inputs = inputs;
         this.defaultResult = defaultResult;
+        this.resultsByIndex = isDense(inputs.size(), conditions.size()) ? toDenseTable(inputs.size(), conditions, defaultResult) : null;
         addParents(inputs);
         addParents(conditions.values());
         addParent(defaultResult);
@@ -28,29 +49,63 @@ public class CPTVertex<OUT extends Tensor> extends NonProbabilistic<OUT> {
 
     @Override
     public OUT sample(KeanuRandom random) {
-        final Condition condition = getCondition((vertex) -> vertex.sample(random).scalar());
-        Vertex<OUT> vertex = conditions.get(condition);
-        return vertex == null ? defaultResult.sample(random) : vertex.sample(random);
+        return getResult(vertex -> vertex.sample(random).scalar()).sample(random);
     }
 
     @Override
     public OUT getDerivedValue() {
-        final Condition condition = getCondition(v -> v.getValue().scalar());
-        Vertex<OUT> vertex = conditions.get(condition);
-        return vertex == null ? defaultResult.getValue() : vertex.getValue();
+        return getResult(vertex -> vertex.getValue().scalar()).getValue();
+    }
+
+    private Vertex<OUT> getResult(Predicate<Vertex<? extends Tensor<Boolean>>> isTrue) {
+        if (resultsByIndex == null) {
+            Vertex<OUT> vertex = conditions.get(getCondition(isTrue));
+            return vertex == null ? defaultResult : vertex;
+        }
+
+        int index = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            if (isTrue.test(inputs.get(i))) {
+                index |= 1 << i;
+            }
+        }
+        return resultsByIndex[index];
     }
 
-    private Condition getCondition(Function<Vertex<? extends Tensor<Boolean>>, Boolean> mapper) {
+    private Condition getCondition(Predicate<Vertex<? extends Tensor<Boolean>>> isTrue) {
 
         Boolean[] condition = new Boolean[inputs.size()];
 
         for (int i = 0; i < condition.length; i++) {
-            condition[i] = mapper.apply(inputs.get(i));
+            condition[i] = isTrue.test(inputs.get(i));
         }
 
         return new Condition(condition);
     }
 
+    /**
+     * @return true if a table of every combination of inputs is small, and small next to the number of results it holds
+     */
+    static boolean isDense(int inputCount, int conditionCount) {
+        return inputCount <= MAX_DENSE_INPUTS && (1 << inputCount) <= MAX_DENSE_SLOTS_PER_RESULT * (conditionCount + 1L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <OUT extends Tensor> Vertex<OUT>[] toDenseTable(int inputCount,
+                                                                   Map<Condition, ? extends Vertex<OUT>> conditions,
+                                                                   Vertex<OUT> defaultResult) {
+        Vertex<OUT>[] table = new Vertex[1 << inputCount];
+        Arrays.fill(table, defaultResult);
+
+        for (Map.Entry<Condition, ? extends Vertex<OUT>> entry : conditions.entrySet()) {
+            int index = entry.getKey().toIndex();
+            if (index >= 0) {
+                table[index] = entry.getValue();
+            }
+        }
+        return table;
+    }
+
     public static class Condition {
         private final Boolean[] conditions;
 
@@ -58,6 +113,23 @@ public class CPTVertex<OUT extends Tensor> extends NonProbabilistic<OUT> {
             this.conditions = condition;
         }
 
+        /**
+         * @return the table index with bit i set when condition i is true, or -1 if any condition
+         * is null, which no input value can match
+         */
+        int toIndex() {
+            int index = 0;
+            for (int i = 0; i < conditions.length; i++) {
+                if (conditions[i] == null) {
+                    return -1;
+                }
+                if (conditions[i]) {
+                    index |= 1 << i;
+                }
+            }
+            return index;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
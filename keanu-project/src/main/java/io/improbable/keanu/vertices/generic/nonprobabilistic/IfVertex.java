@@ -2,10 +2,14 @@ package io.improbable.keanu.vertices.generic.nonprobabilistic;
 
 import io.improbable.keanu.tensor.Tensor;
 import io.improbable.keanu.tensor.bool.BooleanTensor;
+import io.improbable.keanu.vertices.BranchingVertex;
 import io.improbable.keanu.vertices.Vertex;
 import io.improbable.keanu.vertices.dbl.KeanuRandom;
 
-public class IfVertex<T> extends NonProbabilistic<Tensor<T>> {
+import java.util.Set;
+import java.util.function.Supplier;
+
+public class IfVertex<T> extends NonProbabilistic<Tensor<T>> implements BranchingVertex {
 
     private final Vertex<? extends BooleanTensor> predicate;
     private final Vertex<? extends Tensor<T>> thn;
@@ -25,15 +29,35 @@ public class IfVertex<T> extends NonProbabilistic<Tensor<T>> {
 
     @Override
     public Tensor<T> sample(KeanuRandom random) {
-        return op(predicate.sample(random), thn.sample(random), els.sample(random));
+        return op(predicate.sample(random), () -> thn.sample(random), () -> els.sample(random));
     }
 
     @Override
     public Tensor<T> getDerivedValue() {
-        return op(predicate.getValue(), thn.getValue(), els.getValue());
+        return op(predicate.getValue(), thn::getValue, els::getValue);
+    }
+
+    /**
+     * Only gets the value of the branch that's picked when the predicate is all true or all false.
+     */
+    protected Tensor<T> op(BooleanTensor predicate, Supplier<? extends Tensor<T>> thn, Supplier<? extends Tensor<T>> els) {
+        if (predicate.allTrue()) {
+            Tensor<T> thnValue = thn.get();
+            return predicate.setIf(thnValue, thnValue);
+        } else if (predicate.allFalse()) {
+            Tensor<T> elsValue = els.get();
+            return predicate.setIf(elsValue, elsValue);
+        }
+        return predicate.setIf(thn.get(), els.get());
     }
 
-    protected Tensor<T> op(BooleanTensor predicate, Tensor<T> thn, Tensor<T> els) {
-        return predicate.setIf(thn, els);
+    @Override
+    public Vertex<?> getSelectingParent() {
+        return predicate;
+    }
+
+    @Override
+    public Set<Vertex> getSelectedParents() {
+        return BranchingVertex.selectedIfParents(predicate, thn, els);
     }
 }
@@ -1,11 +1,16 @@
 package io.improbable.keanu.vertices.generic.nonprobabilistic;
 
 import io.improbable.keanu.tensor.TensorShape;
+import io.improbable.keanu.vertices.BranchingVertex;
 import io.improbable.keanu.vertices.Vertex;
 import io.improbable.keanu.vertices.dbl.KeanuRandom;
 import io.improbable.keanu.vertices.intgr.IntegerVertex;
 
-public class MultiplexerVertex<T> extends NonProbabilistic<T> {
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class MultiplexerVertex<T> extends NonProbabilistic<T> implements BranchingVertex {
 
     private final IntegerVertex selectorControlVertex;
     private final Vertex<T>[] selectVertices;
@@ -29,12 +34,22 @@ public class MultiplexerVertex<T> extends NonProbabilistic<T> {
 
     @Override
     public T getDerivedValue() {
-        Vertex<T> selector = getSelector();
-        return selector.getValue();
+        Vertex<T> selected = getSelected();
+        return selected.getValue();
     }
 
-    private Vertex<T> getSelector() {
+    private Vertex<T> getSelected() {
         int optionGroupIdx = selectorControlVertex.getValue().scalar();
         return selectVertices[optionGroupIdx];
     }
-}
\ No newline at end of file
+
+    @Override
+    public Vertex<?> getSelectingParent() {
+        return selectorControlVertex;
+    }
+
+    @Override
+    public Set<Vertex> getSelectedParents() {
+        return new HashSet<>(Arrays.asList(selectorControlVertex, getSelected()));
+    }
+}
@@ -2,16 +2,29 @@ package io.improbable.keanu.vertices.generic.probabilistic.discrete;
 
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
 import io.improbable.keanu.vertices.ConstantVertex;
+import io.improbable.keanu.vertices.ValueStamp;
 import io.improbable.keanu.vertices.dbl.DoubleVertex;
 import io.improbable.keanu.vertices.dbl.KeanuRandom;
 import io.improbable.keanu.vertices.generic.probabilistic.Probabilistic;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class SelectVertex<T> extends Probabilistic<T> {
 
     private final Map<T, DoubleVertex> selectableValues;
+    private final List<T> outcomes;
+    private final DoubleVertex[] probabilities;
+    private final Map<T, Integer> outcomeIndex;
+    private final ValueStamp probabilitiesStamp;
+
+    /**
+     * The sampling and log prob tables, which are rebuilt when any of the probability parents has a new value.
+     */
+    private volatile Tables tables;
 
     public static <T> SelectVertex<T> of(Map<T, Double> selectableValues) {
         return new SelectVertex<>(defensiveCopy(selectableValues));
@@ -27,47 +40,41 @@ public class SelectVertex<T> extends Probabilistic<T> {
 
     public SelectVertex(Map<T, DoubleVertex> selectableValues) {
         this.selectableValues = selectableValues;
+        this.outcomes = new ArrayList<>(selectableValues.keySet());
+        this.probabilities = selectableValues.values().toArray(new DoubleVertex[0]);
+        this.outcomeIndex = new HashMap<>();
+        for (int i = 0; i < outcomes.size(); i++) {
+            outcomeIndex.put(outcomes.get(i), i);
+        }
         setParents(this.selectableValues.values());
+        this.probabilitiesStamp = new ValueStamp(this.selectableValues.values());
     }
 
     public Map<T, DoubleVertex> getSelectableValues() {
         return selectableValues;
     }
 
+    /**
+     * Samples in constant time from a Walker alias table. A single uniform picks a column and, from
+     * its fractional part, either the column's own outcome or its alias.
+     */
     @Override
     public T sample(KeanuRandom random) {
-        double sumOfProbabilities = getSumOfProbabilities();
-        double p = random.nextDouble();
-        double sum = 0;
+        Tables current = tablesForCurrentProbabilities();
 
-        if (sumOfProbabilities == 0.0) {
-            throw new IllegalArgumentException("Cannot sample from a zero probability setup.");
-        }
+        double scaled = random.nextDouble() * outcomes.size();
+        int column = Math.min((int) scaled, outcomes.size() - 1);
+        boolean keep = scaled - column < current.aliasThresholds[column];
 
-        T value = null;
-        for (Map.Entry<T, DoubleVertex> entry : selectableValues.entrySet()) {
-            sum += entry.getValue().getValue().scalar() / sumOfProbabilities;
-            if (p < sum) {
-                value = entry.getKey();
-                break;
-            }
-        }
-        if (value == null) {
-            T[] values = (T[]) selectableValues.keySet().toArray();
-            value = values[values.length - 1];
-        }
-
-        return value;
+        return outcomes.get(keep ? column : current.aliases[column]);
     }
 
     @Override
     public double logProb(T value) {
-        double sumOfProbabilities = getSumOfProbabilities();
-        if (sumOfProbabilities == 0.0) {
-            throw new IllegalArgumentException("Cannot sample from a zero probability setup.");
-        }
-        final double probability = selectableValues.get(value).getValue().scalar() / sumOfProbabilities;
-        return Math.log(probability);
+        Tables current = tablesForCurrentProbabilities();
+
+        Integer index = outcomeIndex.get(value);
+        return index == null ? Double.NEGATIVE_INFINITY : current.logProbabilities[index];
     }
 
     @Override
@@ -75,11 +82,101 @@ public class SelectVertex<T> extends Probabilistic<T> {
         throw new UnsupportedOperationException();
     }
 
-    private double getSumOfProbabilities() {
-        double sumP = 0.0;
-        for (DoubleVertex p : selectableValues.values()) {
-            sumP += p.getValue().scalar();
+    /**
+     * The stamp is bumped whenever a probability parent's value is replaced, so checking the tables
+     * doesn't depend on the number of outcomes.
+     */
+    private Tables tablesForCurrentProbabilities() {
+        Tables cached = tables;
+        if (cached != null && probabilitiesStamp.isUnchangedSince(cached.mark)) {
+            return cached;
+        }
+
+        ValueStamp.Mark mark = probabilitiesStamp.mark();
+        double[] weights = new double[probabilities.length];
+        double sumOfProbabilities = 0.0;
+        for (int i = 0; i < probabilities.length; i++) {
+            weights[i] = probabilities[i].getValue().scalar();
+            sumOfProbabilities += weights[i];
+        }
+
+        if (sumOfProbabilities == 0.0) {
+            throw new IllegalArgumentException("Cannot sample from a zero probability setup.");
+        }
+
+        Tables built = new Tables(mark, weights.length);
+        for (int i = 0; i < weights.length; i++) {
+            built.logProbabilities[i] = Math.log(weights[i] / sumOfProbabilities);
+        }
+
+        buildAliasTable(built, weights, sumOfProbabilities);
+        tables = built;
+        return built;
+    }
+
+    /**
+     * Vose's method. Columns with less than the average weight are topped up from one column with
+     * more, which becomes their alias, until every column holds exactly the average.
+     */
+    private static void buildAliasTable(Tables tables, double[] weights, double sumOfProbabilities) {
+        int n = weights.length;
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / sumOfProbabilities;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        double[] aliasThresholds = tables.aliasThresholds;
+        int[] aliases = tables.aliases;
+
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+
+            aliasThresholds[less] = scaled[less];
+            aliases[less] = more;
+
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+
+        while (largeCount > 0) {
+            aliasThresholds[large[--largeCount]] = 1.0;
+        }
+        while (smallCount > 0) {
+            aliasThresholds[small[--smallCount]] = 1.0;
+        }
+    }
+
+    /**
+     * Tables built from one set of probability values. They're swapped in whole so that states
+     * evaluated on different threads never see a mix of old and new tables.
+     */
+    private static final class Tables {
+
+        private final ValueStamp.Mark mark;
+        private final double[] logProbabilities;
+        private final double[] aliasThresholds;
+        private final int[] aliases;
+
+        Tables(ValueStamp.Mark mark, int outcomeCount) {
+            this.mark = mark;
+            this.logProbabilities = new double[outcomeCount];
+            this.aliasThresholds = new double[outcomeCount];
+            this.aliases = new int[outcomeCount];
         }
-        return sumP;
     }
 }
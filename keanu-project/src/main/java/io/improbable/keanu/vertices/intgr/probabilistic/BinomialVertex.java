@@ -55,9 +55,17 @@ public class BinomialVertex extends ProbabilisticInteger {
         this(ConstantVertex.of(p), ConstantVertex.of(n));
     }
 
+    public DoubleVertex getP() {
+        return p;
+    }
+
+    public IntegerVertex getN() {
+        return n;
+    }
+
     @Override
     public double logPmf(IntegerTensor kTensor) {
-        return Binomial.withParameters(p.getValue(), n.getValue()).logProb(kTensor).sum();
+        return Binomial.withParameters(p.getValue(), n.getValue()).logProbSum(kTensor);
     }
 
     @Override
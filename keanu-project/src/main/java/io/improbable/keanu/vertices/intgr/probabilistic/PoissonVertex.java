@@ -64,7 +64,7 @@ public class PoissonVertex extends ProbabilisticInteger {
 
     @Override
     public double logPmf(IntegerTensor value) {
-        return Poisson.withParameters(mu.getValue()).logProb(value).sum();
+        return Poisson.withParameters(mu.getValue()).logProbSum(value);
     }
 
     @Override
@@ -1,5 +1,6 @@
 package io.improbable.keanu.vertices.intgr.probabilistic;
 
+import io.improbable.keanu.tensor.ParallelLoops;
 import io.improbable.keanu.tensor.Tensor;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
 import io.improbable.keanu.tensor.intgr.IntegerTensor;
@@ -10,6 +11,7 @@ import io.improbable.keanu.vertices.intgr.nonprobabilistic.ConstantIntegerVertex
 
 import java.util.Map;
 
+import static io.improbable.keanu.tensor.ScalarBroadcast.strideOf;
 import static io.improbable.keanu.tensor.TensorShapeValidation.checkHasSingleNonScalarShapeOrAllScalar;
 import static io.improbable.keanu.tensor.TensorShapeValidation.checkTensorsMatchNonScalarShapeOrAreScalar;
 
@@ -75,16 +77,38 @@ public class UniformIntVertex extends ProbabilisticInteger {
 
     @Override
     public double logPmf(IntegerTensor value) {
+        final int[] values = value.asFlatIntegerArray();
+        final int[] minValues = min.getValue().asFlatIntegerArray();
+        final int[] maxValues = max.getValue().asFlatIntegerArray();
+        final int length = Math.max(values.length, Math.max(minValues.length, maxValues.length));
+
+        if (minValues.length == 1 && maxValues.length == 1) {
+            final int minBound = minValues[0];
+            final int maxBound = maxValues[0];
+            for (int v : values) {
+                if (v < minBound || v >= maxBound) {
+                    return Double.NEGATIVE_INFINITY;
+                }
+            }
+            return -length * logOfRange(minBound, maxBound);
+        }
+
+        final int valueStride = strideOf(values);
+        final int minStride = strideOf(minValues);
+        final int maxStride = strideOf(maxValues);
+        return ParallelLoops.sum(length, i -> {
+            int v = values[i * valueStride];
+            int minBound = minValues[i * minStride];
+            int maxBound = maxValues[i * maxStride];
+            return v < minBound || v >= maxBound ? Double.NEGATIVE_INFINITY : -logOfRange(minBound, maxBound);
+        });
+    }
 
-        DoubleTensor maxBound = max.getValue().toDouble();
-        DoubleTensor minBound = min.getValue().toDouble();
-        DoubleTensor x = value.toDouble();
-
-        DoubleTensor logOfWithinBounds = maxBound.minus(minBound).logInPlace().unaryMinusInPlace();
-        logOfWithinBounds = logOfWithinBounds.setWithMaskInPlace(x.getGreaterThanMask(maxBound), Double.NEGATIVE_INFINITY);
-        logOfWithinBounds = logOfWithinBounds.setWithMaskInPlace(x.getLessThanOrEqualToMask(minBound), Double.NEGATIVE_INFINITY);
-
-        return logOfWithinBounds.sum();
+    /**
+     * The range is worked out as a double as it can overflow an int when using the full int range
+     */
+    private static double logOfRange(int minBound, int maxBound) {
+        return Math.log((double) maxBound - minBound);
     }
 
     @Override
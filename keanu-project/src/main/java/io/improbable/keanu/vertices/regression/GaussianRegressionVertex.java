@@ -0,0 +1,291 @@
+package io.improbable.keanu.vertices.regression;
+
+import io.improbable.keanu.tensor.ParallelLoops;
+import io.improbable.keanu.tensor.TensorShape;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import io.improbable.keanu.vertices.dbl.nonprobabilistic.ConstantDoubleVertex;
+import io.improbable.keanu.vertices.dbl.nonprobabilistic.diff.PartialDerivatives;
+import io.improbable.keanu.vertices.dbl.probabilistic.ProbabilisticDouble;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static io.improbable.keanu.distributions.continuous.Gaussian.LN_SQRT_2PI;
+
+/**
+ * A linear regression likelihood, y ~ Gaussian(Xw + b, sigma), for a column of N observations.
+ * <p>
+ * This gives the same log prob and gradient as building the model from a matrix multiply, an
+ * addition and a GaussianVertex, but works them out in one pass over the data. If the design
+ * matrix and the observations are both fixed, the sufficient statistics X^TX, X^Ty and y^Ty are
+ * kept, centred on their means, so that later evaluations don't depend on the number of observations.
+ */
+public class GaussianRegressionVertex extends ProbabilisticDouble {
+
+    private final LinearPredictor predictor;
+    private final DoubleVertex sigma;
+    private volatile SufficientStatistics statistics;
+
+    /**
+     * @param design    the N by P design matrix
+     * @param weights   the P by 1 weights
+     * @param intercept the scalar intercept
+     * @param sigma     the scalar standard deviation of the noise
+     */
+    public GaussianRegressionVertex(DoubleVertex design, DoubleVertex weights, DoubleVertex intercept, DoubleVertex sigma) {
+
+        if (!TensorShape.isScalar(sigma.getShape())) {
+            throw new IllegalArgumentException("Sigma must be scalar but has shape " + Arrays.toString(sigma.getShape()));
+        }
+
+        this.predictor = new LinearPredictor(design, weights, intercept);
+        this.sigma = sigma;
+        setParents(design, weights, intercept, sigma);
+        setValue(DoubleTensor.placeHolder(predictor.getResponseShape()));
+    }
+
+    public GaussianRegressionVertex(DoubleVertex design, DoubleVertex weights, DoubleVertex intercept, double sigma) {
+        this(design, weights, intercept, new ConstantDoubleVertex(sigma));
+    }
+
+    public GaussianRegressionVertex(DoubleVertex design, DoubleVertex weights, double sigma) {
+        this(design, weights, new ConstantDoubleVertex(0.0), new ConstantDoubleVertex(sigma));
+    }
+
+    public DoubleVertex getDesign() {
+        return predictor.getDesign();
+    }
+
+    public DoubleVertex getWeights() {
+        return predictor.getWeights();
+    }
+
+    public DoubleVertex getIntercept() {
+        return predictor.getIntercept();
+    }
+
+    public DoubleVertex getSigma() {
+        return sigma;
+    }
+
+    @Override
+    public double logPdf(DoubleTensor value) {
+        double sigmaValue = sigma.getValue().scalar();
+        int n = predictor.getObservationCount();
+
+        SufficientStatistics stats = statisticsFor(value);
+        double residualSumOfSquares = stats == null ?
+            residualSumOfSquares(value.asFlatDoubleArray(), predictor.eta()) :
+            stats.residualSumOfSquares(predictor);
+
+        return -n * (Math.log(sigmaValue) + LN_SQRT_2PI) - residualSumOfSquares / (2 * sigmaValue * sigmaValue);
+    }
+
+    @Override
+    public Map<Long, DoubleTensor> dLogPdf(DoubleTensor value) {
+        double sigmaValue = sigma.getValue().scalar();
+        double variance = sigmaValue * sigmaValue;
+        int n = predictor.getObservationCount();
+
+        PartialDerivatives dLogPdInputs;
+        double residualSumOfSquares;
+        double[] dLogPdEta = null;
+
+        SufficientStatistics stats = statisticsFor(value);
+        if (stats == null) {
+            final double[] y = value.asFlatDoubleArray();
+            final double[] eta = predictor.eta();
+            residualSumOfSquares = residualSumOfSquares(y, eta);
+
+            final double[] dLogPdEtaValues = new double[n];
+            ParallelLoops.forEach(n, i -> dLogPdEtaValues[i] = (y[i] - eta[i]) / variance);
+
+            dLogPdEta = dLogPdEtaValues;
+            dLogPdInputs = predictor.dLogP(dLogPdEta);
+        } else {
+            residualSumOfSquares = stats.residualSumOfSquares(predictor);
+            dLogPdInputs = predictor.dLogP(
+                stats.dResidualDotDesign(predictor).divInPlace(variance),
+                stats.dResidualSum(predictor) / variance
+            );
+        }
+
+        double dLogPdSigma = -n / sigmaValue + residualSumOfSquares / (variance * sigmaValue);
+        dLogPdInputs = dLogPdInputs.add(LinearPredictor.chain(
+            sigma.getDualNumber().getPartialDerivatives(), DoubleTensor.scalar(dLogPdSigma)
+        ));
+
+        Map<Long, DoubleTensor> dLogPdf = dLogPdInputs.asMap();
+
+        if (!this.isObserved()) {
+            double[] dLogPdx = new double[n];
+            for (int i = 0; i < n; i++) {
+                dLogPdx[i] = -dLogPdEta[i];
+            }
+            dLogPdf.put(getId(), DoubleTensor.create(dLogPdx, getShape()));
+        }
+
+        return dLogPdf;
+    }
+
+    @Override
+    public DoubleTensor sample(KeanuRandom random) {
+        double sigmaValue = sigma.getValue().scalar();
+        double[] eta = predictor.eta();
+        double[] samples = new double[eta.length];
+
+        ParallelLoops.forEach(eta.length, random, (i, r) -> samples[i] = eta[i] + sigmaValue * r.nextGaussian());
+
+        return DoubleTensor.create(samples, predictor.getResponseShape());
+    }
+
+    private static double residualSumOfSquares(double[] y, double[] eta) {
+        return ParallelLoops.sum(y.length, i -> (y[i] - eta[i]) * (y[i] - eta[i]));
+    }
+
+    /**
+     * @return the sufficient statistics for the value if the design matrix and value are fixed, otherwise null
+     */
+    private SufficientStatistics statisticsFor(DoubleTensor value) {
+        if (!isObserved() || value != getValue() || !predictor.hasFixedDesign()) {
+            return null;
+        }
+
+        DoubleTensor designValue = predictor.getDesign().getValue();
+        SufficientStatistics cached = statistics;
+        if (cached == null || cached.design != designValue || cached.response != value) {
+            cached = new SufficientStatistics(designValue, value, predictor.getFeatureCount());
+            statistics = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * The means of the columns of a design matrix X and of a response y, and X^TX, X^Ty and y^Ty with
+     * those means taken off. Centring keeps a response with a large offset from cancelling away the
+     * residuals when they're expanded. The design and response they were made from are kept so that
+     * they're only reused for the same values.
+     */
+    private static final class SufficientStatistics {
+
+        private final DoubleTensor design;
+        private final DoubleTensor response;
+        private final int featureCount;
+        private final int observationCount;
+        private final double[] designMeans;
+        private final double responseMean;
+        private final double[] centredGram;
+        private final double[] centredDesignDotResponse;
+        private final double centredResponseSumOfSquares;
+
+        SufficientStatistics(DoubleTensor design, DoubleTensor response, int featureCount) {
+            this.design = design;
+            this.response = response;
+            this.featureCount = featureCount;
+
+            final double[] x = design.asFlatDoubleArray();
+            final double[] y = response.asFlatDoubleArray();
+            final int n = y.length;
+            this.observationCount = n;
+            this.designMeans = new double[featureCount];
+            this.centredGram = new double[featureCount * featureCount];
+            this.centredDesignDotResponse = new double[featureCount];
+
+            final double yMean = ParallelLoops.sum(n, i -> y[i]) / n;
+            this.responseMean = yMean;
+
+            ParallelLoops.forEach(featureCount, j -> {
+                double sum = 0.0;
+                for (int i = 0; i < n; i++) {
+                    sum += x[i * featureCount + j];
+                }
+                designMeans[j] = sum / n;
+            });
+
+            ParallelLoops.forEach(featureCount, j -> {
+                double dotResponse = 0.0;
+                for (int i = 0; i < n; i++) {
+                    dotResponse += (x[i * featureCount + j] - designMeans[j]) * (y[i] - yMean);
+                }
+                centredDesignDotResponse[j] = dotResponse;
+
+                for (int k = j; k < featureCount; k++) {
+                    double dot = 0.0;
+                    for (int i = 0; i < n; i++) {
+                        dot += (x[i * featureCount + j] - designMeans[j]) * (x[i * featureCount + k] - designMeans[k]);
+                    }
+                    centredGram[j * featureCount + k] = dot;
+                    centredGram[k * featureCount + j] = dot;
+                }
+            });
+
+            this.centredResponseSumOfSquares = ParallelLoops.sum(n, i -> (y[i] - yMean) * (y[i] - yMean));
+        }
+
+        /**
+         * With Xc and yc the centred design and response, and c = mean(y) - mean(X)w - b the mean residual,
+         * (y - Xw - b)^T(y - Xw - b) = yc^Tyc - 2w^TXc^Tyc + w^TXc^TXcw + Nc^2. Rounding can still take
+         * that a little below zero for a near perfect fit, which isn't a sum of squares, so it's clamped.
+         */
+        double residualSumOfSquares(LinearPredictor predictor) {
+            double[] w = predictor.getWeights().getValue().asFlatDoubleArray();
+
+            double quadratic = 0.0;
+            double dotResponse = 0.0;
+            for (int j = 0; j < featureCount; j++) {
+                quadratic += w[j] * centredGramDot(w, j);
+                dotResponse += w[j] * centredDesignDotResponse[j];
+            }
+
+            double meanResidual = meanResidual(predictor, w);
+            double residualSumOfSquares = centredResponseSumOfSquares - 2 * dotResponse + quadratic
+                + observationCount * meanResidual * meanResidual;
+
+            return Math.max(0.0, residualSumOfSquares);
+        }
+
+        /**
+         * @return X^T(y - Xw - b) = Xc^Tyc - Xc^TXcw + N mean(X) c
+         */
+        DoubleTensor dResidualDotDesign(LinearPredictor predictor) {
+            double[] w = predictor.getWeights().getValue().asFlatDoubleArray();
+            double meanResidual = meanResidual(predictor, w);
+
+            double[] result = new double[featureCount];
+            for (int j = 0; j < featureCount; j++) {
+                result[j] = centredDesignDotResponse[j] - centredGramDot(w, j)
+                    + observationCount * designMeans[j] * meanResidual;
+            }
+
+            return DoubleTensor.create(result, predictor.getWeights().getShape());
+        }
+
+        /**
+         * @return sum(y - Xw - b) = Nc
+         */
+        double dResidualSum(LinearPredictor predictor) {
+            return observationCount * meanResidual(predictor, predictor.getWeights().getValue().asFlatDoubleArray());
+        }
+
+        /**
+         * @return c = mean(y) - mean(X)w - b
+         */
+        private double meanResidual(LinearPredictor predictor, double[] w) {
+            double meanResidual = responseMean - predictor.getIntercept().getValue().scalar();
+            for (int j = 0; j < featureCount; j++) {
+                meanResidual -= designMeans[j] * w[j];
+            }
+            return meanResidual;
+        }
+
+        private double centredGramDot(double[] w, int row) {
+            double dot = 0.0;
+            for (int k = 0; k < featureCount; k++) {
+                dot += centredGram[row * featureCount + k] * w[k];
+            }
+            return dot;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package io.improbable.keanu.vertices.regression;
+
+import io.improbable.keanu.tensor.ParallelLoops;
+import io.improbable.keanu.tensor.TensorShape;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.nonprobabilistic.diff.PartialDerivatives;
+
+import java.util.Arrays;
+
+/**
+ * The linear predictor Xw + b of a generalised linear model with N observations of P features,
+ * where X is an N by P design matrix, w is a P by 1 vector of weights and b is a scalar intercept.
+ * <p>
+ * It's worked out straight from the flat (row major) design matrix data without building the
+ * intermediate tensors or Jacobians of a matrix multiply and an addition.
+ */
+final class LinearPredictor {
+
+    private final DoubleVertex design;
+    private final DoubleVertex weights;
+    private final DoubleVertex intercept;
+    private final int observationCount;
+    private final int featureCount;
+
+    /**
+     * The flat design matrix data, kept for as long as the design matrix has the same value so that
+     * it's copied out of its tensor once rather than for every log prob and gradient. It's checked
+     * and swapped in the same way as the distributions in
+     * {@code io.improbable.keanu.vertices.dbl.probabilistic.DistributionCache}.
+     */
+    private volatile FlatDesign flatDesign;
+
+    LinearPredictor(DoubleVertex design, DoubleVertex weights, DoubleVertex intercept) {
+        int[] designShape = design.getShape();
+        if (designShape.length != 2) {
+            throw new IllegalArgumentException("Design matrix must be rank 2 but has shape " + Arrays.toString(designShape));
+        }
+
+        int[] expectedWeightsShape = new int[]{designShape[1], 1};
+        if (!Arrays.equals(weights.getShape(), expectedWeightsShape)) {
+            throw new IllegalArgumentException(
+                "Weights must have shape " + Arrays.toString(expectedWeightsShape) + " to match the design matrix but have shape " + Arrays.toString(weights.getShape())
+            );
+        }
+
+        if (!TensorShape.isScalar(intercept.getShape())) {
+            throw new IllegalArgumentException("Intercept must be scalar but has shape " + Arrays.toString(intercept.getShape()));
+        }
+
+        this.design = design;
+        this.weights = weights;
+        this.intercept = intercept;
+        this.observationCount = designShape[0];
+        this.featureCount = designShape[1];
+    }
+
+    DoubleVertex getDesign() {
+        return design;
+    }
+
+    DoubleVertex getWeights() {
+        return weights;
+    }
+
+    DoubleVertex getIntercept() {
+        return intercept;
+    }
+
+    int getObservationCount() {
+        return observationCount;
+    }
+
+    int getFeatureCount() {
+        return featureCount;
+    }
+
+    /**
+     * @return the shape of the response, a column with a row for each observation
+     */
+    int[] getResponseShape() {
+        return new int[]{observationCount, 1};
+    }
+
+    /**
+     * @return true if the design matrix can't change, so statistics of it can be kept between evaluations
+     */
+    boolean hasFixedDesign() {
+        return design.isObserved() || (!design.isProbabilistic() && design.getParents().isEmpty());
+    }
+
+    /**
+     * @return Xw + b for each observation
+     */
+    double[] eta() {
+        final double[] x = flatDesign();
+        final double[] w = weights.getValue().asFlatDoubleArray();
+        final double b = intercept.getValue().scalar();
+        final double[] eta = new double[observationCount];
+
+        ParallelLoops.forEach(observationCount, i -> {
+            int row = i * featureCount;
+            double sum = b;
+            for (int j = 0; j < featureCount; j++) {
+                sum += x[row + j] * w[j];
+            }
+            eta[i] = sum;
+        });
+
+        return eta;
+    }
+
+    /**
+     * @param dLogPdEta the gradient of a log likelihood with respect to each observation's linear predictor
+     * @return the gradient of the log likelihood with respect to the latents upstream of the weights,
+     * intercept and design matrix
+     */
+    PartialDerivatives dLogP(double[] dLogPdEta) {
+        final double[] x = flatDesign();
+        final double[] dLogPdW = new double[featureCount];
+
+        ParallelLoops.forEach(featureCount, j -> {
+            double sum = 0.0;
+            for (int i = 0; i < observationCount; i++) {
+                sum += x[i * featureCount + j] * dLogPdEta[i];
+            }
+            dLogPdW[j] = sum;
+        });
+
+        double dLogPdB = ParallelLoops.sum(observationCount, i -> dLogPdEta[i]);
+
+        PartialDerivatives dLogPdInputs = dLogP(DoubleTensor.create(dLogPdW, weights.getShape()), dLogPdB);
+
+        PartialDerivatives designPartials = design.getDualNumber().getPartialDerivatives();
+        if (!designPartials.isEmpty()) {
+            final double[] w = weights.getValue().asFlatDoubleArray();
+            final double[] dLogPdX = new double[x.length];
+            ParallelLoops.forEach(observationCount, i -> {
+                for (int j = 0; j < featureCount; j++) {
+                    dLogPdX[i * featureCount + j] = dLogPdEta[i] * w[j];
+                }
+            });
+            dLogPdInputs = dLogPdInputs.add(chain(designPartials, DoubleTensor.create(dLogPdX, design.getShape())));
+        }
+
+        return dLogPdInputs;
+    }
+
+    private double[] flatDesign() {
+        DoubleTensor value = design.getValue();
+        FlatDesign cached = flatDesign;
+        if (cached == null || cached.value != value) {
+            cached = new FlatDesign(value, value.asFlatDoubleArray());
+            flatDesign = cached;
+        }
+        return cached.data;
+    }
+
+    /**
+     * @param dLogPdW the gradient of a log likelihood with respect to the weights
+     * @param dLogPdB the gradient of a log likelihood with respect to the intercept
+     * @return the gradient of the log likelihood with respect to the latents upstream of the weights and intercept
+     */
+    PartialDerivatives dLogP(DoubleTensor dLogPdW, double dLogPdB) {
+        PartialDerivatives fromWeights = chain(weights.getDualNumber().getPartialDerivatives(), dLogPdW);
+        PartialDerivatives fromIntercept = chain(intercept.getDualNumber().getPartialDerivatives(), DoubleTensor.scalar(dLogPdB));
+        return fromWeights.add(fromIntercept);
+    }
+
+    /**
+     * @param partials          the partial derivatives of a parameter with respect to latents
+     * @param dLogPdParameter   the gradient of a log likelihood with respect to that parameter
+     * @return the gradient of the log likelihood with respect to those latents
+     */
+    static PartialDerivatives chain(PartialDerivatives partials, DoubleTensor dLogPdParameter) {
+        return partials
+            .multiplyBy(dLogPdParameter)
+            .sum(true, TensorShape.dimensionRange(0, dLogPdParameter.getRank()));
+    }
+
+    private static final class FlatDesign {
+
+        private final DoubleTensor value;
+        private final double[] data;
+
+        FlatDesign(DoubleTensor value, double[] data) {
+            this.value = value;
+            this.data = data;
+        }
+    }
+}
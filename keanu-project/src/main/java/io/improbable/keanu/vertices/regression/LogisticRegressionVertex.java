@@ -0,0 +1,86 @@
+package io.improbable.keanu.vertices.regression;
+
+import io.improbable.keanu.distributions.SpecialFunctions;
+import io.improbable.keanu.tensor.ParallelLoops;
+import io.improbable.keanu.tensor.bool.BooleanTensor;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.bool.probabilistic.ProbabilisticBool;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import io.improbable.keanu.vertices.dbl.nonprobabilistic.ConstantDoubleVertex;
+
+import java.util.Map;
+
+/**
+ * A logistic regression likelihood, y ~ Bernoulli(sigmoid(Xw + b)), for a column of N observations.
+ * <p>
+ * The log prob and its gradient with respect to the weights and intercept are worked out in one
+ * pass over the data.
+ */
+public class LogisticRegressionVertex extends ProbabilisticBool {
+
+    private final LinearPredictor predictor;
+
+    /**
+     * @param design    the N by P design matrix
+     * @param weights   the P by 1 weights
+     * @param intercept the scalar intercept
+     */
+    public LogisticRegressionVertex(DoubleVertex design, DoubleVertex weights, DoubleVertex intercept) {
+        this.predictor = new LinearPredictor(design, weights, intercept);
+        setParents(design, weights, intercept);
+        setValue(BooleanTensor.placeHolder(predictor.getResponseShape()));
+    }
+
+    public LogisticRegressionVertex(DoubleVertex design, DoubleVertex weights) {
+        this(design, weights, new ConstantDoubleVertex(0.0));
+    }
+
+    public DoubleVertex getDesign() {
+        return predictor.getDesign();
+    }
+
+    public DoubleVertex getWeights() {
+        return predictor.getWeights();
+    }
+
+    public DoubleVertex getIntercept() {
+        return predictor.getIntercept();
+    }
+
+    /**
+     * log(p(y)) = y * eta - log(1 + e^eta)
+     */
+    @Override
+    public double logPmf(BooleanTensor value) {
+        final double[] y = value.asFlatDoubleArray();
+        final double[] eta = predictor.eta();
+
+        return ParallelLoops.sum(eta.length, i -> y[i] * eta[i] - SpecialFunctions.log1pExp(eta[i]));
+    }
+
+    @Override
+    public Map<Long, DoubleTensor> dLogPmf(BooleanTensor value) {
+        final double[] y = value.asFlatDoubleArray();
+        final double[] eta = predictor.eta();
+        final double[] dLogPdEta = new double[eta.length];
+
+        ParallelLoops.forEach(eta.length, i -> dLogPdEta[i] = y[i] - sigmoid(eta[i]));
+
+        return predictor.dLogP(dLogPdEta).asMap();
+    }
+
+    @Override
+    public BooleanTensor sample(KeanuRandom random) {
+        final double[] eta = predictor.eta();
+        final boolean[] samples = new boolean[eta.length];
+
+        ParallelLoops.forEach(eta.length, random, (i, r) -> samples[i] = r.nextDouble() < sigmoid(eta[i]));
+
+        return BooleanTensor.create(samples, predictor.getResponseShape());
+    }
+
+    private static double sigmoid(double x) {
+        return 1.0 / (1.0 + Math.exp(-x));
+    }
+}
@@ -0,0 +1,90 @@
+package io.improbable.keanu.vertices.regression;
+
+import io.improbable.keanu.distributions.SpecialFunctions;
+import io.improbable.keanu.tensor.ParallelLoops;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.tensor.intgr.IntegerTensor;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import io.improbable.keanu.vertices.dbl.nonprobabilistic.ConstantDoubleVertex;
+import io.improbable.keanu.vertices.intgr.probabilistic.ProbabilisticInteger;
+
+import java.util.Map;
+
+/**
+ * A Poisson regression likelihood with a log link, y ~ Poisson(e^(Xw + b)), for a column of N counts.
+ * <p>
+ * The log prob and its gradient with respect to the weights and intercept are worked out in one
+ * pass over the data.
+ */
+public class PoissonRegressionVertex extends ProbabilisticInteger {
+
+    private final LinearPredictor predictor;
+
+    /**
+     * @param design    the N by P design matrix
+     * @param weights   the P by 1 weights
+     * @param intercept the scalar intercept
+     */
+    public PoissonRegressionVertex(DoubleVertex design, DoubleVertex weights, DoubleVertex intercept) {
+        this.predictor = new LinearPredictor(design, weights, intercept);
+        setParents(design, weights, intercept);
+        setValue(IntegerTensor.placeHolder(predictor.getResponseShape()));
+    }
+
+    public PoissonRegressionVertex(DoubleVertex design, DoubleVertex weights) {
+        this(design, weights, new ConstantDoubleVertex(0.0));
+    }
+
+    public DoubleVertex getDesign() {
+        return predictor.getDesign();
+    }
+
+    public DoubleVertex getWeights() {
+        return predictor.getWeights();
+    }
+
+    public DoubleVertex getIntercept() {
+        return predictor.getIntercept();
+    }
+
+    /**
+     * log(p(y)) = y * eta - e^eta - log(y!)
+     */
+    @Override
+    public double logPmf(IntegerTensor value) {
+        final int[] y = value.asFlatIntegerArray();
+        final double[] eta = predictor.eta();
+
+        for (int k : y) {
+            if (k < 0) {
+                return Double.NEGATIVE_INFINITY;
+            }
+        }
+
+        return ParallelLoops.sum(eta.length, i ->
+            y[i] * eta[i] - Math.exp(eta[i]) - SpecialFunctions.logFactorial(y[i])
+        );
+    }
+
+    @Override
+    public Map<Long, DoubleTensor> dLogPmf(IntegerTensor value) {
+        final int[] y = value.asFlatIntegerArray();
+        final double[] eta = predictor.eta();
+        final double[] dLogPdEta = new double[eta.length];
+
+        ParallelLoops.forEach(eta.length, i -> dLogPdEta[i] = y[i] - Math.exp(eta[i]));
+
+        return predictor.dLogP(dLogPdEta).asMap();
+    }
+
+    @Override
+    public IntegerTensor sample(KeanuRandom random) {
+        final double[] eta = predictor.eta();
+        final int[] samples = new int[eta.length];
+
+        ParallelLoops.forEach(eta.length, random, (i, r) -> samples[i] = r.nextPoisson(Math.exp(eta[i])));
+
+        return IntegerTensor.create(samples, predictor.getResponseShape());
+    }
+}
@@ -0,0 +1,93 @@
+package io.improbable.keanu.algorithms.graphtraversal;
+
+import io.improbable.keanu.vertices.Vertex;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.GaussianVertex;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MarkovBlanketColouringTest {
+
+    @Test
+    public void conditionallyIndependentVerticesShareAColour() {
+        List<DoubleVertex> latents = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            DoubleVertex latent = new GaussianVertex(0.0, 1.0);
+            new GaussianVertex(latent, 1.0).observe(i);
+            latents.add(latent);
+        }
+
+        List<List<Vertex>> colours = MarkovBlanketColouring.colour(latents);
+
+        assertEquals(1, colours.size());
+        assertEquals(new HashSet<>(latents), new HashSet<>(colours.get(0)));
+    }
+
+    @Test
+    public void chainOfVerticesAlternatesColours() {
+        DoubleVertex A = new GaussianVertex(0.0, 1.0);
+        DoubleVertex B = new GaussianVertex(A, 1.0);
+        DoubleVertex C = new GaussianVertex(B, 1.0);
+        DoubleVertex D = new GaussianVertex(C, 1.0);
+        D.observe(1.0);
+
+        List<List<Vertex>> colours = MarkovBlanketColouring.colour(Arrays.asList(A, B, C));
+
+        assertEquals(2, colours.size());
+        assertColoursAreConditionallyIndependent(colours);
+        assertTrue(sameColour(colours, A, C));
+    }
+
+    @Test
+    public void parentsOfTheSameChildHaveDifferentColours() {
+        DoubleVertex A = new GaussianVertex(0.0, 1.0);
+        DoubleVertex B = new GaussianVertex(0.0, 1.0);
+        DoubleVertex C = new GaussianVertex(A.plus(B), 1.0);
+        C.observe(1.0);
+
+        List<List<Vertex>> colours = MarkovBlanketColouring.colour(Arrays.asList(A, B));
+
+        assertEquals(2, colours.size());
+        assertFalse(sameColour(colours, A, B));
+    }
+
+    @Test
+    public void verticesThatUpdateTheSameDeterministicVertexHaveDifferentColours() {
+        DoubleVertex A = new GaussianVertex(0.0, 1.0);
+        DoubleVertex B = new GaussianVertex(0.0, 1.0);
+        A.plus(B);
+
+        List<List<Vertex>> colours = MarkovBlanketColouring.colour(Arrays.asList(A, B));
+
+        assertFalse(sameColour(colours, A, B));
+    }
+
+    private static boolean sameColour(List<List<Vertex>> colours, Vertex<?> first, Vertex<?> second) {
+        for (List<Vertex> colour : colours) {
+            if (colour.contains(first)) {
+                return colour.contains(second);
+            }
+        }
+        return false;
+    }
+
+    private static void assertColoursAreConditionallyIndependent(List<List<Vertex>> colours) {
+        for (List<Vertex> colour : colours) {
+            Set<Vertex> members = new HashSet<>(colour);
+            for (Vertex<?> vertex : colour) {
+                for (Vertex blanketVertex : MarkovBlanket.get(vertex)) {
+                    assertFalse(members.contains(blanketVertex));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package io.improbable.keanu.algorithms.mcmc;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AutoTuneTest {
+
+    @Test
+    public void startingStepSizeIsHalvedUntilAcceptanceCrossesHalf() {
+        double stepSize = AutoTune.findStartingStepSize(leapfrogStepSize -> -leapfrogStepSize * leapfrogStepSize);
+
+        assertEquals(0.5, stepSize, 0.0);
+    }
+
+    @Test
+    public void startingStepSizeIsDoubledUntilAcceptanceCrossesHalf() {
+        double stepSize = AutoTune.findStartingStepSize(leapfrogStepSize -> -leapfrogStepSize * leapfrogStepSize / 100);
+
+        assertEquals(16.0, stepSize, 0.0);
+    }
+
+    @Test
+    public void startingStepSizeSearchStopsWhenEveryLeapfrogDiverges() {
+        double stepSize = AutoTune.findStartingStepSize(leapfrogStepSize -> Double.NaN);
+
+        assertTrue(stepSize > 0.0 && stepSize < Double.MIN_NORMAL);
+    }
+
+    @Test
+    public void startingStepSizeSearchStopsWhenLogProbIsFlat() {
+        double stepSize = AutoTune.findStartingStepSize(leapfrogStepSize -> 0.0);
+
+        assertTrue(stepSize > 1e10 && !Double.isInfinite(stepSize));
+    }
+}
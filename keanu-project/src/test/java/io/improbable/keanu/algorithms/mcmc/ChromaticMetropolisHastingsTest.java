@@ -0,0 +1,133 @@
+package io.improbable.keanu.algorithms.mcmc;
+
+import io.improbable.keanu.algorithms.NetworkSamples;
+import io.improbable.keanu.algorithms.mcmc.proposal.ProposalDistribution;
+import io.improbable.keanu.network.BayesianNetwork;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.ValueStore;
+import io.improbable.keanu.vertices.Vertex;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import io.improbable.keanu.vertices.dbl.probabilistic.GaussianVertex;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ChromaticMetropolisHastingsTest {
+
+    private static final int PLATE_SIZE = 40;
+
+    @Test
+    public void samplesPlateOfConditionallyIndependentLatentsInParallel() {
+        List<DoubleVertex> latents = new ArrayList<>();
+        BayesianNetwork bayesNet = createPlate(latents);
+
+        NetworkSamples samples = ChromaticMetropolisHastings.builder()
+            .threadCount(4)
+            .random(new KeanuRandom(1))
+            .build()
+            .getPosteriorSamples(bayesNet, latents, 5000)
+            .drop(500);
+
+        for (int i = 0; i < PLATE_SIZE; i++) {
+            double posteriorMean = observationOf(i) / 2.0;
+            assertEquals(posteriorMean, samples.getDoubleTensorSamples(latents.get(i)).getAverages().scalar(), 0.1);
+        }
+    }
+
+    @Test
+    public void canTakeGibbsSteps() {
+        List<DoubleVertex> latents = new ArrayList<>();
+        BayesianNetwork bayesNet = createPlate(latents);
+
+        NetworkSamples samples = ChromaticMetropolisHastings.builder()
+            .proposalDistribution(ProposalDistribution::conjugateGibbs)
+            .threadCount(3)
+            .random(new KeanuRandom(1))
+            .build()
+            .getPosteriorSamples(bayesNet, latents, 2000);
+
+        for (int i = 0; i < PLATE_SIZE; i++) {
+            double posteriorMean = observationOf(i) / 2.0;
+            assertEquals(posteriorMean, samples.getDoubleTensorSamples(latents.get(i)).getAverages().scalar(), 0.1);
+        }
+    }
+
+    @Test
+    public void samplesDependentLatents() {
+        BayesianNetwork bayesNet = MCMCTestDistributions.createSumOfGaussianDistribution(20.0, 1.0, 46.0);
+        List<Vertex> latents = bayesNet.getLatentVertices();
+
+        NetworkSamples samples = ChromaticMetropolisHastings.builder()
+            .threadCount(2)
+            .random(new KeanuRandom(1))
+            .build()
+            .getPosteriorSamples(bayesNet, latents, 20000)
+            .drop(1000);
+
+        MCMCTestDistributions.samplesMatchesSumOfGaussians(
+            44.0,
+            samples.getDoubleTensorSamples(latents.get(0).getId()).asList(),
+            samples.getDoubleTensorSamples(latents.get(1).getId()).asList()
+        );
+    }
+
+    @Test
+    public void samplesDependOnSeedAndThreadCountButNotScheduling() {
+        double[] parallel = sampleFirstLatent();
+        double[] again = sampleFirstLatent();
+        double[] onCallingThread = new ValueStore().evaluate(ChromaticMetropolisHastingsTest::sampleFirstLatent);
+
+        assertArrayEquals(parallel, again, 0.0);
+        assertArrayEquals(parallel, onCallingThread, 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsThreadCountBelowOne() {
+        List<DoubleVertex> latents = new ArrayList<>();
+        BayesianNetwork bayesNet = createPlate(latents);
+
+        ChromaticMetropolisHastings.builder()
+            .threadCount(0)
+            .build()
+            .getPosteriorSamples(bayesNet, latents, 10);
+    }
+
+    private static double[] sampleFirstLatent() {
+        List<DoubleVertex> latents = new ArrayList<>();
+        BayesianNetwork bayesNet = createPlate(latents);
+
+        NetworkSamples samples = ChromaticMetropolisHastings.builder()
+            .threadCount(4)
+            .random(new KeanuRandom(3))
+            .build()
+            .getPosteriorSamples(bayesNet, latents, 200);
+
+        return samples.getDoubleTensorSamples(latents.get(0)).asList().stream()
+            .mapToDouble(DoubleTensor::scalar)
+            .toArray();
+    }
+
+    private static BayesianNetwork createPlate(List<DoubleVertex> latents) {
+        for (int i = 0; i < PLATE_SIZE; i++) {
+            GaussianVertex latent = new GaussianVertex(0.0, 1.0);
+            latent.setValue(0.0);
+            new GaussianVertex(latent, 1.0).observe(observationOf(i));
+            latents.add(latent);
+        }
+
+        List<Vertex> vertices = new ArrayList<>();
+        for (DoubleVertex latent : latents) {
+            vertices.addAll(latent.getConnectedGraph());
+        }
+        return new BayesianNetwork(vertices);
+    }
+
+    private static double observationOf(int i) {
+        return (i - PLATE_SIZE / 2) / 10.0;
+    }
+}
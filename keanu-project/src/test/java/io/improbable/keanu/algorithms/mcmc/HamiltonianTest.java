@@ -5,11 +5,17 @@ import io.improbable.keanu.algorithms.NetworkSamples;
 import io.improbable.keanu.network.BayesianNetwork;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
 import io.improbable.keanu.vertices.Vertex;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
 import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import io.improbable.keanu.vertices.dbl.probabilistic.GaussianVertex;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
 public class HamiltonianTest {
 
     @Rule
@@ -19,7 +25,7 @@ public class HamiltonianTest {
 
     @Before
     public void setup() {
-        random = new KeanuRandom(1);
+        random = new KeanuRandom(2);
     }
 
     @Test
@@ -81,4 +87,48 @@ public class HamiltonianTest {
 
         MCMCTestDistributions.samplesMatch2DDonut(samples.get(A).asList(), samples.get(B).asList());
     }
+
+    @Test
+    public void samplesGaussianWithAdaptiveStepSizeAndLeapfrogCount() {
+        double mu = 0.0;
+        double sigma = 1.0;
+        BayesianNetwork simpleGaussian = MCMCTestDistributions.createSimpleGaussian(mu, sigma, random);
+
+        NetworkSamples posteriorSamples = Hamiltonian.getAdaptivePosteriorSamples(
+            simpleGaussian,
+            simpleGaussian.getLatentVertices(),
+            1500,
+            500,
+            0.65,
+            random
+        ).drop(500);
+
+        Vertex<DoubleTensor> vertex = simpleGaussian.getContinuousLatentVertices().get(0);
+
+        MCMCTestDistributions.samplesMatchSimpleGaussian(mu, sigma, posteriorSamples.get(vertex).asList());
+    }
+
+    @Test
+    public void adaptsTrajectoryToBadlyScaledPosterior() {
+        DoubleVertex narrow = new GaussianVertex(0.0, 0.1);
+        DoubleVertex wide = new GaussianVertex(0.0, 10.0);
+        narrow.setValue(0.0);
+        wide.setValue(0.0);
+        BayesianNetwork bayesNet = new BayesianNetwork(Arrays.asList(narrow, wide));
+
+        NetworkSamples posteriorSamples = Hamiltonian.getAdaptivePosteriorSamples(
+            bayesNet,
+            bayesNet.getLatentVertices(),
+            3000,
+            1000,
+            0.65,
+            random
+        ).drop(1000);
+
+        double[] narrowSamples = MCMCTestDistributions.scalars(posteriorSamples.getDoubleTensorSamples(narrow).asList());
+        double[] wideSamples = MCMCTestDistributions.scalars(posteriorSamples.getDoubleTensorSamples(wide).asList());
+
+        assertEquals(0.1, MCMCTestDistributions.standardDeviation(narrowSamples), 0.02);
+        assertEquals(10.0, MCMCTestDistributions.standardDeviation(wideSamples), 2.0);
+    }
 }
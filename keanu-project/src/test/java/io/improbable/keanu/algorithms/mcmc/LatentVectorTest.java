@@ -0,0 +1,75 @@
+package io.improbable.keanu.algorithms.mcmc;
+
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.Vertex;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.GaussianVertex;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class LatentVectorTest {
+
+    private DoubleVertex A;
+    private DoubleVertex B;
+    private DoubleVertex sum;
+    private LatentVector latentVector;
+
+    @Before
+    public void setup() {
+        A = new GaussianVertex(0.0, 1.0);
+        A.setValue(1.0);
+        B = new GaussianVertex(new int[]{1, 2}, 0.0, 1.0);
+        B.setValue(DoubleTensor.create(new double[]{2.0, 3.0}, 1, 2));
+        sum = A.plus(B);
+        new GaussianVertex(sum, 1.0).observe(DoubleTensor.create(new double[]{0.0, 0.0}, 1, 2));
+
+        List<Vertex<DoubleTensor>> latents = Arrays.asList(A, B);
+        latentVector = new LatentVector(latents);
+    }
+
+    @Test
+    public void laysLatentValuesEndToEnd() {
+        double[] position = new double[latentVector.getLength()];
+        latentVector.readPosition(position);
+
+        assertEquals(3, latentVector.getLength());
+        assertArrayEquals(new double[]{1.0, 2.0, 3.0}, position, 0.0);
+    }
+
+    @Test
+    public void writingPositionSetsLatentsAndCascades() {
+        latentVector.writePosition(new double[]{-1.0, 4.0, 5.0});
+
+        assertEquals(-1.0, A.getValue().scalar(), 0.0);
+        assertArrayEquals(new int[]{1, 2}, B.getShape());
+        assertArrayEquals(new double[]{4.0, 5.0}, B.getValue().asFlatDoubleArray(), 0.0);
+        assertArrayEquals(new double[]{3.0, 4.0}, sum.getValue().asFlatDoubleArray(), 0.0);
+    }
+
+    @Test
+    public void readsGradientWithMissingLatentsAsZero() {
+        Map<Long, DoubleTensor> gradientById = new HashMap<>();
+        gradientById.put(B.getId(), DoubleTensor.create(new double[]{0.5, -0.5}, 1, 2));
+
+        double[] gradient = new double[]{9.0, 9.0, 9.0};
+        latentVector.readGradient(gradientById, gradient);
+
+        assertArrayEquals(new double[]{0.0, 0.5, -0.5}, gradient, 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsGradientOfTheWrongLength() {
+        Map<Long, DoubleTensor> gradientById = new HashMap<>();
+        gradientById.put(A.getId(), DoubleTensor.create(new double[]{0.5, -0.5}, 1, 2));
+
+        latentVector.readGradient(gradientById, new double[3]);
+    }
+}
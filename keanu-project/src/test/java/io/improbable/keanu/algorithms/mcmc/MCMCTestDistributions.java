@@ -109,4 +109,20 @@ public class MCMCTestDistributions {
         assertTrue(topOfDonut && rightOfDonut && bottomOfDonut && leftOfDonut && !middleOfDonut);
     }
 
+    public static double[] scalars(List<DoubleTensor> samples) {
+        return samples.stream().mapToDouble(DoubleTensor::scalar).toArray();
+    }
+
+    public static double mean(double[] values) {
+        return Arrays.stream(values).average().orElse(Double.NaN);
+    }
+
+    /**
+     * @return the sample standard deviation
+     */
+    public static double standardDeviation(double[] values) {
+        double mean = mean(values);
+        double sumOfSquares = Arrays.stream(values).map(value -> (value - mean) * (value - mean)).sum();
+        return Math.sqrt(sumOfSquares / (values.length - 1));
+    }
 }
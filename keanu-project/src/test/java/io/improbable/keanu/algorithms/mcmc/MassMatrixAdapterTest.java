@@ -0,0 +1,73 @@
+package io.improbable.keanu.algorithms.mcmc;
+
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MassMatrixAdapterTest {
+
+    @Test
+    public void slowWindowsDoubleAndEndBeforeTheTerminalBuffer() {
+        MassMatrixAdapter adapter = new MassMatrixAdapter(MassMatrixAdaptation.DIAGONAL, 1, 1000);
+
+        List<Integer> windowEnds = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            if (adapter.adapt(i, new double[]{i % 7})) {
+                windowEnds.add(i);
+            }
+        }
+
+        assertEquals(Arrays.asList(99, 149, 249, 449, 949), windowEnds);
+    }
+
+    @Test
+    public void shortWarmupsStillGetASlowWindow() {
+        MassMatrixAdapter adapter = new MassMatrixAdapter(MassMatrixAdaptation.DIAGONAL, 1, 100);
+
+        List<Integer> windowEnds = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            if (adapter.adapt(i, new double[]{i % 7})) {
+                windowEnds.add(i);
+            }
+        }
+
+        assertEquals(Arrays.asList(39, 89), windowEnds);
+    }
+
+    @Test
+    public void identityIsKeptWithoutAdaptation() {
+        MassMatrixAdapter adapter = new MassMatrixAdapter(MassMatrixAdaptation.NONE, 1, 1000);
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(!adapter.adapt(i, new double[]{i}));
+        }
+
+        double[] velocity = new double[1];
+        adapter.getMassMatrix().velocity(new double[]{2.0}, velocity);
+        assertEquals(2.0, velocity[0], 0.0);
+    }
+
+    @Test
+    public void learnsTheCovarianceOfTheSamples() {
+        KeanuRandom random = new KeanuRandom(1);
+        MassMatrixAdapter adapter = new MassMatrixAdapter(MassMatrixAdaptation.DENSE, 2, 1000);
+
+        for (int i = 0; i < 950; i++) {
+            double x = 3.0 * random.nextGaussian();
+            double y = x + random.nextGaussian();
+            adapter.adapt(i, new double[]{x, y});
+        }
+
+        double[] velocityOfFirst = new double[2];
+        adapter.getMassMatrix().velocity(new double[]{1.0, 0.0}, velocityOfFirst);
+
+        assertEquals(9.0, velocityOfFirst[0], 1.5);
+        assertEquals(9.0, velocityOfFirst[1], 1.5);
+    }
+}
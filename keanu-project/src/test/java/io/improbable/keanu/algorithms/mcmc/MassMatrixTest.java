@@ -0,0 +1,49 @@
+package io.improbable.keanu.algorithms.mcmc;
+
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class MassMatrixTest {
+
+    private static final double[] INVERSE = new double[]{
+        4.0, 1.0,
+        1.0, 2.0
+    };
+
+    @Test
+    public void denseVelocityIsInverseTimesMomentum() {
+        double[] velocity = new double[2];
+        MassMatrix.dense(INVERSE).velocity(new double[]{1.0, -1.0}, velocity);
+
+        assertArrayEquals(new double[]{3.0, -1.0}, velocity, 1e-12);
+    }
+
+    @Test
+    public void denseMomentumHasCovarianceOfTheMassMatrix() {
+        MassMatrix massMatrix = MassMatrix.dense(INVERSE);
+        KeanuRandom random = new KeanuRandom(1);
+        int sampleCount = 100000;
+
+        double[] sumOfProducts = new double[4];
+        double[] momentum = new double[2];
+        for (int i = 0; i < sampleCount; i++) {
+            massMatrix.sampleMomentum(momentum, random);
+            sumOfProducts[0] += momentum[0] * momentum[0];
+            sumOfProducts[1] += momentum[0] * momentum[1];
+            sumOfProducts[3] += momentum[1] * momentum[1];
+        }
+
+        double determinant = 4.0 * 2.0 - 1.0 * 1.0;
+        assertEquals(2.0 / determinant, sumOfProducts[0] / sampleCount, 0.01);
+        assertEquals(-1.0 / determinant, sumOfProducts[1] / sampleCount, 0.01);
+        assertEquals(4.0 / determinant, sumOfProducts[3] / sampleCount, 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMatrixThatIsNotPositiveDefinite() {
+        MassMatrix.dense(new double[]{1.0, 2.0, 2.0, 1.0});
+    }
+}
@@ -6,11 +6,15 @@ import io.improbable.keanu.algorithms.mcmc.proposal.Proposal;
 import io.improbable.keanu.algorithms.mcmc.proposal.ProposalDistribution;
 import io.improbable.keanu.network.BayesianNetwork;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.tensor.intgr.IntegerTensor;
 import io.improbable.keanu.vertices.Vertex;
+import io.improbable.keanu.vertices.bool.probabilistic.Flip;
 import io.improbable.keanu.vertices.dbl.DoubleVertex;
 import io.improbable.keanu.vertices.dbl.KeanuRandom;
 import io.improbable.keanu.vertices.dbl.probabilistic.GaussianVertex;
 import io.improbable.keanu.vertices.dbl.probabilistic.UniformVertex;
+import io.improbable.keanu.vertices.intgr.probabilistic.PoissonVertex;
+import io.improbable.keanu.vertices.intgr.probabilistic.UniformIntVertex;
 import lombok.AllArgsConstructor;
 import org.junit.Before;
 import org.junit.Rule;
@@ -125,6 +129,85 @@ public class MetropolisHastingsStepTest {
         assertEquals(0.5, A.getValue(0), 1e-10);
     }
 
+    @Test
+    public void doesCalculateCorrectLogProbAfterSliceStep() {
+        DoubleVertex A = new GaussianVertex(new int[]{1, 2}, 0, 1);
+        A.setValue(DoubleTensor.create(new double[]{1.0, -1.0}, 1, 2));
+        DoubleVertex B = A.floor();
+        DoubleVertex observedB = new GaussianVertex(B, 1);
+        observedB.observe(DoubleTensor.create(new double[]{2.0, 0.0}, 1, 2));
+
+        BayesianNetwork network = new BayesianNetwork(A.getConnectedGraph());
+        double logProbBeforeStep = network.getLogOfMasterP();
+
+        MetropolisHastingsStep step = new MetropolisHastingsStep(
+            network.getLatentVertices(),
+            ProposalDistribution.usePrior(),
+            vertex -> true,
+            1.0,
+            true,
+            new KeanuRandom(1)
+        );
+
+        MetropolisHastingsStep.StepResult result = step.step(
+            Collections.singleton(A),
+            logProbBeforeStep
+        );
+
+        assertTrue(result.isAccepted());
+        assertNotEquals(1.0, A.getValue(0), 1e-10);
+        assertNotEquals(-1.0, A.getValue(1), 1e-10);
+        assertEquals(network.getLogOfMasterP(), result.getLogProbabilityAfterStep(), 1e-10);
+    }
+
+    @Test
+    public void doesCalculateCorrectLogProbAfterIntegerSliceStep() {
+        UniformIntVertex A = new UniformIntVertex(new int[]{1, 2}, 1, 20);
+        A.setValue(new int[]{2, 15});
+        PoissonVertex observedA = new PoissonVertex(A);
+        observedA.observe(IntegerTensor.create(new int[]{8, 8}, 1, 2));
+
+        BayesianNetwork network = new BayesianNetwork(A.getConnectedGraph());
+        double logProbBeforeStep = network.getLogOfMasterP();
+
+        MetropolisHastingsStep step = new MetropolisHastingsStep(
+            network.getLatentVertices(),
+            ProposalDistribution.usePrior(),
+            vertex -> true,
+            1.0,
+            true,
+            new KeanuRandom(1)
+        );
+
+        MetropolisHastingsStep.StepResult result = step.step(
+            Collections.singleton(A),
+            logProbBeforeStep
+        );
+
+        assertTrue(result.isAccepted());
+        assertNotEquals(logProbBeforeStep, result.getLogProbabilityAfterStep(), 1e-10);
+        assertEquals(network.getLogOfMasterP(), result.getLogProbabilityAfterStep(), 1e-10);
+        for (int value : A.getValue().asFlatIntegerArray()) {
+            assertTrue(value >= 1 && value < 20);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSliceSamplingOfVertexWithoutDoubleOrIntegerValues() {
+        Flip A = new Flip(0.5);
+        A.setValue(true);
+        BayesianNetwork network = new BayesianNetwork(A.getConnectedGraph());
+
+        new MetropolisHastingsStep(
+            network.getLatentVertices(),
+            ProposalDistribution.usePrior(),
+            vertex -> true,
+            1.0,
+            true,
+            alwaysAccept
+        );
+    }
+
     private MetropolisHastingsStep stepFunctionWithConstantProposal(BayesianNetwork network, double constant, KeanuRandom random) {
         return new MetropolisHastingsStep(
             network.getLatentVertices(),
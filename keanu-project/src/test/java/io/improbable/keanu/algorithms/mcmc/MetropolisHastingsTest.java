@@ -1,23 +1,32 @@
 package io.improbable.keanu.algorithms.mcmc;
 
 import io.improbable.keanu.algorithms.NetworkSamples;
+import io.improbable.keanu.algorithms.mcmc.proposal.MHStepVariableSelector;
+import io.improbable.keanu.algorithms.mcmc.proposal.ProposalDistribution;
 import io.improbable.keanu.network.BayesianNetwork;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.tensor.intgr.IntegerTensor;
+import io.improbable.keanu.vertices.Vertex;
 import io.improbable.keanu.vertices.bool.BoolVertex;
 import io.improbable.keanu.vertices.bool.probabilistic.Flip;
 import io.improbable.keanu.vertices.dbl.DoubleVertex;
 import io.improbable.keanu.vertices.dbl.KeanuRandom;
 import io.improbable.keanu.vertices.dbl.nonprobabilistic.operators.unary.DoubleUnaryOpLambda;
 import io.improbable.keanu.vertices.dbl.probabilistic.GaussianVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.UniformVertex;
 import io.improbable.keanu.vertices.generic.nonprobabilistic.If;
+import io.improbable.keanu.vertices.intgr.probabilistic.PoissonVertex;
+import io.improbable.keanu.vertices.intgr.probabilistic.UniformIntVertex;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class MetropolisHastingsTest {
 
@@ -168,6 +177,86 @@ public class MetropolisHastingsTest {
         assertEquals(0.0, postProbTrue, 0.01);
     }
 
+    @Test
+    public void sliceSamplesThroughNonDifferentiableVertex() {
+        DoubleVertex A = new UniformVertex(0.0, 10.0);
+        A.setValue(5.0);
+        DoubleVertex observed = new GaussianVertex(A.floor(), 0.5);
+        observed.observe(3.0);
+
+        BayesianNetwork bayesNet = new BayesianNetwork(A.getConnectedGraph());
+
+        NetworkSamples posteriorSamples = MetropolisHastings.withSliceSampling(random).getPosteriorSamples(
+            bayesNet,
+            Collections.singletonList(A),
+            20000
+        ).drop(1000);
+
+        double probabilityFloorIsObserved = posteriorSamples.getDoubleTensorSamples(A).asList().stream()
+            .filter(sample -> Math.floor(sample.scalar()) == 3.0)
+            .count() / (double) posteriorSamples.size();
+
+        assertEquals(3.5, posteriorSamples.getDoubleTensorSamples(A).getAverages().scalar(), 0.1);
+        assertEquals(1.0 / (1.0 + 2.0 * Math.exp(-2.0)), probabilityFloorIsObserved, 0.05);
+    }
+
+    @Test
+    public void sliceSamplesBoundedIntegerLatent() {
+        int min = 1;
+        int max = 20;
+        int observedCount = 5;
+        UniformIntVertex A = new UniformIntVertex(min, max);
+        A.setValue(10);
+        PoissonVertex observed = new PoissonVertex(A);
+        observed.observe(observedCount);
+
+        BayesianNetwork bayesNet = new BayesianNetwork(A.getConnectedGraph());
+
+        NetworkSamples posteriorSamples = MetropolisHastings.withSliceSampling(random).getPosteriorSamples(
+            bayesNet,
+            Collections.singletonList(A),
+            20000
+        ).drop(1000);
+
+        double normaliser = 0.0;
+        double expectedMean = 0.0;
+        for (int k = min; k < max; k++) {
+            double posterior = Math.pow(k, observedCount) * Math.exp(-k);
+            normaliser += posterior;
+            expectedMean += k * posterior;
+        }
+        expectedMean /= normaliser;
+
+        List<IntegerTensor> samples = posteriorSamples.getIntegerTensorSamples(A).asList();
+        double mean = samples.stream().mapToInt(IntegerTensor::scalar).average().orElse(Double.NaN);
+        boolean allWithinBounds = samples.stream().allMatch(sample -> sample.scalar() >= min && sample.scalar() < max);
+
+        assertEquals(expectedMean, mean, 0.2);
+        assertTrue(allWithinBounds);
+    }
+
+    @Test
+    public void mixesSliceSamplingWithProposalsInTheSameSweep() {
+        BayesianNetwork bayesNet = MCMCTestDistributions.createSumOfGaussianDistribution(20.0, 1.0, 46.0);
+        List<Vertex> latents = bayesNet.getLatentVertices();
+        Vertex sliceSampledLatent = latents.get(0);
+
+        NetworkSamples posteriorSamples = MetropolisHastings.builder()
+            .proposalDistribution(ProposalDistribution.usePrior())
+            .variableSelector(MHStepVariableSelector.FULL_VARIABLE_SELECTOR)
+            .sliceSampled(vertex -> vertex == sliceSampledLatent)
+            .random(random)
+            .build()
+            .getPosteriorSamples(bayesNet, latents, 20000)
+            .drop(1000);
+
+        MCMCTestDistributions.samplesMatchesSumOfGaussians(
+            44.0,
+            posteriorSamples.getDoubleTensorSamples(latents.get(0).getId()).asList(),
+            posteriorSamples.getDoubleTensorSamples(latents.get(1).getId()).asList()
+        );
+    }
+
     @Test
     public void doesNotDoExtraWorkOnRejectionWhenRejectionCacheEnabled() {
         AtomicInteger n = new AtomicInteger(0);
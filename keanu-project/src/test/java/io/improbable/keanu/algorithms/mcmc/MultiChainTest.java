@@ -0,0 +1,130 @@
+package io.improbable.keanu.algorithms.mcmc;
+
+import io.improbable.keanu.algorithms.NetworkSamples;
+import io.improbable.keanu.network.BayesianNetwork;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.Vertex;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MultiChainTest {
+
+    private static final MultiChain.ChainSampler METROPOLIS_HASTINGS = (net, vertices, count, random) ->
+        MetropolisHastings.withDefaultConfig(random).getPosteriorSamples(net, vertices, count);
+
+    @Test
+    public void everyChainSamplesThePosterior() {
+        BayesianNetwork bayesNet = MCMCTestDistributions.createSumOfGaussianDistribution(20.0, 1.0, 46.0);
+        List<Vertex> latents = bayesNet.getLatentVertices();
+
+        MultiChainSamples samples = MultiChain.builder()
+            .sampler(METROPOLIS_HASTINGS)
+            .chainCount(4)
+            .random(new KeanuRandom(1))
+            .build()
+            .getPosteriorSamples(
+                bayesNet,
+                () -> MCMCTestDistributions.createSumOfGaussianDistribution(20.0, 1.0, 46.0),
+                latents,
+                20000
+            );
+
+        assertEquals(4, samples.getChainCount());
+        for (NetworkSamples chain : samples.getChains()) {
+            assertEquals(20000, chain.size());
+        }
+
+        MultiChainSamples burntIn = samples.drop(1000);
+        NetworkSamples merged = burntIn.merged();
+        assertEquals(4 * 19000, merged.size());
+
+        MCMCTestDistributions.samplesMatchesSumOfGaussians(
+            44.0,
+            merged.getDoubleTensorSamples(latents.get(0).getId()).asList(),
+            merged.getDoubleTensorSamples(latents.get(1).getId()).asList()
+        );
+
+        for (Vertex latent : latents) {
+            double reduction = burntIn.getPotentialScaleReduction((Vertex<DoubleTensor>) latent).scalar();
+            assertTrue(reduction < 1.05);
+        }
+    }
+
+    @Test
+    public void chainsCanShareOneNetwork() {
+        BayesianNetwork bayesNet = MCMCTestDistributions.createSumOfGaussianDistribution(20.0, 1.0, 46.0);
+        List<Vertex> latents = bayesNet.getLatentVertices();
+        Object valueBeforeSampling = latents.get(0).getValue();
+
+        MultiChainSamples samples = MultiChain.builder()
+            .sampler(METROPOLIS_HASTINGS)
+            .chainCount(4)
+            .random(new KeanuRandom(1))
+            .build()
+            .getPosteriorSamples(bayesNet, latents, 20000)
+            .drop(1000);
+
+        NetworkSamples merged = samples.merged();
+        MCMCTestDistributions.samplesMatchesSumOfGaussians(
+            44.0,
+            merged.getDoubleTensorSamples(latents.get(0).getId()).asList(),
+            merged.getDoubleTensorSamples(latents.get(1).getId()).asList()
+        );
+
+        assertTrue(valueBeforeSampling == latents.get(0).getValue());
+    }
+
+    @Test
+    public void chainsAreReproducibleFromOneSeed() {
+        double[] first = sampleWithSeed(2);
+        double[] second = sampleWithSeed(2);
+
+        assertEquals(first.length, second.length);
+        for (int i = 0; i < first.length; i++) {
+            assertEquals(first[i], second[i], 0.0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCopiesThatShareVerticesWithTheNetwork() {
+        BayesianNetwork bayesNet = MCMCTestDistributions.createSumOfGaussianDistribution(20.0, 1.0, 46.0);
+
+        MultiChain.builder()
+            .sampler(METROPOLIS_HASTINGS)
+            .chainCount(2)
+            .build()
+            .getPosteriorSamples(bayesNet, () -> bayesNet, bayesNet.getLatentVertices(), 10);
+    }
+
+    private static double[] sampleWithSeed(long seed) {
+        //the order latents are visited in depends on their ids, so build the same ids each time
+        Vertex.ID_GENERATOR.set(1);
+        BayesianNetwork bayesNet = MCMCTestDistributions.createSumOfGaussianDistribution(20.0, 1.0, 46.0);
+        List<Vertex> latents = bayesNet.getLatentVertices();
+        latents.sort(Comparator.comparingLong(Vertex::getId));
+        Vertex<DoubleTensor> latent = latents.get(0);
+
+        NetworkSamples merged = MultiChain.builder()
+            .sampler(METROPOLIS_HASTINGS)
+            .chainCount(3)
+            .random(new KeanuRandom(seed))
+            .build()
+            .getPosteriorSamples(
+                bayesNet,
+                () -> MCMCTestDistributions.createSumOfGaussianDistribution(20.0, 1.0, 46.0),
+                latents,
+                500
+            )
+            .merged();
+
+        return merged.getDoubleTensorSamples(latent).asList().stream()
+            .mapToDouble(DoubleTensor::scalar)
+            .toArray();
+    }
+}
@@ -4,17 +4,25 @@ import io.improbable.keanu.algorithms.NetworkSamples;
 import io.improbable.keanu.network.BayesianNetwork;
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
 import io.improbable.keanu.vertices.Vertex;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
 import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import io.improbable.keanu.vertices.dbl.probabilistic.GaussianVertex;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
 public class NUTSTest {
 
     private KeanuRandom random;
 
     @Before
     public void setup() {
-        random = new KeanuRandom(1);
+        random = new KeanuRandom(4);
     }
 
     @Test
@@ -75,5 +83,60 @@ public class NUTSTest {
 
         MCMCTestDistributions.samplesMatch2DDonut(samples.get(A).asList(), samples.get(B).asList());
     }
-}
 
+    @Test
+    public void samplesBadlyScaledGaussiansWithDiagonalMassMatrix() {
+        DoubleVertex narrow = new GaussianVertex(0.0, 1.0);
+        DoubleVertex wide = new GaussianVertex(0.0, 100.0);
+        List<Vertex> vertices = new ArrayList<>(narrow.getConnectedGraph());
+        vertices.addAll(wide.getConnectedGraph());
+        BayesianNetwork bayesNet = new BayesianNetwork(vertices);
+
+        NetworkSamples samples = NUTS.getPosteriorSamples(
+            bayesNet,
+            Arrays.asList(narrow, wide),
+            2000,
+            500,
+            0.65,
+            MassMatrixAdaptation.DIAGONAL,
+            random
+        ).drop(500);
+
+        double[] narrowSamples = MCMCTestDistributions.scalars(samples.get(narrow).asList());
+        double[] wideSamples = MCMCTestDistributions.scalars(samples.get(wide).asList());
+
+        assertEquals(0.0, MCMCTestDistributions.mean(narrowSamples), 0.15);
+        assertEquals(1.0, MCMCTestDistributions.standardDeviation(narrowSamples), 0.1);
+        assertEquals(0.0, MCMCTestDistributions.mean(wideSamples), 15.0);
+        assertEquals(100.0, MCMCTestDistributions.standardDeviation(wideSamples), 10.0);
+    }
+
+    @Test
+    public void samplesCorrelatedGaussiansWithDenseMassMatrix() {
+        DoubleVertex A = new GaussianVertex(0.0, 1.0);
+        DoubleVertex B = new GaussianVertex(A, 0.1);
+        BayesianNetwork bayesNet = new BayesianNetwork(A.getConnectedGraph());
+
+        NetworkSamples samples = NUTS.getPosteriorSamples(
+            bayesNet,
+            Arrays.asList(A, B),
+            2000,
+            500,
+            0.65,
+            MassMatrixAdaptation.DENSE,
+            random
+        ).drop(500);
+
+        double[] aSamples = MCMCTestDistributions.scalars(samples.get(A).asList());
+        double[] bSamples = MCMCTestDistributions.scalars(samples.get(B).asList());
+        double[] differences = new double[aSamples.length];
+        for (int i = 0; i < aSamples.length; i++) {
+            differences[i] = bSamples[i] - aSamples[i];
+        }
+
+        assertEquals(0.0, MCMCTestDistributions.mean(aSamples), 0.15);
+        assertEquals(1.0, MCMCTestDistributions.standardDeviation(aSamples), 0.1);
+        assertEquals(0.0, MCMCTestDistributions.mean(differences), 0.02);
+        assertEquals(0.1, MCMCTestDistributions.standardDeviation(differences), 0.01);
+    }
+}
@@ -0,0 +1,85 @@
+package io.improbable.keanu.algorithms.mcmc;
+
+import io.improbable.keanu.algorithms.NetworkSamples;
+import io.improbable.keanu.algorithms.mcmc.proposal.ProposalDistribution;
+import io.improbable.keanu.network.BayesianNetwork;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.Vertex;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import io.improbable.keanu.vertices.dbl.probabilistic.GaussianVertex;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelTemperingTest {
+
+    @Test
+    public void samplesBothModesAtTemperatureOne() {
+        DoubleVertex x = new GaussianVertex(0.0, 10.0);
+        x.setValue(4.0);
+        DoubleVertex xSquared = new GaussianVertex(x.pow(2.0), 0.5);
+        xSquared.observe(16.0);
+        BayesianNetwork bayesNet = new BayesianNetwork(x.getConnectedGraph());
+
+        ParallelTemperingSamples samples = ParallelTempering.builder()
+            .temperatures(ParallelTempering.geometricLadder(8, 200.0))
+            .proposalDistribution(net -> ProposalDistribution.adaptiveRandomWalk(0.44, 2000))
+            .random(new KeanuRandom(1))
+            .build()
+            .getPosteriorSamples(bayesNet, Collections.singletonList(x), 30000);
+
+        List<DoubleTensor> xSamples = samples.getDoubleTensorSamples(x).asList();
+        double fractionPositive = xSamples.stream().filter(sample -> sample.scalar() > 0).count() / (double) xSamples.size();
+
+        assertEquals(30000, samples.size());
+        assertEquals(0.5, fractionPositive, 0.2);
+        for (int rung = 0; rung < 7; rung++) {
+            assertTrue(samples.getSwapsProposed(rung) > 0);
+            assertTrue(samples.getSwapAcceptanceRate(rung) > 0.05);
+        }
+    }
+
+    @Test
+    public void samplesPosteriorAndLeavesNetworkValuesAsTheyWere() {
+        BayesianNetwork bayesNet = MCMCTestDistributions.createSumOfGaussianDistribution(20.0, 1.0, 46.0);
+        List<Vertex> latents = bayesNet.getLatentVertices();
+        Object valueBeforeSampling = latents.get(0).getValue();
+
+        NetworkSamples samples = ParallelTempering.withDefaultConfig(new KeanuRandom(1))
+            .getPosteriorSamples(bayesNet, latents, 20000)
+            .drop(1000);
+
+        MCMCTestDistributions.samplesMatchesSumOfGaussians(
+            44.0,
+            samples.getDoubleTensorSamples(latents.get(0).getId()).asList(),
+            samples.getDoubleTensorSamples(latents.get(1).getId()).asList()
+        );
+        assertTrue(valueBeforeSampling == latents.get(0).getValue());
+    }
+
+    @Test
+    public void geometricLadderHasConstantRatio() {
+        List<Double> ladder = ParallelTempering.geometricLadder(3, 100.0);
+
+        assertEquals(3, ladder.size());
+        assertEquals(1.0, ladder.get(0), 1e-12);
+        assertEquals(10.0, ladder.get(1), 1e-12);
+        assertEquals(100.0, ladder.get(2), 1e-12);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsLadderThatDoesNotStartAtOne() {
+        BayesianNetwork bayesNet = MCMCTestDistributions.createSumOfGaussianDistribution(20.0, 1.0, 46.0);
+
+        ParallelTempering.builder()
+            .temperatures(Arrays.asList(2.0, 4.0))
+            .build()
+            .getPosteriorSamples(bayesNet, bayesNet.getLatentVertices(), 10);
+    }
+}
@@ -0,0 +1,150 @@
+package io.improbable.keanu.algorithms.mcmc.conjugacy;
+
+import io.improbable.keanu.distributions.ContinuousDistribution;
+import io.improbable.keanu.distributions.continuous.Beta;
+import io.improbable.keanu.distributions.continuous.Gamma;
+import io.improbable.keanu.distributions.continuous.Gaussian;
+import io.improbable.keanu.distributions.continuous.InverseGamma;
+import io.improbable.keanu.network.BayesianNetwork;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.ConstantVertex;
+import io.improbable.keanu.vertices.Vertex;
+import io.improbable.keanu.vertices.bool.nonprobabilistic.operators.binary.compare.GreaterThanVertex;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.BetaVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.GammaVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.GaussianVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.InverseGammaVertex;
+import io.improbable.keanu.vertices.generic.nonprobabilistic.If;
+import io.improbable.keanu.vertices.intgr.probabilistic.BinomialVertex;
+import io.improbable.keanu.vertices.intgr.probabilistic.PoissonVertex;
+import io.improbable.keanu.vertices.intgr.probabilistic.UniformIntVertex;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConjugacyDetectorTest {
+
+    @Test
+    public void gaussianMeanOfGaussiansHasPrecisionWeightedFullConditional() {
+        GaussianVertex mu = new GaussianVertex(0.0, 2.0);
+        GaussianVertex y = new GaussianVertex(new int[]{1, 3}, mu, 1.0);
+        y.observe(new double[]{1.0, 2.0, 3.0});
+
+        double precision = 1.0 / 4.0 + 3.0;
+        assertMatches(
+            Gaussian.withParameters(DoubleTensor.scalar(6.0 / precision), DoubleTensor.scalar(1.0 / Math.sqrt(precision))),
+            ConjugacyDetector.detect(mu)
+        );
+    }
+
+    @Test
+    public void gammaRatesPickedBySwitchpointAreConjugate() {
+        UniformIntVertex switchpoint = new UniformIntVertex(0, 6);
+        GammaVertex earlyRate = new GammaVertex(0.0, 1.0, 2.0);
+        GammaVertex lateRate = new GammaVertex(0.0, 1.0, 2.0);
+
+        DoubleVertex rateForYear = If.isTrue(new GreaterThanVertex<>(switchpoint, ConstantVertex.of(new int[]{0, 1, 2, 3, 4, 5})))
+            .then(earlyRate)
+            .orElse(lateRate);
+
+        PoissonVertex disastersForYear = new PoissonVertex(rateForYear);
+        disastersForYear.observe(new int[]{4, 5, 3, 1, 0, 2});
+        switchpoint.setValue(2);
+
+        BayesianNetwork bayesNet = new BayesianNetwork(switchpoint.getConnectedGraph());
+        Map<Vertex, FullConditional> fullConditionals = ConjugacyDetector.detect(bayesNet);
+
+        assertTrue(fullConditionals.containsKey(earlyRate));
+        assertTrue(fullConditionals.containsKey(lateRate));
+        assertFalse(fullConditionals.containsKey(switchpoint));
+
+        assertMatches(
+            Gamma.withParameters(DoubleTensor.scalar(0.0), DoubleTensor.scalar(1.0 / 3.0), DoubleTensor.scalar(2.0 + 9.0)),
+            fullConditionals.get(earlyRate)
+        );
+        assertMatches(
+            Gamma.withParameters(DoubleTensor.scalar(0.0), DoubleTensor.scalar(1.0 / 5.0), DoubleTensor.scalar(2.0 + 6.0)),
+            fullConditionals.get(lateRate)
+        );
+    }
+
+    @Test
+    public void betaProbabilityOfBinomialsIsConjugate() {
+        BetaVertex p = new BetaVertex(2.0, 3.0);
+        BinomialVertex successes = new BinomialVertex(new int[]{1, 2}, p, 10);
+        successes.observe(new int[]{7, 4});
+
+        assertMatches(
+            Beta.withParameters(DoubleTensor.scalar(2.0 + 11.0), DoubleTensor.scalar(3.0 + 9.0), DoubleTensor.scalar(0.), DoubleTensor.scalar(1.)),
+            ConjugacyDetector.detect(p)
+        );
+    }
+
+    @Test
+    public void inverseGammaVarianceOfGaussiansIsConjugate() {
+        InverseGammaVertex variance = new InverseGammaVertex(3.0, 2.0);
+        GaussianVertex y = new GaussianVertex(new int[]{1, 2}, ConstantVertex.of(1.0), variance.pow(0.5));
+        y.observe(new double[]{3.0, 0.0});
+
+        assertMatches(
+            InverseGamma.withParameters(DoubleTensor.scalar(3.0 + 1.0), DoubleTensor.scalar(2.0 + 5.0 / 2.0)),
+            ConjugacyDetector.detect(variance)
+        );
+    }
+
+    @Test
+    public void elementsOfTensorLatentMatchElementsOfChildren() {
+        GaussianVertex mu = new GaussianVertex(new int[]{1, 2}, 0.0, 1.0);
+        GaussianVertex y = new GaussianVertex(mu, 1.0);
+        y.observe(new double[]{2.0, -4.0});
+
+        assertMatches(
+            Gaussian.withParameters(DoubleTensor.create(new double[]{1.0, -2.0}, 1, 2), DoubleTensor.scalar(Math.sqrt(0.5))),
+            ConjugacyDetector.detect(mu)
+        );
+    }
+
+    @Test
+    public void isNotConjugateWhenAnotherParameterDependsOnTheLatent() {
+        GaussianVertex mu = new GaussianVertex(0.0, 1.0);
+        GaussianVertex y = new GaussianVertex(mu, mu.pow(2.0).plus(1.0));
+        y.observe(1.0);
+
+        assertNull(ConjugacyDetector.detect(mu));
+    }
+
+    @Test
+    public void isNotConjugateWhenTheLatentIsTransformed() {
+        GaussianVertex mu = new GaussianVertex(0.0, 1.0);
+        GaussianVertex y = new GaussianVertex(mu.plus(1.0), 1.0);
+        y.observe(1.0);
+
+        assertNull(ConjugacyDetector.detect(mu));
+    }
+
+    @Test
+    public void isNotConjugateWhenAnyChildIsOfAnotherType() {
+        GaussianVertex mu = new GaussianVertex(0.0, 1.0);
+        GaussianVertex y = new GaussianVertex(mu, 1.0);
+        PoissonVertex count = new PoissonVertex(mu);
+        y.observe(1.0);
+        count.observe(1);
+
+        assertNull(ConjugacyDetector.detect(mu));
+    }
+
+    private static void assertMatches(ContinuousDistribution expected, FullConditional actual) {
+        ContinuousDistribution distribution = actual.distribution();
+        for (double x : Arrays.asList(0.1, 0.5, 0.9, 1.7, 4.2)) {
+            DoubleTensor at = DoubleTensor.create(x, actual.getVertex().getValue().getShape());
+            assertEquals(expected.logProb(at).sum(), distribution.logProb(at).sum(), 1e-9);
+        }
+    }
+}
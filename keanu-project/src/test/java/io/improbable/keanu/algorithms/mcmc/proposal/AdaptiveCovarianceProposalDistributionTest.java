@@ -0,0 +1,115 @@
+package io.improbable.keanu.algorithms.mcmc.proposal;
+
+import io.improbable.keanu.algorithms.NetworkSamples;
+import io.improbable.keanu.algorithms.mcmc.MetropolisHastings;
+import io.improbable.keanu.network.BayesianNetwork;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.Vertex;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import io.improbable.keanu.vertices.dbl.probabilistic.GaussianVertex;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static io.improbable.keanu.algorithms.mcmc.proposal.MHStepVariableSelector.FULL_VARIABLE_SELECTOR;
+import static org.junit.Assert.assertEquals;
+
+public class AdaptiveCovarianceProposalDistributionTest {
+
+    /**
+     * A and B have independent standard normal priors but their sum is observed precisely, so their
+     * posterior has a correlation of -100/101, variances of 101/201 and a covariance of -100/201.
+     */
+    @Test
+    public void samplesStronglyCorrelatedPosterior() {
+        DoubleVertex A = new GaussianVertex(0.0, 1.0);
+        DoubleVertex B = new GaussianVertex(0.0, 1.0);
+        A.setValue(0.0);
+        B.setValue(0.0);
+        DoubleVertex C = new GaussianVertex(A.plus(B), 0.1);
+        C.observe(0.0);
+
+        NetworkSamples samples = MetropolisHastings.builder()
+            .proposalDistribution(ProposalDistribution.adaptiveCovariance(5000))
+            .variableSelector(FULL_VARIABLE_SELECTOR)
+            .random(new KeanuRandom(1))
+            .build()
+            .getPosteriorSamples(new BayesianNetwork(Arrays.asList(A, B, C)), Arrays.asList(A, B), 60000)
+            .drop(10000);
+
+        double[] a = flatten(samples.getDoubleTensorSamples(A).asList());
+        double[] b = flatten(samples.getDoubleTensorSamples(B).asList());
+
+        assertEquals(0.0, mean(a), 0.05);
+        assertEquals(101.0 / 201.0, covariance(a, a), 0.05);
+        assertEquals(101.0 / 201.0, covariance(b, b), 0.05);
+        assertEquals(-100.0 / 201.0, covariance(a, b), 0.05);
+    }
+
+    @Test
+    public void logProbOfNonConjugateDoubleVertexIsItsIsotropicStepBeforeItIsProposedFor() {
+        DoubleVertex A = new GaussianVertex(new int[]{1, 2}, 0.0, 1.0);
+        A.setValue(DoubleTensor.create(new double[]{0.0, 0.0}, 1, 2));
+        DoubleVertex nonConjugateChild = new GaussianVertex(A.exp(), 1.0);
+        nonConjugateChild.observe(DoubleTensor.create(new double[]{1.0, 1.0}, 1, 2));
+        BayesianNetwork bayesNet = new BayesianNetwork(A.getConnectedGraph());
+
+        DoubleTensor of = DoubleTensor.create(new double[]{0.3, -0.2}, 1, 2);
+        DoubleTensor given = DoubleTensor.create(new double[]{0.1, 0.1}, 1, 2);
+        double expected = gaussianLogProb(0.2, 0.1) + gaussianLogProb(-0.3, 0.1);
+
+        assertEquals(expected, ProposalDistribution.adaptiveCovariance(100).logProb(A, of, given), 1e-10);
+        assertEquals(expected, ProposalDistribution.conjugateGibbs(bayesNet, ProposalDistribution.adaptiveCovariance(100)).logProb(A, of, given), 1e-10);
+    }
+
+    @Test
+    public void logProbOfDoubleVertexIsItsMarginalStepOnceItsBlockIsLearnt() {
+        DoubleVertex A = new GaussianVertex(0.0, 1.0);
+        DoubleVertex B = new GaussianVertex(0.0, 1.0);
+        A.setValue(0.0);
+        B.setValue(0.0);
+        Set<Vertex> block = new HashSet<>(Arrays.asList(A, B));
+
+        AdaptiveCovarianceProposalDistribution proposalDistribution = new AdaptiveCovarianceProposalDistribution(1.0, 100);
+        KeanuRandom random = new KeanuRandom(1);
+        double[] a = new double[50];
+        for (int i = 0; i < a.length; i++) {
+            Proposal proposal = proposalDistribution.getProposal(block, random);
+            proposal.apply();
+            proposalDistribution.adapt(proposal, true, 1.0);
+            a[i] = A.getValue().scalar();
+        }
+
+        double standardDeviation = Math.sqrt(2.38 * 2.38 / 2 * covariance(a, a));
+        double logProb = proposalDistribution.logProb(A, DoubleTensor.scalar(0.5), DoubleTensor.scalar(0.1));
+
+        assertEquals(gaussianLogProb(0.4, standardDeviation), logProb, 1e-4);
+    }
+
+    private static double gaussianLogProb(double step, double standardDeviation) {
+        double z = step / standardDeviation;
+        return -0.5 * z * z - Math.log(standardDeviation) - 0.5 * Math.log(2 * Math.PI);
+    }
+
+    private static double[] flatten(List<DoubleTensor> samples) {
+        return samples.stream().mapToDouble(DoubleTensor::scalar).toArray();
+    }
+
+    private static double mean(double[] x) {
+        return Arrays.stream(x).average().getAsDouble();
+    }
+
+    private static double covariance(double[] x, double[] y) {
+        double meanX = mean(x);
+        double meanY = mean(y);
+        double sum = 0.0;
+        for (int i = 0; i < x.length; i++) {
+            sum += (x[i] - meanX) * (y[i] - meanY);
+        }
+        return sum / (x.length - 1);
+    }
+}
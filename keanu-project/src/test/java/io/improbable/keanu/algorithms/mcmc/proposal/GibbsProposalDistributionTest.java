@@ -0,0 +1,132 @@
+package io.improbable.keanu.algorithms.mcmc.proposal;
+
+import io.improbable.keanu.algorithms.NetworkSamples;
+import io.improbable.keanu.algorithms.mcmc.MetropolisHastings;
+import io.improbable.keanu.network.BayesianNetwork;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.ConstantVertex;
+import io.improbable.keanu.vertices.bool.nonprobabilistic.operators.binary.compare.GreaterThanVertex;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import io.improbable.keanu.vertices.dbl.probabilistic.BetaVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.GammaVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.GaussianVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.InverseGammaVertex;
+import io.improbable.keanu.vertices.generic.nonprobabilistic.If;
+import io.improbable.keanu.vertices.intgr.probabilistic.BinomialVertex;
+import io.improbable.keanu.vertices.intgr.probabilistic.PoissonVertex;
+import io.improbable.keanu.vertices.intgr.probabilistic.UniformIntVertex;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static io.improbable.keanu.algorithms.mcmc.proposal.MHStepVariableSelector.FULL_VARIABLE_SELECTOR;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GibbsProposalDistributionTest {
+
+    private KeanuRandom random;
+
+    @Before
+    public void setup() {
+        random = new KeanuRandom(1);
+    }
+
+    @Test
+    public void everyGibbsStepIsAccepted() {
+        BetaVertex p = new BetaVertex(2.0, 2.0);
+        BinomialVertex successes = new BinomialVertex(p, 10);
+        successes.observe(7);
+
+        BayesianNetwork bayesNet = new BayesianNetwork(p.getConnectedGraph());
+        bayesNet.probeForNonZeroProbability(100, random);
+
+        NetworkSamples samples = MetropolisHastings.builder()
+            .proposalDistribution(ProposalDistribution.conjugateGibbs(bayesNet))
+            .random(random)
+            .build()
+            .getPosteriorSamples(bayesNet, bayesNet.getLatentVertices(), 20000);
+
+        List<DoubleTensor> pSamples = samples.getDoubleTensorSamples(p).asList();
+        assertEquals(pSamples.size(), new HashSet<>(pSamples).size());
+        assertEquals(9.0 / 14.0, samples.getDoubleTensorSamples(p).getAverages().scalar(), 0.01);
+    }
+
+    @Test
+    public void mixesGibbsStepsForRatesWithMetropolisHastingsStepsForSwitchpoint() {
+        int yearCount = 40;
+        int[] years = new int[yearCount];
+        int[] disasters = new int[yearCount];
+        for (int year = 0; year < yearCount; year++) {
+            years[year] = year;
+            disasters[year] = random.nextPoisson(year < 25 ? 5.0 : 1.0);
+        }
+
+        UniformIntVertex switchpoint = new UniformIntVertex(0, yearCount);
+        GammaVertex earlyRate = new GammaVertex(0.0, 10.0, 1.0);
+        GammaVertex lateRate = new GammaVertex(0.0, 10.0, 1.0);
+
+        DoubleVertex rateForYear = If.isTrue(new GreaterThanVertex<>(switchpoint, ConstantVertex.of(years)))
+            .then(earlyRate)
+            .orElse(lateRate);
+
+        PoissonVertex disastersForYear = new PoissonVertex(rateForYear);
+        disastersForYear.observe(disasters);
+
+        BayesianNetwork bayesNet = new BayesianNetwork(switchpoint.getConnectedGraph());
+        bayesNet.probeForNonZeroProbability(100, random);
+
+        GibbsProposalDistribution proposal = new GibbsProposalDistribution(bayesNet, ProposalDistribution.usePrior());
+        assertEquals(new HashSet<>(Arrays.asList(earlyRate, lateRate)), proposal.getGibbsVertices());
+
+        NetworkSamples samples = MetropolisHastings.builder()
+            .proposalDistribution(proposal)
+            .random(random)
+            .build()
+            .getPosteriorSamples(bayesNet, bayesNet.getLatentVertices(), 6000)
+            .drop(1000);
+
+        assertEquals(25, samples.getIntegerTensorSamples(switchpoint).getScalarMode(), 2);
+        assertEquals(5.0, samples.getDoubleTensorSamples(earlyRate).getAverages().scalar(), 1.0);
+        assertEquals(1.0, samples.getDoubleTensorSamples(lateRate).getAverages().scalar(), 0.5);
+    }
+
+    @Test
+    public void blocksOfGibbsStepsStayExact() {
+        double[] observations = new double[30];
+        for (int i = 0; i < observations.length; i++) {
+            observations[i] = 3.0 + 2.0 * random.nextGaussian();
+        }
+        double mean = Arrays.stream(observations).average().getAsDouble();
+
+        GaussianVertex mu = new GaussianVertex(0.0, 100.0);
+        InverseGammaVertex variance = new InverseGammaVertex(2.0, 2.0);
+        GaussianVertex y = new GaussianVertex(new int[]{1, observations.length}, mu, variance.pow(0.5));
+        y.observe(observations);
+
+        BayesianNetwork bayesNet = new BayesianNetwork(mu.getConnectedGraph());
+        bayesNet.probeForNonZeroProbability(100, random);
+
+        NetworkSamples samples = MetropolisHastings.builder()
+            .proposalDistribution(ProposalDistribution.conjugateGibbs(bayesNet))
+            .variableSelector(FULL_VARIABLE_SELECTOR)
+            .random(random)
+            .build()
+            .getPosteriorSamples(bayesNet, bayesNet.getLatentVertices(), 20000)
+            .drop(1000);
+
+        double sumOfSquares = 0.0;
+        for (double observation : observations) {
+            sumOfSquares += (observation - mean) * (observation - mean);
+        }
+        double expectedVariance = (2.0 + sumOfSquares / 2.0) / (2.0 + observations.length / 2.0 - 1.0);
+
+        assertEquals(mean, samples.getDoubleTensorSamples(mu).getAverages().scalar(), 0.05);
+        assertEquals(expectedVariance, samples.getDoubleTensorSamples(variance).getAverages().scalar(), 0.1 * expectedVariance);
+        assertTrue(expectedVariance > 1.0);
+    }
+}
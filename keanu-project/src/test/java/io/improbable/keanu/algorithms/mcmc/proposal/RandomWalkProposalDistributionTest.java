@@ -0,0 +1,103 @@
+package io.improbable.keanu.algorithms.mcmc.proposal;
+
+import io.improbable.keanu.algorithms.NetworkSamples;
+import io.improbable.keanu.algorithms.mcmc.MetropolisHastings;
+import io.improbable.keanu.network.BayesianNetwork;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.tensor.intgr.IntegerTensor;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import io.improbable.keanu.vertices.dbl.probabilistic.GaussianVertex;
+import io.improbable.keanu.vertices.intgr.probabilistic.PoissonVertex;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RandomWalkProposalDistributionTest {
+
+    private KeanuRandom random;
+
+    @Before
+    public void setup() {
+        random = new KeanuRandom(1);
+    }
+
+    @Test
+    public void samplesPosteriorOfSumOfGaussians() {
+        DoubleVertex A = new GaussianVertex(20.0, 1.0);
+        DoubleVertex B = new GaussianVertex(20.0, 1.0);
+        A.setValue(20.0);
+        B.setValue(20.0);
+        DoubleVertex C = new GaussianVertex(A.plus(B), 1.0);
+        C.observe(46.0);
+
+        BayesianNetwork bayesNet = new BayesianNetwork(Arrays.asList(A, B, C));
+
+        NetworkSamples samples = MetropolisHastings.builder()
+            .proposalDistribution(ProposalDistribution.adaptiveRandomWalk(0.44, 2000))
+            .random(random)
+            .build()
+            .getPosteriorSamples(bayesNet, Arrays.asList(A, B), 50000)
+            .drop(5000);
+
+        double sum = samples.getDoubleTensorSamples(A).getAverages().scalar() + samples.getDoubleTensorSamples(B).getAverages().scalar();
+        assertEquals(44.0, sum, 0.1);
+    }
+
+    @Test
+    public void tunesScaleTowardTargetAcceptance() {
+        DoubleVertex A = new GaussianVertex(0.0, 10.0);
+        A.setValue(0.0);
+        RandomWalkProposalDistribution proposal = new RandomWalkProposalDistribution(0.1, 0.44, 5000);
+
+        MetropolisHastings.builder()
+            .proposalDistribution(proposal)
+            .random(random)
+            .build()
+            .getPosteriorSamples(new BayesianNetwork(Collections.singletonList(A)), Collections.singletonList(A), 5000);
+
+        double scale = proposal.getScale(A);
+        assertTrue("scale was " + scale, scale > 10.0 && scale < 50.0);
+    }
+
+    @Test
+    public void stepsIntegersByUpToTheirScale() {
+        PoissonVertex A = new PoissonVertex(10.0);
+        A.setValue(10);
+
+        NetworkSamples samples = MetropolisHastings.builder()
+            .proposalDistribution(ProposalDistribution.randomWalk(2.0))
+            .random(random)
+            .build()
+            .getPosteriorSamples(new BayesianNetwork(Collections.singletonList(A)), Collections.singletonList(A), 40000);
+
+        double average = samples.getIntegerTensorSamples(A).asList().stream()
+            .mapToInt(IntegerTensor::scalar)
+            .average()
+            .getAsDouble();
+        assertEquals(10.0, average, 0.2);
+
+        ProposalDistribution proposal = ProposalDistribution.randomWalk(2.0);
+        IntegerTensor from = IntegerTensor.scalar(5);
+        assertEquals(-Math.log(4.0), proposal.logProb(A, IntegerTensor.scalar(7), from), 1e-12);
+        assertEquals(Double.NEGATIVE_INFINITY, proposal.logProb(A, IntegerTensor.scalar(8), from), 0.0);
+        assertEquals(Double.NEGATIVE_INFINITY, proposal.logProb(A, IntegerTensor.scalar(5), from), 0.0);
+    }
+
+    @Test
+    public void gaussianStepsAreSymmetric() {
+        DoubleVertex A = new GaussianVertex(0.0, 1.0);
+        ProposalDistribution proposal = ProposalDistribution.randomWalk(0.5);
+
+        DoubleTensor x = DoubleTensor.scalar(0.3);
+        DoubleTensor y = DoubleTensor.scalar(1.1);
+
+        assertEquals(proposal.logProb(A, x, y), proposal.logProb(A, y, x), 0.0);
+        assertEquals(-0.5 * Math.pow(0.8 / 0.5, 2) - Math.log(0.5) - 0.5 * Math.log(2 * Math.PI), proposal.logProb(A, x, y), 1e-12);
+    }
+}
@@ -0,0 +1,74 @@
+package io.improbable.keanu.distributions;
+
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.tensor.intgr.IntegerTensor;
+import org.apache.commons.math3.special.Gamma;
+import org.apache.commons.math3.util.CombinatoricsUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SpecialFunctionsTest {
+
+    @Test
+    public void logFactorialMatchesFactorialForSmallValues() {
+        for (int k = 0; k <= 20; k++) {
+            assertEquals(Math.log(CombinatoricsUtils.factorial(k)), SpecialFunctions.logFactorial(k), 1e-12);
+        }
+    }
+
+    @Test
+    public void logFactorialMatchesLogGammaBeyondTable() {
+        for (int k : new int[]{1023, 1024, 1025, 100000}) {
+            assertEquals(Gamma.logGamma(k + 1.0), SpecialFunctions.logFactorial(k), 1e-9);
+        }
+    }
+
+    @Test
+    public void logGammaUsesTableForIntegersAndMatchesOtherwise() {
+        assertEquals(Gamma.logGamma(7.0), SpecialFunctions.logGamma(7.0), 1e-12);
+        assertEquals(Gamma.logGamma(0.3), SpecialFunctions.logGamma(0.3), 0.0);
+        assertEquals(Gamma.logGamma(2500.5), SpecialFunctions.logGamma(2500.5), 0.0);
+    }
+
+    @Test
+    public void logBinomialCoefficientDoesNotOverflow() {
+        assertEquals(Math.log(CombinatoricsUtils.binomialCoefficient(60, 25)), SpecialFunctions.logBinomialCoefficient(60, 25), 1e-9);
+        assertEquals(CombinatoricsUtils.binomialCoefficientLog(5000, 2000), SpecialFunctions.logBinomialCoefficient(5000, 2000), 1e-8);
+        assertEquals(Double.NEGATIVE_INFINITY, SpecialFunctions.logBinomialCoefficient(5, 6), 0.0);
+    }
+
+    @Test
+    public void xLogYIsZeroWhenXIsZero() {
+        assertEquals(0.0, SpecialFunctions.xLogY(0, 0), 0.0);
+        assertEquals(0.0, SpecialFunctions.xLog1pY(0, -1), 0.0);
+        assertEquals(2 * Math.log(3), SpecialFunctions.xLogY(2, 3), 1e-15);
+    }
+
+    @Test
+    public void log1pExpAndLog1mExpAreStable() {
+        assertEquals(800.0, SpecialFunctions.log1pExp(800.0), 1e-12);
+        assertEquals(Math.exp(-800.0), SpecialFunctions.log1pExp(-800.0), 0.0);
+        assertEquals(Math.log(1 - Math.exp(-2.0)), SpecialFunctions.log1mExp(-2.0), 1e-15);
+        assertEquals(Math.log(1e-20), SpecialFunctions.log1mExp(-1e-20), 1e-12);
+    }
+
+    @Test
+    public void tensorFunctionsAreElementwise() {
+        DoubleTensor x = DoubleTensor.create(new double[]{0.5, 3.0, 10.5, 200.0}, new int[]{2, 2});
+
+        DoubleTensor logGamma = SpecialFunctions.logGamma(x);
+        DoubleTensor digamma = SpecialFunctions.digamma(x);
+
+        assertArrayEquals(x.getShape(), logGamma.getShape());
+        double[] values = x.asFlatDoubleArray();
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(Gamma.logGamma(values[i]), logGamma.asFlatDoubleArray()[i], 1e-9);
+            assertEquals(Gamma.digamma(values[i]), digamma.asFlatDoubleArray()[i], 1e-12);
+        }
+
+        DoubleTensor logFactorial = SpecialFunctions.logFactorial(IntegerTensor.create(new int[]{0, 1, 5}));
+        assertArrayEquals(new double[]{0, 0, Math.log(120)}, logFactorial.asFlatDoubleArray(), 1e-12);
+    }
+}
@@ -0,0 +1,112 @@
+package io.improbable.keanu.tensor;
+
+import io.improbable.keanu.distributions.discrete.Poisson;
+import io.improbable.keanu.tensor.bool.BooleanTensor;
+import io.improbable.keanu.tensor.bool.SimpleBooleanTensor;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.tensor.intgr.IntegerTensor;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.function.IntToDoubleFunction;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ParallelLoopsTest {
+
+    private static final int LENGTH = 3 * ParallelLoops.BLOCK_SIZE + 17;
+
+    private int originalThreshold;
+
+    @Before
+    public void lowerThreshold() {
+        originalThreshold = ParallelLoops.getThreshold();
+        ParallelLoops.setThreshold(ParallelLoops.BLOCK_SIZE);
+    }
+
+    @After
+    public void restoreThreshold() {
+        ParallelLoops.setThreshold(originalThreshold);
+    }
+
+    @Test
+    public void visitsEveryIndexOnce() {
+        int[] visits = new int[LENGTH];
+        ParallelLoops.forEach(LENGTH, i -> visits[i]++);
+
+        for (int visit : visits) {
+            assertEquals(1, visit);
+        }
+    }
+
+    @Test
+    public void sumIsTheSameInParallelAndSequentially() {
+        IntToDoubleFunction term = i -> 1.0 / (i + 1);
+
+        double parallelSum = ParallelLoops.sum(LENGTH, term);
+        ParallelLoops.setThreshold(Integer.MAX_VALUE);
+        double sequentialSum = ParallelLoops.sum(LENGTH, term);
+
+        assertEquals(sequentialSum, parallelSum, 0.0);
+    }
+
+    @Test
+    public void parallelIntegerOpsMatchExpected() {
+        int[] values = new int[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            values[i] = i;
+        }
+        IntegerTensor tensor = IntegerTensor.create(values, 1, LENGTH);
+
+        IntegerTensor result = tensor.times(2).plusInPlace(tensor);
+
+        assertEquals(3 * (LENGTH - 1), (int) result.getValue(0, LENGTH - 1));
+        assertEquals((int) (3L * LENGTH * (LENGTH - 1) / 2), (int) result.sum());
+    }
+
+    @Test
+    public void parallelSamplingIsReproducibleWithSeed() {
+        int[] shape = new int[]{1, LENGTH};
+        DoubleTensor mu = DoubleTensor.scalar(3.0);
+
+        IntegerTensor first = Poisson.withParameters(mu).sample(shape, new KeanuRandom(1));
+        IntegerTensor second = Poisson.withParameters(mu).sample(shape, new KeanuRandom(1));
+
+        assertArrayEquals(first.asFlatIntegerArray(), second.asFlatIntegerArray());
+        assertEquals(3.0, first.toDouble().average(), 0.05);
+    }
+
+    @Test
+    public void parallelFlattenedViewSelectionsMatchSequential() {
+        boolean[] predicate = new boolean[LENGTH];
+        double[] values = new double[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            predicate[i] = i % 3 == 0;
+            values[i] = i;
+        }
+        BooleanTensor bitSetPredicate = BooleanTensor.create(predicate, 1, LENGTH);
+        BooleanTensor simplePredicate = new SimpleBooleanTensor(predicate, new int[]{1, LENGTH});
+        DoubleTensor trueValues = DoubleTensor.create(values, 1, LENGTH);
+        DoubleTensor falseValues = DoubleTensor.scalar(-1.0);
+
+        Tensor<Double> parallelBitSet = bitSetPredicate.setIf(trueValues, trueValues.unaryMinus());
+        DoubleTensor parallelSimple = simplePredicate.setDoubleIf(trueValues, falseValues);
+        ParallelLoops.setThreshold(Integer.MAX_VALUE);
+        Tensor<Double> sequentialBitSet = bitSetPredicate.setIf(trueValues, trueValues.unaryMinus());
+        DoubleTensor sequentialSimple = simplePredicate.setDoubleIf(trueValues, falseValues);
+
+        assertArrayEquals(sequentialBitSet.asFlatArray(), parallelBitSet.asFlatArray());
+        assertArrayEquals(sequentialSimple.asFlatDoubleArray(), parallelSimple.asFlatDoubleArray(), 0.0);
+        assertEquals(-1.0, parallelSimple.getValue(0, 1), 0.0);
+        assertEquals(3.0, parallelSimple.getValue(0, 3), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveThreshold() {
+        ParallelLoops.setThreshold(0);
+    }
+
+}
@@ -52,4 +52,13 @@ public class TensorShapeTest {
             assertEquals(i, tensor.getValue(indexOfi), 1e-10);
         }
     }
+
+    @Test
+    public void canGetReducedFlatIndices() {
+        int[] shape = new int[]{2, 3, 2};
+
+        assertArrayEquals(new int[]{0, 1, 0, 1, 0, 1, 2, 3, 2, 3, 2, 3}, TensorShape.getReducedFlatIndices(shape, 1));
+        assertArrayEquals(new int[]{0, 0, 1, 1, 2, 2, 0, 0, 1, 1, 2, 2}, TensorShape.getReducedFlatIndices(shape, 0, 2));
+        assertArrayEquals(new int[]{0, 1, 2, 0, 1, 2}, TensorShape.getReducedFlatIndices(new int[]{2, 3}, 0));
+    }
 }
@@ -0,0 +1,161 @@
+package io.improbable.keanu.tensor.bool;
+
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.tensor.intgr.IntegerTensor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class BitSetBooleanTensorTest {
+
+    private static final int LENGTH_ACROSS_WORDS = 130;
+
+    BooleanTensor matrixA;
+    BooleanTensor matrixB;
+    BooleanTensor matrixC;
+
+    @Before
+    public void setup() {
+        matrixA = BooleanTensor.create(new boolean[]{true, false, true, false}, new int[]{2, 2});
+        matrixB = BooleanTensor.create(new boolean[]{false, false, true, true}, new int[]{2, 2});
+        matrixC = BooleanTensor.create(new boolean[]{true, true, true, false}, new int[]{2, 2});
+    }
+
+    @Test
+    public void factoryMethodsCreateBitSetBooleanTensors() {
+        assertTrue(BooleanTensor.create(new boolean[]{true, false}) instanceof BitSetBooleanTensor);
+        assertTrue(BooleanTensor.create(true, new int[]{2, 2}) instanceof BitSetBooleanTensor);
+        assertTrue(BooleanTensor.scalar(true) instanceof BitSetBooleanTensor);
+        assertTrue(DoubleTensor.create(new double[]{1, 2}).lessThan(2.0) instanceof BitSetBooleanTensor);
+    }
+
+    @Test
+    public void doesElementwiseAndOrNot() {
+        assertArrayEquals(new Boolean[]{false, false, true, false}, matrixA.and(matrixB).asFlatArray());
+        assertArrayEquals(new Boolean[]{true, false, true, true}, matrixA.or(matrixB).asFlatArray());
+        assertArrayEquals(new Boolean[]{false, true, false, true}, matrixA.not().asFlatArray());
+        assertArrayEquals(new Boolean[]{true, false, true, false}, matrixA.asFlatArray());
+    }
+
+    @Test
+    public void doesElementwiseAndWithOtherImplementation() {
+        BooleanTensor simple = new SimpleBooleanTensor(new boolean[]{false, false, true, true}, new int[]{2, 2});
+        assertArrayEquals(new Boolean[]{false, false, true, false}, matrixA.and(simple).asFlatArray());
+    }
+
+    @Test
+    public void doesElementwiseAndWithScalar() {
+        assertArrayEquals(new Boolean[]{true, false, true, false}, matrixA.and(BooleanTensor.scalar(true)).asFlatArray());
+        assertTrue(matrixA.and(BooleanTensor.scalar(false)).allFalse());
+    }
+
+    @Test
+    public void doesNotSetBitsPastEndOfTensor() {
+        BooleanTensor allFalse = BooleanTensor.create(false, new int[]{1, LENGTH_ACROSS_WORDS});
+        BooleanTensor allTrue = allFalse.not();
+
+        assertTrue(allTrue.allTrue());
+        assertFalse(allTrue.allFalse());
+        assertEquals(LENGTH_ACROSS_WORDS, ((BitSetBooleanTensor) allTrue).countTrue());
+        assertTrue(allTrue.not().allFalse());
+    }
+
+    @Test
+    public void doesAllTrueAndAllFalseAcrossWords() {
+        boolean[] data = new boolean[LENGTH_ACROSS_WORDS];
+        Arrays.fill(data, true);
+        data[LENGTH_ACROSS_WORDS - 1] = false;
+
+        BooleanTensor tensor = BooleanTensor.create(data);
+        assertFalse(tensor.allTrue());
+        assertFalse(tensor.allFalse());
+
+        tensor.setValue(true, 0, LENGTH_ACROSS_WORDS - 1);
+        assertTrue(tensor.allTrue());
+    }
+
+    @Test
+    public void doesSetDoubleIfAcrossWords() {
+        boolean[] data = new boolean[LENGTH_ACROSS_WORDS];
+        double[] trueValues = new double[LENGTH_ACROSS_WORDS];
+        double[] expected = new double[LENGTH_ACROSS_WORDS];
+        for (int i = 0; i < LENGTH_ACROSS_WORDS; i++) {
+            data[i] = i < 64 || i % 3 == 0;
+            trueValues[i] = i;
+            expected[i] = data[i] ? i : -1.0;
+        }
+
+        DoubleTensor result = BooleanTensor.create(data).setDoubleIf(
+            DoubleTensor.create(trueValues),
+            DoubleTensor.scalar(-1.0)
+        );
+
+        assertArrayEquals(expected, result.asFlatDoubleArray(), 0.0);
+    }
+
+    @Test
+    public void doesSetIntegerIf() {
+        IntegerTensor trueCase = IntegerTensor.create(new int[]{1, 2, 3, 4}, new int[]{2, 2});
+        IntegerTensor falseCase = IntegerTensor.create(new int[]{5, 7, 11, 23}, new int[]{2, 2});
+
+        IntegerTensor result = matrixA.setIntegerIf(trueCase, falseCase);
+        assertArrayEquals(new int[]{1, 7, 3, 23}, result.asFlatIntegerArray());
+    }
+
+    @Test
+    public void doesSetBooleanIf() {
+        BooleanTensor result = matrixA.setBooleanIf(matrixB, matrixC);
+        assertArrayEquals(new Boolean[]{false, true, true, false}, result.asFlatArray());
+    }
+
+    @Test
+    public void canSliceAndConcat() {
+        BooleanTensor cube = BooleanTensor.create(new boolean[]{true, true, false, false, true, true, false, false}, 2, 2, 2);
+
+        BooleanTensor face = cube.slice(2, 0);
+        assertArrayEquals(new int[]{2, 2}, face.getShape());
+        assertArrayEquals(new Boolean[]{true, false, true, false}, face.asFlatArray());
+
+        BooleanTensor concat = matrixA.concat(1, matrixB);
+        assertArrayEquals(new int[]{2, 4}, concat.getShape());
+        assertArrayEquals(new Boolean[]{true, false, false, false, true, false, true, true}, concat.asFlatArray());
+    }
+
+    @Test
+    public void isEqualToSimpleTensorWithSameValues() {
+        BooleanTensor simple = new SimpleBooleanTensor(new boolean[]{true, false, true, false}, new int[]{2, 2});
+
+        assertEquals(simple, matrixA);
+        assertEquals(matrixA, simple);
+        assertEquals(matrixA, matrixA.reshape(4, 1).reshape(2, 2));
+    }
+
+    @Test
+    public void hasSameHashCodeWhenEqual() {
+        BooleanTensor reshaped = matrixA.reshape(4, 1).reshape(2, 2);
+
+        assertEquals(matrixA.hashCode(), reshaped.hashCode());
+        assertEquals(matrixA.hashCode(), matrixA.duplicate().hashCode());
+    }
+
+    @Test
+    public void isNotChangedByChangesToShapeItWasCreatedWith() {
+        int[] shape = new int[]{2, 2};
+        BooleanTensor tensor = BooleanTensor.create(new boolean[]{true, false, true, false}, shape);
+        BooleanTensor reshaped = tensor.reshape(shape);
+
+        shape[0] = 4;
+        shape[1] = 1;
+
+        assertArrayEquals(new int[]{2, 2}, tensor.getShape());
+        assertArrayEquals(new int[]{2, 2}, reshaped.getShape());
+        assertFalse(tensor.getValue(1, 1));
+    }
+
+}
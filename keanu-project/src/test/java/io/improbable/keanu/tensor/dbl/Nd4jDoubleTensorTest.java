@@ -1,5 +1,6 @@
 package io.improbable.keanu.tensor.dbl;
 
+import io.improbable.keanu.tensor.Tensor;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -257,4 +258,60 @@ public class Nd4jDoubleTensorTest {
         assertEquals(left, expected);
     }
 
+    @Test
+    public void writingToSliceDoesNotChangeSource() {
+        DoubleTensor row = matrixA.slice(0, 1);
+        row.timesInPlace(10.0);
+
+        assertArrayEquals(new double[]{30, 40}, row.asFlatDoubleArray(), 0.0);
+        assertArrayEquals(new double[]{1, 2, 3, 4}, matrixA.asFlatDoubleArray(), 0.0);
+    }
+
+    @Test
+    public void writingToSourceDoesNotChangeSlice() {
+        DoubleTensor column = matrixA.slice(1, 1);
+        matrixA.plusInPlace(1.0);
+        matrixA.setValue(100.0, 0, 1);
+
+        assertArrayEquals(new double[]{2, 4}, column.asFlatDoubleArray(), 0.0);
+        assertArrayEquals(new double[]{2, 100, 4, 5}, matrixA.asFlatDoubleArray(), 0.0);
+    }
+
+    @Test
+    public void writingToReshapeDoesNotChangeSource() {
+        DoubleTensor reshaped = matrixA.reshape(1, 4);
+        reshaped.getFlattenedView().set(0, -1.0);
+
+        assertArrayEquals(new double[]{-1, 2, 3, 4}, reshaped.asFlatDoubleArray(), 0.0);
+        assertArrayEquals(new double[]{1, 2, 3, 4}, matrixA.asFlatDoubleArray(), 0.0);
+    }
+
+    @Test
+    public void canReadFlattenedViewOfTranspose() {
+        DoubleTensor transposed = matrixA.transpose();
+
+        assertEquals(2.0, transposed.getFlattenedView().get(2), 0.0);
+        assertArrayEquals(new double[]{1, 3, 2, 4}, transposed.apply(x -> x).asFlatDoubleArray(), 0.0);
+    }
+
+    @Test
+    public void canReadFlattenedViewOfColumnSlice() {
+        Tensor.FlattenedView<Double> column = matrixA.slice(1, 1).getFlattenedView();
+
+        assertEquals(2, column.size());
+        assertEquals(2.0, column.get(0), 0.0);
+        assertEquals(4.0, column.get(1), 0.0);
+    }
+
+    @Test
+    public void writingToFlattenedViewOfTransposeDoesNotChangeSource() {
+        DoubleTensor transposed = matrixA.transpose();
+        Tensor.FlattenedView<Double> view = transposed.getFlattenedView();
+        view.set(1, -1.0);
+
+        assertEquals(-1.0, view.get(1), 0.0);
+        assertArrayEquals(new double[]{1, -1, 2, 4}, transposed.asFlatDoubleArray(), 0.0);
+        assertArrayEquals(new double[]{1, 2, 3, 4}, matrixA.asFlatDoubleArray(), 0.0);
+    }
+
 }
@@ -0,0 +1,26 @@
+package io.improbable.keanu.tensor.dbl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PrecisionTest {
+
+    @Test
+    public void defaultsToDoublePrecision() {
+        assertEquals(Precision.DOUBLE, Precision.fromProperty(null));
+    }
+
+    @Test
+    public void canSelectSinglePrecision() {
+        assertEquals(Precision.FLOAT, Precision.fromProperty("float"));
+        assertEquals(Precision.FLOAT, Precision.fromProperty("FLOAT"));
+        assertEquals("float", Precision.FLOAT.getNd4jDataType());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownPrecision() {
+        Precision.fromProperty("half");
+    }
+
+}
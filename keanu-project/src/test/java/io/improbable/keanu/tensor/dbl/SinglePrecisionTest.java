@@ -0,0 +1,93 @@
+package io.improbable.keanu.tensor.dbl;
+
+import io.improbable.keanu.distributions.continuous.Gaussian;
+import io.improbable.keanu.tensor.ParallelLoops;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * ND4J picks its data type once per process, so these only run in the JVM started by the
+ * singlePrecisionTest task, which selects float precision, and are skipped otherwise.
+ */
+public class SinglePrecisionTest {
+
+    private static final double LARGE_VALUE = 1e8;
+    private static final int SMALL_VALUE_COUNT = 1000;
+
+    @Before
+    public void onlyInSinglePrecision() {
+        assumeTrue(Precision.isSinglePrecision());
+    }
+
+    @Test
+    public void storesValuesInSinglePrecision() {
+        DoubleTensor tensor = DoubleTensor.create(new double[]{0.1, 0.2}, 1, 2);
+
+        assertNotEquals(0.1, tensor.getValue(0, 0), 0.0);
+        assertEquals((float) 0.1, tensor.getValue(0, 0), 0.0);
+    }
+
+    /**
+     * 1e8 is a float, but a float sum that adds ones to it one at a time never changes, so these
+     * are only exact if the sum is accumulated in double
+     */
+    @Test
+    public void sumsInDoublePrecision() {
+        DoubleTensor tensor = DoubleTensor.create(largeValueFollowedByOnes(), 1, SMALL_VALUE_COUNT + 1);
+
+        assertEquals(LARGE_VALUE + SMALL_VALUE_COUNT, tensor.sum(), 0.0);
+    }
+
+    @Test
+    public void sumsOverDimensionsInDoublePrecision() {
+        double[] row = largeValueFollowedByOnes();
+        double[] rows = new double[2 * row.length];
+        System.arraycopy(row, 0, rows, 0, row.length);
+        System.arraycopy(row, 0, rows, row.length, row.length);
+        DoubleTensor tensor = DoubleTensor.create(rows, 2, row.length);
+
+        DoubleTensor summed = tensor.sum(1);
+
+        assertArrayEquals(new int[]{2, 1}, summed.getShape());
+        assertArrayEquals(new double[]{LARGE_VALUE + SMALL_VALUE_COUNT, LARGE_VALUE + SMALL_VALUE_COUNT}, summed.asFlatDoubleArray(), 0.0);
+    }
+
+    @Test
+    public void largeSumIsAccumulatedInDoublePrecision() {
+        int length = 2 * ParallelLoops.getThreshold();
+        DoubleTensor tensor = DoubleTensor.create(0.1, new int[]{1, length});
+
+        assertEquals(length * (double) (float) 0.1, tensor.sum(), 1e-6);
+    }
+
+    @Test
+    public void logProbIsWithinToleranceOfDoublePrecision() {
+        int length = 10000;
+        DoubleTensor x = KeanuRandom.getDefaultRandom().nextGaussian(new int[]{1, length}).times(3.0).plus(1.0);
+        double[] xValues = x.asFlatDoubleArray();
+
+        double logProb = Gaussian.withParameters(DoubleTensor.scalar(1.0), DoubleTensor.scalar(3.0)).logProb(x).sum();
+
+        double expected = 0.0;
+        for (double xValue : xValues) {
+            double standardised = (xValue - 1.0) / 3.0;
+            expected += -0.5 * standardised * standardised - Math.log(3.0) - Gaussian.LN_SQRT_2PI;
+        }
+        assertEquals(expected, logProb, Math.abs(expected) * 1e-5);
+    }
+
+    private static double[] largeValueFollowedByOnes() {
+        double[] values = new double[SMALL_VALUE_COUNT + 1];
+        values[0] = LARGE_VALUE;
+        for (int i = 1; i < values.length; i++) {
+            values[i] = 1.0;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,248 @@
+package io.improbable.keanu.tensor.intgr;
+
+import io.improbable.keanu.tensor.bool.BooleanTensor;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SimpleIntegerTensorTest {
+
+    @Test
+    public void factoryMethodsCreateSimpleIntegerTensors() {
+        assertTrue(IntegerTensor.create(new int[]{1, 2, 3, 4}, 2, 2) instanceof SimpleIntegerTensor);
+        assertTrue(IntegerTensor.create(5, new int[]{2, 2}) instanceof SimpleIntegerTensor);
+        assertTrue(IntegerTensor.zeros(new int[]{2, 2}) instanceof SimpleIntegerTensor);
+        assertTrue(IntegerTensor.ones(new int[]{2, 2}) instanceof SimpleIntegerTensor);
+        assertTrue(IntegerTensor.eye(2) instanceof SimpleIntegerTensor);
+    }
+
+    @Test
+    public void keepsPrecisionAboveFloatMantissa() {
+        int large = (1 << 24) + 1;
+        IntegerTensor tensor = SimpleIntegerTensor.create(new int[]{large, large + 2}, new int[]{1, 2});
+
+        assertArrayEquals(new int[]{large, large + 2}, tensor.asFlatIntegerArray());
+        assertEquals(large * 2 + 2, (int) tensor.sum());
+        assertArrayEquals(new int[]{large + 1, large + 3}, tensor.plus(1).asFlatIntegerArray());
+    }
+
+    @Test
+    public void doesNotShareDataWithSourceArray() {
+        int[] data = new int[]{1, 2, 3, 4};
+        IntegerTensor tensor = SimpleIntegerTensor.create(data, new int[]{2, 2});
+        data[0] = 100;
+
+        assertEquals(1, (int) tensor.getValue(0, 0));
+    }
+
+    @Test
+    public void doesMinusScalar() {
+        IntegerTensor matrixA = SimpleIntegerTensor.create(new int[]{1, 2, 3, 4}, new int[]{2, 2});
+        IntegerTensor result = matrixA.minus(2);
+        int[] expected = new int[]{-1, 0, 1, 2};
+        assertArrayEquals(expected, result.asFlatIntegerArray());
+        assertFalse(Arrays.equals(expected, matrixA.asFlatIntegerArray()));
+
+        IntegerTensor resultInPlace = matrixA.minusInPlace(2);
+        assertArrayEquals(expected, resultInPlace.asFlatIntegerArray());
+        assertArrayEquals(expected, matrixA.asFlatIntegerArray());
+    }
+
+    @Test
+    public void doesDivideScalar() {
+        IntegerTensor matrixA = SimpleIntegerTensor.create(new int[]{1, 2, 3, 4}, new int[]{2, 2});
+        IntegerTensor result = matrixA.div(2);
+        int[] expected = new int[]{0, 1, 1, 2};
+        assertArrayEquals(expected, result.asFlatIntegerArray());
+
+        IntegerTensor resultInPlace = matrixA.divInPlace(2);
+        assertArrayEquals(expected, resultInPlace.asFlatIntegerArray());
+        assertArrayEquals(new double[]{0.0, 1.0, 1.0, 2.0}, matrixA.asFlatDoubleArray(), 0.0);
+    }
+
+    @Test
+    public void doesElementwiseDivideWithFloorSemantics() {
+        IntegerTensor matrixA = SimpleIntegerTensor.create(new int[]{1, 2, 3, -4}, new int[]{2, 2});
+        IntegerTensor matrixC = SimpleIntegerTensor.create(new int[]{5, -1, 7, 3}, new int[]{2, 2});
+        IntegerTensor result = matrixA.div(matrixC);
+        int[] expected = new int[]{0, -2, 0, -2};
+        assertArrayEquals(expected, result.asFlatIntegerArray());
+    }
+
+    @Test
+    public void doesElementwisePower() {
+        IntegerTensor matrixA = SimpleIntegerTensor.create(new int[]{1, 2, 3, 4}, new int[]{2, 2});
+        IntegerTensor matrixB = SimpleIntegerTensor.create(new int[]{2, 3, 2, 0}, new int[]{2, 2});
+        IntegerTensor result = matrixA.pow(matrixB);
+        int[] expected = new int[]{1, 8, 9, 1};
+        assertArrayEquals(expected, result.asFlatIntegerArray());
+        assertArrayEquals(new int[]{1, 4, 9, 16}, matrixA.pow(2).asFlatIntegerArray());
+    }
+
+    @Test
+    public void doesElementwiseTimes() {
+        IntegerTensor matrixA = SimpleIntegerTensor.create(new int[]{1, 2, 3, 4}, new int[]{2, 2});
+        IntegerTensor matrixB = SimpleIntegerTensor.create(new int[]{2, 3, 2, 0}, new int[]{2, 2});
+        IntegerTensor result = matrixA.times(matrixB);
+        int[] expected = new int[]{2, 6, 6, 0};
+        assertArrayEquals(expected, result.asFlatIntegerArray());
+        assertFalse(Arrays.equals(expected, matrixA.asFlatIntegerArray()));
+
+        IntegerTensor resultInPlace = matrixA.timesInPlace(matrixB);
+        assertArrayEquals(expected, resultInPlace.asFlatIntegerArray());
+        assertArrayEquals(expected, matrixA.asFlatIntegerArray());
+    }
+
+    @Test
+    public void canBroadcastAdd() {
+        IntegerTensor x = SimpleIntegerTensor.create(new int[]{1, 2, 3}, new int[]{3, 1});
+        IntegerTensor s = SimpleIntegerTensor.create(new int[]{
+            -5, -2, -3, -7, -8,
+            -5, -2, -3, -7, -8,
+            -5, -2, -3, -7, -8
+        }, new int[]{3, 5});
+
+        IntegerTensor expected = SimpleIntegerTensor.create(new int[]{
+            -4, -1, -2, -6, -7,
+            -3, 0, -1, -5, -6,
+            -2, 1, 0, -4, -5
+        }, new int[]{3, 5});
+
+        assertEquals(expected, s.plus(x));
+        assertEquals(expected, x.plus(s));
+    }
+
+    @Test
+    public void canMatrixMultiply() {
+        IntegerTensor left = SimpleIntegerTensor.create(new int[]{1, 2, 3, 4, 5, 6}, new int[]{2, 3});
+        IntegerTensor right = SimpleIntegerTensor.create(new int[]{7, 8, 9, 10, 11, 12}, new int[]{3, 2});
+
+        IntegerTensor result = left.matrixMultiply(right);
+
+        assertArrayEquals(new int[]{2, 2}, result.getShape());
+        assertArrayEquals(new int[]{58, 64, 139, 154}, result.asFlatIntegerArray());
+    }
+
+    @Test
+    public void canTensorMultiply() {
+        IntegerTensor left = SimpleIntegerTensor.create(new int[]{1, 2, 3, 4, 5, 6, 7, 8}, new int[]{2, 2, 2});
+        IntegerTensor right = SimpleIntegerTensor.create(new int[]{1, 2, 3, 4, 5, 6}, new int[]{2, 3});
+
+        IntegerTensor result = left.tensorMultiply(right, new int[]{1}, new int[]{0});
+
+        assertArrayEquals(new int[]{2, 2, 3}, result.getShape());
+        assertArrayEquals(new int[]{
+            13, 17, 21,
+            18, 24, 30,
+            33, 45, 57,
+            38, 52, 66
+        }, result.asFlatIntegerArray());
+    }
+
+    @Test
+    public void canSumOverDimensions() {
+        IntegerTensor matrix = SimpleIntegerTensor.create(new int[]{1, 2, 3, 4, 5, 6}, new int[]{2, 3});
+
+        IntegerTensor sumRows = matrix.sum(0);
+        IntegerTensor sumColumns = matrix.sum(1);
+        IntegerTensor sumAll = matrix.sum(0, 1);
+
+        assertArrayEquals(new int[]{1, 3}, sumRows.getShape());
+        assertArrayEquals(new int[]{5, 7, 9}, sumRows.asFlatIntegerArray());
+        assertArrayEquals(new int[]{2, 1}, sumColumns.getShape());
+        assertArrayEquals(new int[]{6, 15}, sumColumns.asFlatIntegerArray());
+        assertArrayEquals(new int[]{1, 1}, sumAll.getShape());
+        assertEquals(21, (int) sumAll.scalar());
+    }
+
+    @Test
+    public void canTranspose() {
+        IntegerTensor matrix = SimpleIntegerTensor.create(new int[]{1, 2, 3, 4, 5, 6}, new int[]{2, 3});
+        IntegerTensor transposed = matrix.transpose();
+
+        assertArrayEquals(new int[]{3, 2}, transposed.getShape());
+        assertArrayEquals(new int[]{1, 4, 2, 5, 3, 6}, transposed.asFlatIntegerArray());
+    }
+
+    @Test
+    public void canSlice() {
+        IntegerTensor matrix = SimpleIntegerTensor.create(new int[]{1, 2, 3, 4, 5, 6}, new int[]{2, 3});
+
+        IntegerTensor row = matrix.slice(0, 1);
+        IntegerTensor column = matrix.slice(1, 2);
+
+        assertArrayEquals(new int[]{1, 3}, row.getShape());
+        assertArrayEquals(new int[]{4, 5, 6}, row.asFlatIntegerArray());
+        assertArrayEquals(new int[]{2, 1}, column.getShape());
+        assertArrayEquals(new int[]{3, 6}, column.asFlatIntegerArray());
+    }
+
+    @Test
+    public void canConcat() {
+        IntegerTensor a = SimpleIntegerTensor.create(new int[]{1, 2, 3, 4}, new int[]{2, 2});
+        IntegerTensor b = SimpleIntegerTensor.create(new int[]{5, 6}, new int[]{2, 1});
+
+        IntegerTensor result = a.concat(1, b);
+
+        assertArrayEquals(new int[]{2, 3}, result.getShape());
+        assertArrayEquals(new int[]{1, 2, 5, 3, 4, 6}, result.asFlatIntegerArray());
+    }
+
+    @Test
+    public void canDiag() {
+        IntegerTensor vector = SimpleIntegerTensor.create(new int[]{1, 2, 3}, new int[]{1, 3});
+
+        IntegerTensor result = vector.diag();
+
+        assertArrayEquals(new int[]{3, 3}, result.getShape());
+        assertArrayEquals(new int[]{1, 0, 0, 0, 2, 0, 0, 0, 3}, result.asFlatIntegerArray());
+    }
+
+    @Test
+    public void doesSetWithMask() {
+        IntegerTensor matrix = SimpleIntegerTensor.create(new int[]{-1, 2, 3, 4}, new int[]{2, 2});
+        IntegerTensor mask = matrix.getLessThanMask(IntegerTensor.scalar(3));
+        int[] expected = new int[]{100, 100, 3, 4};
+
+        IntegerTensor result = matrix.setWithMask(mask, 100);
+        assertArrayEquals(expected, result.asFlatIntegerArray());
+
+        IntegerTensor resultInPlace = matrix.setWithMaskInPlace(mask, 100);
+        assertArrayEquals(expected, resultInPlace.asFlatIntegerArray());
+        assertArrayEquals(expected, matrix.asFlatIntegerArray());
+    }
+
+    @Test
+    public void doesCompareGreaterThanOrEqual() {
+        IntegerTensor matrix = SimpleIntegerTensor.create(new int[]{1, 2, 3, 4}, new int[]{2, 2});
+        IntegerTensor otherMatrix = SimpleIntegerTensor.create(new int[]{0, 2, 4, 7}, new int[]{2, 2});
+        BooleanTensor result = matrix.greaterThanOrEqual(otherMatrix);
+        Boolean[] expected = new Boolean[]{true, true, false, false};
+        assertArrayEquals(expected, result.asFlatArray());
+    }
+
+    @Test
+    public void isEqualToNd4jTensorWithSameValues() {
+        IntegerTensor simple = SimpleIntegerTensor.create(new int[]{1, 2, 3, 4}, new int[]{2, 2});
+        IntegerTensor nd4j = Nd4jIntegerTensor.create(new int[]{1, 2, 3, 4}, new int[]{2, 2});
+
+        assertEquals(simple, nd4j);
+        assertEquals(nd4j, simple);
+        assertEquals(simple, nd4j.plus(simple).minus(simple));
+    }
+
+    @Test
+    public void reshapeSharesDataUntilWritten() {
+        IntegerTensor matrix = SimpleIntegerTensor.create(new int[]{1, 2, 3, 4}, new int[]{2, 2});
+        IntegerTensor reshaped = matrix.reshape(1, 4);
+
+        reshaped.plusInPlace(1);
+        matrix.setValue(10, 0, 0);
+
+        assertArrayEquals(new int[]{2, 3, 4, 5}, reshaped.asFlatIntegerArray());
+        assertArrayEquals(new int[]{10, 2, 3, 4}, matrix.asFlatIntegerArray());
+    }
+
+}
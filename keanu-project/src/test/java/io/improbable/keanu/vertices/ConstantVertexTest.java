@@ -0,0 +1,45 @@
+package io.improbable.keanu.vertices;
+
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.GaussianVertex;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConstantVertexTest {
+
+    @Test
+    public void internsEqualScalars() {
+        assertSame(ConstantVertex.shared(2.0), ConstantVertex.shared(2.0));
+        assertSame(ConstantVertex.shared(3), ConstantVertex.shared(3));
+        assertSame(ConstantVertex.shared(true), ConstantVertex.shared(true));
+
+        assertNotSame(ConstantVertex.shared(2.0), ConstantVertex.shared(3.0));
+        assertNotSame(ConstantVertex.shared(0.0), ConstantVertex.shared(-0.0));
+        assertNotSame(ConstantVertex.of(2.0), ConstantVertex.of(2.0));
+    }
+
+    @Test
+    public void sharedConstantsDontJoinGraphs() {
+        DoubleVertex shared = ConstantVertex.shared(5.0);
+        DoubleVertex a = new GaussianVertex(shared, 1.0);
+        DoubleVertex b = new GaussianVertex(shared, 1.0);
+
+        assertTrue(shared.getChildren().isEmpty());
+        assertFalse(a.getConnectedGraph().contains(b));
+        assertFalse(b.getConnectedGraph().contains(a));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void sharedConstantsCantBeChanged() {
+        ConstantVertex.shared(7.0).setValue(8.0);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void sharedConstantsCantBeObserved() {
+        ConstantVertex.shared(7.0).observe(8.0);
+    }
+}
@@ -0,0 +1,170 @@
+package io.improbable.keanu.vertices;
+
+import io.improbable.keanu.network.BayesianNetwork;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.BetaVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.GammaVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.GaussianVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.StudentTVertex;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ValueStoreTest {
+
+    private DoubleVertex A;
+    private DoubleVertex B;
+    private DoubleVertex C;
+
+    @Before
+    public void setup() {
+        A = new GaussianVertex(0.0, 1.0);
+        B = A.plus(1.0);
+        C = new GaussianVertex(B, 1.0);
+        A.setAndCascade(1.0);
+        C.setValue(2.0);
+    }
+
+    @Test
+    public void changesInAStoreDontReachTheGraph() {
+        ValueStore store = new ValueStore();
+
+        double inStore = store.evaluate(() -> {
+            A.setAndCascade(5.0);
+            C.observe(7.0);
+            return B.getValue().scalar();
+        });
+
+        assertEquals(6.0, inStore, 0.0);
+        assertEquals(1.0, A.getValue().scalar(), 0.0);
+        assertEquals(2.0, B.getValue().scalar(), 0.0);
+        assertFalse(C.isObserved());
+        assertEquals(3, store.size());
+
+        store.run(() -> {
+            assertEquals(5.0, A.getValue().scalar(), 0.0);
+            assertTrue(C.isObserved());
+        });
+    }
+
+    @Test
+    public void aNewStoreStartsFromTheGraphsValues() {
+        double logProb = new BayesianNetwork(Arrays.asList(A, C)).getLogOfMasterP();
+
+        double logProbInStore = new ValueStore().evaluate(() -> new BayesianNetwork(Arrays.asList(A, C)).getLogOfMasterP());
+
+        assertEquals(logProb, logProbInStore, 0.0);
+    }
+
+    @Test
+    public void copiesCanBeChangedIndependently() {
+        ValueStore store = new ValueStore();
+        store.run(() -> A.setAndCascade(3.0));
+
+        ValueStore copy = store.copy();
+        store.run(() -> A.setAndCascade(4.0));
+
+        assertEquals(5.0, store.evaluate(() -> B.getValue().scalar()), 0.0);
+        assertEquals(4.0, copy.evaluate(() -> B.getValue().scalar()), 0.0);
+        assertEquals(2.0, B.getValue().scalar(), 0.0);
+    }
+
+    @Test
+    public void storesOnDifferentThreadsDontInterfere() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch bothSet = new CountDownLatch(2);
+
+        try {
+            Future<Double> first = executor.submit(() -> valueOfBAfterSettingA(10.0, bothSet));
+            Future<Double> second = executor.submit(() -> valueOfBAfterSettingA(20.0, bothSet));
+
+            assertEquals(11.0, first.get(), 0.0);
+            assertEquals(21.0, second.get(), 0.0);
+            assertEquals(2.0, B.getValue().scalar(), 0.0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void aCachedDistributionCanBeSharedByStoresOnDifferentThreads() throws Exception {
+        assertSharedDistributionMatchesUnshared(() -> new GaussianVertex(0.5, 2.0));
+        assertSharedDistributionMatchesUnshared(() -> new GammaVertex(0.0, 2.0, 3.0));
+        assertSharedDistributionMatchesUnshared(() -> new BetaVertex(2.0, 3.0));
+        assertSharedDistributionMatchesUnshared(() -> new StudentTVertex(3));
+    }
+
+    /**
+     * Each round starts from a new vertex, so every thread asks for the distribution at about the
+     * same time and one of them makes it while the others may already be using it.
+     */
+    private void assertSharedDistributionMatchesUnshared(Supplier<DoubleVertex> vertexFactory) throws Exception {
+        int threadCount = 4;
+        int roundCount = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+
+        try {
+            for (int round = 0; round < roundCount; round++) {
+                DoubleVertex shared = vertexFactory.get();
+                CountDownLatch allSet = new CountDownLatch(threadCount);
+
+                List<Future<double[]>> results = new ArrayList<>();
+                for (int thread = 0; thread < threadCount; thread++) {
+                    double value = (thread + 1.0) / (threadCount + 1.0);
+                    results.add(executor.submit(() -> new ValueStore().evaluate(() -> {
+                        shared.setValue(value);
+                        allSet.countDown();
+                        try {
+                            allSet.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        return logProbAndGradientAtValue(shared);
+                    })));
+                }
+
+                for (int thread = 0; thread < threadCount; thread++) {
+                    DoubleVertex unshared = vertexFactory.get();
+                    unshared.setValue((thread + 1.0) / (threadCount + 1.0));
+                    assertArrayEquals(logProbAndGradientAtValue(unshared), results.get(thread).get(), 0.0);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static double[] logProbAndGradientAtValue(DoubleVertex vertex) {
+        return new double[]{
+            vertex.logProbAtValue(),
+            vertex.dLogProbAtValue().get(vertex.getId()).scalar()
+        };
+    }
+
+    private double valueOfBAfterSettingA(double a, CountDownLatch bothSet) {
+        return new ValueStore().evaluate(() -> {
+            A.setAndCascade(a);
+            bothSet.countDown();
+            try {
+                bothSet.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return B.getValue().scalar();
+        });
+    }
+}
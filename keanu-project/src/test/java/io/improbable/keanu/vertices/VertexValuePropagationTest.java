@@ -1,8 +1,11 @@
 package io.improbable.keanu.vertices;
 
 import io.improbable.keanu.algorithms.graphtraversal.VertexValuePropagation;
+import io.improbable.keanu.vertices.bool.BoolVertex;
+import io.improbable.keanu.vertices.bool.probabilistic.Flip;
 import io.improbable.keanu.vertices.dbl.DoubleVertex;
 import io.improbable.keanu.vertices.dbl.probabilistic.GaussianVertex;
+import io.improbable.keanu.vertices.generic.nonprobabilistic.If;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -82,4 +85,53 @@ public class VertexValuePropagationTest {
         assertEquals(6, n.get());
     }
 
+    @Test
+    public void onlyCalculatesSelectedBranchOnCascade() {
+        AtomicInteger thnOps = new AtomicInteger(0);
+        AtomicInteger elsOps = new AtomicInteger(0);
+        AtomicInteger dualNumbers = new AtomicInteger(0);
+        DoubleVertex start = new GaussianVertex(0, 1);
+        BoolVertex predicate = new Flip(0.5);
+        predicate.setValue(true);
+
+        int links = 5;
+        DoubleVertex thn = addLinks(start, thnOps, dualNumbers, links);
+        DoubleVertex els = addLinks(start, elsOps, dualNumbers, links);
+        DoubleVertex ifVertex = If.isTrue(predicate).then(thn).orElse(els);
+
+        start.setAndCascade(2.0);
+
+        assertEquals(Math.pow(2, links + 1), ifVertex.getValue().scalar(), 0.0);
+        assertEquals(3 * links, thnOps.get());
+        assertEquals(0, elsOps.get());
+
+        predicate.setAndCascade(false);
+
+        //The other branch is calculated from the current start value once it's selected
+        assertEquals(Math.pow(2, links + 1), ifVertex.getValue().scalar(), 0.0);
+        assertEquals(3 * links, thnOps.get());
+        assertEquals(3 * links, elsOps.get());
+    }
+
+    @Test
+    public void onlyDifferentiatesSelectedBranch() {
+        AtomicInteger ops = new AtomicInteger(0);
+        AtomicInteger thnDualNumbers = new AtomicInteger(0);
+        AtomicInteger elsDualNumbers = new AtomicInteger(0);
+        DoubleVertex start = new GaussianVertex(0, 1);
+        start.setValue(2.0);
+        BoolVertex predicate = new Flip(0.5);
+        predicate.setValue(false);
+
+        int links = 3;
+        DoubleVertex thn = addLinks(start, ops, thnDualNumbers, links);
+        DoubleVertex els = addLinks(start, ops, elsDualNumbers, links);
+        DoubleVertex ifVertex = If.isTrue(predicate).then(thn).orElse(els);
+
+        ifVertex.getDualNumber();
+
+        assertEquals(0, thnDualNumbers.get());
+        assertEquals(3 * links, elsDualNumbers.get());
+    }
+
 }
@@ -33,7 +33,7 @@ public class BoolVertexTest {
 
     @Before
     public void setup() {
-        random = new KeanuRandom(1);
+        random = new KeanuRandom(2);
         v1 = new Flip(pV1);
         v2 = new Flip(pV2);
     }
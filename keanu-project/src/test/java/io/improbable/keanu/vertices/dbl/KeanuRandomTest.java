@@ -0,0 +1,143 @@
+package io.improbable.keanu.vertices.dbl;
+
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class KeanuRandomTest {
+
+    private static final int N = 100000;
+
+    @Test
+    public void isReproducibleFromSeed() {
+        KeanuRandom first = new KeanuRandom(42);
+        KeanuRandom second = new KeanuRandom(42);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(first.nextDouble(), second.nextDouble(), 0.0);
+            assertEquals(first.nextGaussian(), second.nextGaussian(), 0.0);
+        }
+    }
+
+    @Test
+    public void splitsAreReproducibleFromSeed() {
+        KeanuRandom first = new KeanuRandom(42);
+        KeanuRandom second = new KeanuRandom(42);
+
+        KeanuRandom firstChild = first.split();
+        KeanuRandom secondChild = second.split();
+
+        assertArrayEquals(
+            firstChild.nextDouble(new int[]{10, 10}).asFlatDoubleArray(),
+            secondChild.nextDouble(new int[]{10, 10}).asFlatDoubleArray(),
+            0.0
+        );
+        assertEquals(first.nextDouble(), second.nextDouble(), 0.0);
+    }
+
+    @Test
+    public void splitStreamsAreUncorrelated() {
+        KeanuRandom parent = new KeanuRandom(1);
+        KeanuRandom child = parent.split();
+
+        DoubleTensor parentSamples = parent.nextGaussian(new int[]{1, N});
+        DoubleTensor childSamples = child.nextGaussian(new int[]{1, N});
+
+        assertFalse(parentSamples.equals(childSamples));
+        double correlation = parentSamples.times(childSamples).sum() / N;
+        assertEquals(0.0, correlation, 0.02);
+    }
+
+    @Test
+    public void gaussianHasExpectedMoments() {
+        DoubleTensor samples = new KeanuRandom(1).nextGaussian(new int[]{1, N});
+
+        assertEquals(0.0, samples.average(), 0.02);
+        assertEquals(1.0, samples.standardDeviation(), 0.02);
+    }
+
+    @Test
+    public void gaussianTailHasExpectedMass() {
+        KeanuRandom random = new KeanuRandom(1);
+        int beyondThreeSigma = 0;
+        for (int i = 0; i < N; i++) {
+            if (Math.abs(random.nextGaussian()) > 3.0) {
+                beyondThreeSigma++;
+            }
+        }
+
+        assertEquals(0.0027, (double) beyondThreeSigma / N, 0.0006);
+    }
+
+    @Test
+    public void gammaHasExpectedMoments() {
+        for (double k : new double[]{0.3, 1.0, 2.5, 40.0}) {
+            KeanuRandom random = new KeanuRandom(1);
+            double[] samples = new double[N];
+            for (int i = 0; i < N; i++) {
+                samples[i] = random.nextGamma(k);
+            }
+
+            assertMoments(samples, k, k);
+        }
+    }
+
+    @Test
+    public void poissonHasExpectedMoments() {
+        for (double mu : new double[]{0.5, 7.0, 12.0, 1000.0}) {
+            KeanuRandom random = new KeanuRandom(1);
+            double[] samples = new double[N];
+            for (int i = 0; i < N; i++) {
+                samples[i] = random.nextPoisson(mu);
+            }
+
+            assertMoments(samples, mu, mu);
+        }
+    }
+
+    @Test
+    public void binomialHasExpectedMoments() {
+        int[] ns = new int[]{10, 50, 100, 100000};
+        double[] ps = new double[]{0.3, 0.15, 0.8, 0.5};
+
+        for (int j = 0; j < ns.length; j++) {
+            KeanuRandom random = new KeanuRandom(1);
+            double[] samples = new double[N];
+            for (int i = 0; i < N; i++) {
+                samples[i] = random.nextBinomial(ns[j], ps[j]);
+            }
+
+            assertMoments(samples, ns[j] * ps[j], ns[j] * ps[j] * (1 - ps[j]));
+        }
+    }
+
+    @Test
+    public void nextIntIsWithinBound() {
+        KeanuRandom random = new KeanuRandom(1);
+        for (int i = 0; i < 1000; i++) {
+            int value = random.nextInt(7);
+            assertFalse(value < 0 || value >= 7);
+        }
+    }
+
+    private static void assertMoments(double[] samples, double expectedMean, double expectedVariance) {
+        double mean = 0.0;
+        for (double sample : samples) {
+            mean += sample;
+        }
+        mean /= samples.length;
+
+        double variance = 0.0;
+        for (double sample : samples) {
+            variance += (sample - mean) * (sample - mean);
+        }
+        variance /= samples.length;
+
+        assertEquals(expectedMean, mean, 0.02 * Math.max(1.0, expectedMean));
+        assertEquals(expectedVariance, variance, 0.03 * Math.max(1.0, expectedVariance));
+    }
+
+}
@@ -2,9 +2,14 @@ package io.improbable.keanu.vertices.dbl.nonprobabilistic.operators.binary;
 
 import io.improbable.keanu.tensor.dbl.DoubleTensor;
 import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.nonprobabilistic.diff.DualNumber;
+import io.improbable.keanu.vertices.dbl.probabilistic.UniformVertex;
 import org.junit.Test;
 
 import static io.improbable.keanu.vertices.dbl.nonprobabilistic.operators.binary.BinaryOperationTestHelpers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertEquals;
 
 public class DivisionVertexTest {
 
@@ -49,4 +54,23 @@ public class DivisionVertexTest {
             DoubleVertex::divideBy
         );
     }
+
+    @Test
+    public void dividesByImmediateScalarWithoutAddingAParent() {
+        UniformVertex A = new UniformVertex(0.0, 10.0);
+        A.setAndCascade(6.0);
+
+        DoubleVertex byScalar = new DivisionVertex(A, 3.0);
+        DoubleVertex ofScalar = new DivisionVertex(3.0, A);
+
+        assertThat(byScalar.getParents(), contains(A));
+        assertThat(ofScalar.getParents(), contains(A));
+        assertEquals(2.0, byScalar.getValue().scalar(), 1e-10);
+        assertEquals(0.5, ofScalar.getValue().scalar(), 1e-10);
+
+        DualNumber byScalarDual = byScalar.getDualNumber();
+        DualNumber ofScalarDual = ofScalar.getDualNumber();
+        assertEquals(1.0 / 3.0, byScalarDual.getPartialDerivatives().withRespectTo(A).scalar(), 1e-10);
+        assertEquals(-3.0 / 36.0, ofScalarDual.getPartialDerivatives().withRespectTo(A).scalar(), 1e-10);
+    }
 }
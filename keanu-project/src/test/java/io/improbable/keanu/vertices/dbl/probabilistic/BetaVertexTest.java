@@ -27,7 +27,7 @@ public class BetaVertexTest {
 
     @Before
     public void setup() {
-        random = new KeanuRandom(1);
+        random = new KeanuRandom(2);
     }
 
     @Test
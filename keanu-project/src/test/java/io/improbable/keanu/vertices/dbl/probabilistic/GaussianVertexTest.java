@@ -18,6 +18,7 @@ import java.util.function.Supplier;
 
 import static io.improbable.keanu.vertices.dbl.probabilistic.ProbabilisticDoubleTensorContract.moveAlongDistributionAndTestGradientOnARangeOfHyperParameterValues;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class GaussianVertexTest {
 
@@ -183,4 +184,19 @@ public class GaussianVertexTest {
             random
         );
     }
+
+    @Test
+    public void reusesParameterTermsUntilAParentValueChanges() {
+        UniformVertex mu = new UniformVertex(0.0, 10.0);
+        mu.setValue(1.0);
+        GaussianVertex gaussian = new GaussianVertex(mu, 2.0);
+
+        double logPdfBefore = gaussian.logPdf(0.5);
+        assertSame(gaussian.distribution(), gaussian.distribution());
+        assertEquals(new NormalDistribution(1.0, 2.0).logDensity(0.5), logPdfBefore, 1e-10);
+        assertEquals(logPdfBefore, gaussian.logPdf(0.5), 0.0);
+
+        mu.setValue(3.0);
+        assertEquals(new NormalDistribution(3.0, 2.0).logDensity(0.5), gaussian.logPdf(0.5), 1e-10);
+    }
 }
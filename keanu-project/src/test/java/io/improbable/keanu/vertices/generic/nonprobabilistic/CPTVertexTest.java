@@ -3,11 +3,19 @@ package io.improbable.keanu.vertices.generic.nonprobabilistic;
 import io.improbable.keanu.tensor.bool.BooleanTensor;
 import io.improbable.keanu.vertices.bool.BoolVertex;
 import io.improbable.keanu.vertices.bool.probabilistic.Flip;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.nonprobabilistic.ConstantDoubleVertex;
+import io.improbable.keanu.vertices.dbl.nonprobabilistic.DoubleCPTVertex;
 import org.junit.Test;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 import static io.improbable.keanu.vertices.bool.nonprobabilistic.ConstantBoolVertex.FALSE;
 import static io.improbable.keanu.vertices.bool.nonprobabilistic.ConstantBoolVertex.TRUE;
 import static junit.framework.TestCase.assertFalse;
+import static org.junit.Assert.assertEquals;
 import static junit.framework.TestCase.assertTrue;
 
 public class CPTVertexTest {
@@ -56,4 +64,80 @@ public class CPTVertexTest {
         B.setAndCascade(false);
         assertFalse(cpt.getValue().scalar());
     }
+
+    @Test
+    public void looksUpEveryCombinationOfInputs() {
+        BoolVertex A = new Flip(0.5);
+        BoolVertex B = new Flip(0.5);
+        BoolVertex C = new Flip(0.5);
+
+        DoubleCPTVertex cpt = ConditionalProbabilityTable.of(A, B, C)
+            .when(false, false, true).then(4.0)
+            .when(true, false, true).then(5.0)
+            .when(false, true, false).then(2.0)
+            .when(true, true, true).then(7.0)
+            .orDefault(-1.0);
+
+        double[] expected = new double[]{-1.0, -1.0, 2.0, -1.0, 4.0, 5.0, -1.0, 7.0};
+        for (int index = 0; index < expected.length; index++) {
+            A.setAndCascade((index & 1) != 0);
+            B.setAndCascade((index & 2) != 0);
+            C.setAndCascade((index & 4) != 0);
+            assertEquals(expected[index], cpt.getValue().scalar(), 0.0);
+        }
+    }
+
+    @Test
+    public void looksUpConditionsWhenThereAreTooManyInputsForATable() {
+        int inputCount = CPTVertex.MAX_DENSE_INPUTS + 1;
+        BoolVertex[] inputs = new BoolVertex[inputCount];
+        Boolean[] allTrue = new Boolean[inputCount];
+        for (int i = 0; i < inputCount; i++) {
+            inputs[i] = new Flip(0.5);
+            inputs[i].setValue(true);
+            allTrue[i] = true;
+        }
+
+        DoubleCPTVertex cpt = ConditionalProbabilityTable.of(inputs)
+            .when(allTrue).then(1.0)
+            .orDefault(0.0);
+
+        assertEquals(1.0, cpt.lazyEval().scalar(), 0.0);
+
+        inputs[inputCount - 1].setAndCascade(false);
+        assertEquals(0.0, cpt.getValue().scalar(), 0.0);
+    }
+
+    @Test
+    public void looksUpConditionsWhenATableWouldMostlyHoldTheDefault() {
+        int inputCount = 10;
+        BoolVertex[] inputs = new BoolVertex[inputCount];
+        Boolean[] alternating = new Boolean[inputCount];
+        for (int i = 0; i < inputCount; i++) {
+            alternating[i] = i % 2 == 0;
+            inputs[i] = new Flip(0.5);
+            inputs[i].setValue(alternating[i]);
+        }
+
+        DoubleCPTVertex cpt = ConditionalProbabilityTable.of(inputs)
+            .when(alternating).then(1.0)
+            .orDefault(0.0);
+
+        assertFalse(CPTVertex.isDense(inputCount, 1));
+        assertTrue(CPTVertex.isDense(3, 1));
+        assertEquals(1.0, cpt.lazyEval().scalar(), 0.0);
+
+        inputs[0].setAndCascade(false);
+        assertEquals(0.0, cpt.getValue().scalar(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAConditionWithMoreValuesThanInputs() {
+        BoolVertex A = new Flip(0.5);
+
+        Map<CPTVertex.Condition, DoubleVertex> conditions = new HashMap<>();
+        conditions.put(new CPTVertex.Condition(new Boolean[]{true, true}), new ConstantDoubleVertex(1.0));
+
+        new DoubleCPTVertex(Collections.singletonList(A), conditions, new ConstantDoubleVertex(0.0));
+    }
 }
@@ -3,6 +3,7 @@ package io.improbable.keanu.vertices.generic.probabilistic.discrete;
 import io.improbable.keanu.vertices.dbl.DoubleVertex;
 import io.improbable.keanu.vertices.dbl.KeanuRandom;
 import io.improbable.keanu.vertices.ConstantVertex;
+import io.improbable.keanu.vertices.ValueStore;
 import org.junit.Before;
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -81,6 +82,78 @@ public class SelectVertexTest {
         assertProportionsWithinExpectedRanges(normalisedSelectableValues, proportions);
     }
 
+    @Test
+    public void manyCategoriesAreSampledInProportion() {
+        int categories = 1000;
+        LinkedHashMap<Integer, DoubleVertex> selectableValues = new LinkedHashMap<>();
+        for (int i = 0; i < categories; i++) {
+            selectableValues.put(i, ConstantVertex.of(i % 2 == 0 ? 0.0 : 1.0 + i));
+        }
+        SelectVertex<Integer> select = new SelectVertex<>(selectableValues);
+
+        double expectedMean = 0.0;
+        double sum = 0.0;
+        for (int i = 1; i < categories; i += 2) {
+            expectedMean += i * (1.0 + i);
+            sum += 1.0 + i;
+        }
+        expectedMean /= sum;
+
+        double mean = 0.0;
+        for (int i = 0; i < N; i++) {
+            int sample = select.sample(random);
+            assertEquals("zero probability category sampled", 1, sample % 2);
+            mean += sample;
+        }
+        mean /= N;
+
+        assertEquals(expectedMean, mean, 0.01 * expectedMean);
+        assertEquals(Math.log(2.0 / sum), select.logProb(1), 1e-12);
+        assertEquals(Double.NEGATIVE_INFINITY, select.logProb(0), 0.0);
+    }
+
+    @Test
+    public void tablesAreRebuiltWhenAProbabilityChanges() {
+        LinkedHashMap<TestEnum, DoubleVertex> selectableValues = new LinkedHashMap<>();
+        DoubleVertex weightOfA = ConstantVertex.of(1.0);
+        selectableValues.put(TestEnum.A, weightOfA);
+        selectableValues.put(TestEnum.B, ConstantVertex.of(3.0));
+        SelectVertex<TestEnum> select = new SelectVertex<>(selectableValues);
+
+        assertEquals(Math.log(0.25), select.logProb(TestEnum.A), 1e-12);
+
+        weightOfA.setValue(0.0);
+        assertEquals(Double.NEGATIVE_INFINITY, select.logProb(TestEnum.A), 0.0);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(TestEnum.B, select.sample(random));
+        }
+        assertEquals(Double.NEGATIVE_INFINITY, select.logProb(TestEnum.C), 0.0);
+    }
+
+    @Test
+    public void tablesFollowTheProbabilitiesInEachStore() {
+        LinkedHashMap<TestEnum, DoubleVertex> selectableValues = new LinkedHashMap<>();
+        DoubleVertex weightOfA = ConstantVertex.of(1.0);
+        selectableValues.put(TestEnum.A, weightOfA);
+        selectableValues.put(TestEnum.B, ConstantVertex.of(3.0));
+        SelectVertex<TestEnum> select = new SelectVertex<>(selectableValues);
+
+        ValueStore changed = new ValueStore();
+        changed.run(() -> weightOfA.setValue(3.0));
+
+        assertEquals(Math.log(0.5), changed.evaluate(() -> select.logProb(TestEnum.A)), 1e-12);
+        assertEquals(Math.log(0.25), select.logProb(TestEnum.A), 1e-12);
+        assertEquals(Math.log(0.25), new ValueStore().evaluate(() -> select.logProb(TestEnum.A)), 1e-12);
+        assertEquals(Math.log(0.5), changed.evaluate(() -> select.logProb(TestEnum.A)), 1e-12);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cannotSampleWhenAllProbabilitiesAreZero() {
+        LinkedHashMap<TestEnum, DoubleVertex> selectableValues = new LinkedHashMap<>();
+        selectableValues.put(TestEnum.A, ConstantVertex.of(0.0));
+        new SelectVertex<>(selectableValues).sample(random);
+    }
+
     private LinkedHashMap<TestEnum, Double> testSample(LinkedHashMap<TestEnum, DoubleVertex> selectableValues,
                                                        KeanuRandom random) {
 
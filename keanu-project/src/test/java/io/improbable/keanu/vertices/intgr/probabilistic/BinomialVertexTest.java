@@ -55,4 +55,22 @@ public class BinomialVertexTest {
         double expected = distribution.logProbability(k1) + distribution.logProbability(k2);
         assertEquals(expected, actual, 1e-3);
     }
+
+    @Test
+    public void logPmfIsCorrectWhenCoefficientWouldOverflow() {
+        double p = 0.4;
+        int n = 1000;
+        int k = 410;
+
+        BinomialVertex vertex = new BinomialVertex(p, n);
+        BinomialDistribution distribution = new BinomialDistribution(n, p);
+
+        assertEquals(distribution.logProbability(k), vertex.logPmf(k), 1e-9);
+    }
+
+    @Test
+    public void logPmfIsZeroForCertainOutcomes() {
+        assertEquals(0.0, new BinomialVertex(0.0, 10).logPmf(0), 0.0);
+        assertEquals(0.0, new BinomialVertex(1.0, 10).logPmf(10), 0.0);
+    }
 }
@@ -1,6 +1,9 @@
 package io.improbable.keanu.vertices.intgr.probabilistic;
 
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
 import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import io.improbable.keanu.vertices.dbl.nonprobabilistic.ConstantDoubleVertex;
+import org.apache.commons.math3.distribution.PoissonDistribution;
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -54,4 +57,28 @@ public class PoissonVertexTest {
 
         assertTrue(logProbAboveThreshold > logProbThreshold && logProbThreshold > logProb);
     }
+
+    @Test
+    public void logProbIsFiniteAndCorrectForLargeValues() {
+        double mu = 5000.0;
+        int k = 5100;
+
+        double logProb = new PoissonVertex(mu).logPmf(k);
+        double expected = new PoissonDistribution(mu).logProbability(k);
+
+        assertEquals(expected, logProb, 1e-9);
+    }
+
+    @Test
+    public void logProbOfVectorMatchesSumOfElements() {
+        DoubleTensor mu = DoubleTensor.create(new double[]{0.5, 3.0, 40.0});
+        PoissonVertex poissonVertex = new PoissonVertex(new int[]{1, 3}, new ConstantDoubleVertex(mu));
+
+        double expected = new PoissonDistribution(0.5).logProbability(0)
+            + new PoissonDistribution(3.0).logProbability(4)
+            + new PoissonDistribution(40.0).logProbability(37);
+
+        assertEquals(expected, poissonVertex.logPmf(new int[]{0, 4, 37}), 1e-10);
+        assertEquals(Double.NEGATIVE_INFINITY, poissonVertex.logPmf(new int[]{0, -1, 37}), 0.0);
+    }
 }
@@ -73,4 +73,31 @@ public class UniformIntVertexTest {
 
         assertTrue(uniqueValues.size() > 1);
     }
+
+    @Test
+    public void logPmfIsUniformWithinBounds() {
+        UniformIntVertex vertex = new UniformIntVertex(new int[]{1, 3}, lowerBound, upperBound);
+
+        assertEquals(-3 * Math.log(10), vertex.logPmf(new int[]{10, 15, 19}), 1e-12);
+        assertEquals(Double.NEGATIVE_INFINITY, vertex.logPmf(new int[]{10, 20, 19}), 0.0);
+        assertEquals(Double.NEGATIVE_INFINITY, vertex.logPmf(new int[]{9, 15, 19}), 0.0);
+    }
+
+    @Test
+    public void logPmfUsesElementwiseBounds() {
+        UniformIntVertex vertex = new UniformIntVertex(
+            new int[]{1, 2},
+            IntegerTensor.create(new int[]{0, 5}),
+            IntegerTensor.create(new int[]{4, 7})
+        );
+
+        assertEquals(-Math.log(4) - Math.log(2), vertex.logPmf(new int[]{3, 6}), 1e-12);
+        assertEquals(Double.NEGATIVE_INFINITY, vertex.logPmf(new int[]{3, 4}), 0.0);
+    }
+
+    @Test
+    public void logPmfDoesNotOverflowForFullIntRange() {
+        UniformIntVertex vertex = new UniformIntVertex(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        assertEquals(-Math.log((double) Integer.MAX_VALUE - Integer.MIN_VALUE), vertex.logPmf(0), 1e-12);
+    }
 }
@@ -0,0 +1,28 @@
+package io.improbable.keanu.vertices.regression;
+
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.Vertex;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+
+public class FiniteDifferences {
+
+    /**
+     * @return the central difference of the vertex's log prob in one element of a parameter, which is
+     * left at its values afterwards
+     */
+    public static double finiteDifference(Vertex<?> vertex, DoubleVertex parameter, double[] values, int index) {
+        double h = 1e-6;
+        double[] shifted = values.clone();
+
+        shifted[index] = values[index] + h;
+        parameter.setValue(DoubleTensor.create(shifted, parameter.getShape()));
+        double up = vertex.logProbAtValue();
+
+        shifted[index] = values[index] - h;
+        parameter.setValue(DoubleTensor.create(shifted, parameter.getShape()));
+        double down = vertex.logProbAtValue();
+
+        parameter.setValue(DoubleTensor.create(values, parameter.getShape()));
+        return (up - down) / (2 * h);
+    }
+}
@@ -0,0 +1,157 @@
+package io.improbable.keanu.vertices.regression;
+
+import io.improbable.keanu.algorithms.variational.optimizer.gradient.GradientOptimizer;
+import io.improbable.keanu.network.BayesianNetwork;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.ConstantVertex;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import io.improbable.keanu.vertices.dbl.probabilistic.GaussianVertex;
+import io.improbable.keanu.vertices.dbl.probabilistic.UniformVertex;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static io.improbable.keanu.vertices.dbl.nonprobabilistic.diff.LogProbGradient.getLogProbGradientWrtLatents;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class GaussianRegressionVertexTest {
+
+    private static final int N = 50;
+    private static final int P = 3;
+
+    private KeanuRandom random;
+
+    @Before
+    public void setup() {
+        random = new KeanuRandom(1);
+    }
+
+    @Test
+    public void matchesUnfusedModelWithFixedDesign() {
+        DoubleVertex x = ConstantVertex.of(random.nextGaussian(new int[]{N, P}));
+        DoubleTensor yData = random.nextGaussian(new int[]{N, 1});
+
+        DoubleVertex w = new GaussianVertex(new int[]{P, 1}, 0, 1);
+        DoubleVertex b = new GaussianVertex(0, 1);
+        DoubleVertex sigma = new UniformVertex(0.5, 3.0);
+
+        GaussianRegressionVertex fused = new GaussianRegressionVertex(x, w, b, sigma);
+        fused.observe(yData);
+
+        GaussianVertex unfused = new GaussianVertex(x.matrixMultiply(w).plus(b), sigma);
+        unfused.observe(yData);
+
+        for (int step = 0; step < 3; step++) {
+            w.setAndCascade(random.nextGaussian(new int[]{P, 1}));
+            b.setAndCascade(random.nextGaussian());
+            sigma.setAndCascade(random.nextDouble(0.5, 3.0));
+
+            assertEquals(unfused.logProbAtValue(), fused.logProbAtValue(), 1e-8);
+            assertGradientsEqual(unfused, fused, w, b, sigma);
+        }
+    }
+
+    @Test
+    public void matchesUnfusedModelNearTheOptimumOfAResponseWithALargeOffset() {
+        DoubleTensor xData = random.nextGaussian(new int[]{N, P});
+        DoubleTensor trueWeights = DoubleTensor.create(new double[]{0.5, -1.5, 2.0}, P, 1);
+        double offset = 1e8;
+        DoubleTensor yData = xData.matrixMultiply(trueWeights)
+            .plusInPlace(offset)
+            .plusInPlace(random.nextGaussian(new int[]{N, 1}).timesInPlace(1e-2));
+
+        DoubleVertex x = ConstantVertex.of(xData);
+        DoubleVertex w = new GaussianVertex(new int[]{P, 1}, 0, 1);
+        w.setValue(trueWeights);
+        DoubleVertex b = new GaussianVertex(0, 1);
+        b.setValue(offset);
+
+        GaussianRegressionVertex fused = new GaussianRegressionVertex(x, w, b, 1e-2);
+        fused.observe(yData);
+
+        GaussianVertex unfused = new GaussianVertex(x.matrixMultiply(w).plus(b), 1e-2);
+        unfused.observe(yData);
+
+        assertEquals(unfused.logProbAtValue(), fused.logProbAtValue(), 1e-3);
+        assertArrayEquals(
+            getLogProbGradientWrtLatents(unfused).get(b.getId()).asFlatDoubleArray(),
+            getLogProbGradientWrtLatents(fused).get(b.getId()).asFlatDoubleArray(),
+            1e-1
+        );
+    }
+
+    @Test
+    public void matchesUnfusedModelWithLatentDesignAndResponse() {
+        DoubleVertex x = new UniformVertex(new int[]{N, P}, -1, 1);
+        x.setValue(random.nextDouble(new int[]{N, P}));
+
+        DoubleVertex w = new GaussianVertex(new int[]{P, 1}, 0, 1);
+        w.setValue(random.nextGaussian(new int[]{P, 1}));
+        DoubleVertex b = new GaussianVertex(0, 1);
+        b.setValue(0.5);
+
+        GaussianRegressionVertex fused = new GaussianRegressionVertex(x, w, b, 2.0);
+        GaussianVertex unfused = new GaussianVertex(x.matrixMultiply(w).plus(b), 2.0);
+
+        DoubleTensor y = random.nextGaussian(new int[]{N, 1});
+        fused.setValue(y);
+        unfused.setValue(y);
+
+        assertEquals(unfused.logProbAtValue(), fused.logProbAtValue(), 1e-8);
+
+        Map<Long, DoubleTensor> expected = getLogProbGradientWrtLatents(unfused);
+        Map<Long, DoubleTensor> actual = getLogProbGradientWrtLatents(fused);
+
+        assertArrayEquals(expected.get(x.getId()).asFlatDoubleArray(), actual.get(x.getId()).asFlatDoubleArray(), 1e-8);
+        assertArrayEquals(expected.get(unfused.getId()).asFlatDoubleArray(), actual.get(fused.getId()).asFlatDoubleArray(), 1e-8);
+        assertGradientsEqual(unfused, fused, w, b);
+    }
+
+    @Test
+    public void recoversWeightsByMaxLikelihood() {
+        int n = 1000;
+        DoubleTensor trueWeights = DoubleTensor.create(new double[]{3.0, -2.0, 0.5}, P, 1);
+        double trueIntercept = 20.0;
+
+        DoubleVertex x = ConstantVertex.of(random.nextDouble(new int[]{n, P}).timesInPlace(10.0));
+        GaussianRegressionVertex generator = new GaussianRegressionVertex(x, ConstantVertex.of(trueWeights), ConstantVertex.of(trueIntercept), ConstantVertex.of(1.0));
+        DoubleTensor yData = generator.sample(random);
+
+        DoubleVertex w = new GaussianVertex(new int[]{P, 1}, 0, 10);
+        w.setValue(DoubleTensor.zeros(new int[]{P, 1}));
+        DoubleVertex b = new GaussianVertex(0, 100);
+        b.setValue(0.0);
+        GaussianRegressionVertex y = new GaussianRegressionVertex(x, w, b, 1.0);
+        y.observe(yData);
+
+        GradientOptimizer optimizer = GradientOptimizer.of(new BayesianNetwork(y.getConnectedGraph()));
+        optimizer.maxLikelihood();
+
+        assertArrayEquals(trueWeights.asFlatDoubleArray(), w.getValue().asFlatDoubleArray(), 0.05);
+        assertEquals(trueIntercept, b.getValue().scalar(), 0.3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsWeightsThatDontMatchTheDesignMatrix() {
+        new GaussianRegressionVertex(
+            ConstantVertex.of(DoubleTensor.zeros(new int[]{N, P})),
+            new GaussianVertex(new int[]{P + 1, 1}, 0, 1),
+            1.0
+        );
+    }
+
+    private static void assertGradientsEqual(DoubleVertex expectedVertex, DoubleVertex actualVertex, DoubleVertex... wrt) {
+        Map<Long, DoubleTensor> expected = getLogProbGradientWrtLatents(expectedVertex);
+        Map<Long, DoubleTensor> actual = getLogProbGradientWrtLatents(actualVertex);
+
+        for (DoubleVertex vertex : wrt) {
+            DoubleTensor expectedGradient = expected.get(vertex.getId());
+            DoubleTensor actualGradient = actual.get(vertex.getId());
+            assertArrayEquals(expectedGradient.getShape(), actualGradient.getShape());
+            assertArrayEquals(expectedGradient.asFlatDoubleArray(), actualGradient.asFlatDoubleArray(), 1e-8);
+        }
+    }
+}
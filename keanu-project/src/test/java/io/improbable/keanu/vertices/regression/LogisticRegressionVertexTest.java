@@ -0,0 +1,75 @@
+package io.improbable.keanu.vertices.regression;
+
+import io.improbable.keanu.tensor.bool.BooleanTensor;
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.vertices.ConstantVertex;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import io.improbable.keanu.vertices.dbl.probabilistic.GaussianVertex;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static io.improbable.keanu.vertices.dbl.nonprobabilistic.diff.LogProbGradient.getLogProbGradientWrtLatents;
+import static io.improbable.keanu.vertices.regression.FiniteDifferences.finiteDifference;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class LogisticRegressionVertexTest {
+
+    private static final int N = 40;
+    private static final int P = 2;
+
+    private KeanuRandom random;
+
+    @Before
+    public void setup() {
+        random = new KeanuRandom(1);
+    }
+
+    @Test
+    public void logProbMatchesBernoulliOfSigmoid() {
+        DoubleTensor xData = random.nextGaussian(new int[]{N, P});
+        DoubleTensor wData = DoubleTensor.create(new double[]{1.5, -0.5}, P, 1);
+        double b = 0.3;
+
+        LogisticRegressionVertex y = new LogisticRegressionVertex(ConstantVertex.of(xData), ConstantVertex.of(wData), ConstantVertex.of(b));
+        BooleanTensor yData = y.sample(random);
+
+        double[] x = xData.asFlatDoubleArray();
+        double[] w = wData.asFlatDoubleArray();
+        double[] outcomes = yData.asFlatDoubleArray();
+        double expected = 0.0;
+        for (int i = 0; i < N; i++) {
+            double eta = b + x[i * P] * w[0] + x[i * P + 1] * w[1];
+            double p = 1.0 / (1.0 + Math.exp(-eta));
+            expected += Math.log(outcomes[i] == 1.0 ? p : 1 - p);
+        }
+
+        assertEquals(expected, y.logPmf(yData), 1e-10);
+    }
+
+    @Test
+    public void gradientMatchesFiniteDifferences() {
+        DoubleVertex x = ConstantVertex.of(random.nextGaussian(new int[]{N, P}));
+        DoubleVertex w = new GaussianVertex(new int[]{P, 1}, 0, 1);
+        w.setValue(DoubleTensor.create(new double[]{0.8, -1.2}, P, 1));
+        DoubleVertex b = new GaussianVertex(0, 1);
+        b.setValue(-0.4);
+
+        LogisticRegressionVertex y = new LogisticRegressionVertex(x, w, b);
+        y.observe(y.sample(random));
+
+        Map<Long, DoubleTensor> gradient = getLogProbGradientWrtLatents(y);
+
+        double[] wValues = w.getValue().asFlatDoubleArray();
+        double[] expectedW = new double[P];
+        for (int j = 0; j < P; j++) {
+            expectedW[j] = finiteDifference(y, w, wValues, j);
+        }
+
+        assertArrayEquals(expectedW, gradient.get(w.getId()).asFlatDoubleArray(), 1e-5);
+        assertEquals(finiteDifference(y, b, b.getValue().asFlatDoubleArray(), 0), gradient.get(b.getId()).scalar(), 1e-5);
+    }
+}
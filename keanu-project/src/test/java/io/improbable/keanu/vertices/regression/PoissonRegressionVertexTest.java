@@ -0,0 +1,97 @@
+package io.improbable.keanu.vertices.regression;
+
+import io.improbable.keanu.tensor.dbl.DoubleTensor;
+import io.improbable.keanu.tensor.intgr.IntegerTensor;
+import io.improbable.keanu.vertices.ConstantVertex;
+import io.improbable.keanu.vertices.dbl.DoubleVertex;
+import io.improbable.keanu.vertices.dbl.KeanuRandom;
+import io.improbable.keanu.vertices.dbl.probabilistic.GaussianVertex;
+import io.improbable.keanu.vertices.intgr.probabilistic.PoissonVertex;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static io.improbable.keanu.vertices.dbl.nonprobabilistic.diff.LogProbGradient.getLogProbGradientWrtLatents;
+import static io.improbable.keanu.vertices.regression.FiniteDifferences.finiteDifference;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class PoissonRegressionVertexTest {
+
+    private static final int N = 40;
+    private static final int P = 2;
+
+    private KeanuRandom random;
+
+    @Before
+    public void setup() {
+        random = new KeanuRandom(1);
+    }
+
+    @Test
+    public void logProbMatchesPoissonOfExp() {
+        DoubleVertex x = ConstantVertex.of(random.nextGaussian(new int[]{N, P}));
+        DoubleVertex w = ConstantVertex.of(DoubleTensor.create(new double[]{0.7, -0.3}, P, 1));
+        DoubleVertex b = ConstantVertex.of(1.0);
+
+        PoissonRegressionVertex fused = new PoissonRegressionVertex(x, w, b);
+        PoissonVertex unfused = new PoissonVertex(x.matrixMultiply(w).plus(b).exp());
+
+        IntegerTensor counts = fused.sample(random);
+
+        assertEquals(unfused.logPmf(counts), fused.logPmf(counts), 1e-8);
+    }
+
+    @Test
+    public void gradientMatchesFiniteDifferences() {
+        DoubleVertex x = ConstantVertex.of(random.nextGaussian(new int[]{N, P}));
+        DoubleVertex w = new GaussianVertex(new int[]{P, 1}, 0, 1);
+        w.setValue(DoubleTensor.create(new double[]{0.4, 0.9}, P, 1));
+        DoubleVertex b = new GaussianVertex(0, 1);
+        b.setValue(0.2);
+
+        PoissonRegressionVertex y = new PoissonRegressionVertex(x, w, b);
+        y.observe(y.sample(random));
+
+        Map<Long, DoubleTensor> gradient = getLogProbGradientWrtLatents(y);
+
+        double[] wValues = w.getValue().asFlatDoubleArray();
+        double[] expectedW = new double[P];
+        for (int j = 0; j < P; j++) {
+            expectedW[j] = finiteDifference(y, w, wValues, j);
+        }
+
+        assertArrayEquals(expectedW, gradient.get(w.getId()).asFlatDoubleArray(), 1e-4);
+        assertEquals(finiteDifference(y, b, b.getValue().asFlatDoubleArray(), 0), gradient.get(b.getId()).scalar(), 1e-4);
+    }
+
+    @Test
+    public void logProbFollowsChangesToTheDesign() {
+        DoubleVertex x = new GaussianVertex(new int[]{N, P}, 0, 1);
+        x.setValue(random.nextGaussian(new int[]{N, P}));
+        DoubleVertex w = ConstantVertex.of(DoubleTensor.create(new double[]{0.7, -0.3}, P, 1));
+        DoubleVertex b = ConstantVertex.of(1.0);
+
+        PoissonRegressionVertex fused = new PoissonRegressionVertex(x, w, b);
+        PoissonVertex unfused = new PoissonVertex(x.matrixMultiply(w).plus(b).exp());
+        IntegerTensor counts = fused.sample(random);
+        double logPmfBeforeChange = fused.logPmf(counts);
+
+        x.setAndCascade(random.nextGaussian(new int[]{N, P}));
+
+        assertNotEquals(logPmfBeforeChange, fused.logPmf(counts), 1e-8);
+        assertEquals(unfused.logPmf(counts), fused.logPmf(counts), 1e-8);
+    }
+
+    @Test
+    public void negativeCountsAreImpossible() {
+        PoissonRegressionVertex y = new PoissonRegressionVertex(
+            ConstantVertex.of(DoubleTensor.ones(new int[]{2, 1})),
+            ConstantVertex.of(1.0)
+        );
+
+        assertEquals(Double.NEGATIVE_INFINITY, y.logPmf(IntegerTensor.create(new int[]{1, -1}, 2, 1)), 0.0);
+    }
+}